@@ -0,0 +1,26 @@
+package info.danbecker.ss.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * BenchmarkMain - runs the benchmarks of this package with the GC profiler,
+ * so each result comes with its allocation rate and bytes allocated per operation.
+ * Arguments are the JMH command line, for example
+ * {@code RuleBenchmark.find -p rule=XYChain} to run one benchmark of one rule.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class BenchmarkMain {
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		OptionsBuilder options = new OptionsBuilder();
+		options.parent(commandLine);
+		if (commandLine.getIncludes().isEmpty())
+			options.include(BenchmarkMain.class.getPackageName() + ".*Benchmark");
+		options.addProfiler(GCProfiler.class);
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,124 @@
+package info.danbecker.ss.bench;
+
+import info.danbecker.ss.Board;
+import info.danbecker.ss.Candidates;
+import info.danbecker.ss.CorpusRegression;
+import info.danbecker.ss.CorpusRegression.Puzzle;
+import info.danbecker.ss.SudokuSolver;
+import info.danbecker.ss.rules.FindUpdateRule;
+import info.danbecker.ss.sink.EventSink;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * CorpusStates - the puzzles of the bundled corpus and the states a solve passes through.
+ * <p>
+ * Each puzzle is solved once with the default rules, the same loop as SudokuSolver.solve,
+ * keeping a copy of the board and candidates at the start of each iteration.
+ * Those are the states every rule find sees during a solve.
+ * For each rule, the states where its find reports a hit are kept apart,
+ * so its update can be measured on states it actually changes.
+ * <p>
+ * The corpus is the JSON puzzles of src/main/resources, or of the directory
+ * given by the system property {@value #CORPUS_PROPERTY}.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class CorpusStates {
+	public static final String CORPUS_PROPERTY = "sudoku.corpus";
+	public static final String DEFAULT_CORPUS = CorpusRegression.DEFAULT_CORPUS;
+
+	/** A board and candidates copy, with the solution when the puzzle gives one. */
+	public record Snapshot(String puzzle, Board board, Candidates candidates, Board solution) {
+		/** Copies that an update may change. */
+		public Snapshot copy() {
+			try {
+				return new Snapshot(puzzle, new Board(board.toSudokuString("-")), new Candidates(candidates), solution);
+			} catch (ParseException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	protected final List<Puzzle> puzzles = new ArrayList<>();
+	protected final List<String> ruleNames = new ArrayList<>();
+	protected final List<Snapshot> iterationStates = new ArrayList<>();
+	protected final List<List<Snapshot>> hitStates = new ArrayList<>();
+
+	public CorpusStates() throws IOException, ParseException {
+		this(Path.of(System.getProperty(CORPUS_PROPERTY, DEFAULT_CORPUS)));
+	}
+
+	public CorpusStates(Path corpus) throws IOException, ParseException {
+		puzzles.addAll(CorpusRegression.loadDirectory(corpus));
+		if (puzzles.isEmpty())
+			throw new IllegalArgumentException("no JSON puzzles in corpus " + corpus);
+
+		FindUpdateRule[] rules = SudokuSolver.defaultRules();
+		for (FindUpdateRule rule : rules) {
+			ruleNames.add(rule.ruleName());
+			hitStates.add(new ArrayList<>());
+		}
+		for (Puzzle puzzle : puzzles)
+			collect(puzzle, rules);
+	}
+
+	/** Solves the puzzle as SudokuSolver.solve does, keeping the states along the way. */
+	protected void collect(Puzzle puzzle, FindUpdateRule[] rules) throws ParseException {
+		Board board = new Board(puzzle.text());
+		Board solution = puzzle.solution().isEmpty() ? null : new Board(puzzle.solution());
+		Candidates candidates = new Candidates(board);
+		boolean updated;
+		do {
+			updated = false;
+			iterationStates.add(new Snapshot(puzzle.name(), board, candidates, solution).copy());
+			for (int rulei = 0; rulei < rules.length; rulei++) {
+				Snapshot before = new Snapshot(puzzle.name(), board, candidates, solution).copy();
+				List<int[]> encs = rules[rulei].find(board, candidates);
+				if (null != encs && !encs.isEmpty())
+					hitStates.get(rulei).add(before);
+				if (0 < rules[rulei].update(board, solution, candidates, encs, EventSink.none())) {
+					updated = true;
+					if (0 != rulei)
+						break;
+				}
+				if (!candidates.emptyLocations().isEmpty() || 0 == candidates.getAllCount())
+					break;
+			}
+		} while (updated);
+	}
+
+	public List<Puzzle> puzzles() {
+		return Collections.unmodifiableList(puzzles);
+	}
+
+	/** Names of the default rules, in solve order. */
+	public List<String> ruleNames() {
+		return Collections.unmodifiableList(ruleNames);
+	}
+
+	/** Index of the named rule in SudokuSolver.defaultRules. */
+	public int ruleIndex(String ruleName) {
+		int rulei = ruleNames.indexOf(ruleName);
+		if (rulei < 0)
+			throw new IllegalArgumentException(format("rule %s is not one of %s", ruleName, ruleNames));
+		return rulei;
+	}
+
+	/** States at the start of each solve iteration over the whole corpus. */
+	public List<Snapshot> iterationStates() {
+		return Collections.unmodifiableList(iterationStates);
+	}
+
+	/** States where the find of the rule at this index reports a hit. */
+	public List<Snapshot> hitStates(int rulei) {
+		return Collections.unmodifiableList(hitStates.get(rulei));
+	}
+}
@@ -0,0 +1,104 @@
+package info.danbecker.ss.bench;
+
+import info.danbecker.ss.SudokuSolver;
+import info.danbecker.ss.bench.CorpusStates.Snapshot;
+import info.danbecker.ss.rules.FindUpdateRule;
+import info.danbecker.ss.rules.ForcingChains;
+import info.danbecker.ss.rules.Nishio;
+import info.danbecker.ss.sink.EventSink;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * RuleBenchmark - find and update of each default rule over the corpus states.
+ * <p>
+ * find runs the rule find on the state at the start of every solve iteration of the corpus,
+ * which is the work a solve asks of the rule. One operation is one pass over those states.
+ * <p>
+ * findUpdate copies each state where the rule hits, then finds and updates the copy.
+ * One operation is one pass over those states, and copy measures the copies alone
+ * so they may be subtracted. A rule that never hits in the corpus has an empty pass.
+ * Updates report to EventSink.none(), so no narration is formatted.
+ * <p>
+ * The rule param is a rule name of SudokuSolver.defaultRules.
+ * ForcingChains and Nishio run with no transposition table, since a shared table
+ * would answer every pass after the first from the branches of earlier passes,
+ * and the benchmark would measure table hits rather than the rule.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuleBenchmark {
+	@Param({"LegalCandidates", "SingleCandidates", "SinglePositions",
+		"CandidateLines", "MultipleLines", "NakedSubsets2", "NakedSubsets3", "NakedSubsets4",
+		"DoublePairs", "HiddenSubsets2", "HiddenSubsets3", "HiddenSubsets4",
+		"Fish2", "Fish3", "Fish4", "Skyscraper", "TwoStringKite",
+		"FinnedFish2", "FinnedFish3", "FinnedFish4", "Templates",
+		"XYWing", "WWing", "SimpleColors", "RemotePairs", "XChain", "XYChain",
+		"BiLocCycleDigitRepeat", "BiLocCycleNonRepeat",
+		"ForcingChainsCell", "ForcingChainsUnit", "Nishio"})
+	public String rule;
+
+	protected FindUpdateRule findUpdateRule;
+	protected List<Snapshot> iterationStates;
+	protected List<Snapshot> hitStates;
+
+	@Setup(Level.Trial)
+	public void setupTrial() throws Exception {
+		CorpusStates corpus = new CorpusStates();
+		int rulei = corpus.ruleIndex(rule);
+		findUpdateRule = withoutTable(SudokuSolver.defaultRules()[rulei]);
+		iterationStates = corpus.iterationStates();
+		hitStates = corpus.hitStates(rulei);
+	}
+
+	@Benchmark
+	public void find(Blackhole blackhole) {
+		for (Snapshot state : iterationStates)
+			blackhole.consume(findUpdateRule.find(state.board(), state.candidates()));
+	}
+
+	@Benchmark
+	public void findUpdate(Blackhole blackhole) {
+		for (Snapshot hit : hitStates) {
+			Snapshot state = hit.copy();
+			List<int[]> encs = findUpdateRule.find(state.board(), state.candidates());
+			blackhole.consume(findUpdateRule.update(state.board(), state.solution(), state.candidates(), encs, EventSink.none()));
+		}
+	}
+
+	@Benchmark
+	public void copy(Blackhole blackhole) {
+		for (Snapshot hit : hitStates)
+			blackhole.consume(hit.copy());
+	}
+
+	/** Returns the rule, or a copy with no transposition table for the rules that keep one. */
+	protected static FindUpdateRule withoutTable(FindUpdateRule rule) {
+		if (rule instanceof ForcingChains forcingChains)
+			return new ForcingChains(forcingChains.getMode(), null, ForcingChains.DEFAULT_PARALLEL_CHOICES);
+		if (rule instanceof Nishio)
+			return new Nishio(null);
+		return rule;
+	}
+}
@@ -0,0 +1,65 @@
+package info.danbecker.ss.bench;
+
+import info.danbecker.ss.CorpusRegression.Puzzle;
+import info.danbecker.ss.SudokuSolver;
+import info.danbecker.ss.rules.ForcingChains;
+import info.danbecker.ss.sink.EventSink;
+import info.danbecker.ss.sink.TextSink;
+
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * SolveBenchmark - SudokuSolver.solve of every puzzle of the corpus.
+ * One operation solves the whole corpus with the shared default rules, as the command line does.
+ * The sink param is none for a quiet solve, or text to format the usual narration to a null writer.
+ * The shared ForcingChains table is cleared before each invocation,
+ * so every corpus solve starts from an empty table as a new process would.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SolveBenchmark {
+	@Param({"none", "text"})
+	public String sink;
+
+	protected List<Puzzle> puzzles;
+	protected EventSink eventSink;
+
+	@Setup(Level.Trial)
+	public void setupTrial() throws Exception {
+		puzzles = new CorpusStates().puzzles();
+		eventSink = "text".equals(sink) ? new TextSink(Writer.nullWriter()) : EventSink.none();
+	}
+
+	@Setup(Level.Invocation)
+	public void setupInvocation() {
+		ForcingChains.SHARED_TABLE.clear();
+	}
+
+	@Benchmark
+	public void solveCorpus(Blackhole blackhole) throws Exception {
+		for (Puzzle puzzle : puzzles)
+			blackhole.consume(SudokuSolver.solve(puzzle.text(), puzzle.solution(), null, eventSink));
+	}
+}
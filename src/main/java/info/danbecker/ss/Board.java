@@ -4,6 +4,7 @@ import static java.lang.String.format;
 
 import java.lang.ArrayIndexOutOfBoundsException;
 import java.text.ParseException;
+import java.util.Arrays;
 
 /**
  * Sudoku board
@@ -23,6 +24,8 @@ public class Board implements Comparable<Board> {
 	public static short NOT_OCCUPIED = 0;
 	public static int NOT_FOUND = -1;
 	private int[][] digits;
+	// Zobrist hash of the occupied digits, kept by set.
+	private long hash;
 	// Cache for the digitComplete check.
 	private final boolean [] digitCompleted = new boolean [] {
 		false, false, false, false, false, false, false, false, false,
@@ -119,6 +122,38 @@ public class Board implements Comparable<Board> {
 			}
 			digits = temp;
 		}
+		rehash();
+	}
+
+	/**
+	 * Replaces the digits of this board from text as parse reads it,
+	 * 81 cells of digits, '.' or '0', with rows optionally ended by '-' or a line end.
+	 * Unlike parse, it reuses the board storage and allocates nothing for legal text,
+	 * so a board may be reloaded for each puzzle of a batch.
+	 */
+	public void load( CharSequence text ) throws ParseException {
+		int cells = 0;
+		for ( int chari = 0; chari < text.length(); chari++ ) {
+			char ch = text.charAt( chari );
+			if (( '0' <= ch && ch <= '9' ) || '.' == ch || ' ' == ch )
+				cells++;
+			else if ( '-' != ch && '\n' != ch && '\r' != ch )
+				throw new ParseException( format( "character %d of text %s is illegal character %s", chari, text, ch ), chari );
+		}
+		if ( ROWS * COLS != cells )
+			throw new ParseException( format( "cell count is %d for text %s", cells, text ), text.length() );
+		if ( null == digits )
+			digits = new int[ ROWS ][ COLS ];
+		int celli = 0;
+		for ( int chari = 0; chari < text.length(); chari++ ) {
+			char ch = text.charAt( chari );
+			if ( '1' <= ch && ch <= '9' )
+				digits[ celli / COLS ][ celli++ % COLS ] = ch - '0';
+			else if ( '0' == ch || '.' == ch || ' ' == ch )
+				digits[ celli / COLS ][ celli++ % COLS ] = NOT_OCCUPIED;
+		}
+		Arrays.fill( digitCompleted, false );
+		rehash();
 	}
 	
 	public int get( RowCol rowCol ) {
@@ -126,9 +161,34 @@ public class Board implements Comparable<Board> {
 	}
 	
 	public int set( RowCol rowCol, int val ) {
+		int celli = rowCol.row() * COLS + rowCol.col();
+		int previous = digits[ rowCol.row() ][ rowCol.col() ];
+		if ( NOT_OCCUPIED != previous )
+			hash ^= Zobrist.occupied( celli, previous );
+		if ( NOT_OCCUPIED != val )
+			hash ^= Zobrist.occupied( celli, val );
 		digits[ rowCol.row() ][ rowCol.col() ] = val;
 		return digits[ rowCol.row() ][ rowCol.col() ];
 	}
+
+	/**
+	 * Returns the 64 bit Zobrist hash of the occupied digits.
+	 * Equal boards have equal hashes. Kept up to date in O(1) by set.
+	 */
+	public long stateHash() {
+		return hash;
+	}
+
+	/** Recomputes the hash after the digits are replaced wholesale. */
+	private void rehash() {
+		hash = 0L;
+		for ( int rowi = 0; rowi < ROWS; rowi++ ) {
+			for ( int coli = 0; coli < COLS; coli++ ) {
+				if ( NOT_OCCUPIED != digits[ rowi ][ coli ] )
+					hash ^= Zobrist.occupied( rowi * COLS + coli, digits[ rowi ][ coli ] );
+			}
+		}
+	}
 	
 	/** Returns box index, given row and col. */
 	// 0, 1, 2
@@ -328,6 +388,7 @@ public class Board implements Comparable<Board> {
 				target.digits[coli][COLS-rowi-1] = origin.digits[ rowi ][coli ];
 			}
 		}
+		target.rehash();
 		return target;
 	}
 	
@@ -348,6 +409,7 @@ public class Board implements Comparable<Board> {
 				target.digits[ROWS-coli-1][rowi] = origin.digits[ rowi ][coli ];
 			}
 		}
+		target.rehash();
 		return target;
 	}
 	
@@ -377,6 +439,7 @@ public class Board implements Comparable<Board> {
 				}
 			}
 		}
+		target.rehash();
 		return target;
 	}
 	
@@ -404,9 +467,15 @@ public class Board implements Comparable<Board> {
         // Compare with class type
         if (!(obj instanceof Board that)) return false;
 
-        // Cast to same type  
+        // Different hashes are never equal. Equal hashes are confirmed by content.
+        if (this.hash != that.hash) return false;
 		return 0 == this.compareTo( that );
 	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode( hash );
+	}
 	
 	@Override
 	public String toString() {
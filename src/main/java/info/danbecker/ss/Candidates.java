@@ -45,6 +45,34 @@ public class Candidates implements Comparable<Candidates> {
 	// 9 rows, 9 cols, 9 digits.
 	// Int is negative digit for filled in, 0 for not candidate, digit for candidate
 	private final int [][][] candidates;
+	// Changes on every mutation, so derived data such as SolveContext knows when it is stale.
+	private int version;
+	// Zobrist hash of the whole state, the XOR of the cell hashes.
+	private long hash;
+	private final long [] cellHashes = new long[ ROWS * COLS ];
+
+	// Bivalue and trivalue index.
+	// Candidate mask of each cell, bit per zero-based digit, 0 for occupied.
+	private final int [] cellMasks = new int[ ROWS * COLS ];
+	// Cells by candidate mask slot as CellSet lo and hi longs.
+	private final long [] slotLo = new long[ INDEXED_MASKS ];
+	private final long [] slotHi = new long[ INDEXED_MASKS ];
+	// Steps of cell changes when tracing a solve, not copied.
+	private SolveTrace trace;
+
+	/** Largest candidate count of cells kept in the mask index. */
+	public static final int MAX_INDEXED_COUNT = 3;
+	// Slot of each 9 bit mask with 2 or 3 bits, or -1.
+	private static final int [] MASK_SLOT = new int[ 1 << DIGITS ];
+	private static final int INDEXED_MASKS;
+	static {
+		int slots = 0;
+		for ( int mask = 0; mask < MASK_SLOT.length; mask++ ) {
+			int bits = Integer.bitCount( mask );
+			MASK_SLOT[ mask ] = ( 2 <= bits && bits <= MAX_INDEXED_COUNT ) ? slots++ : -1;
+		}
+		INDEXED_MASKS = slots;
+	}
 
 	/**
 	 * Create an object with no occupies or no candidates
@@ -91,6 +119,28 @@ public class Candidates implements Comparable<Candidates> {
 		}
 	}
 
+	/**
+	 * Replaces all cells with the occupies of the given board and all candidates elsewhere,
+	 * as a new Candidates( board ) would have, reusing this storage.
+	 * The trace, if any, records the change of each cell.
+	 */
+	public void reset( Board board ) {
+		if ( null == board ) throw new IllegalArgumentException("board cannot be null");
+		for( int rowi = 0; rowi < ROWS; rowi++ ) {
+			for ( int coli = 0; coli < COLS; coli++) {
+				int occupied = board.get( ROWCOL[rowi][coli] );
+				int [] cell = candidates[ rowi ][ coli ];
+				for( int digiti = 0; digiti < DIGITS; digiti++) {
+					if ( NOT_OCCUPIED == occupied )
+						cell[ digiti ] = digiti + 1;
+					else
+						cell[ digiti ] = digiti + 1 == occupied ? -occupied : NOT_CANDIDATE;
+				}
+				changed( ROWCOL[rowi][coli] );
+			}
+		}
+	}
+
 	/**
 	 * Initialize candidate from string of candidates.
 	 * There should be 81 groups of candidate digits.
@@ -119,6 +169,117 @@ public class Candidates implements Comparable<Candidates> {
 				}
 			}
 		}
+		this.hash = that.hash;
+		System.arraycopy( that.cellHashes, 0, this.cellHashes, 0, cellHashes.length );
+		System.arraycopy( that.cellMasks, 0, this.cellMasks, 0, cellMasks.length );
+		System.arraycopy( that.slotLo, 0, this.slotLo, 0, slotLo.length );
+		System.arraycopy( that.slotHi, 0, this.slotHi, 0, slotHi.length );
+	}
+
+	/**
+	 * Called after any change to the cell.
+	 * Bumps the version, rehashes the cell, and moves the cell in the mask index.
+	 */
+	private void changed( RowCol rowCol ) {
+		version++;
+		int [] cell = candidates[ rowCol.row() ][ rowCol.col() ];
+		int mask = 0;
+		for ( int digi = 0; digi < DIGITS; digi++ ) {
+			if ( cell[ digi ] > 0 )
+				mask |= 1 << digi;
+		}
+		int celli = rowCol.row() * COLS + rowCol.col();
+		long cellHash = Zobrist.cell( celli, cell );
+		hash ^= cellHashes[ celli ] ^ cellHash;
+		cellHashes[ celli ] = cellHash;
+		int oldMask = cellMasks[ celli ];
+		if ( oldMask == mask ) return;
+		if ( null != trace ) {
+			int placed = 0;
+			for ( int digi = 0; 0 == mask && digi < DIGITS; digi++ ) {
+				if ( cell[ digi ] < 0 )
+					placed = -cell[ digi ];
+			}
+			trace.changed( celli, oldMask, mask, placed );
+		}
+		cellMasks[ celli ] = mask;
+		long lo = celli < 64 ? 1L << celli : 0L;
+		long hi = celli < 64 ? 0L : 1L << ( celli - 64 );
+		int oldSlot = MASK_SLOT[ oldMask ];
+		if ( 0 <= oldSlot ) {
+			slotLo[ oldSlot ] &= ~lo;
+			slotHi[ oldSlot ] &= ~hi;
+		}
+		int slot = MASK_SLOT[ mask ];
+		if ( 0 <= slot ) {
+			slotLo[ slot ] |= lo;
+			slotHi[ slot ] |= hi;
+		}
+	}
+
+	/**
+	 * Adds a step to this trace for each later cell change, or stops with null.
+	 * Copies of these candidates are not traced.
+	 */
+	public void setTrace( SolveTrace trace ) {
+		this.trace = trace;
+	}
+
+	/** Returns the remaining candidates of the cell as a mask, bit per zero-based digit. */
+	public int candidateMask( RowCol rowCol ) {
+		return cellMasks[ rowCol.row() * COLS + rowCol.col() ];
+	}
+
+	/**
+	 * Sets into the cells whose candidates are exactly this mask.
+	 * The mask, bit per zero-based digit, must have 2 to MAX_INDEXED_COUNT bits.
+	 * @return into
+	 */
+	public CellSet maskLocations( int mask, CellSet into ) {
+		int slot = ( 0 <= mask && mask < MASK_SLOT.length ) ? MASK_SLOT[ mask ] : -1;
+		if ( slot < 0 )
+			throw new IllegalArgumentException( format( "Mask %s is not indexed.", Integer.toBinaryString( mask )));
+		return into.set( slotLo[ slot ], slotHi[ slot ] );
+	}
+
+	/** Returns the cells whose candidates are exactly this mask. */
+	public CellSet maskLocations( int mask ) {
+		return maskLocations( mask, new CellSet() );
+	}
+
+	/**
+	 * Sets into the bivalue cells that have this one-based digit,
+	 * or all bivalue cells for ALL_DIGITS.
+	 * @return into
+	 */
+	public CellSet bivalueLocations( int digit, CellSet into ) {
+		into.clear();
+		for ( int digi = 0; digi < DIGITS; digi++ ) {
+			for ( int digj = digi + 1; digj < DIGITS; digj++ ) {
+				if ( ALL_DIGITS == digit || digit - 1 == digi || digit - 1 == digj ) {
+					int slot = MASK_SLOT[ ( 1 << digi ) | ( 1 << digj ) ];
+					into.addAll( slotLo[ slot ], slotHi[ slot ] );
+				}
+			}
+		}
+		return into;
+	}
+
+	/**
+	 * Returns a count that changes whenever these candidates change.
+	 * Caches of derived data compare it to know when to recompute.
+	 */
+	public int version() {
+		return version;
+	}
+
+	/**
+	 * Returns the 64 bit Zobrist hash of the occupied digits and candidates.
+	 * Equal states have equal hashes, whatever the order of changes that made them.
+	 * Kept up to date in O(1) by each mutator.
+	 */
+	public long stateHash() {
+		return hash;
 	}
 
 	/** Returns NOT_OCCUPIED if the box is empty, a positive digit if filled in. */
@@ -156,6 +317,7 @@ public class Candidates implements Comparable<Candidates> {
 				candidates[rowCol.row()][rowCol.col()][ digiti ] = NOT_CANDIDATE;
 			}
 		}
+		changed( rowCol );
 		return previous;
 	}
 
@@ -173,6 +335,7 @@ public class Candidates implements Comparable<Candidates> {
 					digit, rowCol, alreadyThere ));
 		}
        candidates[rowCol.row()][rowCol.col()][ digit - 1 ] = NOT_OCCUPIED;
+       changed( rowCol );
        return alreadyThere;
 	}
 
@@ -256,6 +419,7 @@ public class Candidates implements Comparable<Candidates> {
 	}
 
 	/** Returns all candidates in the given box.
+	 * The array is live. Change it only through the mutators, which keep the version.
 	 * @return int[] of 9 candidates, 0 for unoccupied
 	 */
 	public int [] getCandidates( RowCol rowCol ) {
@@ -320,7 +484,9 @@ public class Candidates implements Comparable<Candidates> {
 	 * @return the current candidate list.
 	 */
 	public int [] setCandidates( RowCol rowCol, int [] vals ) {
-		candidates[ rowCol.row() ][ rowCol.col() ] = vals;
+		// Copy rather than keep vals, so the caller cannot change the state behind the hash.
+		System.arraycopy( vals, 0, candidates[ rowCol.row() ][ rowCol.col() ], 0, DIGITS );
+		changed( rowCol );
 		return candidates[ rowCol.row() ][ rowCol.col() ];
 	}
 
@@ -331,6 +497,7 @@ public class Candidates implements Comparable<Candidates> {
 	public boolean addCandidate( RowCol rowCol, int digit ) {
 		int previous = candidates[rowCol.row()][rowCol.col()][ digit - 1 ];
 		candidates[rowCol.row()][rowCol.col()][ digit - 1 ] = digit;
+		if ( previous != digit ) changed( rowCol );
 		return previous == NOT_CANDIDATE;
 	}
 
@@ -342,6 +509,7 @@ public class Candidates implements Comparable<Candidates> {
 		int previous = candidates[rowCol.row()][rowCol.col()][ digit - 1 ] ;
 		if ( previous < 1) return false; // ignore placed items
 		candidates[rowCol.row()][rowCol.col()][ digit - 1 ] = 0;
+		changed( rowCol );
 		// if ( previous != NOT_CANDIDATE )
 		//	System.out.println( format( "   Removed candidate %d from row/col %d/%d", digit, rowi, coli ));
 		return previous != NOT_CANDIDATE;
@@ -751,6 +919,7 @@ public class Candidates implements Comparable<Candidates> {
 				count++;
 			}
 		}
+		if ( 0 < count ) changed( rowCol );
 		return count;
 	}
 
@@ -773,6 +942,18 @@ public class Candidates implements Comparable<Candidates> {
 		return count;
 	}
 
+	/** Returns the count of locations with no candidates
+	 * and not occupied, as emptyLocations without the list.
+	 */
+	public int emptyLocationCount() {
+		int count = 0;
+		for ( int celli = 0; celli < ROWS * COLS; celli++ ) {
+			if ( 0 == cellMasks[ celli ] && !isOccupied( ROWCOL[celli / COLS][celli % COLS] ))
+				count++;
+		}
+		return count;
+	}
+
 	/** Returns a list of locations with no candidates
 	 * and not occupied, a sign of an error condition.
 	 * @return list of empty locations
@@ -1624,7 +1805,10 @@ public class Candidates implements Comparable<Candidates> {
 			ChangeData change = changes.get(ci);
 			switch (change.action) {
 				case OCCUPY -> cTo.setOccupied(change.rowCol, change.digit);
-				case UNOCCUPY -> cTo.candidates[change.rowCol.row()][change.rowCol.col()][change.digit - 1] = NOT_OCCUPIED;
+				case UNOCCUPY -> {
+					cTo.candidates[change.rowCol.row()][change.rowCol.col()][change.digit - 1] = NOT_OCCUPIED;
+					cTo.changed( change.rowCol );
+				}
 				case ADD -> cTo.addCandidate(change.rowCol, change.digit);
 				case REMOVE -> cTo.removeCandidate(change.rowCol, change.digit);
 			} // switch
@@ -1645,7 +1829,7 @@ public class Candidates implements Comparable<Candidates> {
 				RowCol rowCol = ROWCOL[rowi][coli];
 				if ( this.getOccupied(rowCol) > 0 && that.getOccupied(rowCol) == 0 ) return 1;
 				if ( this.getOccupied(rowCol) == 0 && that.getOccupied(rowCol) > 0 ) return -1;
-				if ( this.getOccupied(rowCol) > 0 && that.getOccupied(rowCol) > 0 )
+				if ( this.getOccupied(rowCol) != that.getOccupied(rowCol) )
 					return this.getOccupied(rowCol) - that.getOccupied(rowCol);
 
 				// Same length of candidates
@@ -1689,10 +1873,16 @@ public class Candidates implements Comparable<Candidates> {
         // Compare with class type
         if (!(obj instanceof Candidates that)) return false;
 
-        // Cast to same type  
+        // Different hashes are never equal. Equal hashes are confirmed by content.
+        if (this.hash != that.hash) return false;
 		return 0 == this.compareTo( that );
 	}
 
+	@Override
+	public int hashCode() {
+		return Long.hashCode( hash );
+	}
+
 	/**
 	 * A string version that formats the boxes of 3 cells to align visually.
 	 * All occupied and candidate cells are displayed.
@@ -0,0 +1,130 @@
+package info.danbecker.ss;
+
+import java.util.Arrays;
+
+/**
+ * CellKeySet - an open addressing hash set of 128 bit cell set keys.
+ * <p>
+ * A key is the lo and hi longs of a CellSet, so a strong link, a pair of
+ * endpoints, or any group of locations can be deduplicated without
+ * allocating a List or CellSet per key.
+ * Keys live in parallel long arrays with linear probing
+ * in a power of two table kept under half full.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class CellKeySet {
+	private long[] los;
+	private long[] his;
+	private boolean[] used;
+	private int size;
+
+	public CellKeySet() {
+		this(16);
+	}
+
+	public CellKeySet(int capacity) {
+		int length = 16;
+		while (length < 2 * capacity)
+			length <<= 1;
+		los = new long[length];
+		his = new long[length];
+		used = new boolean[length];
+	}
+
+	/** Adds the key. Returns false if the key is already present. */
+	public boolean add(long lo, long hi) {
+		int mask = used.length - 1;
+		int sloti = hash(lo, hi) & mask;
+		for (; used[sloti]; sloti = (sloti + 1) & mask) {
+			if (los[sloti] == lo && his[sloti] == hi)
+				return false;
+		}
+		if (2 * (size + 1) > used.length) {
+			grow();
+			mask = used.length - 1;
+			sloti = hash(lo, hi) & mask;
+			while (used[sloti])
+				sloti = (sloti + 1) & mask;
+		}
+		los[sloti] = lo;
+		his[sloti] = hi;
+		used[sloti] = true;
+		size++;
+		return true;
+	}
+
+	public boolean add(CellSet cells) {
+		return add(cells.lo(), cells.hi());
+	}
+
+	/** Adds the key of a two cell set, such as a strong link. */
+	public boolean add(int celli, int cellj) {
+		return add(lo(celli) | lo(cellj), hi(celli) | hi(cellj));
+	}
+
+	public boolean contains(long lo, long hi) {
+		int mask = used.length - 1;
+		for (int sloti = hash(lo, hi) & mask; used[sloti]; sloti = (sloti + 1) & mask) {
+			if (los[sloti] == lo && his[sloti] == hi)
+				return true;
+		}
+		return false;
+	}
+
+	public boolean contains(CellSet cells) {
+		return contains(cells.lo(), cells.hi());
+	}
+
+	public boolean contains(int celli, int cellj) {
+		return contains(lo(celli) | lo(cellj), hi(celli) | hi(cellj));
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return 0 == size;
+	}
+
+	public void clear() {
+		if (0 < size) {
+			Arrays.fill(used, false);
+			size = 0;
+		}
+	}
+
+	private static long lo(int celli) {
+		return celli < 64 ? 1L << celli : 0L;
+	}
+
+	private static long hi(int celli) {
+		return celli < 64 ? 0L : 1L << (celli - 64);
+	}
+
+	private static int hash(long lo, long hi) {
+		long h = (lo ^ Long.rotateLeft(hi, 29)) * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	private void grow() {
+		long[] oldLos = los;
+		long[] oldHis = his;
+		boolean[] oldUsed = used;
+		los = new long[2 * oldUsed.length];
+		his = new long[2 * oldUsed.length];
+		used = new boolean[2 * oldUsed.length];
+		int mask = used.length - 1;
+		for (int oldi = 0; oldi < oldUsed.length; oldi++) {
+			if (oldUsed[oldi]) {
+				int sloti = hash(oldLos[oldi], oldHis[oldi]) & mask;
+				while (used[sloti])
+					sloti = (sloti + 1) & mask;
+				los[sloti] = oldLos[oldi];
+				his[sloti] = oldHis[oldi];
+				used[sloti] = true;
+			}
+		}
+	}
+}
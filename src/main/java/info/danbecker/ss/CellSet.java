@@ -0,0 +1,243 @@
+package info.danbecker.ss;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static info.danbecker.ss.Board.ROWCOL;
+import static info.danbecker.ss.Utils.Unit;
+import static info.danbecker.ss.Utils.ROWS;
+import static info.danbecker.ss.Utils.COLS;
+
+/**
+ * CellSet - a set of the 81 board locations kept as a 128 bit mask in two longs.
+ * <p>
+ * Cell index is row * 9 + col. Cells 0..63 live in the low long,
+ * cells 64..80 live in the high long.
+ * Membership, union, intersection and unit tests are O(1) with no allocation,
+ * which makes this useful for indexes that are probed many times per search.
+ * <p>
+ * Static unit and peer masks are kept as primitive pairs so that
+ * retainUnit and retainSeenBy do not allocate.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class CellSet {
+	public static final int CELLS = ROWS * COLS;
+
+	// Unit masks by [unit][uniti]
+	private static final long[][] UNIT_LO = new long[Unit.values().length][ROWS];
+	private static final long[][] UNIT_HI = new long[Unit.values().length][ROWS];
+	// Cells sharing any unit with a cell, including the cell itself.
+	private static final long[] SEEN_LO = new long[CELLS];
+	private static final long[] SEEN_HI = new long[CELLS];
+
+	static {
+		for ( int celli = 0; celli < CELLS; celli++ ) {
+			RowCol rowCol = rowCol( celli );
+			for ( Unit unit : Unit.values() ) {
+				if ( celli < 64 )
+					UNIT_LO[unit.ordinal()][rowCol.unitIndex( unit )] |= 1L << celli;
+				else
+					UNIT_HI[unit.ordinal()][rowCol.unitIndex( unit )] |= 1L << (celli - 64);
+			}
+		}
+		for ( int celli = 0; celli < CELLS; celli++ ) {
+			RowCol rowCol = rowCol( celli );
+			for ( Unit unit : Unit.values() ) {
+				SEEN_LO[celli] |= UNIT_LO[unit.ordinal()][rowCol.unitIndex( unit )];
+				SEEN_HI[celli] |= UNIT_HI[unit.ordinal()][rowCol.unitIndex( unit )];
+			}
+		}
+	}
+
+	private long lo;
+	private long hi;
+
+	public CellSet() {
+	}
+
+	public CellSet( CellSet that ) {
+		this.lo = that.lo;
+		this.hi = that.hi;
+	}
+
+	/** Returns the cell index 0..80 of the given location. */
+	public static int index( RowCol rowCol ) {
+		return rowCol.row() * COLS + rowCol.col();
+	}
+
+	/** Returns the location of the given cell index 0..80. */
+	public static RowCol rowCol( int celli ) {
+		return ROWCOL[celli / COLS][celli % COLS];
+	}
+
+	public CellSet add( int celli ) {
+		if ( celli < 64 ) lo |= 1L << celli;
+		else hi |= 1L << (celli - 64);
+		return this;
+	}
+
+	public CellSet add( RowCol rowCol ) {
+		return add( index( rowCol ));
+	}
+
+	public CellSet remove( int celli ) {
+		if ( celli < 64 ) lo &= ~(1L << celli);
+		else hi &= ~(1L << (celli - 64));
+		return this;
+	}
+
+	public CellSet remove( RowCol rowCol ) {
+		return remove( index( rowCol ));
+	}
+
+	public boolean contains( int celli ) {
+		if ( celli < 64 ) return 0 != (lo & (1L << celli));
+		return 0 != (hi & (1L << (celli - 64)));
+	}
+
+	public boolean contains( RowCol rowCol ) {
+		return contains( index( rowCol ));
+	}
+
+	public boolean isEmpty() {
+		return 0 == lo && 0 == hi;
+	}
+
+	public int size() {
+		return Long.bitCount( lo ) + Long.bitCount( hi );
+	}
+
+	public CellSet clear() {
+		lo = 0;
+		hi = 0;
+		return this;
+	}
+
+	public CellSet set( CellSet that ) {
+		this.lo = that.lo;
+		this.hi = that.hi;
+		return this;
+	}
+
+	/** Sets this set from the lo and hi longs of a 128 bit cell mask. */
+	public CellSet set( long lo, long hi ) {
+		this.lo = lo;
+		this.hi = hi;
+		return this;
+	}
+
+	public CellSet addAll( long lo, long hi ) {
+		this.lo |= lo;
+		this.hi |= hi;
+		return this;
+	}
+
+	public CellSet addAll( CellSet that ) {
+		this.lo |= that.lo;
+		this.hi |= that.hi;
+		return this;
+	}
+
+	public CellSet retainAll( CellSet that ) {
+		this.lo &= that.lo;
+		this.hi &= that.hi;
+		return this;
+	}
+
+	public CellSet removeAll( CellSet that ) {
+		this.lo &= ~that.lo;
+		this.hi &= ~that.hi;
+		return this;
+	}
+
+	public boolean intersects( CellSet that ) {
+		return 0 != (this.lo & that.lo) || 0 != (this.hi & that.hi);
+	}
+
+	/** Keep only the cells in the given unit. */
+	public CellSet retainUnit( Unit unit, int uniti ) {
+		lo &= UNIT_LO[unit.ordinal()][uniti];
+		hi &= UNIT_HI[unit.ordinal()][uniti];
+		return this;
+	}
+
+	/** Keep only the cells that share a row, col, or box with the given location (including itself). */
+	public CellSet retainSeenBy( RowCol rowCol ) {
+		return retainSeenBy( index( rowCol ));
+	}
+
+	/** Keep only the cells that share a row, col, or box with the given cell index (including itself). */
+	public CellSet retainSeenBy( int celli ) {
+		lo &= SEEN_LO[celli];
+		hi &= SEEN_HI[celli];
+		return this;
+	}
+
+	/** States whether the two cell indexes share a row, col, or box (or are equal). */
+	public static boolean sees( int celli, int cellj ) {
+		if ( cellj < 64 ) return 0 != (SEEN_LO[celli] & (1L << cellj));
+		return 0 != (SEEN_HI[celli] & (1L << (cellj - 64)));
+	}
+
+	/** States whether any cell of this set shares a row, col, or box with the given location (including itself). */
+	public boolean intersectsSeenBy( RowCol rowCol ) {
+		int celli = index( rowCol );
+		return 0 != (lo & SEEN_LO[celli]) || 0 != (hi & SEEN_HI[celli]);
+	}
+
+	/** States whether any cell of this set and that set share a row, col, or box with the given location. */
+	public boolean intersectsSeenBy( CellSet that, RowCol rowCol ) {
+		int celli = index( rowCol );
+		return 0 != (this.lo & that.lo & SEEN_LO[celli]) || 0 != (this.hi & that.hi & SEEN_HI[celli]);
+	}
+
+	/**
+	 * Returns the first cell index at or after fromi, or Board.NOT_FOUND.
+	 * Iterate with for ( int celli = set.nextCell( 0 ); celli >= 0; celli = set.nextCell( celli + 1 ))
+	 */
+	public int nextCell( int fromi ) {
+		if ( fromi < 64 ) {
+			long bits = lo & (-1L << fromi);
+			if ( 0 != bits ) return Long.numberOfTrailingZeros( bits );
+			fromi = 64;
+		}
+		if ( fromi >= CELLS ) return Board.NOT_FOUND;
+		long bits = hi & (-1L << (fromi - 64));
+		if ( 0 != bits ) return 64 + Long.numberOfTrailingZeros( bits );
+		return Board.NOT_FOUND;
+	}
+
+	/** Returns the locations of this set in row, col order. */
+	public List<RowCol> toList() {
+		List<RowCol> list = new ArrayList<>( size() );
+		for ( int celli = nextCell( 0 ); celli >= 0; celli = nextCell( celli + 1 ))
+			list.add( rowCol( celli ));
+		return list;
+	}
+
+	public long lo() {
+		return lo;
+	}
+
+	public long hi() {
+		return hi;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) return true;
+		if (!(obj instanceof CellSet that)) return false;
+		return this.lo == that.lo && this.hi == that.hi;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode( lo * 31 + hi );
+	}
+
+	@Override
+	public String toString() {
+		return RowCol.toString( toList() );
+	}
+}
@@ -0,0 +1,333 @@
+package info.danbecker.ss;
+
+import info.danbecker.ss.metrics.MetricsRegistry;
+import info.danbecker.ss.metrics.RuleMetrics;
+import info.danbecker.ss.rules.ForcingChains;
+import info.danbecker.ss.sink.EventSink;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
+
+/**
+ * CorpusRegression - a speed and correctness gate for changes to the solver.
+ * <p>
+ * Solves a corpus of puzzles a few times to warm up, then several measured times,
+ * and records for each puzzle its median time, median allocation, and whether it was
+ * solved, stalled, or failed, and for each rule its time and allocation per corpus run.
+ * The first run writes these to a JSON baseline file. Later runs compare against it
+ * and fail when corpus throughput or allocation is worse than the threshold,
+ * or when a puzzle the baseline solved no longer solves.
+ * Puzzles and rules that moved past the threshold are listed, but only fail the corpus totals,
+ * since a short solve is noisy on its own.
+ * <p>
+ * The corpus is the JSON puzzles of src/main/resources, plus any puzzle files given:
+ * JSON puzzles, or text files of one puzzle per line.
+ * <pre>
+ * Example command line "java info.danbecker.ss.CorpusRegression -b baseline.json -p more-puzzles.txt"
+ * </pre>
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class CorpusRegression {
+	public static final String DEFAULT_CORPUS = "src/main/resources";
+	public static final String DEFAULT_BASELINE = "corpus-baseline.json";
+	public static final String SOLVED = "solved";
+	public static final String STALLED = "stalled";
+	public static final String FAILED = "failed";
+
+	/** A puzzle name with its starting text and solution, which may be empty. */
+	public record Puzzle(String name, String text, String solution) {
+	}
+
+	/** The lines of a comparison and whether it found a regression. */
+	public record Report(List<String> lines, boolean regressed) {
+		@Override
+		public String toString() {
+			return String.join(System.lineSeparator(), lines);
+		}
+	}
+
+	protected int warmups = 2;
+	protected int runs = 5;
+	// Allowed increase of corpus time and allocation, as a fraction.
+	protected double timeThreshold = 0.20;
+	protected double bytesThreshold = 0.20;
+
+	public CorpusRegression warmups(int warmups) {
+		if (warmups < 0) throw new IllegalArgumentException("warmups=" + warmups);
+		this.warmups = warmups;
+		return this;
+	}
+
+	public CorpusRegression runs(int runs) {
+		if (runs < 1) throw new IllegalArgumentException("runs=" + runs);
+		this.runs = runs;
+		return this;
+	}
+
+	public CorpusRegression thresholds(double timeThreshold, double bytesThreshold) {
+		if (timeThreshold < 0 || bytesThreshold < 0)
+			throw new IllegalArgumentException(format("thresholds %f, %f", timeThreshold, bytesThreshold));
+		this.timeThreshold = timeThreshold;
+		this.bytesThreshold = bytesThreshold;
+		return this;
+	}
+
+	/** JSON puzzles of the directory, sorted by name. */
+	public static List<Puzzle> loadDirectory(Path dir) throws IOException {
+		List<Puzzle> puzzles = new ArrayList<>();
+		try (Stream<Path> paths = Files.list(dir)) {
+			for (Path path : paths.filter(p -> p.toString().endsWith(".json")).sorted().toList())
+				puzzles.addAll(loadFile(path));
+		}
+		return puzzles;
+	}
+
+	/** A JSON puzzle, or the puzzles of a text file, one per line, skipping blank and # lines. */
+	public static List<Puzzle> loadFile(Path path) throws IOException {
+		String name = path.getFileName().toString();
+		if (name.endsWith(".json")) {
+			JSONObject json = Utils.parseJSON(path.toString());
+			return List.of(new Puzzle(name, json.getJSONArray("states").getString(0), json.optString("solution")));
+		}
+		List<Puzzle> puzzles = new ArrayList<>();
+		List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+		for (int linei = 0; linei < lines.size(); linei++) {
+			String line = lines.get(linei).trim();
+			if (!line.isEmpty() && !line.startsWith("#"))
+				puzzles.add(new Puzzle(format("%s:%d", name, linei + 1), line, ""));
+		}
+		return puzzles;
+	}
+
+	/**
+	 * Solves the corpus warmups times, then runs times, measuring each solve.
+	 * @return the measurements in the baseline JSON format
+	 */
+	public JSONObject measure(List<Puzzle> puzzles) {
+		if (puzzles.isEmpty())
+			throw new IllegalArgumentException("no puzzles in corpus");
+		for (int warmupi = 0; warmupi < warmups; warmupi++)
+			runCorpus(puzzles, new long[puzzles.size()][1], new long[puzzles.size()][1], new String[puzzles.size()], 0,
+				new MetricsRegistry());
+
+		long[][] nanos = new long[puzzles.size()][runs];
+		long[][] bytes = new long[puzzles.size()][runs];
+		String[] status = new String[puzzles.size()];
+		MetricsRegistry metrics = new MetricsRegistry();
+		for (int runi = 0; runi < runs; runi++)
+			runCorpus(puzzles, nanos, bytes, status, runi, metrics);
+
+		JSONObject json = new JSONObject();
+		json.put("warmups", warmups);
+		json.put("runs", runs);
+		JSONArray puzzleArray = new JSONArray();
+		long totalNanos = 0;
+		long totalBytes = 0;
+		for (int puzzlei = 0; puzzlei < puzzles.size(); puzzlei++) {
+			JSONObject puzzle = new JSONObject();
+			puzzle.put("name", puzzles.get(puzzlei).name());
+			puzzle.put("status", status[puzzlei]);
+			puzzle.put("nanos", median(nanos[puzzlei]));
+			puzzle.put("bytes", median(bytes[puzzlei]));
+			puzzleArray.put(puzzle);
+			totalNanos += median(nanos[puzzlei]);
+			totalBytes += median(bytes[puzzlei]);
+		}
+		json.put("nanos", totalNanos);
+		json.put("bytes", totalBytes);
+		json.put("puzzles", puzzleArray);
+		JSONArray ruleArray = new JSONArray();
+		for (RuleMetrics rule : metrics.rules()) {
+			JSONObject ruleJSON = new JSONObject();
+			ruleJSON.put("rule", rule.ruleName());
+			ruleJSON.put("invocations", rule.invocations() / runs);
+			ruleJSON.put("nanos", rule.totalNanos() / runs);
+			ruleJSON.put("bytes", (rule.findBytes() + rule.updateBytes()) / runs);
+			ruleArray.put(ruleJSON);
+		}
+		json.put("rules", ruleArray);
+		return json;
+	}
+
+	/** One run of the corpus, quiet, from an empty forcing chain table as a fresh solver would. */
+	protected static void runCorpus(List<Puzzle> puzzles, long[][] nanos, long[][] bytes, String[] status, int runi,
+		MetricsRegistry metrics) {
+		ForcingChains.SHARED_TABLE.clear();
+		for (int puzzlei = 0; puzzlei < puzzles.size(); puzzlei++) {
+			Puzzle puzzle = puzzles.get(puzzlei);
+			long startBytes = MetricsRegistry.allocatedBytes();
+			long startNanos = System.nanoTime();
+			String result;
+			try {
+				result = SudokuSolver.solve(puzzle.text(), puzzle.solution(), metrics, EventSink.none()) ? SOLVED : STALLED;
+			} catch (Exception e) {
+				result = FAILED;
+			}
+			nanos[puzzlei][runi] = System.nanoTime() - startNanos;
+			bytes[puzzlei][runi] = Math.max(0, MetricsRegistry.allocatedBytes() - startBytes);
+			// A solve that differs between runs is reported by its worst result.
+			if (null == status[puzzlei] || SOLVED.equals(status[puzzlei]) || FAILED.equals(result))
+				status[puzzlei] = result;
+		}
+	}
+
+	protected static long median(long[] values) {
+		long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+
+	/** Compares measurements with a baseline, both in the measure JSON format. */
+	public Report compare(JSONObject baseline, JSONObject current) {
+		List<String> lines = new ArrayList<>();
+		boolean regressed = false;
+
+		Map<String, JSONObject> basePuzzles = byName(baseline.getJSONArray("puzzles"), "name");
+		lines.add(format("%-40s %-18s %-28s %s", "Puzzle", "Status", "Time ms", "Bytes"));
+		JSONArray puzzles = current.getJSONArray("puzzles");
+		for (int puzzlei = 0; puzzlei < puzzles.length(); puzzlei++) {
+			JSONObject puzzle = puzzles.getJSONObject(puzzlei);
+			JSONObject base = basePuzzles.remove(puzzle.getString("name"));
+			String status = puzzle.getString("status");
+			if (null == base) {
+				lines.add(format("%-40s %-18s %-28s %s", puzzle.getString("name"), "new " + status,
+					millis(puzzle.getLong("nanos")), puzzle.getLong("bytes")));
+				continue;
+			}
+			String baseStatus = base.getString("status");
+			boolean lost = SOLVED.equals(baseStatus) && !SOLVED.equals(status);
+			regressed |= lost;
+			lines.add(format("%-40s %-18s %-28s %s%s", puzzle.getString("name"),
+				baseStatus.equals(status) ? status : baseStatus + " -> " + status,
+				change(base.getLong("nanos"), puzzle.getLong("nanos"), timeThreshold, true),
+				change(base.getLong("bytes"), puzzle.getLong("bytes"), bytesThreshold, false),
+				lost ? "  REGRESSION no longer solved" : ""));
+		}
+		for (String name : basePuzzles.keySet())
+			lines.add(format("%-40s %s", name, "missing from corpus"));
+
+		Map<String, JSONObject> baseRules = byName(baseline.getJSONArray("rules"), "rule");
+		lines.add(format("%-40s %-18s %-28s %s", "Rule", "Invocations", "Time ms", "Bytes"));
+		JSONArray rules = current.getJSONArray("rules");
+		for (int rulei = 0; rulei < rules.length(); rulei++) {
+			JSONObject rule = rules.getJSONObject(rulei);
+			JSONObject base = baseRules.get(rule.getString("rule"));
+			if (null == base) {
+				lines.add(format("%-40s %-18s %-28s %s", rule.getString("rule"), rule.getLong("invocations"),
+					millis(rule.getLong("nanos")), rule.getLong("bytes")));
+				continue;
+			}
+			lines.add(format("%-40s %-18s %-28s %s", rule.getString("rule"),
+				base.getLong("invocations") == rule.getLong("invocations") ? String.valueOf(rule.getLong("invocations"))
+					: base.getLong("invocations") + " -> " + rule.getLong("invocations"),
+				change(base.getLong("nanos"), rule.getLong("nanos"), timeThreshold, true),
+				change(base.getLong("bytes"), rule.getLong("bytes"), bytesThreshold, false)));
+		}
+
+		long baseNanos = baseline.getLong("nanos");
+		long nanos = current.getLong("nanos");
+		long baseBytes = baseline.getLong("bytes");
+		long bytes = current.getLong("bytes");
+		lines.add(format("Corpus time ms %s, throughput %.1f -> %.1f puzzles/s",
+			change(baseNanos, nanos, timeThreshold, true),
+			perSecond(baseline.getJSONArray("puzzles").length(), baseNanos), perSecond(puzzles.length(), nanos)));
+		lines.add(format("Corpus bytes %s", change(baseBytes, bytes, bytesThreshold, false)));
+		if (worse(baseNanos, nanos, timeThreshold)) {
+			regressed = true;
+			lines.add(format("REGRESSION corpus time is more than %.0f%% over the baseline", 100 * timeThreshold));
+		}
+		if (worse(baseBytes, bytes, bytesThreshold)) {
+			regressed = true;
+			lines.add(format("REGRESSION corpus allocation is more than %.0f%% over the baseline", 100 * bytesThreshold));
+		}
+		lines.add(regressed ? "FAILED" : "PASSED");
+		return new Report(lines, regressed);
+	}
+
+	protected static Map<String, JSONObject> byName(JSONArray array, String key) {
+		Map<String, JSONObject> map = new LinkedHashMap<>();
+		for (int i = 0; i < array.length(); i++)
+			map.put(array.getJSONObject(i).getString(key), array.getJSONObject(i));
+		return map;
+	}
+
+	protected static boolean worse(long base, long value, double threshold) {
+		return value > base * (1 + threshold);
+	}
+
+	/** Such as "12.3 -> 14.8 +20.3% *", where * marks a change past the threshold. */
+	protected static String change(long base, long value, double threshold, boolean time) {
+		String percent = 0 == base ? "" : format(" %+.1f%%", 100.0 * (value - base) / base);
+		return format("%s -> %s%s%s", time ? millis(base) : String.valueOf(base), time ? millis(value) : String.valueOf(value),
+			percent, worse(base, value, threshold) ? " *" : "");
+	}
+
+	protected static String millis(long nanos) {
+		return format("%.1f", nanos / 1e6);
+	}
+
+	protected static double perSecond(int puzzles, long nanos) {
+		return 0 == nanos ? 0 : puzzles * 1e9 / nanos;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options options = new Options();
+		options.addOption("h", "help", false, "print the command line options");
+		options.addOption("c", "corpus", true, "directory of JSON puzzles, default " + DEFAULT_CORPUS);
+		options.addOption("p", "puzzles", true, "more puzzle files, JSON or a puzzle per line, comma separated");
+		options.addOption("b", "baseline", true, "baseline file, default " + DEFAULT_BASELINE);
+		options.addOption("u", "update", false, "write the baseline even when one exists");
+		options.addOption("w", "warmups", true, "corpus runs before measuring, default 2");
+		options.addOption("r", "runs", true, "measured corpus runs, default 5");
+		options.addOption("t", "time", true, "allowed time increase in percent, default 20");
+		options.addOption("a", "bytes", true, "allowed allocation increase in percent, default 20");
+		CommandLineParser cliParser = new DefaultParser();
+		CommandLine line = cliParser.parse(options, args);
+		if (line.hasOption("help")) {
+			new HelpFormatter().printHelp("java info.danbecker.ss.CorpusRegression <options>", options);
+			System.exit(0);
+		}
+
+		List<Puzzle> puzzles = new ArrayList<>(loadDirectory(Path.of(line.getOptionValue("c", DEFAULT_CORPUS))));
+		if (line.hasOption("p")) {
+			for (String file : line.getOptionValue("p").split(","))
+				puzzles.addAll(loadFile(Path.of(file.trim())));
+		}
+		CorpusRegression regression = new CorpusRegression()
+			.warmups(Integer.parseInt(line.getOptionValue("w", "2")))
+			.runs(Integer.parseInt(line.getOptionValue("r", "5")))
+			.thresholds(Double.parseDouble(line.getOptionValue("t", "20")) / 100,
+				Double.parseDouble(line.getOptionValue("a", "20")) / 100);
+		System.out.printf("Corpus of %d puzzles, %d warmups, %d runs%n", puzzles.size(), regression.warmups, regression.runs);
+		JSONObject current = regression.measure(puzzles);
+
+		Path baselinePath = Path.of(line.getOptionValue("b", DEFAULT_BASELINE));
+		if (line.hasOption("u") || !Files.exists(baselinePath)) {
+			Files.writeString(baselinePath, current.toString(2), StandardCharsets.UTF_8);
+			System.out.println("Baseline file " + baselinePath);
+			return;
+		}
+		Report report = regression.compare(new JSONObject(Files.readString(baselinePath, StandardCharsets.UTF_8)), current);
+		System.out.println(report);
+		if (report.regressed())
+			System.exit(1);
+	}
+}
@@ -0,0 +1,160 @@
+package info.danbecker.ss;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * EncodingSet - an open addressing hash set of int[] rule encodings.
+ * <p>
+ * Membership is decided by array content, or just by the elements
+ * at the given key indexes, the same as Utils.SubsetComparator.
+ * Rules keep one beside their encoding list so that a duplicate test
+ * is O(1) rather than the linear scan of Utils.addUnique.
+ * <p>
+ * Encodings are stored by reference with their hash in parallel arrays,
+ * using linear probing in a power of two table kept under half full.
+ * Do not change an encoding after adding it.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class EncodingSet {
+	private final int[] keyIndexes; // null means compare the whole encoding
+
+	private int[][] table;
+	private int[] hashes;
+	private int size;
+
+	/** A set that compares whole encodings. */
+	public EncodingSet() {
+		this((int[]) null);
+	}
+
+	/** A set that compares just the elements at these indexes, for example digit and rowCol. */
+	public EncodingSet(int... keyIndexes) {
+		this.keyIndexes = (null == keyIndexes || 0 == keyIndexes.length) ? null : keyIndexes.clone();
+		table = new int[16][];
+		hashes = new int[16];
+	}
+
+	/** A set that compares the same elements as this comparator. */
+	public EncodingSet(Utils.SubsetComparator comp) {
+		this(comp.keyIndexes());
+	}
+
+	/** A set that compares whole encodings, holding these encodings. */
+	public EncodingSet(List<int[]> encs) {
+		this();
+		for (int[] enc : encs)
+			add(enc);
+	}
+
+	/** Adds the encoding. Returns false if an equal encoding is already present. */
+	public boolean add(int[] enc) {
+		int hash = hash(enc);
+		int mask = table.length - 1;
+		for (int sloti = hash & mask; null != table[sloti]; sloti = (sloti + 1) & mask) {
+			if (hashes[sloti] == hash && keyEquals(table[sloti], enc))
+				return false;
+		}
+		if (2 * (size + 1) > table.length) {
+			grow();
+			mask = table.length - 1;
+		}
+		int sloti = hash & mask;
+		while (null != table[sloti])
+			sloti = (sloti + 1) & mask;
+		table[sloti] = enc;
+		hashes[sloti] = hash;
+		size++;
+		return true;
+	}
+
+	public boolean contains(int[] enc) {
+		int hash = hash(enc);
+		int mask = table.length - 1;
+		for (int sloti = hash & mask; null != table[sloti]; sloti = (sloti + 1) & mask) {
+			if (hashes[sloti] == hash && keyEquals(table[sloti], enc))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Adds the encoding to the list and this set if it is not present.
+	 * A drop in for Utils.addUnique when this set tracks the list.
+	 * @return number of encodings added, 0 or 1
+	 */
+	public int addUnique(List<int[]> encs, int[] enc) {
+		if (!add(enc))
+			return 0;
+		encs.add(enc);
+		return 1;
+	}
+
+	/**
+	 * Adds the new potentials to the list and this set.
+	 * A drop in for Utils.addUniques when this set tracks the list.
+	 * @return number of encodings added
+	 */
+	public int addUniques(List<int[]> encs, List<int[]> potentials) {
+		int added = 0;
+		for (int[] enc : potentials)
+			added += addUnique(encs, enc);
+		return added;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return 0 == size;
+	}
+
+	public void clear() {
+		if (0 < size) {
+			Arrays.fill(table, null);
+			size = 0;
+		}
+	}
+
+	protected int hash(int[] enc) {
+		int h = 1;
+		if (null == keyIndexes) {
+			for (int value : enc)
+				h = 31 * h + value;
+		} else {
+			for (int index : keyIndexes)
+				h = 31 * h + enc[index];
+		}
+		h *= 0x9E3779B9; // spread low entropy digits and rowCols
+		return h ^ (h >>> 16);
+	}
+
+	protected boolean keyEquals(int[] a, int[] b) {
+		if (null == keyIndexes)
+			return Arrays.equals(a, b);
+		for (int index : keyIndexes) {
+			if (a[index] != b[index])
+				return false;
+		}
+		return true;
+	}
+
+	protected void grow() {
+		int[][] oldTable = table;
+		int[] oldHashes = hashes;
+		table = new int[2 * oldTable.length][];
+		hashes = new int[2 * oldTable.length];
+		int mask = table.length - 1;
+		for (int oldi = 0; oldi < oldTable.length; oldi++) {
+			if (null != oldTable[oldi]) {
+				int sloti = oldHashes[oldi] & mask;
+				while (null != table[sloti])
+					sloti = (sloti + 1) & mask;
+				table[sloti] = oldTable[oldi];
+				hashes[sloti] = oldHashes[oldi];
+			}
+		}
+	}
+}
@@ -0,0 +1,260 @@
+package info.danbecker.ss;
+
+import info.danbecker.ss.Candidates.Action;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.String.format;
+
+/**
+ * Findings - a growable buffer of placements and candidate removals.
+ * <p>
+ * Each finding is one long record, so adding findings does not allocate
+ * once the buffer has grown. Rules describe their encodings as findings
+ * and share the generic apply, which validates every record against
+ * the solution before changing the board or candidates.
+ * Findings from several rules may be merged and compacted before apply.
+ * <p>
+ * Only the OCCUPY and REMOVE actions of Candidates.Action are applied.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class Findings {
+	// Encode long record bit map
+	// - cell index 0..80 at bits 0..6
+	// - digit mask at bits 7..15, bit per 0-based digit
+	// - action ordinal at bits 16..17
+	// - rule id at bits 18..25
+	// - explanation ref at bits 32..63, for example the index of the rule encoding
+	private static final int DIGITS_SHIFT = 7;
+	private static final int ACTION_SHIFT = 16;
+	private static final int RULE_SHIFT = 18;
+	private static final int REF_SHIFT = 32;
+	private static final long CELL_MASK = 0x7F;
+	private static final long DIGITS_MASK = 0x1FF;
+	private static final long ACTION_MASK = 0x3;
+	private static final long RULE_MASK = 0xFF;
+	public static final int MAX_RULES = (int) RULE_MASK + 1;
+
+	private static final Action[] ACTIONS = Action.values();
+	private static final List<String> RULE_NAMES = new ArrayList<>();
+	private static final Map<String, Integer> RULE_IDS = new HashMap<>();
+
+	private long[] records;
+	private int size;
+
+	public Findings() {
+		this(64);
+	}
+
+	public Findings(int capacity) {
+		records = new long[Math.max(1, capacity)];
+	}
+
+	/**
+	 * Returns a small id for this rule name, assigning one on first use.
+	 * The lock guards registration, so rules look up their id once, when constructed,
+	 * and keep it for the findings they add.
+	 */
+	public static synchronized int ruleId(String ruleName) {
+		Integer id = RULE_IDS.get(ruleName);
+		if (null == id) {
+			if (RULE_NAMES.size() >= MAX_RULES)
+				throw new IllegalStateException("More than " + MAX_RULES + " rule names.");
+			id = RULE_NAMES.size();
+			RULE_NAMES.add(ruleName);
+			RULE_IDS.put(ruleName, id);
+		}
+		return id;
+	}
+
+	/** Returns the rule name of this id. */
+	public static synchronized String ruleName(int ruleId) {
+		return RULE_NAMES.get(ruleId);
+	}
+
+	/** Adds a record. The digit mask has a bit per 0-based digit. */
+	public Findings add(Action action, int celli, int digitMask, int ruleId, int ref) {
+		if (Action.OCCUPY != action && Action.REMOVE != action)
+			throw new IllegalArgumentException("Findings action " + action + " is not OCCUPY or REMOVE.");
+		if (celli < 0 || celli >= CellSet.CELLS)
+			throw new IllegalArgumentException("Findings cell " + celli + " is not a board cell.");
+		if (Action.OCCUPY == action && 1 != Integer.bitCount(digitMask))
+			throw new IllegalArgumentException("Findings placement needs one digit, mask=" + Integer.toBinaryString(digitMask));
+		if (size == records.length)
+			records = Arrays.copyOf(records, 2 * size);
+		records[size++] = ((long) ref << REF_SHIFT)
+			| ((ruleId & RULE_MASK) << RULE_SHIFT)
+			| ((long) action.ordinal() << ACTION_SHIFT)
+			| ((digitMask & DIGITS_MASK) << DIGITS_SHIFT)
+			| celli;
+		return this;
+	}
+
+	/** Adds the removal of the 1-based digit at this location. */
+	public Findings remove(RowCol rowCol, int digit, int ruleId, int ref) {
+		return add(Action.REMOVE, CellSet.index(rowCol), 1 << (digit - 1), ruleId, ref);
+	}
+
+	/** Adds the placement of the 1-based digit at this location. */
+	public Findings place(RowCol rowCol, int digit, int ruleId, int ref) {
+		return add(Action.OCCUPY, CellSet.index(rowCol), 1 << (digit - 1), ruleId, ref);
+	}
+
+	/** Adds these records, for example from toArray. */
+	public Findings addAll(long[] that) {
+		if (size + that.length > records.length)
+			records = Arrays.copyOf(records, Math.max(2 * records.length, size + that.length));
+		System.arraycopy(that, 0, records, size, that.length);
+		size += that.length;
+		return this;
+	}
+
+	/** Returns a copy of the records, a compact form for storing findings. */
+	public long[] toArray() {
+		return Arrays.copyOf(records, size);
+	}
+
+	/** Adds the records of that buffer to this one. */
+	public Findings addAll(Findings that) {
+		if (size + that.size > records.length)
+			records = Arrays.copyOf(records, Math.max(2 * records.length, size + that.size));
+		System.arraycopy(that.records, 0, records, size, that.size);
+		size += that.size;
+		return this;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return 0 == size;
+	}
+
+	public Findings clear() {
+		size = 0;
+		return this;
+	}
+
+	public long record(int i) {
+		return records[i];
+	}
+
+	public int cell(int i) {
+		return (int) (records[i] & CELL_MASK);
+	}
+
+	public RowCol rowCol(int i) {
+		return CellSet.rowCol(cell(i));
+	}
+
+	public int digits(int i) {
+		return (int) ((records[i] >>> DIGITS_SHIFT) & DIGITS_MASK);
+	}
+
+	public Action action(int i) {
+		return ACTIONS[(int) ((records[i] >>> ACTION_SHIFT) & ACTION_MASK)];
+	}
+
+	public int ruleId(int i) {
+		return (int) ((records[i] >>> RULE_SHIFT) & RULE_MASK);
+	}
+
+	public int ref(int i) {
+		return (int) (records[i] >>> REF_SHIFT);
+	}
+
+	/**
+	 * Merges records by cell and action, keeping the first rule and ref of each.
+	 * Removal digit masks are combined. Placements of one cell are kept once each.
+	 * Order of the remaining records is by cell, then action.
+	 */
+	public Findings compact() {
+		if (size < 2)
+			return this;
+		// Sort on cell and action, keeping insertion order within them.
+		long[] keys = new long[size];
+		for (int i = 0; i < size; i++)
+			keys[i] = ((records[i] & CELL_MASK) << 40) | (((records[i] >>> ACTION_SHIFT) & ACTION_MASK) << 32) | i;
+		Arrays.sort(keys);
+		long[] sorted = new long[records.length];
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			long record = records[(int) (keys[i] & 0xFFFFFFFFL)];
+			if (0 < count && sameCellAction(sorted[count - 1], record)) {
+				long prev = sorted[count - 1];
+				if (Action.REMOVE.ordinal() == ((prev >>> ACTION_SHIFT) & ACTION_MASK)) {
+					sorted[count - 1] = prev | (record & (DIGITS_MASK << DIGITS_SHIFT));
+					continue;
+				}
+				if (((prev ^ record) & (DIGITS_MASK << DIGITS_SHIFT)) == 0)
+					continue;
+			}
+			sorted[count++] = record;
+		}
+		records = sorted;
+		size = count;
+		return this;
+	}
+
+	private static boolean sameCellAction(long r1, long r2) {
+		long mask = CELL_MASK | (ACTION_MASK << ACTION_SHIFT);
+		return (r1 & mask) == (r2 & mask);
+	}
+
+	/**
+	 * Applies all records to the board and candidates.
+	 * When a solution is given, every record is validated before any change is made.
+	 * @return placements made plus candidates removed
+	 */
+	public int apply(Board board, Board solution, Candidates candidates) {
+		if (null != solution) {
+			for (int i = 0; i < size; i++) {
+				RowCol loc = rowCol(i);
+				int solutionDigit = solution.get(loc);
+				int digits = digits(i);
+				if (Action.OCCUPY == action(i)) {
+					int digit = Integer.numberOfTrailingZeros(digits) + 1;
+					if (solutionDigit != digit)
+						throw new IllegalArgumentException(format("Rule %s would like to set digit %d at loc %s with solution digit %d",
+							ruleName(ruleId(i)), digit, loc, solutionDigit));
+				} else if (0 < solutionDigit && 0 != (digits & (1 << (solutionDigit - 1)))) {
+					throw new IllegalArgumentException(format("Rule %s would like to remove solution digit %d at loc %s.",
+						ruleName(ruleId(i)), solutionDigit, loc));
+				}
+			}
+		}
+		int updates = 0;
+		for (int i = 0; i < size; i++) {
+			RowCol loc = rowCol(i);
+			int digits = digits(i);
+			if (Action.OCCUPY == action(i)) {
+				int digit = Integer.numberOfTrailingZeros(digits) + 1;
+				board.set(loc, digit); // put a digit in the board
+				candidates.setOccupied(loc, digit); // places entry, removes candidates
+				updates++;
+			} else {
+				for (int bits = digits; 0 != bits; bits &= bits - 1) {
+					if (candidates.removeCandidate(loc, Integer.numberOfTrailingZeros(bits) + 1))
+						updates++;
+				}
+			}
+		}
+		return updates;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(size + " findings");
+		for (int i = 0; i < size; i++) {
+			sb.append(0 == i ? " " : ", ");
+			sb.append(format("%s %s %s", action(i), Utils.maskToCombo(digits(i)), rowCol(i)));
+		}
+		return sb.toString();
+	}
+}
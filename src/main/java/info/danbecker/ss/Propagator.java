@@ -0,0 +1,377 @@
+package info.danbecker.ss;
+
+import info.danbecker.ss.Candidates.Action;
+
+import java.util.Arrays;
+
+import static info.danbecker.ss.Board.ROWCOL;
+import static info.danbecker.ss.Utils.DIGITS;
+import static info.danbecker.ss.Utils.ROWS;
+import static info.danbecker.ss.Utils.COLS;
+
+/**
+ * Propagator - singles propagation over cell candidate masks with an undo trail.
+ * <p>
+ * Hypothesis rules assume a candidate and follow its consequences.
+ * Copying a Candidates object per assumption and running the single rules
+ * on it is slow, so the propagator keeps just a 9 bit candidate mask and
+ * the placed digit of each cell. Each change records the previous state of
+ * the cell on a trail, so undo to a mark restores the state in the time
+ * it took to change it, and one load serves every assumption of a find.
+ * <p>
+ * Propagation places naked singles and hidden singles, removing each
+ * placed digit from the peers of its cell, until nothing changes or a
+ * contradiction shows: a cell with no candidates, or a unit with no place
+ * for a digit it lacks. With intersections on, propagation also removes
+ * locked candidates: a digit confined to one line of a box is removed from
+ * the rest of the line, and a digit confined to one box of a line is
+ * removed from the rest of the box.
+ * <p>
+ * The propagator keeps the Zobrist hash of its state, the same hash
+ * Candidates.stateHash gives for the same cells, so results can be cached
+ * in a TranspositionTable.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class Propagator {
+	public static final int CELLS = CellSet.CELLS;
+	public static final int UNITS = 3 * ROWS;
+	public static final int ALL_MASK = (1 << DIGITS) - 1;
+	/** Cells of each unit, rows 0..8, cols 9..17, boxes 18..26. */
+	public static final int[][] UNIT_CELLS = new int[UNITS][DIGITS];
+	/** The 20 cells that share a unit with each cell. */
+	public static final int[][] PEERS = new int[CELLS][20];
+	static {
+		for (int celli = 0; celli < CELLS; celli++) {
+			int rowi = celli / COLS;
+			int coli = celli % COLS;
+			int boxi = rowi / 3 * 3 + coli / 3;
+			UNIT_CELLS[rowi][coli] = celli;
+			UNIT_CELLS[ROWS + coli][rowi] = celli;
+			UNIT_CELLS[2 * ROWS + boxi][rowi % 3 * 3 + coli % 3] = celli;
+		}
+		for (int celli = 0; celli < CELLS; celli++) {
+			int peeri = 0;
+			for (int cellj = 0; cellj < CELLS; cellj++) {
+				if (celli != cellj && CellSet.sees(celli, cellj))
+					PEERS[celli][peeri++] = cellj;
+			}
+		}
+	}
+
+	// Trail entry bit map: cell at bits 0..6, previous mask at bits 7..15, previous placed digit at bits 16..19
+	private static final int MASK_SHIFT = 7;
+	private static final int PLACED_SHIFT = 16;
+
+	private final int[] masks = new int[CELLS]; // bit per zero-based digit, 0 when placed
+	private final int[] placed = new int[CELLS]; // one-based digit, 0 when open
+	private final int[] baseMasks = new int[CELLS];
+	private final int[] basePlaced = new int[CELLS];
+	private int[] trail = new int[4 * CELLS];
+	private int trailSize;
+	private final int[] queue = new int[CELLS];
+	private int queueSize;
+	private boolean contradiction;
+	private boolean intersections;
+	private long hash;
+
+	public Propagator() {
+	}
+
+	/** A propagator with the same base and state, for use on another thread. */
+	public Propagator(Propagator that) {
+		copy(that);
+	}
+
+	/** Takes the base and state of that propagator, for use on another thread. */
+	public Propagator copy(Propagator that) {
+		System.arraycopy(that.masks, 0, masks, 0, CELLS);
+		System.arraycopy(that.placed, 0, placed, 0, CELLS);
+		System.arraycopy(that.baseMasks, 0, baseMasks, 0, CELLS);
+		System.arraycopy(that.basePlaced, 0, basePlaced, 0, CELLS);
+		if (trail.length < that.trailSize)
+			trail = new int[that.trail.length];
+		System.arraycopy(that.trail, 0, trail, 0, that.trailSize);
+		trailSize = that.trailSize;
+		System.arraycopy(that.queue, 0, queue, 0, that.queueSize);
+		queueSize = that.queueSize;
+		contradiction = that.contradiction;
+		intersections = that.intersections;
+		hash = that.hash;
+		return this;
+	}
+
+	/** Loads the state of these candidates as the base, clearing the trail. */
+	public Propagator load(Candidates candidates) {
+		for (int celli = 0; celli < CELLS; celli++) {
+			RowCol rowCol = ROWCOL[celli / COLS][celli % COLS];
+			placed[celli] = basePlaced[celli] = candidates.getOccupied(rowCol);
+			masks[celli] = baseMasks[celli] = candidates.candidateMask(rowCol);
+		}
+		trailSize = 0;
+		queueSize = 0;
+		contradiction = false;
+		hash = candidates.stateHash();
+		return this;
+	}
+
+	/** Sets whether propagate also removes locked candidates. Off by default. */
+	public Propagator setIntersections(boolean intersections) {
+		this.intersections = intersections;
+		return this;
+	}
+
+	public boolean intersections() {
+		return intersections;
+	}
+
+	/** The Zobrist hash of the current state. */
+	public long hash() {
+		return hash;
+	}
+
+	/** Returns a mark of the current state for undo. */
+	public int mark() {
+		return trailSize;
+	}
+
+	/** Restores the state at the mark, clearing any contradiction. */
+	public void undo(int mark) {
+		while (trailSize > mark) {
+			int entry = trail[--trailSize];
+			int celli = entry & 0x7F;
+			int mask = (entry >>> MASK_SHIFT) & ALL_MASK;
+			int digit = entry >>> PLACED_SHIFT;
+			hash ^= Zobrist.cell(celli, masks[celli], placed[celli]) ^ Zobrist.cell(celli, mask, digit);
+			masks[celli] = mask;
+			placed[celli] = digit;
+		}
+		queueSize = 0;
+		contradiction = false;
+	}
+
+	/**
+	 * Places the one-based digit in the cell and removes it from the peers.
+	 * @return false on contradiction
+	 */
+	public boolean place(int celli, int digit) {
+		if (contradiction) return false;
+		if (placed[celli] == digit) return true;
+		if (0 != placed[celli] || 0 == (masks[celli] & (1 << (digit - 1)))) {
+			contradiction = true;
+			return false;
+		}
+		record(celli);
+		hash ^= Zobrist.cell(celli, masks[celli], 0) ^ Zobrist.occupied(celli, digit);
+		placed[celli] = digit;
+		masks[celli] = 0;
+		for (int peer : PEERS[celli]) {
+			if (!eliminate(peer, digit))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Removes the one-based digit from the candidates of the cell.
+	 * @return false on contradiction
+	 */
+	public boolean eliminate(int celli, int digit) {
+		if (contradiction) return false;
+		if (placed[celli] == digit) {
+			contradiction = true;
+			return false;
+		}
+		int bit = 1 << (digit - 1);
+		if (0 == (masks[celli] & bit)) return true;
+		record(celli);
+		hash ^= Zobrist.candidate(celli, digit);
+		int mask = masks[celli] &= ~bit;
+		if (0 == placed[celli]) {
+			if (0 == mask) {
+				contradiction = true;
+				return false;
+			}
+			if (0 == (mask & (mask - 1)))
+				queue[queueSize++] = celli;
+		}
+		return true;
+	}
+
+	/**
+	 * Places naked and hidden singles, and with intersections on removes locked candidates,
+	 * until nothing changes.
+	 * @return false on contradiction
+	 */
+	public boolean propagate() {
+		while (!contradiction) {
+			while (0 < queueSize && !contradiction) {
+				int celli = queue[--queueSize];
+				int mask = masks[celli];
+				if (0 == placed[celli] && 0 != mask)
+					place(celli, Integer.numberOfTrailingZeros(mask) + 1);
+			}
+			if (contradiction || 0 < hiddenSingles())
+				continue;
+			if (contradiction || !intersections || 0 == lockedCandidates())
+				break;
+		}
+		queueSize = 0;
+		return !contradiction;
+	}
+
+	/**
+	 * Places the hidden singles of every unit.
+	 * @return number placed, 0 also on contradiction
+	 */
+	protected int hiddenSingles() {
+		int placedCount = 0;
+		for (int uniti = 0; uniti < UNITS && !contradiction; uniti++) {
+			int[] cells = UNIT_CELLS[uniti];
+			int once = 0;
+			int twice = 0;
+			int done = 0;
+			for (int celli : cells) {
+				int mask = masks[celli];
+				twice |= once & mask;
+				once |= mask;
+				if (0 != placed[celli])
+					done |= 1 << (placed[celli] - 1);
+			}
+			if (0 != (ALL_MASK & ~(once | done))) {
+				contradiction = true;
+				return 0;
+			}
+			int singles = once & ~twice & ~done;
+			while (0 != singles && !contradiction) {
+				int bit = Integer.lowestOneBit(singles);
+				singles &= ~bit;
+				for (int celli : cells) {
+					if (0 != (masks[celli] & bit)) {
+						if (place(celli, Integer.numberOfTrailingZeros(bit) + 1))
+							placedCount++;
+						break;
+					}
+				}
+			}
+		}
+		return contradiction ? 0 : placedCount;
+	}
+
+	/**
+	 * Removes locked candidates, pointing from boxes to lines and claiming from lines to boxes.
+	 * @return number of candidates removed, 0 also on contradiction
+	 */
+	protected int lockedCandidates() {
+		int removed = 0;
+		for (int uniti = 0; uniti < UNITS && !contradiction; uniti++) {
+			boolean box = uniti >= 2 * ROWS;
+			int[] cells = UNIT_CELLS[uniti];
+			for (int digit = 1; digit <= DIGITS && !contradiction; digit++) {
+				int bit = 1 << (digit - 1);
+				// Rows, cols, and boxes of the digit locations, -1 once they differ.
+				int row = -2, col = -2, boxi = -2;
+				for (int celli : cells) {
+					if (0 != (masks[celli] & bit)) {
+						int r = celli / COLS, c = celli % COLS, b = r / 3 * 3 + c / 3;
+						row = (-2 == row || r == row) ? r : -1;
+						col = (-2 == col || c == col) ? c : -1;
+						boxi = (-2 == boxi || b == boxi) ? b : -1;
+					}
+				}
+				if (-2 == row) continue; // no locations, singles handle placed or missing digits
+				if (box) {
+					if (0 <= row) removed += removeOutside(UNIT_CELLS[row], uniti, digit);
+					if (0 <= col) removed += removeOutside(UNIT_CELLS[ROWS + col], uniti, digit);
+				} else if (0 <= boxi) {
+					removed += removeOutside(UNIT_CELLS[2 * ROWS + boxi], uniti, digit);
+				}
+			}
+		}
+		return contradiction ? 0 : removed;
+	}
+
+	/** Removes the digit from the cells of the target unit that are not in the locked unit. */
+	private int removeOutside(int[] target, int lockedUniti, int digit) {
+		int removed = 0;
+		int bit = 1 << (digit - 1);
+		for (int celli : target) {
+			if (0 != (masks[celli] & bit) && !inUnit(celli, lockedUniti)) {
+				if (!eliminate(celli, digit)) return removed;
+				removed++;
+			}
+		}
+		return removed;
+	}
+
+	private static boolean inUnit(int celli, int uniti) {
+		int rowi = celli / COLS;
+		int coli = celli % COLS;
+		if (uniti < ROWS) return rowi == uniti;
+		if (uniti < 2 * ROWS) return coli == uniti - ROWS;
+		return rowi / 3 * 3 + coli / 3 == uniti - 2 * ROWS;
+	}
+
+	public boolean contradiction() {
+		return contradiction;
+	}
+
+	/** Every cell is placed without contradiction. */
+	public boolean solved() {
+		if (contradiction) return false;
+		for (int celli = 0; celli < CELLS; celli++) {
+			if (0 == placed[celli]) return false;
+		}
+		return true;
+	}
+
+	/** The placed one-based digit of the cell, or 0. */
+	public int placed(int celli) {
+		return placed[celli];
+	}
+
+	/** The candidate mask of the cell, 0 when placed. */
+	public int mask(int celli) {
+		return masks[celli];
+	}
+
+	/** The digits the cell may still hold, the placed digit bit or the candidate mask. */
+	public int possible(int celli) {
+		return 0 != placed[celli] ? 1 << (placed[celli] - 1) : masks[celli];
+	}
+
+	/** The candidate mask of the cell in the loaded base, 0 when placed. */
+	public int baseMask(int celli) {
+		return baseMasks[celli];
+	}
+
+	/** The placed digit of the cell in the loaded base, or 0. */
+	public int basePlaced(int celli) {
+		return basePlaced[celli];
+	}
+
+	/**
+	 * Adds the differences from the loaded base to the findings,
+	 * a placement for each newly placed cell and one removal record per other changed cell.
+	 * @return number of records added
+	 */
+	public int addChanges(Findings into, int ruleId, int ref) {
+		int count = 0;
+		for (int celli = 0; celli < CELLS; celli++) {
+			if (placed[celli] != basePlaced[celli]) {
+				into.add(Action.OCCUPY, celli, 1 << (placed[celli] - 1), ruleId, ref);
+				count++;
+			} else if (0 == placed[celli] && masks[celli] != baseMasks[celli]) {
+				into.add(Action.REMOVE, celli, baseMasks[celli] & ~masks[celli], ruleId, ref);
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private void record(int celli) {
+		if (trailSize == trail.length)
+			trail = Arrays.copyOf(trail, 2 * trail.length);
+		trail[trailSize++] = celli | (masks[celli] << MASK_SHIFT) | (placed[celli] << PLACED_SHIFT);
+	}
+}
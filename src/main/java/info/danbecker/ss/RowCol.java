@@ -330,8 +330,14 @@ public record RowCol ( int row, int col, int box ) implements Comparable<RowCol>
 	 */
 	public static int addUniques( List<RowCol> bigList, List<RowCol> potentials ) {
 		int added = 0;
+		if ( potentials.isEmpty() ) return added;
+		// One pass over bigList rather than a contains scan per potential.
+		CellSet present = new CellSet();
+		for ( RowCol rowCol : bigList )
+			present.add( rowCol );
 		for ( RowCol rowCol : potentials ) {
-			if (!bigList.contains( rowCol )) {
+			if (!present.contains( rowCol )) {
+				present.add( rowCol );
 				bigList.add( rowCol );
 				added++;
 			}
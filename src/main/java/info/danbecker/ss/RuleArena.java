@@ -0,0 +1,67 @@
+package info.danbecker.ss;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * RuleArena - the scratch memory of the rules run by one thread.
+ * <p>
+ * Rules keep only configuration in their fields. The lists, masks, stacks,
+ * and findings buffers a find or update works in come from an arena,
+ * so one rule instance may serve any number of threads at once.
+ * The engine passes the arena of its thread in the SolveContext of find,
+ * and update, which gets no context, uses the arena of the calling thread.
+ * <p>
+ * Scratch is made on first use and kept by its type, so rules with the same
+ * scratch type share it, one after the other. A rule must not call another rule
+ * of its scratch type while it holds the scratch. A scratch object holds no
+ * reference to a rule. Anything a rule returns from scratch is valid until
+ * the next find on the same thread by a rule of that scratch type.
+ * <p>
+ * Each thread has its own arena from forThread. An arena is not synchronized.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class RuleArena {
+	private static final ThreadLocal<RuleArena> THREAD_ARENAS = ThreadLocal.withInitial(RuleArena::new);
+
+	protected final Map<Class<?>, Object> scratch = new HashMap<>();
+	protected final Findings findings = new Findings();
+
+	/** The arena of the calling thread. */
+	public static RuleArena forThread() {
+		return THREAD_ARENAS.get();
+	}
+
+	/** The arena of the context, or of the calling thread without a context. */
+	public static RuleArena of(SolveContext context) {
+		return null == context ? forThread() : context.arena();
+	}
+
+	/**
+	 * The scratch of this type, made by the factory on first use.
+	 * Pass a factory that captures nothing, such as a constructor reference,
+	 * so that asking for scratch does not allocate.
+	 */
+	public <T> T scratch(Class<T> type, Supplier<T> factory) {
+		Object value = scratch.get(type);
+		if (null == value) {
+			value = factory.get();
+			scratch.put(type, value);
+		}
+		return type.cast(value);
+	}
+
+	/** The findings buffer of update, cleared. */
+	public Findings findings() {
+		findings.clear();
+		return findings;
+	}
+
+	/** Drops all scratch, for example to start stateful rules such as Templates over. */
+	public void clear() {
+		scratch.clear();
+		findings.clear();
+	}
+}
@@ -0,0 +1,158 @@
+package info.danbecker.ss;
+
+import info.danbecker.ss.Utils.Unit;
+import info.danbecker.ss.rules.Subsets;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static info.danbecker.ss.Candidates.ALL_COUNTS;
+import static info.danbecker.ss.Candidates.ALL_DIGITS;
+import static info.danbecker.ss.Utils.DIGITS;
+import static info.danbecker.ss.Utils.UNITS;
+
+/**
+ * SolveContext - derived analysis of one Candidates object shared by the rules of a solve.
+ * <p>
+ * Several rules start from the same structures, such as the bivalue cells,
+ * the bivalue cells grouped by their digit pair, and the strong links of a digit.
+ * The context computes each one lazily on first use and keeps it until
+ * the candidates version changes, so one iteration of the rules computes them once.
+ * <p>
+ * Returned collections are shared and unmodifiable, and returned arrays must not be changed.
+ * <p>
+ * The context also carries the RuleArena the rules take their scratch memory from,
+ * by default the arena of the thread that made the context.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class SolveContext {
+	protected final Candidates candidates;
+	protected final RuleArena arena;
+	protected int version;
+
+	protected List<RowCol> bivalueLocs;
+	protected Map<List<Integer>, List<RowCol>> pairLocs;
+	protected List<List<Integer>> pairDigits;
+	// By one-based digit
+	protected final int[][][] unitCounts = new int[DIGITS + 1][][];
+	protected final List<List<List<RowCol>>> strongLinks = new ArrayList<>(Collections.nCopies(DIGITS + 1, null));
+	// Made once, rescanned when the version changes.
+	protected Subsets subsets;
+	protected boolean subsetsScanned;
+
+	public SolveContext(Candidates candidates) {
+		this(candidates, RuleArena.forThread());
+	}
+
+	public SolveContext(Candidates candidates, RuleArena arena) {
+		if (null == candidates) throw new IllegalArgumentException("candidates cannot be null");
+		if (null == arena) throw new IllegalArgumentException("arena cannot be null");
+		this.candidates = candidates;
+		this.arena = arena;
+		this.version = candidates.version();
+	}
+
+	/** Returns this context if it describes these candidates, otherwise a new context for them. */
+	public static SolveContext of(SolveContext context, Candidates candidates) {
+		if (null != context && context.candidates == candidates)
+			return context;
+		return new SolveContext(candidates);
+	}
+
+	public Candidates candidates() {
+		return candidates;
+	}
+
+	/** The scratch memory of the rules that find with this context. */
+	public RuleArena arena() {
+		return arena;
+	}
+
+	/** Drops derived data if the candidates changed since it was computed. */
+	protected void sync() {
+		if (version != candidates.version()) {
+			version = candidates.version();
+			bivalueLocs = null;
+			pairLocs = null;
+			pairDigits = null;
+			for (int digit = 1; digit <= DIGITS; digit++) {
+				unitCounts[digit] = null;
+				strongLinks.set(digit, null);
+			}
+			subsetsScanned = false;
+		}
+	}
+
+	/** Locations with exactly two candidates, in row col order. */
+	public List<RowCol> bivalueLocs() {
+		sync();
+		if (null == bivalueLocs)
+			bivalueLocs = Collections.unmodifiableList(new ArrayList<>(candidates.getGroupLocations(ALL_DIGITS, 2)));
+		return bivalueLocs;
+	}
+
+	/** Bivalue locations grouped by their candidate digit pair. */
+	public Map<List<Integer>, List<RowCol>> pairLocs() {
+		sync();
+		if (null == pairLocs)
+			pairLocs = Collections.unmodifiableMap(bivalueLocs().stream()
+				.collect(Collectors.groupingBy(candidates::getCandidatesList, Collectors.toList())));
+		return pairLocs;
+	}
+
+	/** The distinct candidate digit pairs of the bivalue locations, sorted by Candidates.CandidatesComparator. */
+	public List<List<Integer>> pairDigits() {
+		sync();
+		if (null == pairDigits) {
+			List<List<Integer>> sorted = new ArrayList<>(pairLocs().keySet());
+			sorted.sort(Candidates.CandidatesComparator);
+			pairDigits = Collections.unmodifiableList(sorted);
+		}
+		return pairDigits;
+	}
+
+	/** Candidate counts of this one-based digit by [unit][uniti], as Candidates.candidateUnitCounts. */
+	public int[][] unitCounts(int digit) {
+		sync();
+		if (null == unitCounts[digit])
+			unitCounts[digit] = candidates.candidateUnitCounts(digit);
+		return unitCounts[digit];
+	}
+
+	/**
+	 * Strong links of this one-based digit, the two locations of each unit with exactly two candidates.
+	 * Links are in unit order ROW, COL, BOX, then unit index.
+	 * A box link may repeat a row or col link.
+	 */
+	public List<List<RowCol>> strongLinks(int digit) {
+		sync();
+		if (null == strongLinks.get(digit)) {
+			int[][] counts = unitCounts(digit);
+			List<List<RowCol>> links = new ArrayList<>();
+			for (Unit unit : Unit.values()) {
+				for (int uniti = 0; uniti < UNITS; uniti++) {
+					if (2 == counts[unit.ordinal()][uniti])
+						links.add(Collections.unmodifiableList(candidates.candidateUnitGroupLocs(unit, uniti, digit, ALL_COUNTS)));
+				}
+			}
+			strongLinks.set(digit, Collections.unmodifiableList(links));
+		}
+		return strongLinks.get(digit);
+	}
+
+	/** The subset mask tables of the candidates, shared by the naked and hidden subset rules of each size. */
+	public Subsets subsets() {
+		sync();
+		if (!subsetsScanned) {
+			if (null == subsets)
+				subsets = new Subsets();
+			subsets.scan(candidates);
+			subsetsScanned = true;
+		}
+		return subsets;
+	}
+}
@@ -0,0 +1,262 @@
+package info.danbecker.ss;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import info.danbecker.ss.metrics.SolverStats;
+import info.danbecker.ss.rules.FindUpdateRule;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static java.lang.String.format;
+
+/**
+ * SolveServer - solves puzzles posted over HTTP, so callers need not start a JVM per puzzle.
+ * <p>
+ * POST /solve takes a puzzle as text, 81 digits or '.' with optional '-' or line breaks
+ * between rows, or as a JSON puzzle of src/main/resources with its first state and solution.
+ * The response is JSON of the board as the solve left it, the solved flag, the rules used,
+ * iterations, and the queue and solve times in nanoseconds.
+ * GET /stats returns the SolverStats counts and the pool state.
+ * <p>
+ * Puzzles are solved on a fixed pool of workers with a bounded queue.
+ * A puzzle that finds the queue full gets 429 at once, with Retry-After.
+ * Each puzzle has a deadline from when it was accepted: one still queued at its deadline
+ * gets 503, and a solve that reaches it stops at the next rule and gets 504 with its board.
+ * A malformed puzzle gets 400, and a puzzle the rules find illegal or against its solution gets 422.
+ * <p>
+ * Each worker keeps a SolveSession, the solve loop of SudokuSolver.solve,
+ * and all sessions share one rule set. Handlers only queue puzzles,
+ * so the server thread never waits on a solve.
+ * <pre>
+ * Example command line "java info.danbecker.ss.SolveServer -p 8080 -w 4 -q 64 -d 5000"
+ * Example request "curl --data-binary @puzzle.json http://localhost:8080/solve"
+ * </pre>
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class SolveServer {
+	public static final int DEFAULT_PORT = 8080;
+	public static final int DEFAULT_QUEUE = 64;
+	public static final long DEFAULT_DEADLINE_MILLIS = 5000;
+	public static final int MAX_BODY = 64 * 1024;
+	public static final String SOLVE_PATH = "/solve";
+	public static final String STATS_PATH = "/stats";
+
+	protected final HttpServer server;
+	protected final ThreadPoolExecutor pool;
+	protected final long deadlineNanos;
+	protected final FindUpdateRule[] rules = SudokuSolver.defaultRules();
+	protected final ThreadLocal<SolveSession> sessions = ThreadLocal.withInitial(() -> new SolveSession(rules));
+	protected final SolverStats stats = SolverStats.instance();
+
+	/**
+	 * @param address bind address, port 0 for any free port
+	 * @param workers solve threads
+	 * @param queueLimit puzzles waiting for a worker before the server rejects, 0 for none
+	 * @param deadlineMillis time from accept to response for each puzzle
+	 */
+	public SolveServer(InetSocketAddress address, int workers, int queueLimit, long deadlineMillis) throws IOException {
+		if (workers < 1) throw new IllegalArgumentException("workers=" + workers);
+		if (queueLimit < 0) throw new IllegalArgumentException("queueLimit=" + queueLimit);
+		if (deadlineMillis < 1) throw new IllegalArgumentException("deadlineMillis=" + deadlineMillis);
+		deadlineNanos = TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+		BlockingQueue<Runnable> queue = 0 == queueLimit ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(queueLimit);
+		AtomicInteger threadIds = new AtomicInteger();
+		pool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS, queue, runnable -> {
+			Thread thread = new Thread(runnable, "solve-worker-" + threadIds.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		server = HttpServer.create(address, 0);
+		server.createContext(SOLVE_PATH, this::handleSolve);
+		server.createContext(STATS_PATH, this::handleStats);
+	}
+
+	public SolveServer start() {
+		server.start();
+		return this;
+	}
+
+	/** Stops accepting, lets queued puzzles finish for up to delaySeconds, then stops the workers. */
+	public void stop(int delaySeconds) throws InterruptedException {
+		server.stop(delaySeconds);
+		pool.shutdown();
+		if (!pool.awaitTermination(delaySeconds, TimeUnit.SECONDS))
+			pool.shutdownNow();
+	}
+
+	/** The bound port, useful when created with port 0. */
+	public int port() {
+		return server.getAddress().getPort();
+	}
+
+	protected void handleSolve(HttpExchange exchange) throws IOException {
+		if (!"POST".equals(exchange.getRequestMethod())) {
+			send(exchange, 405, error("use POST with a puzzle"));
+			return;
+		}
+		long accepted = System.nanoTime();
+		stats.queued(1);
+		try {
+			pool.execute(() -> solve(exchange, accepted));
+		} catch (RejectedExecutionException e) {
+			stats.queued(-1);
+			exchange.getResponseHeaders().set("Retry-After", "1");
+			send(exchange, 429, error(format("all %d workers busy and %d puzzles queued",
+				pool.getMaximumPoolSize(), pool.getQueue().size())));
+		}
+	}
+
+	protected void handleStats(HttpExchange exchange) throws IOException {
+		JSONObject json = new JSONObject()
+			.put("solved", stats.getSolved())
+			.put("failed", stats.getFailed())
+			.put("stalled", stats.getStalled())
+			.put("inFlight", stats.getInFlight())
+			.put("queueDepth", stats.getQueueDepth())
+			.put("puzzlesPerSecond", stats.getPuzzlesPerSecond())
+			.put("workers", pool.getMaximumPoolSize())
+			.put("activeWorkers", pool.getActiveCount());
+		send(exchange, 200, json);
+	}
+
+	/** Solves the puzzle of the exchange on a worker and responds. */
+	protected void solve(HttpExchange exchange, long accepted) {
+		stats.queued(-1);
+		long started = System.nanoTime();
+		long deadline = accepted + deadlineNanos;
+		try {
+			if (started - deadline > 0) {
+				exchange.getResponseHeaders().set("Retry-After", "1");
+				send(exchange, 503, error("deadline passed while queued"));
+				return;
+			}
+			byte[] body;
+			try (InputStream in = exchange.getRequestBody()) {
+				body = in.readNBytes(MAX_BODY + 1);
+			}
+			if (body.length > MAX_BODY) {
+				send(exchange, 413, error("puzzle is over " + MAX_BODY + " bytes"));
+				return;
+			}
+			String[] puzzle;
+			SolveSession session = sessions.get();
+			try {
+				puzzle = parsePuzzle(new String(body, StandardCharsets.UTF_8));
+				session.reset(puzzle[0], puzzle[1]).deadline(deadline);
+			} catch (ParseException | JSONException e) {
+				send(exchange, 400, error(e.getMessage()));
+				return;
+			}
+			JSONObject json;
+			try {
+				boolean solved = session.solve();
+				long ended = System.nanoTime();
+				json = new JSONObject()
+					.put("puzzle", puzzle[0])
+					.put("board", session.board().toSudokuString(""))
+					.put("solved", solved)
+					.put("expired", session.expired())
+					.put("rules", session.rulesUsed())
+					.put("iterations", session.iterations())
+					.put("rulesRun", session.rulesRun())
+					.put("queueNanos", started - accepted)
+					.put("solveNanos", ended - started);
+			} catch (IllegalArgumentException | IllegalStateException e) {
+				send(exchange, 422, error(e.getMessage()));
+				return;
+			}
+			send(exchange, session.expired() ? 504 : 200, json);
+		} catch (IOException e) {
+			Logger.getGlobal().warning("Solve response not sent: " + e);
+		} catch (RuntimeException e) {
+			Logger.getGlobal().warning("Solve failed: " + e);
+			try {
+				send(exchange, 500, error(e.toString()));
+			} catch (IOException ignored) {
+				// The client is gone.
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Returns the puzzle text and solution, or null for none,
+	 * of a JSON puzzle with states and an optional solution, or of puzzle text.
+	 */
+	public static String[] parsePuzzle(String body) throws ParseException {
+		String text = body.strip();
+		if (text.startsWith("{")) {
+			JSONObject json = new JSONObject(text);
+			return new String[] { json.getJSONArray("states").getString(0), json.optString("solution", null) };
+		}
+		if (text.isEmpty())
+			throw new ParseException("no puzzle", 0);
+		return new String[] { text, null };
+	}
+
+	protected static JSONObject error(String message) {
+		return new JSONObject().put("error", String.valueOf(message));
+	}
+
+	protected static void send(HttpExchange exchange, int status, JSONObject json) throws IOException {
+		byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options options = new Options();
+		options.addOption("h", "help", false, "print the command line options");
+		options.addOption("p", "port", true, "port, default " + DEFAULT_PORT);
+		options.addOption("b", "bind", true, "bind address, default localhost");
+		options.addOption("w", "workers", true, "solve threads, default the processor count");
+		options.addOption("q", "queue", true, "queued puzzles before rejecting, default " + DEFAULT_QUEUE);
+		options.addOption("d", "deadline", true, "milliseconds from accept to response, default " + DEFAULT_DEADLINE_MILLIS);
+		CommandLineParser cliParser = new DefaultParser();
+		CommandLine line = cliParser.parse(options, args);
+		if (line.hasOption("help")) {
+			new HelpFormatter().printHelp("java info.danbecker.ss.SolveServer <options>", options);
+			System.exit(0);
+		}
+
+		InetSocketAddress address = new InetSocketAddress(line.getOptionValue("b", "localhost"),
+			Integer.parseInt(line.getOptionValue("p", String.valueOf(DEFAULT_PORT))));
+		SolveServer server = new SolveServer(address,
+			Integer.parseInt(line.getOptionValue("w", String.valueOf(Runtime.getRuntime().availableProcessors()))),
+			Integer.parseInt(line.getOptionValue("q", String.valueOf(DEFAULT_QUEUE))),
+			Long.parseLong(line.getOptionValue("d", String.valueOf(DEFAULT_DEADLINE_MILLIS)))).start();
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			try {
+				server.stop(1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}));
+		System.out.printf("Solving at http://%s:%d%s%n", address.getHostString(), server.port(), SOLVE_PATH);
+	}
+}
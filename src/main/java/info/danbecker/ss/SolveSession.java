@@ -0,0 +1,393 @@
+package info.danbecker.ss;
+
+import info.danbecker.ss.metrics.MetricsRegistry;
+import info.danbecker.ss.metrics.RuleFindEvent;
+import info.danbecker.ss.metrics.RuleMetrics;
+import info.danbecker.ss.metrics.RuleUpdateEvent;
+import info.danbecker.ss.metrics.SolveEvent;
+import info.danbecker.ss.metrics.SolveIterationEvent;
+import info.danbecker.ss.metrics.SolverStats;
+import info.danbecker.ss.rules.FindUpdateRule;
+import info.danbecker.ss.rules.Templates;
+import info.danbecker.ss.sink.EventSink;
+import jdk.jfr.EventType;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static java.lang.String.format;
+
+/**
+ * SolveSession - the solve loop, over storage kept from puzzle to puzzle.
+ * <p>
+ * SudokuSolver.solve runs its puzzles on a session of the calling thread, and
+ * a worker thread of a batch keeps one session. For each puzzle, call reset then solve.
+ * The board, solution, candidates, solve context with its rule arena,
+ * and rule metrics are made once, so the steady state solve of a puzzle
+ * the singles rules finish allocates nothing. Harder rules still allocate as they find.
+ * <p>
+ * The solve is quiet unless given a sink. Flight recorder events are made
+ * only while a recording enables them. The rule metrics of the last solve
+ * are kept apart from those of all solves, for the caller to print or merge.
+ * A solve may be given a deadline, checked before each rule, which ends it unsolved.
+ * It is counted in SolverStats, reports to the sink SolverStats allows, skips the rules
+ * turned off there, and traces to the SolveTrace of the thread that made the session.
+ * A session is not synchronized and belongs to that thread.
+ * Sessions of several threads may share one set of rules.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class SolveSession {
+	protected static final EventType SOLVE_EVENTS = EventType.getEventType( SolveEvent.class );
+	protected static final EventType ITERATION_EVENTS = EventType.getEventType( SolveIterationEvent.class );
+	protected static final EventType FIND_EVENTS = EventType.getEventType( RuleFindEvent.class );
+	protected static final EventType UPDATE_EVENTS = EventType.getEventType( RuleUpdateEvent.class );
+
+	protected final Board board = new Board();
+	protected final Board solution = new Board();
+	protected boolean hasSolution;
+	protected final Candidates candidates = new Candidates();
+	protected final SolveContext context = new SolveContext( candidates );
+	protected final FindUpdateRule[] rules;
+	protected final String[] ruleNames;
+	protected final int[] ruleIds;
+	protected final boolean[] enabled;
+	protected final boolean[] used;
+	protected final MetricsRegistry metrics = new MetricsRegistry();
+	protected final MetricsRegistry solveMetrics = new MetricsRegistry();
+	protected final RuleMetrics[] ruleMetrics;
+	protected final SolverStats stats = SolverStats.instance();
+	protected final SolveTrace trace = SolveTrace.forThread();
+	protected EventSink sink = EventSink.none();
+
+	protected boolean loaded;
+	protected CharSequence puzzleText;
+	protected long solveId;
+	protected int iterations;
+	protected int rulesRun;
+	protected boolean hasDeadline;
+	protected long deadline;
+	protected boolean expired;
+
+	/** A session of the default rules. */
+	public SolveSession() {
+		this( SudokuSolver.defaultRules() );
+	}
+
+	/**
+	 * A session of these rules, in solve order. Rule 0 should validate candidates as LegalCandidates does.
+	 * The rules may be shared with the sessions of other threads.
+	 */
+	public SolveSession( FindUpdateRule[] rules ) {
+		if ( null == rules || 0 == rules.length ) throw new IllegalArgumentException("rules cannot be empty");
+		this.rules = rules.clone();
+		ruleNames = new String[ rules.length ];
+		ruleIds = new int[ rules.length ];
+		enabled = new boolean[ rules.length ];
+		used = new boolean[ rules.length ];
+		ruleMetrics = new RuleMetrics[ rules.length ];
+		for ( int rulei = 0; rulei < rules.length; rulei++ ) {
+			ruleNames[ rulei ] = rules[ rulei ].ruleName();
+			ruleIds[ rulei ] = Findings.ruleId( ruleNames[ rulei ] );
+			ruleMetrics[ rulei ] = solveMetrics.rule( ruleNames[ rulei ] );
+			metrics.rule( ruleNames[ rulei ] );
+		}
+		stats.ruleNames( List.of( ruleNames ));
+	}
+
+	/**
+	 * Reports what later solves and their rules do to this sink, by default EventSink.none().
+	 * Above the INFO level of SolverStats, a text sink reports nothing.
+	 */
+	public SolveSession sink( EventSink sink ) {
+		if ( null == sink ) throw new IllegalArgumentException("sink cannot be null");
+		this.sink = sink;
+		return this;
+	}
+
+	/** Loads a puzzle without a solution to check the rules against. */
+	public SolveSession reset( CharSequence puzzleText ) throws ParseException {
+		return reset( puzzleText, null );
+	}
+
+	/**
+	 * Loads a puzzle, and the solution when not null or empty, for the next solve.
+	 * @throws ParseException with malformed text, leaving no puzzle loaded
+	 */
+	public SolveSession reset( CharSequence puzzleText, CharSequence puzzleSolution ) throws ParseException {
+		loaded = false;
+		board.load( puzzleText );
+		this.puzzleText = puzzleText;
+		hasSolution = null != puzzleSolution && 0 < puzzleSolution.length();
+		if ( hasSolution )
+			solution.load( puzzleSolution );
+		candidates.setTrace( null );
+		candidates.reset( board );
+		for ( FindUpdateRule rule : rules ) {
+			if ( rule instanceof Templates )
+				Templates.reset( context.arena() );
+		}
+		iterations = 0;
+		rulesRun = 0;
+		hasDeadline = false;
+		expired = false;
+		Arrays.fill( used, false );
+		loaded = true;
+		return this;
+	}
+
+	/**
+	 * Ends the solve of the loaded puzzle unsolved once System.nanoTime passes this time.
+	 * The deadline is checked before each rule, so a long rule may overrun it.
+	 */
+	public SolveSession deadline( long nanoTime ) {
+		hasDeadline = true;
+		deadline = nanoTime;
+		return this;
+	}
+
+	/**
+	 * Applies the rules to the loaded puzzle until it is solved or no rule changes it.
+	 * @return puzzle solved
+	 * @throws IllegalStateException without a loaded puzzle, or when a rule makes the board illegal
+	 * @throws IllegalArgumentException when a rule contradicts the solution
+	 */
+	public boolean solve() {
+		if ( !loaded ) throw new IllegalStateException("no puzzle loaded");
+		loaded = false;
+		EventSink sink = stats.sink( this.sink );
+		solveId = SudokuSolver.solveIds.incrementAndGet();
+		SolveEvent solveEvent = SOLVE_EVENTS.isEnabled() ? new SolveEvent() : null;
+		if ( null != solveEvent ) {
+			solveEvent.begin();
+			solveEvent.startingEntries = candidates.getAllOccupiedCount();
+			solveEvent.startingCandidates = candidates.getAllCount();
+		}
+		boolean iterationEvents = ITERATION_EVENTS.isEnabled();
+		boolean findEvents = FIND_EVENTS.isEnabled();
+		boolean updateEvents = UPDATE_EVENTS.isEnabled();
+		stats.started();
+		trace.start( solveId );
+		candidates.setTrace( trace );
+		solveMetrics.reset();
+		for ( int rulei = 0; rulei < rules.length; rulei++ )
+			enabled[ rulei ] = stats.ruleEnabled( ruleNames[ rulei ] );
+		Board check = hasSolution ? solution : null;
+		try {
+			boolean updated;
+			do {
+				updated = false;
+				SolveIterationEvent iterationEvent = iterationEvents ? new SolveIterationEvent() : null;
+				if ( null != iterationEvent )
+					iterationEvent.begin();
+				int iterationRulei = -1;
+				// Go through each rule.
+				for ( int rulei = 0; rulei < rules.length; rulei++ ) {
+					if ( !enabled[ rulei ] )
+						continue;
+					if ( hasDeadline && System.nanoTime() - deadline > 0 ) {
+						expired = true;
+						updated = false;
+						break;
+					}
+					if ( EventSink.none() != sink )
+						sink.status( iterations, rulei, candidates.getAllOccupiedCount(), candidates.getAllCount() );
+					FindUpdateRule rule = rules[ rulei ];
+					trace.rule( ruleIds[ rulei ], rulei, iterations );
+					RuleFindEvent findEvent = findEvents ? new RuleFindEvent() : null;
+					if ( null != findEvent )
+						findEvent.begin();
+					long startBytes = MetricsRegistry.allocatedBytes();
+					long startTime = System.nanoTime();
+					List<int[]> encs = rule.find( board, candidates, context );
+					long findTime = System.nanoTime();
+					long findBytes = MetricsRegistry.allocatedBytes();
+					int possibles = null == encs ? 0 : encs.size();
+					if ( null != findEvent )
+						commit( findEvent, rulei, possibles );
+					// Rule 0 (LegalCandidates) never reports a location, only updates
+					if ( 0 != rulei && 0 < possibles && sink.isText() )
+						sink.printf( "Rule %s reports %d possibles%n", ruleNames[ rulei ], possibles );
+
+					RuleUpdateEvent updateEvent = updateEvents ? new RuleUpdateEvent() : null;
+					if ( null != updateEvent )
+						updateEvent.begin();
+					int changes;
+					try {
+						changes = rule.update( board, check, candidates, encs, sink );
+					} catch ( IllegalArgumentException e ) {
+						if ( sink.isText() )
+							sink.printf( "Rules used: %s%n", String.join( ",", rulesUsed() ));
+						throw e;
+					}
+					ruleMetrics[ rulei ].record( findTime - startTime, findBytes - startBytes, possibles,
+						System.nanoTime() - findTime, MetricsRegistry.allocatedBytes() - findBytes, changes );
+					if ( null != updateEvent )
+						commit( updateEvent, rulei, possibles, changes );
+
+					if ( changes > 0 ) {
+						updated = true;
+						used[ rulei ] = true;
+						if ( 0 != rulei ) {
+							// Don't count validator as a rule. Return to rule 0 to validate.
+							rulesRun++;
+							iterationRulei = rulei;
+							break;
+						}
+					}
+					// Do some validation checks.
+					if ( !board.legal() ) {
+						throw new IllegalStateException( "***Warning, rule=" + ruleNames[ rulei ] + " illegal board" );
+					}
+					if ( 0 < candidates.emptyLocationCount() ) {
+						if ( sink.isText() ) {
+							List<RowCol> emptyLocs = candidates.emptyLocations();
+							sink.printf( "***Warning, rule=%s, %d empty locations at %s%n",
+								ruleNames[ rulei ], emptyLocs.size(), RowCol.toString( emptyLocs ));
+						}
+						// No need to iterate through rules.
+						break;
+					}
+					if ( 0 == candidates.getAllCount() ) {
+						if ( !board.completed() && sink.isText() )
+							sink.printf( "***Warning unsolved board, no candidates, rule=%s%n", ruleNames[ rulei ] );
+						// No need to iterate through rules.
+						break;
+					}
+				}
+				if ( null != iterationEvent )
+					commit( iterationEvent, iterationRulei );
+				iterations++;
+			} while ( updated );
+		} catch ( RuntimeException e ) {
+			// Any rule failure, from find, update or validation, dumps the trace here once.
+			dumpTrace( sink );
+			candidates.setTrace( null );
+			stats.failed();
+			throw e;
+		}
+		boolean solved = board.completed();
+		trace.end( solved, iterations );
+		candidates.setTrace( null );
+		solveMetrics.solve( solved );
+		metrics.merge( solveMetrics );
+		if ( null != solveEvent )
+			commit( solveEvent, solved );
+		stats.ended( solved, solveMetrics );
+		sink.flush();
+		return solved;
+	}
+
+	protected void commit( RuleFindEvent event, int rulei, int findings ) {
+		event.end();
+		if ( event.shouldCommit() ) {
+			event.solveId = solveId;
+			event.puzzle = puzzleText.toString();
+			event.iteration = iterations;
+			event.rule = ruleNames[ rulei ];
+			event.findings = findings;
+			event.commit();
+		}
+	}
+
+	protected void commit( RuleUpdateEvent event, int rulei, int findings, int eliminations ) {
+		event.end();
+		if ( event.shouldCommit() ) {
+			event.solveId = solveId;
+			event.puzzle = puzzleText.toString();
+			event.iteration = iterations;
+			event.rule = ruleNames[ rulei ];
+			event.findings = findings;
+			event.eliminations = eliminations;
+			event.commit();
+		}
+	}
+
+	/** Commits the iteration event, with the rule that ended the iteration, or -1 for none. */
+	protected void commit( SolveIterationEvent event, int rulei ) {
+		event.end();
+		if ( event.shouldCommit() ) {
+			event.solveId = solveId;
+			event.iteration = iterations;
+			event.rule = rulei < 0 ? null : ruleNames[ rulei ];
+			event.entries = candidates.getAllOccupiedCount();
+			event.candidates = candidates.getAllCount();
+			event.commit();
+		}
+	}
+
+	protected void commit( SolveEvent event, boolean solved ) {
+		event.end();
+		if ( event.shouldCommit() ) {
+			event.solveId = solveId;
+			event.puzzle = puzzleText.toString();
+			event.solved = solved;
+			event.iterations = iterations;
+			event.rulesRun = rulesRun;
+			event.entries = candidates.getAllOccupiedCount();
+			event.candidates = candidates.getAllCount();
+			event.commit();
+		}
+	}
+
+	/** Ends the trace of a failed solve and dumps it to a file named for the solve. */
+	protected void dumpTrace( EventSink sink ) {
+		trace.end( false, iterations );
+		try {
+			Path path = trace.dumpFailure( solveId );
+			Logger.getGlobal().warning( format( "Solve %d failed, trace file=%s", solveId, path ));
+			sink.printf( "Trace file %s%n", path );
+		} catch ( IOException e ) {
+			Logger.getGlobal().warning( format( "Solve %d failed, trace file not written: %s", solveId, e ));
+		}
+	}
+
+	/** The board of the last loaded puzzle, as the last solve left it. */
+	public Board board() {
+		return board;
+	}
+
+	public Candidates candidates() {
+		return candidates;
+	}
+
+	/** Rule metrics and solve counts of all solves of this session. */
+	public MetricsRegistry metrics() {
+		return metrics;
+	}
+
+	/** Rule metrics of the last solve, in rule order. */
+	public MetricsRegistry solveMetrics() {
+		return solveMetrics;
+	}
+
+	/** Iterations of the last solve. */
+	public int iterations() {
+		return iterations;
+	}
+
+	/** Rules other than rule 0 that changed the board or candidates in the last solve. */
+	public int rulesRun() {
+		return rulesRun;
+	}
+
+	/** Names of the rules that changed the board or candidates in the last solve, in solve order. */
+	public List<String> rulesUsed() {
+		List<String> names = new ArrayList<>();
+		for ( int rulei = 0; rulei < rules.length; rulei++ ) {
+			if ( used[ rulei ] )
+				names.add( ruleNames[ rulei ] );
+		}
+		return names;
+	}
+
+	/** States whether the last solve ended at its deadline. */
+	public boolean expired() {
+		return expired;
+	}
+}
@@ -0,0 +1,309 @@
+package info.danbecker.ss;
+
+import info.danbecker.ss.Candidates.Action;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static info.danbecker.ss.Board.ROWCOL;
+import static info.danbecker.ss.Utils.COLS;
+import static info.danbecker.ss.Utils.DIGITS;
+import static java.lang.String.format;
+
+/**
+ * SolveTrace - a fixed size ring buffer of the steps of the solves of one thread.
+ * <p>
+ * Candidates given this trace add a step record for each cell change:
+ * the digit placed, or the candidates removed or added, with the rule running at the time.
+ * The solve loop adds a record at the start and end of each solve and before each rule.
+ * Records are longs packed like Findings records,
+ * so the trace costs a few stores per change and never allocates.
+ * Once full, the oldest records are overwritten.
+ * <p>
+ * A trace is dumped to a file when a solve fails, or on demand,
+ * and SolveTraceDecoder turns a dump back into readable lines.
+ * A dump holds the rule names of the rule ids it uses, so it decodes in another JVM.
+ * <p>
+ * Each thread has its own trace from forThread. A trace is not synchronized.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class SolveTrace {
+	public static final int DEFAULT_CAPACITY = 1 << 14;
+	/** Directory for failure dumps, by default java.io.tmpdir. */
+	public static final String DIR_PROPERTY = "sudoku.trace.dir";
+	public static final String SUFFIX = ".sstrace";
+
+	// Record layout, as Findings:
+	// - cell index at bits 0..6, or rule index of a RULE record
+	// - digit mask at bits 7..15, bit per zero-based digit, or 1 for solved in an END record
+	// - action ordinal at bits 16..17
+	// - rule id at bits 18..25
+	// - record type at bits 26..27
+	// - ref at bits 32..63, the iteration, or the solve id of a START record
+	public static final int STEP = 0;
+	public static final int RULE = 1;
+	public static final int START = 2;
+	public static final int END = 3;
+	private static final int DIGITS_SHIFT = 7;
+	private static final int ACTION_SHIFT = 16;
+	private static final int RULE_SHIFT = 18;
+	private static final int TYPE_SHIFT = 26;
+	private static final int REF_SHIFT = 32;
+	private static final long CELL_MASK = 0x7F;
+	private static final long DIGITS_MASK = 0x1FF;
+	private static final long ACTION_MASK = 0x3;
+	private static final long RULE_MASK = 0xFF;
+	private static final long TYPE_MASK = 0x3;
+	private static final Action[] ACTIONS = Action.values();
+
+	private static final int MAGIC = 0x53535452; // SSTR
+	private static final int VERSION = 1;
+
+	private static final ThreadLocal<SolveTrace> THREAD_TRACES =
+		ThreadLocal.withInitial(() -> new SolveTrace(DEFAULT_CAPACITY));
+
+	protected final long[] records;
+	protected final int indexMask;
+	// Records ever added, the next index before masking.
+	protected long count;
+	// Rule id and iteration of the steps being added.
+	protected int ruleId;
+	protected int iteration;
+
+	/** @param capacity records kept, rounded up to a power of two */
+	public SolveTrace(int capacity) {
+		if (capacity < 1 || capacity > 1 << 28)
+			throw new IllegalArgumentException("capacity=" + capacity);
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) size <<= 1;
+		records = new long[size];
+		indexMask = size - 1;
+	}
+
+	/** The trace of the current thread. */
+	public static SolveTrace forThread() {
+		return THREAD_TRACES.get();
+	}
+
+	protected static long pack(int type, int cell, int digits, int action, int ruleId, long ref) {
+		return (cell & CELL_MASK)
+			| ((digits & DIGITS_MASK) << DIGITS_SHIFT)
+			| ((action & ACTION_MASK) << ACTION_SHIFT)
+			| ((ruleId & RULE_MASK) << RULE_SHIFT)
+			| ((type & TYPE_MASK) << TYPE_SHIFT)
+			| (ref << REF_SHIFT);
+	}
+
+	protected void add(long record) {
+		records[(int) (count++ & indexMask)] = record;
+	}
+
+	/** Starts the records of a solve. */
+	public void start(long solveId) {
+		ruleId = 0;
+		iteration = 0;
+		add(pack(START, 0, 0, 0, 0, solveId));
+	}
+
+	/** The rule at this index of the solve rules runs next, in this iteration. */
+	public void rule(int ruleId, int rulei, int iteration) {
+		this.ruleId = ruleId;
+		this.iteration = iteration;
+		add(pack(RULE, rulei, 0, 0, ruleId, iteration));
+	}
+
+	/** Ends the records of a solve. */
+	public void end(boolean solved, int iterations) {
+		add(pack(END, 0, solved ? 1 : 0, 0, 0, iterations));
+	}
+
+	/**
+	 * Adds the steps of a cell change.
+	 * @param oldMask candidates before, bit per zero-based digit
+	 * @param mask candidates after
+	 * @param placed one-based digit now occupying the cell, or 0
+	 */
+	public void changed(int celli, int oldMask, int mask, int placed) {
+		if (0 != placed) {
+			add(pack(STEP, celli, 1 << (placed - 1), Action.OCCUPY.ordinal(), ruleId, iteration));
+			return;
+		}
+		int removed = oldMask & ~mask;
+		if (0 != removed)
+			add(pack(STEP, celli, removed, Action.REMOVE.ordinal(), ruleId, iteration));
+		int added = mask & ~oldMask;
+		if (0 != added)
+			add(pack(STEP, celli, added, Action.ADD.ordinal(), ruleId, iteration));
+	}
+
+	public static int type(long record) {
+		return (int) ((record >>> TYPE_SHIFT) & TYPE_MASK);
+	}
+
+	public static int cell(long record) {
+		return (int) (record & CELL_MASK);
+	}
+
+	public static int digits(long record) {
+		return (int) ((record >>> DIGITS_SHIFT) & DIGITS_MASK);
+	}
+
+	public static Action action(long record) {
+		return ACTIONS[(int) ((record >>> ACTION_SHIFT) & ACTION_MASK)];
+	}
+
+	public static int ruleId(long record) {
+		return (int) ((record >>> RULE_SHIFT) & RULE_MASK);
+	}
+
+	public static long ref(long record) {
+		return record >>> REF_SHIFT;
+	}
+
+	/** Records added since creation or clear, including overwritten ones. */
+	public long count() {
+		return count;
+	}
+
+	/** Records held, at most the capacity. */
+	public int size() {
+		return (int) Math.min(count, records.length);
+	}
+
+	public int capacity() {
+		return records.length;
+	}
+
+	public void clear() {
+		count = 0;
+	}
+
+	/** The records held, oldest first. */
+	public long[] toArray() {
+		int size = size();
+		long[] array = new long[size];
+		for (int recordi = 0; recordi < size; recordi++)
+			array[recordi] = records[(int) ((count - size + recordi) & indexMask)];
+		return array;
+	}
+
+	/** Writes the records held and the names of their rule ids. */
+	public void dump(OutputStream out) throws IOException {
+		long[] array = toArray();
+		Map<Integer, String> names = new TreeMap<>();
+		for (long record : array) {
+			if (STEP == type(record) || RULE == type(record))
+				names.computeIfAbsent(ruleId(record), Findings::ruleName);
+		}
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		data.writeInt(MAGIC);
+		data.writeShort(VERSION);
+		data.writeLong(count);
+		data.writeShort(names.size());
+		for (Map.Entry<Integer, String> entry : names.entrySet()) {
+			data.writeShort(entry.getKey());
+			data.writeUTF(entry.getValue());
+		}
+		data.writeInt(array.length);
+		for (long record : array)
+			data.writeLong(record);
+		data.flush();
+	}
+
+	/** Dumps to the file, replacing it. */
+	public Path dump(Path path) throws IOException {
+		try (OutputStream out = Files.newOutputStream(path)) {
+			dump(out);
+		}
+		return path;
+	}
+
+	/** Dumps to a file named for the solve id in the DIR_PROPERTY directory. */
+	public Path dumpFailure(long solveId) throws IOException {
+		Path dir = Path.of(System.getProperty(DIR_PROPERTY, System.getProperty("java.io.tmpdir")));
+		return dump(dir.resolve(format("solve-%d%s", solveId, SUFFIX)));
+	}
+
+	/** A dump read back: records added in all, the records held, and rule names by id. */
+	public record Dump(long count, long[] records, Map<Integer, String> ruleNames) {
+		/** Records overwritten before the dump. */
+		public long dropped() {
+			return count - records.length;
+		}
+
+		/** Readable lines of the records, as the solve would print them. */
+		public List<String> toLines() {
+			List<String> lines = new ArrayList<>(records.length + 1);
+			if (0 < dropped())
+				lines.add(format("... %d earlier records dropped", dropped()));
+			for (long record : records)
+				lines.add(recordToString(record));
+			return lines;
+		}
+
+		public String recordToString(long record) {
+			String rule = ruleNames.getOrDefault(ruleId(record), "Rule " + ruleId(record));
+			return switch (type(record)) {
+				case START -> format("Solve %d start", ref(record));
+				case RULE -> format("i%d.%d Rule %s", ref(record), cell(record), rule);
+				case END -> format("Solve %s successful after %d iterations",
+					0 != digits(record) ? "was" : "was not", ref(record));
+				default -> {
+					RowCol rowCol = ROWCOL[cell(record) / COLS][cell(record) % COLS];
+					yield switch (action(record)) {
+						case OCCUPY -> format("%s places digit %s at %s", rule, digitsToString(digits(record)), rowCol);
+						case ADD -> format("%s adds digits {%s} at %s", rule, digitsToString(digits(record)), rowCol);
+						default -> format("%s removes digits {%s} at %s", rule, digitsToString(digits(record)), rowCol);
+					};
+				}
+			};
+		}
+	}
+
+	/** One-based digits of a mask, such as 57. */
+	protected static String digitsToString(int mask) {
+		StringBuilder sb = new StringBuilder();
+		for (int digi = 0; digi < DIGITS; digi++) {
+			if (0 != (mask & (1 << digi)))
+				sb.append(digi + 1);
+		}
+		return sb.toString();
+	}
+
+	/** Reads a dump written by dump. */
+	public static Dump read(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+		if (MAGIC != data.readInt())
+			throw new IOException("not a solve trace");
+		int version = data.readUnsignedShort();
+		if (VERSION != version)
+			throw new IOException("solve trace version " + version);
+		long count = data.readLong();
+		Map<Integer, String> names = new TreeMap<>();
+		for (int namei = data.readUnsignedShort(); namei > 0; namei--)
+			names.put(data.readUnsignedShort(), data.readUTF());
+		long[] array = new long[data.readInt()];
+		for (int recordi = 0; recordi < array.length; recordi++)
+			array[recordi] = data.readLong();
+		return new Dump(count, array, Collections.unmodifiableMap(names));
+	}
+
+	public static Dump read(Path path) throws IOException {
+		try (InputStream in = Files.newInputStream(path)) {
+			return read(in);
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package info.danbecker.ss;
+
+import java.nio.file.Path;
+
+/**
+ * SolveTraceDecoder - prints the records of SolveTrace dump files as readable lines.
+ * <pre>
+ * Example command line "java info.danbecker.ss.SolveTraceDecoder /tmp/solve-3.sstrace"
+ * </pre>
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class SolveTraceDecoder {
+	public static void main(String[] args) throws Exception {
+		if (0 == args.length) {
+			System.out.println("usage: java info.danbecker.ss.SolveTraceDecoder <trace file>...");
+			System.exit(1);
+		}
+		for (String arg : args) {
+			SolveTrace.Dump dump = SolveTrace.read(Path.of(arg));
+			if (1 < args.length)
+				System.out.println("Trace " + arg);
+			for (String line : dump.toLines())
+				System.out.println(line);
+		}
+	}
+}
@@ -1,6 +1,10 @@
 package info.danbecker.ss;
 
+import info.danbecker.ss.metrics.MetricsRegistry;
+import info.danbecker.ss.metrics.RuleMetrics;
+import info.danbecker.ss.metrics.SolverStats;
 import info.danbecker.ss.rules.*;
+import info.danbecker.ss.sink.EventSink;
 import org.apache.commons.cli.*;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -10,8 +14,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 import static java.lang.String.format;
@@ -39,6 +42,7 @@ import static java.lang.String.format;
  *    -i input file puzzle
  *    -t text string of puzzle
  *    -s solution of puzzle
+ *    -m metrics output file, CSV when it ends with .csv, otherwise JSON
  * </pre>
  * <p>
  * Puzzles in text contain 81 spaces,containing digits, ( .)(empty space), or (cr,lf,/,-)(end of row)
@@ -77,6 +81,14 @@ public class SudokuSolver {
 	protected static String inputPuzzleSolution;
 	protected static String inputPuzzleFile;
 	protected static List<String> statedPuzzleRules;
+	protected static String metricsFile;
+	protected static String traceFile;
+	// Ties the flight recorder events of one solve together.
+	protected static final AtomicLong solveIds = new AtomicLong();
+	// One rule set for every solve, rules keep their scratch in the RuleArena of each thread.
+	protected static final FindUpdateRule[] RULES = defaultRules();
+	// The solve loop and its storage for the solves of each thread.
+	protected static final ThreadLocal<SolveSession> SESSIONS = ThreadLocal.withInitial( () -> new SolveSession( RULES ));
 
 	public static void main(String[] args) throws Exception {
 		Logger.getGlobal().info( "SudokuSolver by Dan Becker" );
@@ -117,7 +129,16 @@ public class SudokuSolver {
 		}
 		
 		if ( null != inputPuzzleText ) {
-			solve( inputPuzzleText, inputPuzzleSolution );
+			MetricsRegistry metrics = new MetricsRegistry();
+			solve( inputPuzzleText, inputPuzzleSolution, metrics );
+			if ( null != metricsFile ) {
+				metrics.write( Path.of( metricsFile ));
+				System.out.println( "Metrics file " + metricsFile );
+			}
+			if ( null != traceFile ) {
+				SolveTrace.forThread().dump( Path.of( traceFile ));
+				System.out.println( "Trace file " + traceFile );
+			}
 		}
 	}
 	
@@ -130,6 +151,8 @@ public class SudokuSolver {
         options.addOption("i", "if", true, "input file for puzzle");
 		options.addOption("t", "it", true, "input text puzzle");
 		options.addOption("s", "is", true, "input solution for puzzle");
+		options.addOption("m", "metrics", true, "output file for rule metrics, CSV or JSON");
+		options.addOption("x", "trace", true, "output file for the solve trace");
 
 		CommandLineParser cliParser = new DefaultParser();
 		CommandLine line = cliParser.parse(options, args);
@@ -151,6 +174,14 @@ public class SudokuSolver {
         if (line.hasOption("t")) {
 			inputPuzzleText = line.getOptionValue("t");
         }
+
+        if (line.hasOption("m")) {
+			metricsFile = line.getOptionValue("m");
+        }
+
+        if (line.hasOption("x")) {
+			traceFile = line.getOptionValue("x");
+        }
 	}
 	
 	/** A loop to apply rules and enter plays until a fail or
@@ -159,17 +190,111 @@ public class SudokuSolver {
 	 * @throws java.text.ParseException with malformed or mis-numbered text
 	 */
 	public static boolean solve( String puzzleText, String puzzleSolution ) throws java.text.ParseException {
-		Board board = new Board( puzzleText );
-		Board solution = null;
-		if ( null != puzzleSolution && 0 < puzzleSolution.length() ) {
-			solution = new Board( puzzleSolution );
+		return solve( puzzleText, puzzleSolution, new MetricsRegistry() );
+	}
+
+	/** A loop to apply rules and enter plays until a fail or
+	 * zero more fixes.
+	 * The rule metrics of this solve are merged into the given registry,
+	 * which may be shared by the solves of a batch.
+	 * @return puzzle solved
+	 * @throws java.text.ParseException with malformed or mis-numbered text
+	 */
+	public static boolean solve( String puzzleText, String puzzleSolution, MetricsRegistry batchMetrics ) throws java.text.ParseException {
+		return solve( puzzleText, puzzleSolution, batchMetrics, EventSink.console() );
+	}
+
+	/** A loop to apply rules and enter plays until a fail or
+	 * zero more fixes.
+	 * The rule metrics of this solve are merged into the given registry,
+	 * which may be shared by the solves of a batch.
+	 * What the solve and its rules do is reported to the sink.
+	 * EventSink.none() keeps a batch solve from formatting any of it.
+	 * The solve is counted in SolverStats and skips the rules turned off there.
+	 * @return puzzle solved
+	 * @throws java.text.ParseException with malformed or mis-numbered text
+	 */
+	public static boolean solve( String puzzleText, String puzzleSolution, MetricsRegistry batchMetrics, EventSink sink ) throws java.text.ParseException {
+		SolverStats stats = SolverStats.instance();
+		SolveSession session = SESSIONS.get();
+		try {
+			session.reset( puzzleText, puzzleSolution );
+		} catch ( java.text.ParseException e ) {
+			// A puzzle that does not parse counts as a failed solve.
+			stats.started();
+			stats.failed();
+			throw e;
 		}
-        System.out.println( "Board string=\n" + board.toSudokuString("-") );		
-		Candidates candidates = new Candidates( board );
+		return solve( session, batchMetrics, stats.sink( sink ));
+	}
 
-		// List of rules to run
-		// To do, allow command line to list rules or rule groups
-		FindUpdateRule[] rules = {
+	/** Solves the puzzle loaded in the session, reporting it and its rule metrics to the sink. */
+	protected static boolean solve( SolveSession session, MetricsRegistry batchMetrics, EventSink sink ) {
+		Board board = session.board();
+		Candidates candidates = session.candidates();
+        if ( sink.isText() )
+        	sink.printf( "Board string=%n%s%n", board.toSudokuString("-") );
+		int startingEntries = candidates.getAllOccupiedCount();
+		int startingCandidates = candidates.getAllCount();
+		long cumStartTime = System.currentTimeMillis();
+		boolean solved;
+		try {
+			solved = session.sink( sink ).solve();
+		} finally {
+			session.sink( EventSink.none() );
+		}
+
+		if ( sink.isText() ) {
+			String solvedText = solved ? "was" : "was not";
+			if ( null != inputPuzzleFile )
+				sink.printf( "Sudoku file %s%n", inputPuzzleFile );
+			else
+				sink.printf( "Sudoku text %s%n", inputPuzzleText );
+			sink.printf( "Solving %s successful after %d rules, %d iterations, %dmS\n",
+				solvedText, session.rulesRun(), session.iterations(), (System.currentTimeMillis() - cumStartTime) );
+			sink.printf( "Entry count went from %d to %d. Candidate count went from %d to %d.\n",
+				startingEntries, candidates.getAllOccupiedCount(), startingCandidates, candidates.getAllCount());
+			sink.printf( "Board=%s%n", board.toSudokuString("-"));
+		}
+		if (!solved && sink.isText()) {
+			sink.printf( "Remaining candidates=%n%s%n", candidates.toStringBoxed());
+			List<RowCol> emptyLocs = candidates.emptyLocations();
+			if (0 < emptyLocs.size()) {
+				sink.printf("***Warning, %d empty locations at %s\n",
+						emptyLocs.size(), RowCol.toString(candidates.emptyLocations()));
+			}
+		}
+		if ( null != statedPuzzleRules && sink.isText() ) {
+			sink.printf( "Stated rules=%s%n", statedPuzzleRules );
+		}
+		
+		// Print metrics
+		if ( sink.isText() ) {
+			sink.printf( "%-21s, %10s, %10s, %10s, %15s, %15s, %10s\n",
+				"Rule", "Locations", "Updates", "Time (uS)", "Find p99 (uS)", "Update p99 (uS)", "Bytes/call" );
+			long [] totals = new long[]{ 0, 0, 0 };
+			for ( RuleMetrics rule : session.solveMetrics().rules() ) {
+				sink.printf( "%-21s, %10d, %10d, %10d, %15d, %15d, %10d\n",
+					rule.ruleName(), rule.findings(), rule.eliminations(), rule.totalNanos() / 1000,
+					rule.findLatency().p99() / 1000, rule.updateLatency().p99() / 1000, rule.bytesPerCall() );
+				totals[ 0 ] += rule.findings();
+				totals[ 1 ] += rule.eliminations();
+				totals[ 2 ] += rule.totalNanos() / 1000;
+			}
+			sink.printf("%-21s, %10d, %10d, %10d\n", "Total", totals[0], totals[1], totals[2] );
+		}
+		sink.flush();
+		if ( null != batchMetrics )
+			batchMetrics.merge( session.solveMetrics() );
+		return solved;
+	}
+
+	/**
+	 * Returns new instances of the rules solve runs, in the order it runs them.
+	 * Rule 0 validates candidates. Each rule name is unique.
+	 */
+	public static FindUpdateRule[] defaultRules() {
+		return new FindUpdateRule[] {
 			new LegalCandidates(),
 			// Singles
 			new SingleCandidates(),
@@ -180,15 +305,22 @@ public class SudokuSolver {
 			// Subsets
 			new NakedSubsets(2), // NakedPairs
 			new NakedSubsets(3), // NakedTriples
+			new NakedSubsets(4), // NakedQuads
 			new DoublePairs(),
 			new HiddenSubsets(2), // HiddenPairs
 			new HiddenSubsets(3), // HiddenTriples
+			new HiddenSubsets(4), // HiddenQuads
 			// Fish
-			new XWings(), // XWing is a 2 set fish and not a wing
-			new Swordfish(), // Swordfish is a 3 set fish
+			new Fish(2), // XWing is a 2 set fish and not a wing
+			new Fish(3), // Swordfish
+			new Fish(4), // Jellyfish
 			// Single Digit Patterns
 			new Skyscraper(),
 			new TwoStringKite(),
+			new Fish(2, true), // Finned and sashimi fish
+			new Fish(3, true),
+			new Fish(4, true),
+			new Templates(),
 			// Wings
 			new XYWing(),
 			new WWing(),
@@ -197,126 +329,14 @@ public class SudokuSolver {
 			// Chains
 			new RemotePairs(),
 			new XChain(),
-			new XYChain(),
+			new XYChain( XYChain.Mode.SHORTEST ),
 			new BiLocCycleDigitRepeat(),
 			new BiLocCycleNonRepeat(),
+			// Forcing
+			new ForcingChains( ForcingChains.Mode.CELL ),
+			new ForcingChains( ForcingChains.Mode.UNIT ),
+			new Nishio(),
 		};
-		Set<String> rulesUsed = new TreeSet<>();
-		
-		// Number of possibles/updates/timings reported
-		int [] possibles = new int[ rules.length ];
-		int [] updates = new int[ rules.length ];
-		int [] timings = new int[ rules.length ];
-
-		int iterations = 0;
-		int rulesRun = 0;
-		long cumStartTime = System.currentTimeMillis();
-		boolean updated;
-		int startingEntries = candidates.getAllOccupiedCount();
-		int startingCandidates = candidates.getAllCount();
-		do {
-			updated = false;
-			// Go through each rule.
-			for ( int rulei = 0; rulei < rules.length; rulei++ ) {
-			   System.out.printf("i%d.%d Board entries=%d, candidates=%d\n", iterations, rulei,
-				  candidates.getAllOccupiedCount(), candidates.getAllCount());
-			   // System.out.println( "Board=\n" + board );		
-               // System.out.println( "Candidates=\n" + candidates.toStringCompact() );
-			   FindUpdateRule rule = rules[ rulei ];
-			   long startTime = System.nanoTime();
-			   List<int[]> encs = rule.find( board, candidates );
-			   if ( 0 != rulei ) {
-				   // Rule 0 (ValidateLegalCandidates) never reports a location, only updates
-				   if ( encs.size() > 0  ) {
-					   System.out.printf("Rule %s reports %d possibles%n",
-							   rule.ruleName(), encs.size());
-					   possibles[ rulei ] += encs.size();
-				   }
-			   }
-		       // System.out.println("Candidates=" + candidates.toString());
-			   int changes = 0;
-			   try {
-				   changes = rule.update(board, solution, candidates, encs);
-			   } catch ( IllegalArgumentException e ) {
-				   System.out.print( "Rules used: ");
-				   for( String used : rulesUsed) {
-					   System.out.print( used + ",");
-				   }
-				   System.out.println();
-					throw e;
-			   }
-
-			   // Update metrics
-			   long endTime = System.nanoTime();
-			   long duration = (endTime - startTime) / 1000;  //divide by 1000000 to get milliseconds
-			   timings[ rulei ] += (int) duration;
-			   
-			   if ( changes > 0) {
-				   updated = true;
-				   updates[ rulei ] += changes;
-				   rulesUsed.add( rule.ruleName() );
-				   if ( 0 != rulei ) {
-					   // Don't count validator as a rule. Don't break loop on validator.
-					   rulesRun++;
-					   break; // Return to rule 0 before validation to clean things up.					   
-				   }
-			   }
-			   
-			   // Do some validation checks.
-			   if ( !board.legal())
-				   throw new IllegalStateException( "***Warning, rule=" + rule.ruleName() + " illegal board");
-			   List<RowCol> emptyLocs = candidates.emptyLocations();
-			   if ( 0 < emptyLocs.size()) {
-				   System.out.printf("***Warning, rule=%s, %d empty locations at %s\n",
-					rule.ruleName(), emptyLocs.size(), RowCol.toString(candidates.emptyLocations()));
-				   // No need to iterate through rules.
-				   break;
-			   }		   
-			   if ( 0 == candidates.getAllCount()) {
-				   if ( !board.completed() )
-					   System.out.println( "***Warning unsolved board, no candidates, rule=" + rule.ruleName());
-				   // No need to iterate through rules.
-				   break;
-			   }
-			}
-		    iterations++;
-		} while (updated);
-		
-		boolean solved = board.completed();
-		String solvedText = solved ? "was" : "was not";
-		if ( null != inputPuzzleFile )
-			System.out.println( "Sudoku file " + inputPuzzleFile );
-		else
-			System.out.println( "Sudoku text " + inputPuzzleText );
-		System.out.printf( "Solving %s successful after %d rules, %d iterations, %dmS\n",
-			solvedText, rulesRun, iterations, (System.currentTimeMillis() - cumStartTime) );
-		System.out.printf( "Entry count went from %d to %d. Candidate count went from %d to %d.\n",
-			startingEntries, candidates.getAllOccupiedCount(), startingCandidates, candidates.getAllCount());
-		System.out.println("Board=" + board.toSudokuString("-"));
-		if (!solved) {
-			System.out.println("Remaining candidates=\n" + candidates.toStringBoxed());
-			List<RowCol> emptyLocs = candidates.emptyLocations();
-			if (0 < emptyLocs.size()) {
-				System.out.printf("***Warning, %d empty locations at %s\n",
-						emptyLocs.size(), RowCol.toString(candidates.emptyLocations()));
-			}
-		}
-		if ( null != statedPuzzleRules ) {
-			System.out.println( "Stated rules=" + statedPuzzleRules );
-		}
-		
-		// Print metrics
-		System.out.printf( "%-18s, %10s, %10s, %10s", "Rule", "Locations", "Updates", "Time (uS)\n" );
-		int [] totals = new int[]{ 0, 0, 0 };
-		for ( int rulei = 0; rulei < rules.length; rulei++ ) {
-			System.out.printf( "%-21s, %10d, %10d, %10d\n",
-				rules[ rulei ].ruleName(), possibles[ rulei ], updates[ rulei ], timings[ rulei ] );
-			    totals[ 0 ] += possibles[ rulei ];
-				totals[ 1 ] += updates[ rulei ];
-			    totals[ 2 ] += timings[ rulei ];
-		}
-		System.out.printf("%-21s, %10d, %10d, %10d\n", "Total", totals[0], totals[1], totals[2] );
-		return solved;
 	}
 
 	/** Utility that is helpful for testing. */
@@ -60,48 +60,163 @@ public class Utils {
 		return Board.NOT_FOUND;
 	}
 
-	// Generate combinations of n elements (9 digits), r at a time.
-	// Combinatorics says C(n,r) = n! / r! * (n-r)!
-	// which is written recursively as C(n,r)=C(n-1,r-1) + C(n-1,r)
-	// doubles=12,13,14,...,23,24,....89
-	// triples=112,113,114,...,123,124,...189,
-	// Note that these combos are 0 based	
-	
+	// Combination tables of the 9 digits, r at a time, for r = 1..8.
+	// Each table is in increasing mask order, so the first C(n,r) masks are the combinations of the low n bits.
+	// Masks have bit d set for 0-based digit d. Packed combos are 1-based digit ints, for example {0,4,5} is 156.
+	public static final int MIN_COMBO = 1;
+	public static final int MAX_COMBO = 8;
+	private static final int[][] COMBO_MASKS = new int[MAX_COMBO + 1][];
+	private static final int[][] COMBO_PACKED = new int[MAX_COMBO + 1][];
+	// C(n,r) by [n][r], the prefix of each table within the low n bits.
+	private static final int[][] COMBO_COUNTS = new int[DIGITS + 1][DIGITS + 1];
+	static {
+		for (int n = 0; n <= DIGITS; n++) {
+			COMBO_COUNTS[n][0] = 1;
+			for (int r = 1; r <= n; r++)
+				COMBO_COUNTS[n][r] = COMBO_COUNTS[n - 1][r - 1] + (r < n ? COMBO_COUNTS[n - 1][r] : 0);
+		}
+		for (int r = MIN_COMBO; r <= MAX_COMBO; r++) {
+			COMBO_MASKS[r] = new int[COMBO_COUNTS[DIGITS][r]];
+			COMBO_PACKED[r] = new int[COMBO_COUNTS[DIGITS][r]];
+		}
+		int[] counts = new int[MAX_COMBO + 1];
+		for (int mask = 0; mask < (1 << DIGITS); mask++) {
+			int r = Integer.bitCount(mask);
+			if (MIN_COMBO <= r && r <= MAX_COMBO) {
+				COMBO_MASKS[r][counts[r]] = mask;
+				COMBO_PACKED[r][counts[r]++] = maskToCombo(mask);
+			}
+		}
+	}
+
+	/** Returns C(n,r), the number of combinations of n elements r at a time, for n up to 9. */
+	public static int comboCount(int n, int r) {
+		return r < 0 || r > n ? 0 : COMBO_COUNTS[n][r];
+	}
+
 	/**
-	 * Generate combinations of n non-repeating digits, r at a time.
-	 * <p>
-	 * Combinatorics says C(n,r) = n! / r! * (n-r)!
-	 * which is written recursively as C(n,r)=C(n-1,r-1) + C(n-1,r)
-	 * <p>
-	 * Note that these combos are 0 based.
+	 * Returns the i-th combination of 9 digits r at a time as a bit mask of 0-based digits.
+	 * Masks increase with i, so i below comboCount(n,r) gives the combinations of the first n elements.
+	 * Together with spread, this iterates combinations of any n elements with no allocation:
+	 * <pre>
+	 * for ( int i = 0; i < comboCount( n, r ); i++ )
+	 *    int mask = spread( comboMask( r, i ), elements );
+	 * </pre>
+	 */
+	public static int comboMask(int r, int i) {
+		return comboTable(COMBO_MASKS, r)[i];
+	}
+
+	/** Returns the i-th combination of 9 digits r at a time as a 1-based combo int, for example 156. */
+	public static int comboPacked(int r, int i) {
+		return comboTable(COMBO_PACKED, r)[i];
+	}
+
+	private static int[] comboTable(int[][] tables, int r) {
+		if (r < MIN_COMBO || r > MAX_COMBO)
+			throw new IllegalArgumentException("Combination size " + r + " was not between " + MIN_COMBO + " and " + MAX_COMBO + ".");
+		return tables[r];
+	}
+
+	/**
+	 * Returns the indexes of the set bits of mask, lowest first, in the given array.
+	 * @return the number of indexes
+	 */
+	public static int bitIndexes(int mask, int[] indexes) {
+		int count = 0;
+		for (; 0 != mask; mask &= mask - 1)
+			indexes[count++] = Integer.numberOfTrailingZeros(mask);
+		return count;
+	}
+
+	/** Returns the mask with bit indexes[i] set for each bit i of the compact combination. */
+	public static int spread(int compact, int[] indexes) {
+		int mask = 0;
+		for (; 0 != compact; compact &= compact - 1)
+			mask |= 1 << indexes[Integer.numberOfTrailingZeros(compact)];
+		return mask;
+	}
+
+	/**
+	 * Convert a mask of 0-based digits to a 1-based combo int.
+	 * For example mask 0b110001 becomes integer 156.
+	 */
+	public static int maskToCombo(int mask) {
+		int combo = 0;
+		for (int digi = 0; digi < DIGITS; digi++)
+			if (0 != (mask & (1 << digi)))
+				combo = combo * 10 + digi + 1;
+		return combo;
+	}
+
+	/**
+	 * Convert a 1-based combo int to a mask of 0-based digits.
+	 * For example integer 156 becomes mask 0b110001.
+	 */
+	public static int comboToMask(int combo) {
+		int mask = 0;
+		for (; 0 != combo; combo /= 10)
+			mask |= 1 << (combo % 10 - 1);
+		return mask;
+	}
+
+	/**
+	 * Returns the first subset of r bits of the given mask,
+	 * or 0 when the mask has fewer than r bits or r is less than 1.
 	 * <p>
-	 * For example:
-	 * singles (n=9,r=1)->0,1,2,...,8
-	 * doubles (n=9,r=2)->01,02...08,12,13...18,21...78
-	 * triples (n=9,r=3)->012,013,...,018,023,024,...028,034,035,...038,...,678
+	 * With nextSubset, this iterates subsets of an arbitrary mask such as
+	 * "unsolved digits of this unit" with no allocation:
+	 * <pre>
+	 * for ( int sub = firstSubset( mask, r ); 0 != sub; sub = nextSubset( mask, sub ))
+	 * </pre>
+	 */
+	public static int firstSubset(int mask, int r) {
+		if (r < 1 || Integer.bitCount(mask) < r)
+			return 0;
+		return deposit((1 << r) - 1, mask);
+	}
+
+	/**
+	 * Returns the next subset of the given mask with as many bits as sub,
+	 * in increasing mask order, or 0 after the last one.
 	 * <p>
-	 * @param n is the set size for example 9 for digits 0 through 8
-	 * @param r is the subset size for example r = 2 takes 2 digits from 9
-	 * @return int [] of 0 based integer combinations 
+	 * Gosper's hack finds the next r bit number over the compressed mask bits,
+	 * which are then deposited back to the mask positions.
 	 */
-	public static List<int[]> comboGenerate(int n, int r) {
-	    List<int[]> combinations = new LinkedList<>();
-	    comboHelper(combinations, new int[r], 0, n-1, 0);
-	    return combinations;
+	public static int nextSubset(int mask, int sub) {
+		int x = extract(sub, mask);
+		int low = x & -x;
+		int ripple = x + low;
+		x = (((ripple ^ x) >>> 2) / low) | ripple;
+		if (x >= (1 << Integer.bitCount(mask)))
+			return 0;
+		return deposit(x, mask);
 	}
-	
-	// Helps with the (tail) recursion of method comboGenerate
-	private static void comboHelper(List<int[]> combinations, int[] data, int start, int end, int index) {
-	    if (index == data.length) {
-	        int[] combination = data.clone();
-	        combinations.add(combination);
-	    } else if (start <= end) {
-	        data[index] = start;
-	        comboHelper(combinations, data, start + 1, end, index + 1);
-	        comboHelper(combinations, data, start + 1, end, index);
-	    }
+
+	// Moves the low bits of value to the set bit positions of mask.
+	private static int deposit(int value, int mask) {
+		int result = 0;
+		for (int bit = 1; 0 != mask; bit <<= 1) {
+			int low = mask & -mask;
+			if (0 != (value & bit))
+				result |= low;
+			mask ^= low;
+		}
+		return result;
 	}
-	
+
+	// Gathers the bits of value at the set bit positions of mask into low bits.
+	private static int extract(int value, int mask) {
+		int result = 0;
+		for (int bit = 1; 0 != mask; bit <<= 1) {
+			int low = mask & -mask;
+			if (0 != (value & low))
+				result |= bit;
+			mask ^= low;
+		}
+		return result;
+	}
+
 	/* Returns factorial n! of given number
 	 */
 	public static int factorial(int n) {
@@ -411,6 +526,11 @@ public class Utils {
 			this.subset = subset;
 		}
 
+		/** Returns the compared element indexes, for example to key an EncodingSet. */
+		public int[] keyIndexes() {
+			return subset.stream().mapToInt( Integer::intValue ).toArray();
+		}
+
 		@Override
 		public int compare(int[] first, int[] second) {
 			if (null == first && null == second) return 0;
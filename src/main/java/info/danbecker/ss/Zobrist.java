@@ -0,0 +1,72 @@
+package info.danbecker.ss;
+
+import java.util.SplittableRandom;
+
+import static info.danbecker.ss.Board.DIGITS;
+import static info.danbecker.ss.Board.ROWS;
+import static info.danbecker.ss.Board.COLS;
+
+/**
+ * Zobrist - random 64 bit keys for hashing Board and Candidates state.
+ * <p>
+ * Each (cell, digit) has one key for "occupied by digit" and one for "digit is a candidate".
+ * A state hash is the XOR of the keys of its facts, so a mutation updates the hash
+ * in O(1) by XOR-ing out the old facts of the cell and XOR-ing in the new ones.
+ * <p>
+ * Keys come from a fixed seed, so hashes are the same from run to run.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public final class Zobrist {
+	private static final long SEED = 0x5EED_50D0_CA5EL;
+	// By cell index * DIGITS + zero-based digit
+	private static final long [] OCCUPIED = new long[ ROWS * COLS * DIGITS ];
+	private static final long [] CANDIDATE = new long[ ROWS * COLS * DIGITS ];
+	static {
+		SplittableRandom random = new SplittableRandom( SEED );
+		for ( int keyi = 0; keyi < OCCUPIED.length; keyi++ ) {
+			OCCUPIED[ keyi ] = random.nextLong();
+			CANDIDATE[ keyi ] = random.nextLong();
+		}
+	}
+
+	private Zobrist() {
+	}
+
+	/** Key of this cell index occupied by this one-based digit. */
+	public static long occupied( int celli, int digit ) {
+		return OCCUPIED[ celli * DIGITS + digit - 1 ];
+	}
+
+	/** Key of this one-based digit as a candidate of this cell index. */
+	public static long candidate( int celli, int digit ) {
+		return CANDIDATE[ celli * DIGITS + digit - 1 ];
+	}
+
+	/** Hash of one cell given as a candidate mask, bit per zero-based digit, and a placed one-based digit or 0. */
+	public static long cell( int celli, int mask, int placed ) {
+		if ( 0 != placed )
+			return OCCUPIED[ celli * DIGITS + placed - 1 ];
+		long hash = 0L;
+		for ( ; 0 != mask; mask &= mask - 1 )
+			hash ^= CANDIDATE[ celli * DIGITS + Integer.numberOfTrailingZeros( mask ) ];
+		return hash;
+	}
+
+	/**
+	 * Hash of one Candidates cell, using the Candidates encoding of
+	 * negative digit for occupied, 0 for not candidate, digit for candidate.
+	 */
+	public static long cell( int celli, int [] cell ) {
+		long hash = 0L;
+		int keyi = celli * DIGITS;
+		for ( int digi = 0; digi < DIGITS; digi++ ) {
+			int value = cell[ digi ];
+			if ( value > 0 )
+				hash ^= CANDIDATE[ keyi + digi ];
+			else if ( value < 0 )
+				hash ^= OCCUPIED[ keyi - value - 1 ];
+		}
+		return hash;
+	}
+}
@@ -0,0 +1,129 @@
+package info.danbecker.ss.metrics;
+
+import java.util.Arrays;
+
+/**
+ * LatencyHistogram - counts of nanosecond durations in log-linear buckets.
+ * <p>
+ * Durations below {@value #SUB_BUCKETS} each have a bucket. Above that, each power of two
+ * is split into {@value #SUB_BUCKETS} equal buckets, so a bucket is within about 6% of
+ * any value in it, and every non-negative long fits in {@value #BUCKETS} buckets.
+ * Count, total, and max are exact. Percentiles are the upper bound of the bucket
+ * holding the requested rank, capped at the max.
+ * <p>
+ * The lowest and highest buckets in use are kept, so merge and clear touch only that range,
+ * a few dozen buckets for the calls of one rule in one solve.
+ * <p>
+ * Recording is not synchronized. Histograms of several threads are combined with merge.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class LatencyHistogram {
+	public static final int SUB_BITS = 4;
+	public static final int SUB_BUCKETS = 1 << SUB_BITS;
+	public static final int BUCKETS = (Long.SIZE - SUB_BITS) * SUB_BUCKETS;
+
+	protected final long[] counts = new long[BUCKETS];
+	protected long count;
+	protected long total;
+	protected long max;
+	protected int lowBucket = BUCKETS;
+	protected int highBucket = -1;
+
+	/** Adds one duration in nanoseconds. Negative durations count as 0. */
+	public void record(long nanos) {
+		if (nanos < 0) nanos = 0;
+		int bucketi = bucket(nanos);
+		counts[bucketi]++;
+		if (bucketi < lowBucket) lowBucket = bucketi;
+		if (bucketi > highBucket) highBucket = bucketi;
+		count++;
+		total += nanos;
+		if (nanos > max) max = nanos;
+	}
+
+	/** Adds the counts of the other histogram to this one. */
+	public void merge(LatencyHistogram other) {
+		if (0 == other.count) return;
+		for (int bucketi = other.lowBucket; bucketi <= other.highBucket; bucketi++)
+			counts[bucketi] += other.counts[bucketi];
+		lowBucket = Math.min(lowBucket, other.lowBucket);
+		highBucket = Math.max(highBucket, other.highBucket);
+		count += other.count;
+		total += other.total;
+		max = Math.max(max, other.max);
+	}
+
+	public void clear() {
+		if (0 == count) return;
+		Arrays.fill(counts, lowBucket, highBucket + 1, 0L);
+		lowBucket = BUCKETS;
+		highBucket = -1;
+		count = 0;
+		total = 0;
+		max = 0;
+	}
+
+	/** Bucket index of a non-negative value. */
+	protected static int bucket(long value) {
+		if (value < SUB_BUCKETS)
+			return (int) value;
+		int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+	}
+
+	/** Largest value that falls in the bucket. */
+	protected static long bucketUpper(int bucketi) {
+		if (bucketi < SUB_BUCKETS)
+			return bucketi;
+		int shift = bucketi / SUB_BUCKETS - 1;
+		long top = SUB_BUCKETS + bucketi % SUB_BUCKETS;
+		return ((top + 1) << shift) - 1;
+	}
+
+	/**
+	 * Duration at or below which this fraction of the recorded durations fall.
+	 * @param fraction from 0 to 1, such as 0.99 for p99
+	 * @return nanoseconds, or 0 when nothing is recorded
+	 */
+	public long percentile(double fraction) {
+		if (fraction < 0 || fraction > 1)
+			throw new IllegalArgumentException("fraction=" + fraction);
+		if (0 == count)
+			return 0;
+		long rank = Math.max(1, (long) Math.ceil(fraction * count));
+		long seen = 0;
+		for (int bucketi = lowBucket; bucketi <= highBucket; bucketi++) {
+			seen += counts[bucketi];
+			if (seen >= rank)
+				return Math.min(bucketUpper(bucketi), max);
+		}
+		return max;
+	}
+
+	public long p50() {
+		return percentile(0.50);
+	}
+
+	public long p99() {
+		return percentile(0.99);
+	}
+
+	public long count() {
+		return count;
+	}
+
+	/** Sum of the recorded nanoseconds. */
+	public long total() {
+		return total;
+	}
+
+	public long max() {
+		return max;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count=%d, p50=%dns, p99=%dns, max=%dns", count, p50(), p99(), max);
+	}
+}
@@ -0,0 +1,187 @@
+package info.danbecker.ss.metrics;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MetricsRegistry - RuleMetrics by rule name, in the order the rules were first seen.
+ * <p>
+ * A solve records into its own registry. A batch merges the registries of its solves
+ * into one, from any thread, and exports the totals as JSON or CSV
+ * to decide which rules to optimize and which to leave out.
+ * <p>
+ * The RuleMetrics that rule returns are recorded by the thread that owns the registry.
+ * merge and the exports lock the registry, so a shared batch registry
+ * may take merges from many threads while it is exported.
+ * merge locks both registries in the order they were made, and does not allocate
+ * once this registry has every rule of the other.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class MetricsRegistry {
+	public static final String[] CSV_COLUMNS = {"rule", "invocations", "hits", "findings", "eliminations",
+		"findP50Ns", "findP99Ns", "findMaxNs", "findTotalNs",
+		"updateP50Ns", "updateP99Ns", "updateMaxNs", "updateTotalNs",
+		"findBytes", "updateBytes", "bytesPerCall"};
+
+	private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+	private static final AtomicLong IDS = new AtomicLong();
+
+	// Lock order of merge.
+	protected final long id = IDS.incrementAndGet();
+	protected final Map<String, RuleMetrics> rules = new HashMap<>();
+	// The rules in the order they were first seen.
+	protected final List<RuleMetrics> order = new ArrayList<>();
+	protected long solves;
+	protected long solved;
+
+	/** The metrics of this rule name, added on first use. */
+	public synchronized RuleMetrics rule(String ruleName) {
+		RuleMetrics metrics = rules.get(ruleName);
+		if (null == metrics) {
+			metrics = new RuleMetrics(ruleName);
+			rules.put(ruleName, metrics);
+			order.add(metrics);
+		}
+		return metrics;
+	}
+
+	/** Counts one solve of the batch and whether it was successful. */
+	public synchronized void solve(boolean success) {
+		solves++;
+		if (success) solved++;
+	}
+
+	/** Adds the solves and rule metrics of the other registry to this one. */
+	public void merge(MetricsRegistry other) {
+		if (this == other) return;
+		MetricsRegistry first = id < other.id ? this : other;
+		MetricsRegistry second = first == this ? other : this;
+		synchronized (first) {
+			synchronized (second) {
+				solves += other.solves;
+				solved += other.solved;
+				for (int rulei = 0; rulei < other.order.size(); rulei++) {
+					RuleMetrics metrics = other.order.get(rulei);
+					rule(metrics.ruleName()).merge(metrics);
+				}
+			}
+		}
+	}
+
+	public synchronized List<RuleMetrics> rules() {
+		return new ArrayList<>(order);
+	}
+
+	public synchronized long solves() {
+		return solves;
+	}
+
+	public synchronized long solved() {
+		return solved;
+	}
+
+	public synchronized void clear() {
+		rules.clear();
+		order.clear();
+		solves = 0;
+		solved = 0;
+	}
+
+	/** Zeroes the counts of the solves and of each rule, keeping the rules and their order. */
+	public synchronized void reset() {
+		for (int rulei = 0; rulei < order.size(); rulei++)
+			order.get(rulei).clear();
+		solves = 0;
+		solved = 0;
+	}
+
+	/**
+	 * Bytes allocated so far by the current thread,
+	 * or -1 when the JVM does not count thread allocation.
+	 */
+	public static long allocatedBytes() {
+		return null == THREADS ? -1L : THREADS.getCurrentThreadAllocatedBytes();
+	}
+
+	private static com.sun.management.ThreadMXBean allocationCounter() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean counter
+			&& counter.isThreadAllocatedMemorySupported()) {
+			if (!counter.isThreadAllocatedMemoryEnabled())
+				counter.setThreadAllocatedMemoryEnabled(true);
+			return counter;
+		}
+		return null;
+	}
+
+	/** One object with the solve counts and a "rules" array of the rule metrics. */
+	public synchronized JSONObject toJSON() {
+		JSONArray array = new JSONArray();
+		for (RuleMetrics metrics : order) {
+			JSONObject rule = new JSONObject();
+			rule.put("rule", metrics.ruleName());
+			rule.put("invocations", metrics.invocations());
+			rule.put("hits", metrics.hits());
+			rule.put("findings", metrics.findings());
+			rule.put("eliminations", metrics.eliminations());
+			rule.put("find", latencyJSON(metrics.findLatency()));
+			rule.put("update", latencyJSON(metrics.updateLatency()));
+			rule.put("findBytes", metrics.findBytes());
+			rule.put("updateBytes", metrics.updateBytes());
+			rule.put("bytesPerCall", metrics.bytesPerCall());
+			array.put(rule);
+		}
+		JSONObject json = new JSONObject();
+		json.put("solves", solves);
+		json.put("solved", solved);
+		json.put("rules", array);
+		return json;
+	}
+
+	protected static JSONObject latencyJSON(LatencyHistogram latency) {
+		JSONObject json = new JSONObject();
+		json.put("count", latency.count());
+		json.put("p50Ns", latency.p50());
+		json.put("p99Ns", latency.p99());
+		json.put("maxNs", latency.max());
+		json.put("totalNs", latency.total());
+		return json;
+	}
+
+	/** A header line of CSV_COLUMNS and a line per rule. */
+	public synchronized String toCSV() {
+		StringBuilder sb = new StringBuilder(String.join(",", CSV_COLUMNS)).append('\n');
+		for (RuleMetrics metrics : order) {
+			LatencyHistogram find = metrics.findLatency();
+			LatencyHistogram update = metrics.updateLatency();
+			long[] values = {metrics.invocations(), metrics.hits(), metrics.findings(), metrics.eliminations(),
+				find.p50(), find.p99(), find.max(), find.total(),
+				update.p50(), update.p99(), update.max(), update.total(),
+				metrics.findBytes(), metrics.updateBytes(), metrics.bytesPerCall()};
+			sb.append(metrics.ruleName());
+			for (long value : values)
+				sb.append(',').append(value);
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+	/** Writes CSV when the file name ends with .csv, otherwise JSON. */
+	public void write(Path path) throws IOException {
+		String text = path.toString().toLowerCase().endsWith(".csv") ? toCSV() : toJSON().toString(2);
+		Files.writeString(path, text, StandardCharsets.UTF_8);
+	}
+}
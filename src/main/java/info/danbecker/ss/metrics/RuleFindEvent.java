@@ -0,0 +1,42 @@
+package info.danbecker.ss.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * RuleFindEvent - JDK Flight Recorder event spanning one FindUpdateRule.find in a solve.
+ * Most finds take microseconds, so only finds of at least the threshold,
+ * 1 ms unless configured, are recorded.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+@Name(RuleFindEvent.NAME)
+@Label("Sudoku Rule Find")
+@Category({"SudokuSolver", "Rules"})
+@Description("One find of a rule")
+@Threshold("1 ms")
+@StackTrace(false)
+public class RuleFindEvent extends Event {
+	public static final String NAME = "info.danbecker.ss.RuleFind";
+
+	@Label("Solve Id")
+	public long solveId;
+
+	@Label("Puzzle")
+	public String puzzle;
+
+	@Label("Iteration")
+	public int iteration;
+
+	@Label("Rule")
+	public String rule;
+
+	@Label("Findings")
+	@Description("Encodings the find reported")
+	public int findings;
+}
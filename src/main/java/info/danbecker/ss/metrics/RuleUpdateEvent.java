@@ -0,0 +1,45 @@
+package info.danbecker.ss.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * RuleUpdateEvent - JDK Flight Recorder event spanning one FindUpdateRule.update in a solve.
+ * Only updates of at least the threshold, 1 ms unless configured, are recorded.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+@Name(RuleUpdateEvent.NAME)
+@Label("Sudoku Rule Update")
+@Category({"SudokuSolver", "Rules"})
+@Description("One update of a rule with the encodings of its find")
+@Threshold("1 ms")
+@StackTrace(false)
+public class RuleUpdateEvent extends Event {
+	public static final String NAME = "info.danbecker.ss.RuleUpdate";
+
+	@Label("Solve Id")
+	public long solveId;
+
+	@Label("Puzzle")
+	public String puzzle;
+
+	@Label("Iteration")
+	public int iteration;
+
+	@Label("Rule")
+	public String rule;
+
+	@Label("Findings")
+	@Description("Encodings given to the update")
+	public int findings;
+
+	@Label("Eliminations")
+	@Description("Board cells and candidates the update changed")
+	public int eliminations;
+}
@@ -0,0 +1,54 @@
+package info.danbecker.ss.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * SolveEvent - JDK Flight Recorder event spanning one SudokuSolver.solve.
+ * It is recorded for every solve, since a solve is long compared to the cost of the event.
+ * The solve id ties it to the iteration and rule events of the same solve.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+@Name(SolveEvent.NAME)
+@Label("Sudoku Solve")
+@Category("SudokuSolver")
+@Description("One solve of a puzzle, from the starting board to solved or stuck")
+@Threshold("0 ms")
+@StackTrace(false)
+public class SolveEvent extends Event {
+	public static final String NAME = "info.danbecker.ss.Solve";
+
+	@Label("Solve Id")
+	public long solveId;
+
+	@Label("Puzzle")
+	public String puzzle;
+
+	@Label("Solved")
+	public boolean solved;
+
+	@Label("Iterations")
+	public int iterations;
+
+	@Label("Rules Run")
+	@Description("Rule updates that changed the board or candidates, not counting the validator")
+	public int rulesRun;
+
+	@Label("Starting Entries")
+	public int startingEntries;
+
+	@Label("Entries")
+	public int entries;
+
+	@Label("Starting Candidates")
+	public int startingCandidates;
+
+	@Label("Candidates")
+	public int candidates;
+}
@@ -0,0 +1,42 @@
+package info.danbecker.ss.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * SolveIterationEvent - JDK Flight Recorder event spanning one pass of the solve loop,
+ * from the validator to the first rule that changes something, or through every rule.
+ * Only iterations of at least the threshold, 1 ms unless configured, are recorded.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+@Name(SolveIterationEvent.NAME)
+@Label("Sudoku Solve Iteration")
+@Category("SudokuSolver")
+@Description("One pass of the solve loop through the rules")
+@Threshold("1 ms")
+@StackTrace(false)
+public class SolveIterationEvent extends Event {
+	public static final String NAME = "info.danbecker.ss.SolveIteration";
+
+	@Label("Solve Id")
+	public long solveId;
+
+	@Label("Iteration")
+	public int iteration;
+
+	@Label("Rule")
+	@Description("Rule whose update ended the iteration, or none")
+	public String rule;
+
+	@Label("Entries")
+	public int entries;
+
+	@Label("Candidates")
+	public int candidates;
+}
@@ -0,0 +1,215 @@
+package info.danbecker.ss.metrics;
+
+import info.danbecker.ss.sink.EventSink;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * SolverStats - live counts of the solves of this JVM and the metrics of their rules.
+ * <p>
+ * SudokuSolver.solve counts each solve as it starts and ends, merges its rule metrics
+ * into these statistics, and skips the rules turned off here.
+ * The rule metrics are striped by thread, so solves of different threads
+ * rarely share a lock, and are summed only when read.
+ * What feeds the solver, such as a batch or a service, reports its queue depth.
+ * <p>
+ * The instance registers itself as a platform MXBean on first use.
+ * It is safe to use from any thread.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class SolverStats implements SolverStatsMXBean {
+	public static final String OBJECT_NAME = "info.danbecker.ss:type=SolverStats";
+
+	private static SolverStats instance;
+
+	// Rule metrics by thread id, a power of two stripes.
+	protected final MetricsRegistry[] stripes = stripes(Runtime.getRuntime().availableProcessors());
+	protected final AtomicLong solved = new AtomicLong();
+	protected final AtomicLong failed = new AtomicLong();
+	protected final AtomicLong stalled = new AtomicLong();
+	protected final AtomicInteger inFlight = new AtomicInteger();
+	protected final AtomicInteger queueDepth = new AtomicInteger();
+	protected volatile long startNanos = System.nanoTime();
+	protected volatile String[] ruleNames = new String[0];
+	protected final Set<String> disabled = ConcurrentHashMap.newKeySet();
+	protected volatile Level logLevel = Level.INFO;
+
+	/** The registered instance of this JVM. */
+	public static synchronized SolverStats instance() {
+		if (null == instance) {
+			instance = new SolverStats();
+			try {
+				MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+				ObjectName name = new ObjectName(OBJECT_NAME);
+				if (!server.isRegistered(name))
+					server.registerMBean(instance, name);
+			} catch (JMException e) {
+				Logger.getGlobal().warning("SolverStats not registered: " + e);
+			}
+		}
+		return instance;
+	}
+
+	/** Records the rules the solver runs, so rules can be turned off by name. */
+	public void ruleNames(List<String> names) {
+		if (names.size() != ruleNames.length || !names.equals(Arrays.asList(ruleNames)))
+			ruleNames = names.toArray(new String[0]);
+	}
+
+	/** Whether solves starting now run this rule. */
+	public boolean ruleEnabled(String ruleName) {
+		return disabled.isEmpty() || !disabled.contains(ruleName);
+	}
+
+	/**
+	 * The sink a solve starting now reports to, given the sink it asked for.
+	 * Above INFO, a text sink becomes EventSink.none(), so solves write no narration.
+	 * Other sinks, such as a BinarySink, are kept.
+	 */
+	public EventSink sink(EventSink requested) {
+		return requested.isText() && logLevel.intValue() > Level.INFO.intValue() ? EventSink.none() : requested;
+	}
+
+	public void started() {
+		inFlight.incrementAndGet();
+	}
+
+	/** Ends a solve that ran to the end, solved or stalled, with its rule metrics. */
+	public void ended(boolean success, MetricsRegistry metrics) {
+		inFlight.decrementAndGet();
+		(success ? solved : stalled).incrementAndGet();
+		if (null != metrics)
+			stripes[(int) (Thread.currentThread().getId() & (stripes.length - 1))].merge(metrics);
+	}
+
+	/** Ends a solve stopped by an exception. */
+	public void failed() {
+		inFlight.decrementAndGet();
+		failed.incrementAndGet();
+	}
+
+	/** Adds to the queue depth, or removes with a negative delta. */
+	public void queued(int delta) {
+		queueDepth.addAndGet(delta);
+	}
+
+	/** The rule metrics of the solves since the start or last reset, summed over the stripes as of this call. */
+	public MetricsRegistry rules() {
+		MetricsRegistry rules = new MetricsRegistry();
+		for (MetricsRegistry stripe : stripes)
+			rules.merge(stripe);
+		return rules;
+	}
+
+	protected static MetricsRegistry[] stripes(int threads) {
+		MetricsRegistry[] stripes = new MetricsRegistry[Integer.highestOneBit(Math.max(1, 2 * threads - 1))];
+		for (int stripei = 0; stripei < stripes.length; stripei++)
+			stripes[stripei] = new MetricsRegistry();
+		return stripes;
+	}
+
+	@Override
+	public long getSolved() {
+		return solved.get();
+	}
+
+	@Override
+	public long getFailed() {
+		return failed.get();
+	}
+
+	@Override
+	public long getStalled() {
+		return stalled.get();
+	}
+
+	@Override
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	@Override
+	public int getQueueDepth() {
+		return queueDepth.get();
+	}
+
+	@Override
+	public double getPuzzlesPerSecond() {
+		double seconds = (System.nanoTime() - startNanos) / 1e9;
+		return seconds <= 0 ? 0 : (solved.get() + failed.get() + stalled.get()) / seconds;
+	}
+
+	@Override
+	public Map<String, Double> getRuleHitRates() {
+		Map<String, Double> rates = new LinkedHashMap<>();
+		for (RuleMetrics metrics : rules().rules())
+			rates.put(metrics.ruleName(), 0 == metrics.invocations() ? 0.0
+				: (double) metrics.hits() / metrics.invocations());
+		return rates;
+	}
+
+	@Override
+	public Map<String, Double> getRuleMeanLatencyMicros() {
+		Map<String, Double> means = new LinkedHashMap<>();
+		for (RuleMetrics metrics : rules().rules())
+			means.put(metrics.ruleName(), 0 == metrics.invocations() ? 0.0
+				: metrics.totalNanos() / 1e3 / metrics.invocations());
+		return means;
+	}
+
+	@Override
+	public String[] getRuleNames() {
+		return ruleNames.clone();
+	}
+
+	@Override
+	public String[] getDisabledRules() {
+		return disabled.stream().sorted().toArray(String[]::new);
+	}
+
+	@Override
+	public void setRuleEnabled(String ruleName, boolean enabled) {
+		if (!Arrays.asList(ruleNames).contains(ruleName))
+			throw new IllegalArgumentException("unknown rule " + ruleName);
+		if (enabled)
+			disabled.remove(ruleName);
+		else
+			disabled.add(ruleName);
+	}
+
+	@Override
+	public String getLogLevel() {
+		return logLevel.getName();
+	}
+
+	@Override
+	public void setLogLevel(String level) {
+		Level parsed = Level.parse(level);
+		logLevel = parsed;
+		Logger.getGlobal().setLevel(parsed);
+	}
+
+	@Override
+	public void reset() {
+		for (MetricsRegistry stripe : stripes)
+			stripe.clear();
+		solved.set(0);
+		failed.set(0);
+		stalled.set(0);
+		startNanos = System.nanoTime();
+	}
+}
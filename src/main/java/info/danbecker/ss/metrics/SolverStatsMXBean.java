@@ -0,0 +1,55 @@
+package info.danbecker.ss.metrics;
+
+import java.util.Map;
+
+/**
+ * SolverStatsMXBean - the management interface of SolverStats,
+ * registered as {@value SolverStats#OBJECT_NAME} for JConsole or a scraper to watch a running batch.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public interface SolverStatsMXBean {
+	/** Solves that completed the board. */
+	long getSolved();
+
+	/** Solves stopped by an exception, such as a rule update that broke the board. */
+	long getFailed();
+
+	/** Solves that ran out of rules before completing the board. */
+	long getStalled();
+
+	/** Solves started and not yet ended. */
+	int getInFlight();
+
+	/** Puzzles waiting in the queue of whatever is feeding the solver. */
+	int getQueueDepth();
+
+	/** Ended solves per second since the start or last reset. */
+	double getPuzzlesPerSecond();
+
+	/** Fraction of the find calls of each rule that reported a location. */
+	Map<String, Double> getRuleHitRates();
+
+	/** Mean find and update microseconds per call of each rule. */
+	Map<String, Double> getRuleMeanLatencyMicros();
+
+	/** Names of the rules the solver runs, in order. */
+	String[] getRuleNames();
+
+	/** Names of the rules turned off. */
+	String[] getDisabledRules();
+
+	/** Turns a rule on or off for solves started later. */
+	void setRuleEnabled(String ruleName, boolean enabled);
+
+	/**
+	 * Level of solver output, such as INFO.
+	 * Above INFO, solves started later write no text narration, and the global logger drops INFO records.
+	 */
+	String getLogLevel();
+
+	void setLogLevel(String level);
+
+	/** Clears the counts and rule statistics. In-flight solves and the queue depth remain. */
+	void reset();
+}
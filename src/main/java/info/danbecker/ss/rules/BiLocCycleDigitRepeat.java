@@ -2,12 +2,14 @@ package info.danbecker.ss.rules;
 
 import info.danbecker.ss.Board;
 import info.danbecker.ss.Candidates;
+import info.danbecker.ss.EncodingSet;
 import info.danbecker.ss.RowCol;
 import info.danbecker.ss.Utils;
 import info.danbecker.ss.graph.EdgePatternFinder;
 import info.danbecker.ss.graph.GraphDisplay;
 import info.danbecker.ss.graph.GraphUtils;
 import info.danbecker.ss.graph.LabelEdge;
+import info.danbecker.ss.sink.EventSink;
 import org.jgrapht.Graph;
 import org.jgrapht.GraphPath;
 
@@ -46,7 +48,7 @@ public class BiLocCycleDigitRepeat implements FindUpdateRule {
 	// remove loc
 	// prev loc
 	// next loc
-	public int update(Board board, final Board solution, Candidates candidates, List<int[]> encs) {
+	public int update(Board board, final Board solution, Candidates candidates, List<int[]> encs, EventSink sink) {
 		int updates = 0;
 		if ( null == encs) return updates;
 		// System.out.println( "Candidates=\n" + candidates.toStringBoxed() );
@@ -56,14 +58,15 @@ public class BiLocCycleDigitRepeat implements FindUpdateRule {
 			int pathId = enc[1];
 			int digit = enc[2];
 			RowCol loc = ROWCOL[enc[3]][enc[4]];
-			System.out.printf( "Rule %s, enc %d=%s%n", ruleName(), enci, encodingToString( enc ));
+			if ( sink.isText() )
+				sink.printf( "Rule %s, enc %d=%s%n", ruleName(), enci, encodingToString( enc ));
 
 			// Validation if available
 			if ( null != solution ) {
 				int solutionDigit = solution.get(loc);
 				if ( solutionDigit != digit ) {
 					// System.out.println( "Board=\n" + solution.toString() );
-					System.out.println( "Candidates=\n" + candidates.toStringBoxed() );
+					sink.printf( "Candidates=%n%s%n", candidates.toStringBoxed() );
 					String msg = format("Rule %s update error pathId %d digit %d at loc %s which has solution %d ***",
 							ruleName(), pathId, digit, loc, solutionDigit);
 					// System.out.println( msg );
@@ -80,7 +83,7 @@ public class BiLocCycleDigitRepeat implements FindUpdateRule {
 			updates += currPlay - prevPlay + prevCand - currCand;
 			if ( 0 < updates ) {
 				// Repeats from same digit, same loc, different pathId
-				System.out.printf("%s update %s played digit %d and removed %d candidates at loc %s%n",
+				sink.printf("%s update %s played digit %d and removed %d candidates at loc %s%n",
 						ruleName(), typeStr, digit, prevCand - currCand, loc);
 			}
 		}
@@ -94,6 +97,7 @@ public class BiLocCycleDigitRepeat implements FindUpdateRule {
 	@Override
 	public List<int[]> find(final Board board, final Candidates candidates) {
 		List<int[]> matched = new LinkedList<>();
+		EncodingSet unique = new EncodingSet( DigitRowColComparator );
 
 		Graph<RowCol,LabelEdge> bilocGraph = GraphUtils.getBilocGraph( candidates );
 		// DisplayGraph will cause test case to not exit. Use only for debugging.
@@ -106,9 +110,8 @@ public class BiLocCycleDigitRepeat implements FindUpdateRule {
 			// System.out.println( label );
 			// new GraphDisplay( label, gpi, gp );
 
-			List<int[]> found = findCycleRepeatDigit33( gpi, gp );
 			// Repeats due to same digit, location, different path id
-			Utils.addUniques( matched, found, DigitRowColComparator );
+			findCycleRepeatDigit33( gpi, gp, matched, unique );
 		}
 		return matched;
 	}
@@ -129,6 +132,13 @@ public class BiLocCycleDigitRepeat implements FindUpdateRule {
 	 */
 	public static List<int[]> findCycleRepeatDigit33( int pathId, final GraphPath<RowCol,LabelEdge> gp ) {
 		List<int []> encs = new ArrayList<>();
+		findCycleRepeatDigit33( pathId, gp, encs, new EncodingSet( DigitRowColComparator ));
+		return encs;
+	}
+
+	/** As findCycleRepeatDigit33, adding encodings not yet in unique to encs. */
+	public static void findCycleRepeatDigit33( int pathId, final GraphPath<RowCol,LabelEdge> gp,
+			List<int[]> encs, EncodingSet unique ) {
 		// For this path, find the single digit pattern XX.
 		EdgePatternFinder patternFinder = new EdgePatternFinder(gp, EdgePatternFinder.XX_NAME);
 		Map<String, List<RowCol>> matches = patternFinder.getMatches();
@@ -145,13 +155,13 @@ public class BiLocCycleDigitRepeat implements FindUpdateRule {
 					// Only take paths with no multi-digit labels. (Failed 20221221 puzzle)
 					if (0 == multiDigits.size()) {
 						int digit = Integer.parseInt(pattern.substring(0, 1));
-						System.out.printf("Pattern=%s, pathStr=%s, locs=%s%n",
-								pattern, patternFinder.pathString(), RowCol.toString(locs));
-						System.out.printf("Path %d=%s%n",
-								pathId, GraphUtils.pathToString(gp, "-", false));
+						// System.out.printf("Pattern=%s, pathStr=%s, locs=%s%n",
+								// pattern, patternFinder.pathString(), RowCol.toString(locs));
+						// System.out.printf("Path %d=%s%n",
+								// pathId, GraphUtils.pathToString(gp, "-", false));
 						for (RowCol loc : locs) {
 							int[] enc = encode(BILOCCYCLE_DIGIT_REPEAT, pathId, digit, loc, loc, loc);
-							int added = Utils.addUnique(encs, enc, DigitRowColComparator);
+							int added = unique.addUnique(encs, enc);
 							// String addStr = (0 == added) ? "dup of" : "added";
 							// System.out.printf("%s digit=%d. loc=%s%n", addStr, digit, loc);
 						}
@@ -159,7 +169,6 @@ public class BiLocCycleDigitRepeat implements FindUpdateRule {
 				} // single location
 			}
 		} // single entry
-		return encs;
 	}
 
 	/** Encode int []
@@ -197,7 +206,7 @@ public class BiLocCycleDigitRepeat implements FindUpdateRule {
 	 * Useful for when you don't want duplicates which
 	 * match digit and rowCol, but not other fields.
 	 */
-	public static final Comparator<int[]> DigitRowColComparator =
+	public static final Utils.SubsetComparator DigitRowColComparator =
 			new Utils.SubsetComparator(Arrays.asList( 2, 3, 4 ));
 	/**
 	 * Compares an encoding just by pathId.
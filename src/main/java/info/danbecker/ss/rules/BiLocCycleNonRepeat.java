@@ -2,11 +2,13 @@ package info.danbecker.ss.rules;
 
 import info.danbecker.ss.Board;
 import info.danbecker.ss.Candidates;
+import info.danbecker.ss.EncodingSet;
 import info.danbecker.ss.RowCol;
 import info.danbecker.ss.Utils;
 import info.danbecker.ss.graph.EdgePatternFinder;
 import info.danbecker.ss.graph.GraphUtils;
 import info.danbecker.ss.graph.LabelEdge;
+import info.danbecker.ss.sink.EventSink;
 import org.jgrapht.Graph;
 import org.jgrapht.GraphPath;
 
@@ -42,7 +44,7 @@ public class BiLocCycleNonRepeat implements FindUpdateRule {
 	// y digit
 	// 1st location
 	// 2nd location
-	public int update(Board board, final Board solution, Candidates candidates, List<int[]> encs) {
+	public int update(Board board, final Board solution, Candidates candidates, List<int[]> encs, EventSink sink) {
 		int updates = 0;
 		if ( null == encs) return updates;
 		// System.out.println( "Candidates=\n" + candidates.toStringBoxed() );
@@ -53,7 +55,8 @@ public class BiLocCycleNonRepeat implements FindUpdateRule {
 			int xDigit = enc[2];
 			int yDigit = enc[3];
 			RowCol[] locs = {ROWCOL[enc[4]][enc[5]],ROWCOL[enc[6]][enc[7]]};
-			System.out.printf( "Rule %s, enc %d=%s%n", ruleName(), enci, encodingToString( enc ));
+			if ( sink.isText() )
+				sink.printf( "Rule %s, enc %d=%s%n", ruleName(), enci, encodingToString( enc ));
 
 			// Validation if available
 			if ( null != solution ) {
@@ -64,7 +67,7 @@ public class BiLocCycleNonRepeat implements FindUpdateRule {
 					for ( int cand : cands ) {
 						if ( cand != xDigit && cand != yDigit && cand == solutionDigit) {
 							// System.out.println( "Board=\n" + solution.toString() );
-							System.out.println("Candidates=\n" + candidates.toStringBoxed());
+							sink.printf("Candidates=%n%s%n", candidates.toStringBoxed());
 							String msg = format("Rule %s update error pathId %d wants to remove digit %d at loc %s which has solution %d ***",
 									ruleName(), pathId, cand, loc, solutionDigit);
 							/// System.out.println( msg );
@@ -100,6 +103,7 @@ public class BiLocCycleNonRepeat implements FindUpdateRule {
 	@Override
 	public List<int[]> find(final Board board, final Candidates candidates) {
 		List<int[]> matched = new LinkedList<>();
+		EncodingSet unique = new EncodingSet( DigitRowColComparator );
 
 		Graph<RowCol, LabelEdge> bilocGraph = GraphUtils.getBilocGraph( candidates );
 		// DisplayGraph will cause test case to not exit. Use only for debugging.
@@ -107,8 +111,7 @@ public class BiLocCycleNonRepeat implements FindUpdateRule {
 		for( int gpi = 0; gpi < gpl.size(); gpi++ ) {
 			GraphPath<RowCol, LabelEdge> gp = gpl.get(gpi);
 			// System.out.println( "Path " + gpi + "=" + GraphUtils.pathToString( gp, "-", false ) );
-			List<int[]> found = findCycleNonRepeat32( gpi, gp );
-			Utils.addUniques( matched, found, DigitRowColComparator );
+			findCycleNonRepeat32( gpi, gp, matched, unique );
 		}
 		return matched;
 	}
@@ -123,6 +126,13 @@ public class BiLocCycleNonRepeat implements FindUpdateRule {
 	 */
 	public static List<int[]> findCycleNonRepeat32( int pathId, final GraphPath<RowCol,LabelEdge> gp ) {
 		List<int []> encs = new ArrayList<>();
+		findCycleNonRepeat32( pathId, gp, encs, new EncodingSet( DigitRowColComparator ));
+		return encs;
+	}
+
+	/** As findCycleNonRepeat32, adding encodings not yet in unique to encs. */
+	public static void findCycleNonRepeat32( int pathId, final GraphPath<RowCol,LabelEdge> gp,
+			List<int[]> encs, EncodingSet unique ) {
 		// For this path, find the single digit pattern XYX.
 		EdgePatternFinder patternFinder = new EdgePatternFinder(gp, EdgePatternFinder.XYX_NAME);
 		Map<String, List<RowCol>> matches = patternFinder.getMatches();
@@ -138,12 +148,11 @@ public class BiLocCycleNonRepeat implements FindUpdateRule {
 						Integer.parseInt( pattern.substring(1,2) ),
 						locs.get( 0 ), locs.get( 1 )
 					);
-				int added = Utils.addUnique(encs, enc, DigitRowColComparator);
+				int added = unique.addUnique(encs, enc);
 				// String addStr = (0 == added) ? "dup of" : "added";
 				// System.out.printf("%s digit=%d. loc=%s%n", addStr, digit, loc);
 			}
 		}
-		return encs;
 	}
 
 	/** Encode int []
@@ -181,7 +190,7 @@ public class BiLocCycleNonRepeat implements FindUpdateRule {
 	 * Useful for when you don't want duplicates which
 	 * match digit and rowCol, but not other fields.
 	 */
-	public static final Comparator<int[]> DigitRowColComparator =
+	public static final Utils.SubsetComparator DigitRowColComparator =
 			new Utils.SubsetComparator(Arrays.asList( 0, 2, 3, 4, 5, 6, 7 ));
 	/**
 	 * Compares an encoding just by pathId.
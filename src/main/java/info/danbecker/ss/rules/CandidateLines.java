@@ -2,8 +2,10 @@ package info.danbecker.ss.rules;
 
 import info.danbecker.ss.Board;
 import info.danbecker.ss.Candidates;
+import info.danbecker.ss.EncodingSet;
 import info.danbecker.ss.RowCol;
 import info.danbecker.ss.Utils;
+import info.danbecker.ss.sink.EventSink;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -27,7 +29,7 @@ public class CandidateLines implements FindUpdateRule {
 	 * int[] location = new int[]{-1, coli, boxi, digi};
 	 */
 	@Override
-	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs) {
+	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs, EventSink sink) {
 		int updates = 0;
 		if ( null == encs) return updates;
 		for ( int enci = 0; enci < encs.size(); enci++ ) {
@@ -44,13 +46,14 @@ public class CandidateLines implements FindUpdateRule {
 					RowCol loc = locs.get(loci);
 					int cellSolution = solution.get(loc);
 					if (cellSolution == digit) {
-						System.out.println("Candidates=\n" + candidates.toStringBoxed());
+						sink.printf("Candidates=%n%s%n", candidates.toStringBoxed());
 						throw new IllegalArgumentException(format("%s digit %d in %s %d of BOX %d wants to remove solution in %s.%n",
 								ruleName(), digit, unit, uniti, boxi, loc));
 					}
 				}
 			}
-			System.out.printf( "%s digit %d in %s %d of BOX %d will remove candidates in %s.%n",
+			if ( sink.isText() )
+				sink.printf( "%s digit %d in %s %d of BOX %d will remove candidates in %s.%n",
 					ruleName(), digit, unit, uniti, boxi, RowCol.toString(locs) );
 			updates += candidates.removeCandidateNotInBox(enc[0],enc[1],boxi,digit);
 		}
@@ -69,6 +72,7 @@ public class CandidateLines implements FindUpdateRule {
 	@Override
 	public List<int[]> find(Board board, Candidates candidates) {
 		ArrayList<int[]> encs = new ArrayList<>();
+		EncodingSet unique = new EncodingSet();
 		for (int digi = 1; digi <= DIGITS; digi++) {
 			if (!board.digitCompleted(digi)) {
 				for (int boxi = 0; boxi < BOXES; boxi++) {
@@ -82,14 +86,14 @@ public class CandidateLines implements FindUpdateRule {
 								// More candidates not in this box
 								int rowi = potentials.get(1).row();
 								int[] enc = new int[]{rowi, -1, boxi, digi};
-								Utils.addUnique( encs, enc);
+								unique.addUnique( encs, enc);
 							}
 							boolean colMatch = RowCol.colsMatch(potentials);
 							if (colMatch && candidates.getColCount(first.col(), digi) > potentials.size()) {
 								// More candidates not in this box
 								int coli = potentials.get(1).col();
 								int[] enc = new int[]{-1, coli, boxi, digi};
-								Utils.addUnique( encs, enc);
+								unique.addUnique( encs, enc);
 							}
 						}
 					}
@@ -2,7 +2,9 @@ package info.danbecker.ss.rules;
 
 import info.danbecker.ss.Board;
 import info.danbecker.ss.Candidates;
+import info.danbecker.ss.EncodingSet;
 import info.danbecker.ss.RowCol;
+import info.danbecker.ss.sink.EventSink;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -36,7 +38,7 @@ public class DoublePairs implements FindUpdateRule {
 	// digit at index 0 
 	// first pair AB rowCols at indexes 1,2 and 3,4
 	// second pair CD rowCols at indexes 5,6 and 7,8
-	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs) {
+	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs, EventSink sink) {
 		int updates = 0;
 		if ( null == encs) return updates;
 		for ( int enci = 0; enci < encs.size(); enci++ ) {
@@ -55,30 +57,32 @@ public class DoublePairs implements FindUpdateRule {
 			switch( unit ) {
 				case ROW -> {
 					List<RowCol> rowCol1OtherLocs = candidates.findUnitDigitsNotInLocs( otherUnit, ul.col(), zbDigit, Arrays.asList( ul, ll ));
-					checkRemove( ruleName(), solution, candidates, zbDigit, rowCol1OtherLocs );
+					checkRemove( ruleName(), solution, candidates, sink, zbDigit, rowCol1OtherLocs );
 					List<RowCol> rowCol2OtherLocs = candidates.findUnitDigitsNotInLocs( otherUnit, lr.col(), zbDigit, Arrays.asList( ur, lr ));
-					checkRemove( ruleName(), solution, candidates, zbDigit, rowCol2OtherLocs );
+					checkRemove( ruleName(), solution, candidates, sink, zbDigit, rowCol2OtherLocs );
 
 					int count = candidates.removeColCandidatesNotIn(digit, ul.col(), new RowCol[] {ul, ll});
 					count += candidates.removeColCandidatesNotIn(digit, lr.col(), new RowCol[] {ur, lr});
 					updates += count;
 
-					System.out.printf( "%s removed digit %d of double pair %s,%s,%s,%s in %ss at %s%s, count %d%n",
+					if ( sink.isText() )
+						sink.printf( "%s removed digit %d of double pair %s,%s,%s,%s in %ss at %s%s, count %d%n",
 							ruleName(), digit, ul, ur, ll, lr, otherUnit,
 							RowCol.toString(rowCol1OtherLocs), RowCol.toString(rowCol2OtherLocs), count);
 				}
 				case COL -> {
 					// Strange naming of ul,ur,ll,lr for columns
 					List<RowCol> colRow1OtherLocs = candidates.findUnitDigitsNotInLocs( otherUnit, ul.row(), zbDigit, Arrays.asList( ul, ll ));
-					checkRemove( ruleName(), solution, candidates, zbDigit, colRow1OtherLocs );
+					checkRemove( ruleName(), solution, candidates, sink, zbDigit, colRow1OtherLocs );
 					List<RowCol> colRow2OtherLocs = candidates.findUnitDigitsNotInLocs( otherUnit, lr.row(), zbDigit, Arrays.asList( ur, lr ));
-					checkRemove( ruleName(), solution, candidates, zbDigit, colRow2OtherLocs );
+					checkRemove( ruleName(), solution, candidates, sink, zbDigit, colRow2OtherLocs );
 
 					int count = candidates.removeRowCandidatesNotIn(digit, ul.row(), new RowCol[] {ul, ll});
 					count += candidates.removeRowCandidatesNotIn(digit, lr.row(), new RowCol[] {ur, lr});
 					updates += count;
 
-					System.out.printf( "%s removed digit %d of double pair %s,%s,%s,%s in %ss at %s%s, count %d%n",
+					if ( sink.isText() )
+						sink.printf( "%s removed digit %d of double pair %s,%s,%s,%s in %ss at %s%s, count %d%n",
 							ruleName(), digit, ul, ur, ll, lr, otherUnit,
 							RowCol.toString(colRow1OtherLocs), RowCol.toString(colRow2OtherLocs), count);
 				}
@@ -87,7 +91,7 @@ public class DoublePairs implements FindUpdateRule {
 		return updates;
 	}
 
-	public static void checkRemove( String ruleName, Board solution, Candidates candidates, int[] zbDigits, List<RowCol> locs ) {
+	public static void checkRemove( String ruleName, Board solution, Candidates candidates, EventSink sink, int[] zbDigits, List<RowCol> locs ) {
 		if ( null == solution ) return;
 		// Test if digit candidate removal, removes a solution digit
 		for (int loci = 0; loci < locs.size(); loci++) {
@@ -96,7 +100,7 @@ public class DoublePairs implements FindUpdateRule {
 				int digit = zbDigits[digi] + 1;
 				int cellSolution = solution.get(loc);
 				if (cellSolution == digit) {
-					System.out.println("Candidates=\n" + candidates.toStringBoxed());
+					sink.printf("Candidates=%n%s%n", candidates.toStringBoxed());
 					throw new IllegalArgumentException(format("Rule %s wants to remove solution digit %d at loc %s.%n",
 							ruleName, cellSolution, loc));
 				}
@@ -117,6 +121,7 @@ public class DoublePairs implements FindUpdateRule {
 	@Override
 	public List<int[]> find(Board board, Candidates candidates) {
 		ArrayList<int[]> encs = new ArrayList<>();
+		EncodingSet unique = new EncodingSet();
 		for (int digi = 1; digi <= DIGITS; digi++) {
 			if ( !board.digitCompleted( digi )) {
 				// Refactored
@@ -153,7 +158,7 @@ public class DoublePairs implements FindUpdateRule {
 										firstLocs.get(0).row(),firstLocs.get(0).col(),firstLocs.get(1).row(),firstLocs.get(1).col(),
 										secondLocs.get(0).row(),secondLocs.get(0).col(),secondLocs.get(1).row(),secondLocs.get(1).col()};
 
-								addUnique( encs, enc );
+								unique.addUnique( encs, enc );
 								// 	System.out.printf( "Rule %s added enc=%s%n" , ruleName(), encodingToString( enc ));
 								// Found two double pair rows
 								// System.out.printf( "Rule %s found digit %d via %s pairs at %s%s%s%s: counts row1 %d, row2 %d, col1 %d, col2 %d%n" ,
@@ -4,10 +4,28 @@ import java.util.List;
 
 import info.danbecker.ss.Board;
 import info.danbecker.ss.Candidates;
+import info.danbecker.ss.Findings;
+import info.danbecker.ss.SolveContext;
+import info.danbecker.ss.sink.EventSink;
 
 /**
  * These rules find and update the board and candidates via checking
  * board cells of rows/cols/boxes.
+ * <p>
+ * Concurrency contract: a rule instance may be shared by any number of threads.
+ * <ul>
+ * <li>Fields hold configuration only, set in the constructor and final,
+ * such as the subset size of NakedSubsets or the mode of ForcingChains.
+ * Shared helpers, such as a TranspositionTable, must be thread safe.
+ * <li>find and update keep no state in the rule between or during calls.
+ * <li>Scratch memory, such as lists, masks, stacks, and findings buffers,
+ * comes from a RuleArena of the calling thread. find takes the arena of its SolveContext,
+ * or RuleArena.forThread without a context, and update takes RuleArena.forThread.
+ * Scratch that outlives a find, such as the template survivors of Templates,
+ * is kept in the arena, so each thread sees only its own.
+ * </ul>
+ * So one rule set, such as SudokuSolver.defaultRules, serves a whole thread pool
+ * without synchronization or per thread rule instances.
  * 
  * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
  */
@@ -16,9 +34,19 @@ public interface FindUpdateRule {
 	 * Update board and candidates based on given encoding
 	 * from the find method.
 	 * The rule should throw an exception if the action violates the solution.
+	 * What the update does is reported to the sink, which formats it only if it writes text.
 	 * @return number of board cells or candidates updated
 	 */
-	int update( Board board, Board solution, Candidates candidates, List<int[]> encs );
+	int update( Board board, Board solution, Candidates candidates, List<int[]> encs, EventSink sink );
+
+	/**
+	 * Update board and candidates based on given encoding
+	 * from the find method, reporting to the console.
+	 * @return number of board cells or candidates updated
+	 */
+	default int update( Board board, Board solution, Candidates candidates, List<int[]> encs ) {
+		return update( board, solution, candidates, encs, EventSink.console() );
+	}
 	
 	/**
 	 * Returns information on where this rule has a hit.
@@ -30,6 +58,17 @@ public interface FindUpdateRule {
 	 */
 	List<int[]> find(Board board, Candidates candidates );
 
+	/**
+	 * Returns information on where this rule has a hit,
+	 * using the shared derived data of the context where the rule can,
+	 * and the scratch memory of the context arena.
+	 * The context should describe these candidates.
+	 * Rules that derive nothing shareable just use find(board, candidates).
+	 */
+	default List<int[]> find(Board board, Candidates candidates, SolveContext context ) {
+		return find( board, candidates );
+	}
+
 	/**
 	 * A utility to convert the rule specific encoding
 	 * to a string for printing or logging.
@@ -38,6 +77,17 @@ public interface FindUpdateRule {
 	 */
 	String encodingToString( int [] enc );
 
+	/**
+	 * Adds the placements and candidate removals of one encoding
+	 * to the findings buffer, so that update may use the generic
+	 * Findings.apply and callers may merge the findings of several rules.
+	 * @param ref explanation reference kept with each finding, such as the encoding index
+	 * @return false if this rule does not describe its encodings as findings
+	 */
+	default boolean addFindings( Candidates candidates, int[] enc, int ref, Findings findings ) {
+		return false;
+	}
+
 	/**
 	 * Return of the name of this rule.
 	 * @return
@@ -0,0 +1,348 @@
+package info.danbecker.ss.rules;
+
+import info.danbecker.ss.Board;
+import info.danbecker.ss.Candidates;
+import info.danbecker.ss.Findings;
+import info.danbecker.ss.RowCol;
+import info.danbecker.ss.RuleArena;
+import info.danbecker.ss.SolveContext;
+import info.danbecker.ss.sink.EventSink;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static info.danbecker.ss.Board.ROWCOL;
+import static info.danbecker.ss.Utils.DIGITS;
+import static info.danbecker.ss.Utils.UNITS;
+import static info.danbecker.ss.Utils.bitIndexes;
+import static info.danbecker.ss.Utils.comboCount;
+import static info.danbecker.ss.Utils.comboMask;
+import static info.danbecker.ss.Utils.spread;
+import static java.lang.String.format;
+
+/**
+ * From https://hodoku.sourceforge.net/en/tech_fishg.php
+ * Fish are single digit patterns. "Single digit" means, that only candidates
+ * of the same digit are considered when looking at fish.
+ * "Pattern" means, that the location of the candidates in the grid is important.
+ * <p>
+ * The number of base/cover sets define the size of the fish. The following names are normally used:
+ *     Size 2: X-Wing (X-Wing is a fish and not a wing!), Size 3: Swordfish,  Size 4: Jellyfish
+ * <p>
+ * A basic fish has N base rows (cols) whose digit candidates lie in exactly N cover cols (rows).
+ * The digit can be removed from the cover cols (rows) outside of the base rows (cols).
+ * <p>
+ * A finned fish has extra candidates (fins) in the base units outside the cover units.
+ * When all fins share one box, the digit can be removed from cover unit cells
+ * outside the base units that are also in the fin box.
+ * A sashimi fish is a finned fish where some base unit has fewer than two cover candidates.
+ * <p>
+ * This engine keeps a 9 bit position mask per row and col for the digit.
+ * Base unit and cover unit combinations come from the combination
+ * tables of Utils, spread over the eligible units, skipping base sets whose
+ * union has more bits than the fish can cover.
+ * All fish with eliminations are reported.
+ * <p>
+ * Also see https://www.sudokuoftheday.com/techniques/x-wings
+ * and https://www.thonky.com/sudoku/sword-fish
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class Fish implements FindUpdateRule {
+	public static final String[] NAMES = { "", "", "X-Wing", "Swordfish", "Jellyfish" };
+	public static final int MIN_SIZE = 2;
+	public static final int MAX_SIZE = 4;
+	// Fins in one box span at most three cover positions.
+	public static final int MAX_FIN_UNITS = 3;
+
+	protected final int size;
+	protected final boolean finned;
+	private final int ruleId;
+
+	/** The working memory of one find, shared by all fish sizes. */
+	protected static class Scratch {
+		// Digit position masks by [orientation][uniti], one bit per position in the unit.
+		// Orientation 0 is row masks of cols, orientation 1 is col masks of rows.
+		protected final int[][] masks = new int[2][UNITS];
+		// Staging for one encoding.
+		protected final int[] enc = new int[ 7 + 2 * UNITS * MAX_SIZE + 1 + 2 * UNITS * MAX_SIZE ];
+		// Unit indexes of the eligible base units and of the cover candidates of one base.
+		protected final int[] bases = new int[UNITS];
+		protected final int[] covers = new int[UNITS];
+	}
+
+	public Fish(int size) {
+		this(size, false);
+	}
+
+	public Fish(int size, boolean finned) {
+		if (size < MIN_SIZE || size > MAX_SIZE)
+			throw new IllegalArgumentException("Fish size " + size + " was not between " + MIN_SIZE + " and " + MAX_SIZE + ".");
+		this.size = size;
+		this.finned = finned;
+		ruleId = Findings.ruleId(ruleName());
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public boolean isFinned() {
+		return finned;
+	}
+
+	@Override
+	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs, EventSink sink) {
+		if (null == encs) return 0;
+		Findings findings = RuleArena.forThread().findings();
+		for (int enci = 0; enci < encs.size(); enci++) {
+			int[] enc = encs.get(enci);
+			addFindings(candidates, enc, enci, findings);
+			if (sink.isText())
+				sink.printf("%s removes digit %d from %d locations %s%n",
+					ruleName(), enc[0], enc[7 + 2 * enc[6]], RowCol.toString(eliminations(enc)));
+		}
+		return findings.apply(board, solution, candidates);
+	}
+
+	@Override
+	public boolean addFindings(Candidates candidates, int[] enc, int ref, Findings findings) {
+		int counti = 7 + 2 * enc[6];
+		for (int loci = 0; loci < enc[counti]; loci++)
+			findings.remove(ROWCOL[enc[counti + 1 + 2 * loci]][enc[counti + 2 + 2 * loci]], enc[0], ruleId, ref);
+		return true;
+	}
+
+	@Override
+	public List<int[]> find(Board board, Candidates candidates) {
+		return find(board, candidates, null);
+	}
+
+	@Override
+	public List<int[]> find(Board board, Candidates candidates, SolveContext context) {
+		if (null == candidates)
+			return null;
+		Scratch scratch = RuleArena.of(context).scratch(Scratch.class, Scratch::new);
+		List<int[]> encs = new ArrayList<>();
+		for (int digit = 1; digit <= DIGITS; digit++) {
+			if (!board.digitCompleted(digit))
+				find(candidates, digit, encs, scratch);
+		}
+		return encs;
+	}
+
+	/** Adds the fish of this digit to the given list. */
+	public void find(Candidates candidates, int digit, List<int[]> encs) {
+		find(candidates, digit, encs, RuleArena.forThread().scratch(Scratch.class, Scratch::new));
+	}
+
+	protected void find(Candidates candidates, int digit, List<int[]> encs, Scratch scratch) {
+		int[][] masks = scratch.masks;
+		Arrays.fill(masks[0], 0);
+		Arrays.fill(masks[1], 0);
+		for (int rowi = 0; rowi < UNITS; rowi++) {
+			for (int coli = 0; coli < UNITS; coli++) {
+				if (candidates.isCandidate(ROWCOL[rowi][coli], digit)) {
+					masks[0][rowi] |= 1 << coli;
+					masks[1][coli] |= 1 << rowi;
+				}
+			}
+		}
+		for (int orient = 0; orient < 2; orient++)
+			search(digit, orient, encs, scratch);
+	}
+
+	/**
+	 * Enumerates base unit combinations of this size among the eligible units.
+	 * A base unit with one or no candidates is a single or a solved digit,
+	 * and one with more candidates than the fish can cover is never a base.
+	 */
+	protected void search(int digit, int orient, List<int[]> encs, Scratch scratch) {
+		int maxUnion = finned ? size + MAX_FIN_UNITS : size;
+		int[] unitMasks = scratch.masks[orient];
+		int eligible = 0;
+		for (int uniti = 0; uniti < UNITS; uniti++) {
+			int bits = Integer.bitCount(unitMasks[uniti]);
+			if (2 <= bits && bits <= maxUnion)
+				eligible |= 1 << uniti;
+		}
+		int count = bitIndexes(eligible, scratch.bases);
+		for (int combi = 0, combos = comboCount(count, size); combi < combos; combi++) {
+			int baseMask = spread(comboMask(size, combi), scratch.bases);
+			int union = 0;
+			for (int bases = baseMask; 0 != bases; bases &= bases - 1)
+				union |= unitMasks[Integer.numberOfTrailingZeros(bases)];
+			if (Integer.bitCount(union) > maxUnion)
+				continue;
+			if (finned)
+				finnedFish(digit, orient, baseMask, union, encs, scratch);
+			else if (Integer.bitCount(union) == size)
+				basicFish(digit, orient, baseMask, union, encs, scratch);
+		}
+	}
+
+	/** Cover units are exactly the union of the base units. */
+	protected void basicFish(int digit, int orient, int baseMask, int coverMask, List<int[]> encs, Scratch scratch) {
+		int elimCount = 0;
+		int elimOffset = 8; // no fins
+		int[] coverMasks = scratch.masks[1 - orient];
+		int[] staged = scratch.enc;
+		for (int coveri = 0; coveri < UNITS; coveri++) {
+			if (0 == (coverMask & (1 << coveri))) continue;
+			int extras = coverMasks[coveri] & ~baseMask;
+			for (int posi = 0; posi < UNITS; posi++) {
+				if (0 != (extras & (1 << posi))) {
+					RowCol loc = location(orient, posi, coveri);
+					staged[elimOffset + 2 * elimCount] = loc.row();
+					staged[elimOffset + 2 * elimCount + 1] = loc.col();
+					elimCount++;
+				}
+			}
+		}
+		if (0 < elimCount)
+			encs.add(encode(digit, orient, baseMask, coverMask, false, 0, elimCount, staged));
+	}
+
+	/** Tries each choice of cover units among the union. Remaining base candidates are fins. */
+	protected void finnedFish(int digit, int orient, int baseMask, int union, List<int[]> encs, Scratch scratch) {
+		if (Integer.bitCount(union) <= size)
+			return; // no fins, a basic fish
+		int[] baseMasks = scratch.masks[orient];
+		int[] coverMasks = scratch.masks[1 - orient];
+		int[] staged = scratch.enc;
+		int count = bitIndexes(union, scratch.covers);
+		for (int combi = 0, combos = comboCount(count, size); combi < combos; combi++) {
+			int coverMask = spread(comboMask(size, combi), scratch.covers);
+			// Every base unit needs a cover candidate, and all fins share a box.
+			boolean sashimi = false;
+			int finBox = -1;
+			int finCount = 0;
+			boolean valid = true;
+			for (int basei = 0; valid && basei < UNITS; basei++) {
+				if (0 == (baseMask & (1 << basei))) continue;
+				int covered = baseMasks[basei] & coverMask;
+				if (0 == covered) {
+					valid = false;
+					break;
+				}
+				if (Integer.bitCount(covered) < 2)
+					sashimi = true;
+				int fins = baseMasks[basei] & ~coverMask;
+				for (int posi = 0; posi < UNITS; posi++) {
+					if (0 != (fins & (1 << posi))) {
+						RowCol fin = location(orient, basei, posi);
+						if (-1 == finBox)
+							finBox = fin.box();
+						else if (fin.box() != finBox) {
+							valid = false;
+							break;
+						}
+						staged[7 + 2 * finCount] = fin.row();
+						staged[7 + 2 * finCount + 1] = fin.col();
+						finCount++;
+					}
+				}
+			}
+			if (!valid)
+				continue;
+			// Cover candidates outside the base units that see every fin (in the fin box).
+			int elimOffset = 7 + 2 * finCount + 1;
+			int elimCount = 0;
+			for (int coveri = 0; coveri < UNITS; coveri++) {
+				if (0 == (coverMask & (1 << coveri))) continue;
+				int extras = coverMasks[coveri] & ~baseMask;
+				for (int posi = 0; posi < UNITS; posi++) {
+					if (0 != (extras & (1 << posi))) {
+						RowCol loc = location(orient, posi, coveri);
+						if (loc.box() == finBox) {
+							staged[elimOffset + 2 * elimCount] = loc.row();
+							staged[elimOffset + 2 * elimCount + 1] = loc.col();
+							elimCount++;
+						}
+					}
+				}
+			}
+			if (0 < elimCount)
+				encs.add(encode(digit, orient, baseMask, coverMask, sashimi, finCount, elimCount, staged));
+		}
+	}
+
+	/** Returns the location of a base unit index and cover unit index in this orientation. */
+	public static RowCol location(int orient, int basei, int coveri) {
+		return 0 == orient ? ROWCOL[basei][coveri] : ROWCOL[coveri][basei];
+	}
+
+	// Encode int [] index map
+	// - digit at index 0, 1-based
+	// - orientation at index 1, 0 == base rows/cover cols, 1 == base cols/cover rows
+	// - size at index 2
+	// - base unit mask at index 3, bit per unit index
+	// - cover unit mask at index 4, bit per unit index
+	// - sashimi at index 5, 0 == no, 1 == yes
+	// - fin count F at index 6
+	// - fin rowCols at indexes 7.. 7+2F-1
+	// - elimination count E at index 7+2F
+	// - elimination rowCols at indexes 8+2F.. 8+2F+2E-1
+	// Fins and eliminations are staged by the caller.
+	protected int[] encode(int digit, int orient, int baseMask, int coverMask, boolean sashimi, int finCount, int elimCount, int[] staged) {
+		int elimOffset = 7 + 2 * finCount + 1;
+		int[] enc = Arrays.copyOf(staged, elimOffset + 2 * elimCount);
+		enc[0] = digit;
+		enc[1] = orient;
+		enc[2] = size;
+		enc[3] = baseMask;
+		enc[4] = coverMask;
+		enc[5] = sashimi ? 1 : 0;
+		enc[6] = finCount;
+		enc[elimOffset - 1] = elimCount;
+		return enc;
+	}
+
+	/** Returns the fin locations of the encoding. */
+	public static List<RowCol> fins(int[] enc) {
+		return locations(enc, 6);
+	}
+
+	/** Returns the elimination locations of the encoding. */
+	public static List<RowCol> eliminations(int[] enc) {
+		return locations(enc, 7 + 2 * enc[6]);
+	}
+
+	private static List<RowCol> locations(int[] enc, int counti) {
+		List<RowCol> locs = new ArrayList<>(enc[counti]);
+		for (int loci = 0; loci < enc[counti]; loci++)
+			locs.add(ROWCOL[enc[counti + 1 + 2 * loci]][enc[counti + 2 + 2 * loci]]);
+		return locs;
+	}
+
+	/** Returns the unit indexes of the mask as a digit string, such as "037". */
+	public static String unitsToString(int mask) {
+		StringBuilder sb = new StringBuilder();
+		for (int uniti = 0; uniti < UNITS; uniti++)
+			if (0 != (mask & (1 << uniti)))
+				sb.append(uniti);
+		return sb.toString();
+	}
+
+	@Override
+	public String encodingToString(int[] enc) {
+		int digit = enc[0];
+		boolean rows = 0 == enc[1];
+		String variant = 1 == enc[5] ? "sashimi " : 0 < enc[6] ? "finned " : "";
+		StringBuilder sb = new StringBuilder(format("digit %d %s%s base %s %s, cover %s %s",
+			digit, variant, NAMES[enc[2]],
+			rows ? "rows" : "cols", unitsToString(enc[3]),
+			rows ? "cols" : "rows", unitsToString(enc[4])));
+		if (0 < enc[6])
+			sb.append(format(", fins %s", RowCol.toString(fins(enc))));
+		List<RowCol> elims = eliminations(enc);
+		sb.append(format(", removes (size=%d) %s", elims.size(), RowCol.toString(elims)));
+		return sb.toString();
+	}
+
+	@Override
+	public String ruleName() {
+		return (finned ? "Finned" : "") + getClass().getSimpleName() + size;
+	}
+}
@@ -0,0 +1,407 @@
+package info.danbecker.ss.rules;
+
+import info.danbecker.ss.Board;
+import info.danbecker.ss.Candidates;
+import info.danbecker.ss.Candidates.Action;
+import info.danbecker.ss.EncodingSet;
+import info.danbecker.ss.Findings;
+import info.danbecker.ss.Propagator;
+import info.danbecker.ss.RowCol;
+import info.danbecker.ss.RuleArena;
+import info.danbecker.ss.SolveContext;
+import info.danbecker.ss.Utils;
+import info.danbecker.ss.Zobrist;
+import info.danbecker.ss.tree.TranspositionTable;
+import info.danbecker.ss.tree.TranspositionTable.Outcome;
+import info.danbecker.ss.sink.EventSink;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static info.danbecker.ss.Board.ROWCOL;
+import static info.danbecker.ss.Utils.COLS;
+import static info.danbecker.ss.Utils.DIGITS;
+import static info.danbecker.ss.Utils.ROWS;
+import static java.lang.String.format;
+
+/**
+ * ForcingChains
+ * <p>
+ * From https://hodoku.sourceforge.net/en/tech_chains.php#fcc
+ * <p>
+ * A forcing chain assumes each alternative of a choice that must hold one way or the other,
+ * and follows the consequences of each. Whatever every alternative agrees on is true.
+ * <ul>
+ * <li>CELL assumes each candidate of a bivalue cell.
+ * <li>UNIT assumes each location of a digit with exactly two locations in a row, col, or box.
+ * </ul>
+ * A cell whose remaining digits in every branch are one digit gets that digit.
+ * A candidate that no branch leaves in its cell is removed.
+ * A branch that ends in a contradiction was never possible and does not vote,
+ * so a choice with one contradicted branch yields all the consequences of the other.
+ * Following consequences through many cells in parallel makes these forcing nets
+ * rather than strict chains.
+ * <p>
+ * Branches follow singles with the Propagator, so one load of the candidates serves
+ * every branch, and each branch undoes its changes from the trail.
+ * Branch results are kept in a TranspositionTable by the Zobrist hash of the branch start state.
+ * The same assumption starts a branch of a cell choice and of up to three unit choices,
+ * so most unit branches come from the table.
+ * With many choices, slices of the choices are followed in parallel by up to parallelism
+ * helper tasks of an executor, each slice on one copy of the loaded propagator.
+ * The finding thread follows slices too, including any that no helper has started,
+ * so a busy or rejecting executor slows a find but never stalls it, and the
+ * extra threads of all finds are bounded by the executor, by default SHARED_EXECUTOR.
+ * The propagator and its copies are the scratch of the find, from its RuleArena.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class ForcingChains implements FindUpdateRule {
+	public enum Mode { CELL, UNIT }
+	/** Choice count from which a find follows choices in parallel. */
+	public static final int DEFAULT_PARALLEL_CHOICES = 32;
+	/** Helper tasks of one find, besides the finding thread. */
+	public static final int DEFAULT_PARALLELISM = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+	/** Helper threads shared by the forcing rules of all solves. */
+	public static final ExecutorService SHARED_EXECUTOR = Executors.newFixedThreadPool(DEFAULT_PARALLELISM, new HelperThreads());
+	/** Branch results shared by the forcing rules of all solves. */
+	public static final TranspositionTable SHARED_TABLE = new TranspositionTable(4L << 20);
+
+	// Encoding: action (PLACE or REMOVE), digit, row, col, choice kind, choice index, choice digit.
+	// Choice kind is the Utils.Unit ordinal of a unit choice, or CELL_CHOICE with the cell index.
+	public static final int PLACE = 0;
+	public static final int REMOVE = 1;
+	protected static final int CELL_CHOICE = Utils.Unit.values().length;
+
+	protected final Mode mode;
+	protected final TranspositionTable table;
+	protected final int parallelChoices;
+	protected final Executor executor;
+	protected final int parallelism;
+	private final int ruleId;
+
+	/** Copies of the loaded propagator, one per slice of a parallel find. */
+	protected static class Copies {
+		protected Propagator[] propagators = new Propagator[1];
+
+		/** The loaded propagator for slice 0, and a copy of it for each other slice. */
+		protected Propagator[] of(Propagator loaded, int slices) {
+			if (propagators.length < slices)
+				propagators = Arrays.copyOf(propagators, slices);
+			propagators[0] = loaded;
+			for (int slicei = 1; slicei < slices; slicei++) {
+				if (null == propagators[slicei])
+					propagators[slicei] = new Propagator();
+				propagators[slicei].copy(loaded);
+			}
+			return propagators;
+		}
+	}
+
+	protected static class HelperThreads implements java.util.concurrent.ThreadFactory {
+		protected final AtomicInteger threadIds = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "forcing-chains-" + threadIds.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+	public ForcingChains() {
+		this(Mode.CELL);
+	}
+
+	public ForcingChains(Mode mode) {
+		this(mode, SHARED_TABLE, DEFAULT_PARALLEL_CHOICES);
+	}
+
+	/**
+	 * @param mode CELL or UNIT choices
+	 * @param table branch result cache, or null for none
+	 * @param parallelChoices follow choices in parallel when a find has at least this many
+	 */
+	public ForcingChains(Mode mode, TranspositionTable table, int parallelChoices) {
+		this(mode, table, parallelChoices, SHARED_EXECUTOR, DEFAULT_PARALLELISM);
+	}
+
+	/**
+	 * @param mode CELL or UNIT choices
+	 * @param table branch result cache, or null for none
+	 * @param parallelChoices follow choices in parallel when a find has at least this many
+	 * @param executor runs the helper tasks of a parallel find, or null to follow all choices on the finding thread
+	 * @param parallelism most helper tasks of one find
+	 */
+	public ForcingChains(Mode mode, TranspositionTable table, int parallelChoices, Executor executor, int parallelism) {
+		if (null == mode)
+			throw new IllegalArgumentException("mode=null");
+		if (parallelChoices < 1)
+			throw new IllegalArgumentException("parallelChoices=" + parallelChoices);
+		if (parallelism < 0)
+			throw new IllegalArgumentException("parallelism=" + parallelism);
+		this.mode = mode;
+		this.table = table;
+		this.parallelChoices = parallelChoices;
+		this.executor = executor;
+		this.parallelism = parallelism;
+		ruleId = Findings.ruleId(ruleName());
+	}
+
+	@Override
+	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs, EventSink sink) {
+		if (null == encs) return 0;
+		Findings findings = RuleArena.forThread().findings();
+		for (int enci = 0; enci < encs.size(); enci++) {
+			int[] enc = encs.get(enci);
+			addFindings(candidates, enc, enci, findings);
+			sink.encoding(this, enc);
+		}
+		return findings.apply(board, solution, candidates);
+	}
+
+	@Override
+	public boolean addFindings(Candidates candidates, int[] enc, int ref, Findings findings) {
+		if (PLACE == enc[0])
+			findings.place(ROWCOL[enc[2]][enc[3]], enc[1], ruleId, ref);
+		else
+			findings.remove(ROWCOL[enc[2]][enc[3]], enc[1], ruleId, ref);
+		return true;
+	}
+
+	@Override
+	public List<int[]> find(Board board, Candidates candidates) {
+		return find(board, candidates, null);
+	}
+
+	@Override
+	public List<int[]> find(Board board, Candidates candidates, SolveContext context) {
+		if (null == candidates)
+			return null;
+		RuleArena arena = RuleArena.of(context);
+		Propagator propagator = arena.scratch(Propagator.class, Propagator::new);
+		propagator.load(candidates);
+		long baseHash = candidates.stateHash();
+		List<int[]> choices = Mode.CELL == mode ? cellChoices(propagator) : unitChoices(propagator);
+
+		AtomicReferenceArray<List<int[]>> results = new AtomicReferenceArray<>(choices.size());
+		if (null != executor && 0 < parallelism && choices.size() >= parallelChoices) {
+			follow(arena.scratch(Copies.class, Copies::new).of(propagator, Math.min(parallelism + 1, choices.size())),
+				baseHash, choices, results);
+		} else {
+			for (int choicei = 0; choicei < choices.size(); choicei++)
+				results.set(choicei, follow(propagator, baseHash, choices.get(choicei)));
+		}
+
+		// Merge in choice order, keeping the first choice of each finding.
+		List<int[]> encs = new ArrayList<>();
+		EncodingSet unique = new EncodingSet(0, 1, 2, 3);
+		for (int choicei = 0; choicei < choices.size(); choicei++)
+			unique.addUniques(encs, results.get(choicei));
+		return encs;
+	}
+
+	/**
+	 * Follows the choices in slices, one slice per propagator, on helper tasks and this thread.
+	 * A slice is taken by whichever thread claims it first, and this thread returns
+	 * once every slice is followed, so helpers never outlive the find.
+	 */
+	protected void follow(Propagator[] propagators, long baseHash, List<int[]> choices, AtomicReferenceArray<List<int[]>> results) {
+		int slices = Math.min(parallelism + 1, choices.size());
+		AtomicInteger nextSlice = new AtomicInteger();
+		CountDownLatch followed = new CountDownLatch(slices);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Runnable follower = () -> {
+			for (int slicei = nextSlice.getAndIncrement(); slicei < slices; slicei = nextSlice.getAndIncrement()) {
+				try {
+					for (int choicei = slicei * choices.size() / slices; choicei < (slicei + 1) * choices.size() / slices; choicei++)
+						results.set(choicei, follow(propagators[slicei], baseHash, choices.get(choicei)));
+				} catch (RuntimeException | Error e) {
+					failure.compareAndSet(null, e);
+				} finally {
+					followed.countDown();
+				}
+			}
+		};
+		try {
+			for (int helperi = 1; helperi < slices; helperi++)
+				executor.execute(follower);
+		} catch (RejectedExecutionException e) {
+			// This thread follows the slices no helper takes.
+		}
+		follower.run();
+		boolean interrupted = false;
+		while (0 < followed.getCount()) {
+			try {
+				followed.await();
+			} catch (InterruptedException e) {
+				// Helpers still use the propagator copies, so wait for them.
+				interrupted = true;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+		Throwable thrown = failure.get();
+		if (thrown instanceof RuntimeException runtime)
+			throw runtime;
+		if (thrown instanceof Error error)
+			throw error;
+	}
+
+	/**
+	 * Choices of bivalue cells.
+	 * A choice is kind, index, choice digit, then cell and digit of each branch.
+	 */
+	protected List<int[]> cellChoices(Propagator propagator) {
+		List<int[]> choices = new ArrayList<>();
+		for (int celli = 0; celli < Propagator.CELLS; celli++) {
+			int mask = propagator.baseMask(celli);
+			if (2 == Integer.bitCount(mask)) {
+				int digit1 = Integer.numberOfTrailingZeros(mask) + 1;
+				int digit2 = 32 - Integer.numberOfLeadingZeros(mask);
+				choices.add(new int[]{CELL_CHOICE, celli, 0, celli, digit1, celli, digit2});
+			}
+		}
+		return choices;
+	}
+
+	/** Choices of digits with two locations in a unit, in unit, unit index, digit order. */
+	protected List<int[]> unitChoices(Propagator propagator) {
+		List<int[]> choices = new ArrayList<>();
+		for (Utils.Unit unit : Utils.Unit.values()) {
+			for (int uniti = 0; uniti < ROWS; uniti++) {
+				int[] cells = Propagator.UNIT_CELLS[unit.ordinal() * ROWS + uniti];
+				for (int digit = 1; digit <= DIGITS; digit++) {
+					int bit = 1 << (digit - 1);
+					int first = -1;
+					int second = -1;
+					int count = 0;
+					for (int celli : cells) {
+						if (0 != (propagator.baseMask(celli) & bit)) {
+							if (0 == count) first = celli;
+							else second = celli;
+							count++;
+						}
+					}
+					if (2 == count)
+						choices.add(new int[]{unit.ordinal(), uniti, digit, first, digit, second, digit});
+				}
+			}
+		}
+		return choices;
+	}
+
+	/**
+	 * Follows each branch of the choice and intersects the consequences.
+	 * The propagator is left as loaded.
+	 * @return encodings of the placements and removals every live branch agrees on
+	 */
+	protected List<int[]> follow(Propagator propagator, long baseHash, int[] choice) {
+		int branches = (choice.length - 3) / 2;
+		int[] union = new int[Propagator.CELLS];
+		int live = 0;
+		Findings changes = new Findings(Propagator.CELLS);
+		for (int branchi = 0; branchi < branches; branchi++) {
+			int celli = choice[3 + 2 * branchi];
+			int digit = choice[4 + 2 * branchi];
+			changes.clear();
+			Outcome outcome = branch(propagator, baseHash, celli, digit, ruleId, changes);
+			if (Outcome.CONTRADICTION == outcome)
+				continue;
+			live++;
+			// Possible digits of each cell in this branch, the base with the branch changes.
+			int[] possible = new int[Propagator.CELLS];
+			for (int cellj = 0; cellj < Propagator.CELLS; cellj++)
+				possible[cellj] = propagator.possible(cellj);
+			for (int changei = 0; changei < changes.size(); changei++) {
+				int cellj = changes.cell(changei);
+				if (Action.OCCUPY == changes.action(changei))
+					possible[cellj] = changes.digits(changei);
+				else
+					possible[cellj] &= ~changes.digits(changei);
+			}
+			for (int cellj = 0; cellj < Propagator.CELLS; cellj++)
+				union[cellj] |= possible[cellj];
+		}
+
+		List<int[]> encs = new ArrayList<>();
+		if (0 == live)
+			return encs; // Every branch fails, these candidates have no solution.
+		for (int cellj = 0; cellj < Propagator.CELLS; cellj++) {
+			int base = propagator.baseMask(cellj);
+			if (0 != propagator.basePlaced(cellj) || 0 == base)
+				continue;
+			int row = cellj / COLS;
+			int col = cellj % COLS;
+			int agreed = union[cellj] & base;
+			if (1 == Integer.bitCount(agreed) && agreed != base) {
+				encs.add(new int[]{PLACE, Integer.numberOfTrailingZeros(agreed) + 1, row, col, choice[0], choice[1], choice[2]});
+			} else {
+				for (int removed = base & ~union[cellj]; 0 != removed; removed &= removed - 1)
+					encs.add(new int[]{REMOVE, Integer.numberOfTrailingZeros(removed) + 1, row, col, choice[0], choice[1], choice[2]});
+			}
+		}
+		return encs;
+	}
+
+	/**
+	 * Places the digit in the cell and propagates, or looks the result up in the table.
+	 * Changes from the loaded base are added to the changes findings.
+	 * The propagator is left as loaded.
+	 */
+	protected Outcome branch(Propagator propagator, long baseHash, int celli, int digit, int ruleId, Findings changes) {
+		// Hash of the start state, the base with this cell occupied by the digit.
+		long hash = baseHash ^ Zobrist.occupied(celli, digit);
+		for (int mask = propagator.baseMask(celli); 0 != mask; mask &= mask - 1)
+			hash ^= Zobrist.candidate(celli, Integer.numberOfTrailingZeros(mask) + 1);
+		if (null != table) {
+			Outcome outcome = table.probe(hash, changes);
+			if (null != outcome)
+				return outcome;
+		}
+		int mark = propagator.mark();
+		Outcome outcome;
+		if (propagator.place(celli, digit) && propagator.propagate()) {
+			outcome = propagator.solved() ? Outcome.SOLVED : Outcome.PROPAGATED;
+			propagator.addChanges(changes, ruleId, 0);
+		} else {
+			outcome = Outcome.CONTRADICTION;
+		}
+		propagator.undo(mark);
+		if (null != table)
+			table.put(hash, outcome, changes);
+		return outcome;
+	}
+
+	@Override
+	public String encodingToString(int[] enc) {
+		String action = PLACE == enc[0] ? "places" : "removes";
+		return format("%s digit %d at %s, forced by %s", action, enc[1], ROWCOL[enc[2]][enc[3]], choiceToString(enc));
+	}
+
+	protected static String choiceToString(int[] enc) {
+		if (CELL_CHOICE == enc[4]) {
+			RowCol rowCol = ROWCOL[enc[5] / COLS][enc[5] % COLS];
+			return format("cell %s", rowCol);
+		}
+		return format("digit %d in %s %d", enc[6], Utils.Unit.values()[enc[4]].name().toLowerCase(), enc[5]);
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	@Override
+	public String ruleName() {
+		return this.getClass().getSimpleName() + (Mode.CELL == mode ? "Cell" : "Unit");
+	}
+}
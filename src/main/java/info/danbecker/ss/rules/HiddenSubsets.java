@@ -2,8 +2,13 @@ package info.danbecker.ss.rules;
 
 import info.danbecker.ss.Board;
 import info.danbecker.ss.Candidates;
+import info.danbecker.ss.CellSet;
+import info.danbecker.ss.Findings;
 import info.danbecker.ss.RowCol;
+import info.danbecker.ss.RuleArena;
+import info.danbecker.ss.SolveContext;
 import info.danbecker.ss.Utils;
+import info.danbecker.ss.sink.EventSink;
 
 import static info.danbecker.ss.Board.ROWCOL;
 import static info.danbecker.ss.Utils.*;
@@ -13,7 +18,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
-import static info.danbecker.ss.Candidates.NOT_NAKED;
 
 /**
  * HiddenSubsets
@@ -35,24 +39,22 @@ import static info.danbecker.ss.Candidates.NOT_NAKED;
  */
 public class HiddenSubsets implements FindUpdateRule {
 
-	protected int subsetSize;
-	protected int partialCount;
+	protected final int subsetSize;
+	private final int ruleId;
 
 	public HiddenSubsets(int subsetSize) {
 		if ( subsetSize < 2)
 			throw new IllegalArgumentException(  "Subset size " + subsetSize + " was less than 2.");
+		if ( subsetSize > Subsets.MAX_SIZE)
+			throw new IllegalArgumentException(  "Subset size " + subsetSize + " was greater than " + Subsets.MAX_SIZE + ".");
 		this.subsetSize = subsetSize;
-		if ( 2 == subsetSize ) {
-			partialCount = 2;
-		} else {
-			partialCount = subsetSize - 1;
-		}
+		ruleId = Findings.ruleId(ruleName());
 	}
 
 	@Override
-	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs) {
-		int updates = 0;
-		if ( null == encs) return updates;
+	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs, EventSink sink) {
+		if ( null == encs) return 0;
+		Findings findings = RuleArena.forThread().findings();
 		for ( int enci = 0; enci < encs.size(); enci++) {
 			// Act on all finds
 			int [] enc = encs.get(enci);
@@ -60,40 +62,40 @@ public class HiddenSubsets implements FindUpdateRule {
 			int [] zbDigits = onebasedComboToZeroBasedInts( enc[0] ); // converts 1-based to 0-based
 			RowCol[] locs = encToRowCols( enc );
 
-			int[][] digitsNotInCombo = candidates.digitsNotInCombo( zbDigits, locs );
-			String setName = switch( subsetSize ) {
-				case 2 -> "double";
-				case 3 -> "triple";
-				default -> subsetSize + " tuple";
-			};
-			System.out.printf( "%s hidden %s %s %s at %s will remove digits %s%n",
-					ruleName(),	setName,
-					RowCol.firstUnitMatch( Arrays.asList( locs )),
-					digitsToString(zbToobIntsCopy(zbDigits)), // converts 0-based to 1-based
-					RowCol.toString(locs),
-					digitListsToString( digitsNotInCombo ));
-
-			// Validation if available
-			if (null != solution) {
-				// Test if digit candidate removal, removes a solution digit
-				for (int loci = 0; loci < digitsNotInCombo.length; loci++) {
-					int[] zbRemovalDigits =  digitsNotInCombo[ loci ];
-					RowCol loc = locs[ loci ];
-					for (int digi = 0; digi < zbRemovalDigits.length; digi++) {
-						int digit = zbRemovalDigits[digi] + 1;
-						int cellSolution = solution.get(loc);
-						if (cellSolution == digit) {
-							System.out.println("Candidates=\n" + candidates.toStringBoxed());
-							throw new IllegalArgumentException(format("Rule %s wants to remove solution digit %d at loc %s.%n",
-									ruleName(), cellSolution, loc));
-						}
-					}
-				}
+			if ( sink.isText() ) {
+				int[][] digitsNotInCombo = candidates.digitsNotInCombo( zbDigits, locs );
+				String setName = switch( subsetSize ) {
+					case 2 -> "double";
+					case 3 -> "triple";
+					default -> subsetSize + " tuple";
+				};
+				sink.printf( "%s hidden %s %s %s at %s will remove digits %s%n",
+						ruleName(),	setName,
+						RowCol.firstUnitMatch( Arrays.asList( locs )),
+						digitsToString(zbToobIntsCopy(zbDigits)), // converts 0-based to 1-based
+						RowCol.toString(locs),
+						digitListsToString( digitsNotInCombo ));
 			}
-			updates += candidates.removeCandidatesNotInCombo(zbDigits, locs);
-			// System.out.println("Candidates=\n" +  candidates.toStringBoxed());
+			addFindings( candidates, enc, enci, findings );
+		}
+		return findings.apply( board, solution, candidates );
+	}
+
+	/**
+	 * Removes the candidates that are not in the combo from the subset locations.
+	 */
+	@Override
+	public boolean addFindings(Candidates candidates, int[] enc, int ref, Findings findings) {
+		RowCol[] locs = encToRowCols( enc );
+		int[][] digitsNotInCombo = candidates.digitsNotInCombo( onebasedComboToZeroBasedInts( enc[0] ), locs );
+		for (int loci = 0; loci < locs.length; loci++) {
+			int removeMask = 0;
+			for (int zbDigit : digitsNotInCombo[ loci ])
+				removeMask |= 1 << zbDigit;
+			if (0 != removeMask)
+				findings.add( Candidates.Action.REMOVE, CellSet.index( locs[ loci ] ), removeMask, ruleId, ref );
 		}
-		return updates;
+		return true;
 	}
 
 	public static String digitListsToString( int[][] digitLists ) {
@@ -110,56 +112,23 @@ public class HiddenSubsets implements FindUpdateRule {
 	 * A pair/triplet of candidates, can knock out other candidates
 	 * in the same row/col/box: {245}{476}{278} -> {24}{47}{27}
 	 * <p>
-	 * Search for only R same candidates in each block,
-	 * see if row or col is the same,
-     * if row match, see if other candidates exist in same rowon same row outside of block
-	 * if col match, see if other candidates exist on same col outside of block
+	 * Search each unit for subsetSize digits whose positions
+	 * union to subsetSize cells, and keep those whose cells
+	 * have other candidates.
 	 * <p>
 	 * Each location is reported as: comboToInt, rowCol1ToInt, rowCol2ToInt, ..., rowColRToInt
 	 */
 	@Override
 	public List<int[]> find(Board board, Candidates candidates) {
+		return find(board, candidates, null);
+	}
+
+	@Override
+	public List<int[]> find(Board board, Candidates candidates, SolveContext context) {
 		if (null == candidates)
 			return null;
-		ArrayList<int[]> encs = new ArrayList<>();
-		// Generate combinations of n elements (9 digits), r at a time.
-		// Note that these combos are 0 based
-		List<int[]> combinations = Utils.comboGenerate(DIGITS, subsetSize); // combos are 0 based
-		for( int combi = 0; combi < combinations.size(); combi++) {
-			int [] zbCombo = combinations.get(combi); // combo is 0 based
-			if (!board.comboCompleted(zbCombo)) {
-				// Search row/col/block for this combo
-				for (Unit unit : Unit.values()) {
-					for (int uniti = 0; uniti < UNITS; uniti++) {
-						List<RowCol> foundLocs = candidates.candidateComboUnitLocations(unit, uniti, zbCombo, NOT_NAKED, partialCount);
-						if (foundLocs.size() == subsetSize) {
-							// Found this unit has exactly N of these combos. For example {127}{12}
-							// Need to ensure location cands are more than just partials (digitCount > subsetSize)
-							// Need to see if there are other candidates in these locations
-							// (candidateLocCount > comboCount)
-							int candidateLocCount = candidates.candidateRowColCount(foundLocs);
-							int comboCount = candidates.candidateComboLocCount(zbCombo, foundLocs);
-							if ((candidates.digitLocCount(zbCombo, foundLocs) >= subsetSize)
-									&& (candidateLocCount > comboCount)) {
-								// Now check no more stray combo digits outside of locations, same row.
-								int comboUnitCount = candidates.candidateComboUnitCount(unit, uniti, zbCombo);
-								if (comboUnitCount == comboCount) {
-									// System.out.println(format(
-									// 		"%s %d digits %s have %d locs, %d digits, %d candidates, %d combo candidates",
-									// 		unit, uniti,
-									// 		Utils.digitsToString(zbToobIntsCopy(zbCombo)), foundLocs.size(),
-									// 		candidates.digitLocCount(zbCombo, foundLocs), candidateLocCount, comboCount));
-									int[] enc = encode(zbCombo, foundLocs);
-									// Note that boxes SOMETIMES duplicates row or col
-									// Yes: [1,1][1,2] [1,1][2,1]   No: [1,1][2,2]
-									addUnique( encs, enc );
-								}
-							} // more candidates in unit
-						} // location count == subset size
-					} // each unit row/col/box
-				} // each unit
-			} // combo incomplete
-		} // for each combo
+		List<int[]> encs = new ArrayList<>();
+		Subsets.of(context, candidates).hidden(subsetSize, encs);
 		return encs;
 	}
 
@@ -3,8 +3,8 @@ package info.danbecker.ss.rules;
 import info.danbecker.ss.Board;
 import info.danbecker.ss.Candidates;
 import info.danbecker.ss.RowCol;
+import info.danbecker.ss.sink.EventSink;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import static info.danbecker.ss.Board.ROWCOL;
@@ -23,13 +23,13 @@ import static info.danbecker.ss.Board.NOT_FOUND;
  * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
  */
 public class LegalCandidates implements FindUpdateRule {
-	public static ArrayList<int[]> DUMMY = new ArrayList<>();
+	public static final List<int[]> DUMMY = List.of();
 
 	public LegalCandidates() {
 	}
 
 	@Override
-	public int update( Board board, Board solution, Candidates candidates, List<int[]> encs ) {
+	public int update( Board board, Board solution, Candidates candidates, List<int[]> encs, EventSink sink ) {
 		int count = 0;
 		
 		// Remove candidates from  occupied boxes
@@ -66,8 +66,8 @@ public class LegalCandidates implements FindUpdateRule {
 				}
 			}
 		}
-		if ( 0 < count ) {
-			System.out.println(ruleName() + " removed " + count + " illegal candidates.");
+		if ( 0 < count && sink.isText() ) {
+			sink.printf("%s removed %d illegal candidates.%n", ruleName(), count);
 		}
 		return count;
 	}
@@ -2,8 +2,10 @@ package info.danbecker.ss.rules;
 
 import info.danbecker.ss.Board;
 import info.danbecker.ss.Candidates;
+import info.danbecker.ss.EncodingSet;
 import info.danbecker.ss.RowCol;
 import info.danbecker.ss.Utils;
+import info.danbecker.ss.sink.EventSink;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -23,7 +25,7 @@ import static java.lang.String.format;
  */
 public class MultipleLines implements FindUpdateRule {
 	@Override
-	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs) {
+	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs, EventSink sink) {
 		int updates = 0;
 		if ( null == encs) return updates;
 		for ( int enci = 0; enci < encs.size(); enci++ ) {
@@ -43,7 +45,7 @@ public class MultipleLines implements FindUpdateRule {
 					RowCol loc = locs.get(loci);
 					int cellSolution = solution.get(loc);
 					if (cellSolution == digit) {
-						System.out.println("Candidates=\n" + candidates.toStringBoxed());
+						sink.printf("Candidates=%n%s%n", candidates.toStringBoxed());
 						throw new IllegalArgumentException(format(
 							"%s digit %d %s lines in %d,%d in boxes %d,%d, keeper candidates %s %d in box %d, would remove solution in %s",
 							ruleName(), digit, unit,
@@ -53,10 +55,11 @@ public class MultipleLines implements FindUpdateRule {
 				}
 			}
 
-			System.out.printf( "%s digit %d, %s lines %d,%d in boxes %d,%d, keepers %s %d in box %d, removes from %s.%n",
-				ruleName(), digit, unit,
-				enc[5], enc[6], enc[2], enc[3],
-				unit, enc[7], enc[4], RowCol.toString(locs) );
+			if ( sink.isText() )
+				sink.printf( "%s digit %d, %s lines %d,%d in boxes %d,%d, keepers %s %d in box %d, removes from %s.%n",
+					ruleName(), digit, unit,
+					enc[5], enc[6], enc[2], enc[3],
+					unit, enc[7], enc[4], RowCol.toString(locs) );
 			if ( unit == Unit.ROW ) {
 				updates += candidates.removeBoxCandidatesNotInRow(digit, boxi, keepUniti );
 			} else {
@@ -79,6 +82,7 @@ public class MultipleLines implements FindUpdateRule {
 		if (null == candidates)
 			return null;
 		ArrayList<int[]> found = new ArrayList<>();
+		EncodingSet unique = new EncodingSet();
 		for (int digi = 1; digi <= DIGITS; digi++) {
 			if (!board.digitCompleted(digi)) {
 				for (final boolean rowOrientation : new boolean [] { true, false } ){
@@ -153,7 +157,7 @@ public class MultipleLines implements FindUpdateRule {
 									boxi0ML, boxi1ML, boxi2ML,
 									multLine0, multLine1, keepLine,
 								};
-								Utils.addUnique( found, enc );
+								unique.addUnique( found, enc );
 								// System.out.println(encodingToString(encoding));
 							}
 						}
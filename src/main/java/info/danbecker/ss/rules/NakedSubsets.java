@@ -2,15 +2,18 @@ package info.danbecker.ss.rules;
 
 import info.danbecker.ss.Board;
 import info.danbecker.ss.Candidates;
+import info.danbecker.ss.CellSet;
+import info.danbecker.ss.Findings;
 import info.danbecker.ss.RowCol;
-import info.danbecker.ss.Utils;
+import info.danbecker.ss.RuleArena;
+import info.danbecker.ss.SolveContext;
+import info.danbecker.ss.sink.EventSink;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import static info.danbecker.ss.Board.ROWCOL;
-import static info.danbecker.ss.Candidates.NAKED;
 import static info.danbecker.ss.Utils.*;
 import static java.lang.String.format;
 
@@ -33,101 +36,74 @@ import static java.lang.String.format;
  */
 public class NakedSubsets implements FindUpdateRule {
 
-	protected int subsetSize;
-	protected int partialCount;
+	protected final int subsetSize;
+	private final int ruleId;
 
 	public NakedSubsets(int subsetSize) {
 		if ( subsetSize < 2)
 			throw new IllegalArgumentException(  "Subset size " + subsetSize + " was less than 2.");
+		if ( subsetSize > Subsets.MAX_SIZE)
+			throw new IllegalArgumentException(  "Subset size " + subsetSize + " was greater than " + Subsets.MAX_SIZE + ".");
 		this.subsetSize = subsetSize;
-		if ( 2 == subsetSize ) {
-			partialCount = 2;
-		} else {
-			partialCount = subsetSize - 1;
-		}
+		ruleId = Findings.ruleId(ruleName());
 	}
 
 	@Override
-	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs) {
-		int updates = 0;
-		if ( null == encs) return updates;
+	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs, EventSink sink) {
+		if ( null == encs) return 0;
+		Findings findings = RuleArena.forThread().findings();
 		for (int enci = 0; enci < encs.size(); enci++) {
-			// Act on eacht find
+			// Act on each find
 			int[] enc = encs.get(enci);
-			// Decode information
-			int[] zbDigits = onebasedComboToZeroBasedInts(enc[0]); // converts 1-based to 0-based
-			RowCol[] rowCols = encToRowCols(enc);
-
-			List<RowCol> found = candidates.findDigitsNotInLocs(zbDigits, Arrays.asList(rowCols));
-			System.out.printf("%s, digits {%d} at %s, will remove {%d} from %s%n",
-					ruleName(), enc[0], RowCol.toString(rowCols), enc[0], RowCol.toString(found));
-			// System.out.println("Candidates=\n" +  candidates.toStringBoxed());
-
-			// Validation if available
-			if (null != solution) {
-				for (int digi = 0; digi < zbDigits.length; digi++) {
-					int digit = zbDigits[digi] + 1;
-					for (RowCol loc : found) {
-						int cellStatus = solution.get(loc);
-						if (cellStatus == digit) {
-							System.out.println("Candidates=\n" + candidates.toStringBoxed());
-							throw new IllegalArgumentException(format("Rule %s would like to remove solution digit %d at loc %s.%n",
-									ruleName(), cellStatus, loc));
-						}
-					}
-				}
+			int start = findings.size();
+			addFindings(candidates, enc, enci, findings);
+			if (sink.isText()) {
+				List<RowCol> found = new ArrayList<>();
+				for (int findi = start; findi < findings.size(); findi++)
+					found.add(findings.rowCol(findi));
+				sink.printf("%s, digits {%d} at %s, will remove {%d} from %s%n",
+						ruleName(), enc[0], RowCol.toString(encToRowCols(enc)), enc[0], RowCol.toString(found));
 			}
-
-			updates += candidates.removeCandidatesNotInLocations(zbDigits, rowCols);
-			// System.out.println("Candidates=\n" +  candidates.toStringBoxed());
 		}
-		return updates;
+		return findings.apply(board, solution, candidates);
 	}
 
 	/**
-	 * A pair/triplet of candidates, if in the same row/col,
-	 * can knock out candidates in other blocks in the same row/col
+	 * Removes the combo digits from the other cells of every unit
+	 * shared by the locations, including boxes.
+	 */
+	@Override
+	public boolean addFindings(Candidates candidates, int[] enc, int ref, Findings findings) {
+		int[] zbDigits = onebasedComboToZeroBasedInts(enc[0]); // converts 1-based to 0-based
+		List<RowCol> found = candidates.findDigitsNotInLocs(zbDigits, Arrays.asList(encToRowCols(enc)));
+		int comboMask = comboToMask(enc[0]);
+		for (RowCol loc : found)
+			findings.add(Candidates.Action.REMOVE, CellSet.index(loc), comboMask, ruleId, ref);
+		return true;
+	}
+
+	/**
+	 * A pair/triplet of candidates in as many cells of a row/col/box
+	 * can knock out those candidates in the other cells of the unit.
 	 * <p>
-	 * Search for only R same candidates in each block,
-	 * see if row or col is the same,
-     * if row match, see if other candidates exist on same row outside of block
-	 * if col match, see if other candidates exist on same col outside of block
+	 * Search each unit for subsetSize cells whose candidates
+	 * union to subsetSize digits, and keep those that have
+	 * any of the digits in other cells of a unit they share.
 	 * <p>
 	 * Each location is reported as: comboToInt, rowCol1ToInt, rowCol2ToInt, ..., rowColRToInt
 	 */
 	@Override
 	public List<int[]> find(Board board, Candidates candidates) {
+		return find(board, candidates, null);
+	}
+
+	@Override
+	public List<int[]> find(Board board, Candidates candidates, SolveContext context) {
 		if (null == candidates)
 			return null;
-		ArrayList<int[]> locations = new ArrayList<>();
-		// Generate combinations of n elements (9 digits), r at a time.
-		// Note that these combos are 0 based
-		List<int[]> combinations = Utils.comboGenerate(DIGITS, subsetSize); // combos are 0 based
-		for( int [] zbCombo : combinations ) {
-			if (!board.comboCompleted(zbCombo)) {
-				// Search row/col/block for this naked candidate
-				for (Unit unit : Unit.values()) {
-					for (int uniti = 0; uniti < UNITS; uniti++) {
-						List<RowCol> unitFound = candidates.candidateComboUnitLocations( unit, uniti, zbCombo, NAKED, partialCount );
-						if (unitFound.size() == subsetSize) {
-							// Found this unit has exactly N of these combos. For example pair of combo {15}
-							// Now need to see if there are combo digits in more locations.
-							int comboDigitCount = candidates.candidateComboUnitCount( unit, uniti, zbCombo);
-							int comboNakedCount = candidates.candidateComboLocCount(zbCombo, unitFound);
-							if (comboDigitCount > comboNakedCount) {
-								// For example combo {15}, row contains [15][15][156],
-								// {15} combo digit count of 6, with naked pair count of 4.
-								// System.out.printf( "%s %d, digits {%d} at %s, %d naked candidates, %d candidates in line%n",
-								// 	unit, uniti, zerobasedIntsToOnebasedCombo(zbCombo), RowCol.toString(unitFound), comboNakedCount, comboDigitCount);
-								int[] encoded = encode(zbCombo, unitFound);
-								locations.add(encoded);
-							}
-						}
-					} // each unit index
-				} // each unit
-			} // comboCompleted
-		}
-		return locations;
+		List<int[]> encs = new ArrayList<>();
+		Subsets.of(context, candidates).naked(subsetSize, encs);
+		return encs;
 	}
 
 	/**
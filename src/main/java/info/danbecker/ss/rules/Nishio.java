@@ -0,0 +1,154 @@
+package info.danbecker.ss.rules;
+
+import info.danbecker.ss.Board;
+import info.danbecker.ss.Candidates;
+import info.danbecker.ss.Findings;
+import info.danbecker.ss.Propagator;
+import info.danbecker.ss.RowCol;
+import info.danbecker.ss.RuleArena;
+import info.danbecker.ss.SolveContext;
+import info.danbecker.ss.Zobrist;
+import info.danbecker.ss.tree.TranspositionTable;
+import info.danbecker.ss.tree.TranspositionTable.Outcome;
+import info.danbecker.ss.sink.EventSink;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static info.danbecker.ss.Board.ROWCOL;
+import static info.danbecker.ss.Utils.COLS;
+import static info.danbecker.ss.Utils.DIGITS;
+import static java.lang.String.format;
+
+/**
+ * Nishio
+ * <p>
+ * From https://hodoku.sourceforge.net/en/tech_misc.php#nishio
+ * <p>
+ * Nishio tries each candidate in turn. The candidate is placed and followed with singles
+ * and intersections until nothing changes. If that ends in a contradiction,
+ * a cell with no candidates or a unit with no place for a digit, the candidate is removed.
+ * <p>
+ * Each contradiction is a nogood, an assumption that cannot hold.
+ * It is learned two ways. Within a find, the candidate is removed from the propagator
+ * base at once and the base is propagated again, so later trials start from the stronger
+ * state and reach their contradictions sooner. Across finds, the nogood is kept in
+ * a TranspositionTable by the Zobrist hash of the trial start state, and a trial that
+ * finds a contradiction there is not followed again. Contradictions that ForcingChains
+ * branches stored in the shared table prune trials the same way.
+ * <p>
+ * Trials undo to the base mark on the propagator trail rather than reloading the candidates.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class Nishio implements FindUpdateRule {
+	protected final TranspositionTable table;
+	private final int ruleId;
+
+	/** The propagator of one find, and its trials pruned by a nogood from the table, for tests and tuning. */
+	protected static class Scratch {
+		protected final Propagator propagator = new Propagator().setIntersections(true);
+		protected int pruned;
+	}
+
+	public Nishio() {
+		this(ForcingChains.SHARED_TABLE);
+	}
+
+	/** @param table nogood store shared across finds, or null for none */
+	public Nishio(TranspositionTable table) {
+		this.table = table;
+		ruleId = Findings.ruleId(ruleName());
+	}
+
+	@Override
+	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs, EventSink sink) {
+		if (null == encs) return 0;
+		Findings findings = RuleArena.forThread().findings();
+		for (int enci = 0; enci < encs.size(); enci++) {
+			int[] enc = encs.get(enci);
+			addFindings(candidates, enc, enci, findings);
+			sink.encoding(this, enc);
+		}
+		return findings.apply(board, solution, candidates);
+	}
+
+	@Override
+	public boolean addFindings(Candidates candidates, int[] enc, int ref, Findings findings) {
+		findings.remove(ROWCOL[enc[1]][enc[2]], enc[0], ruleId, ref);
+		return true;
+	}
+
+	/**
+	 * Returns encodings of the candidates that lead to a contradiction.
+	 * Encoding is digit, row, col.
+	 */
+	@Override
+	public List<int[]> find(Board board, Candidates candidates) {
+		return find(board, candidates, null);
+	}
+
+	@Override
+	public List<int[]> find(Board board, Candidates candidates, SolveContext context) {
+		if (null == candidates)
+			return null;
+		List<int[]> encs = new ArrayList<>();
+		Scratch scratch = RuleArena.of(context).scratch(Scratch.class, Scratch::new);
+		Propagator propagator = scratch.propagator;
+		scratch.pruned = 0;
+		propagator.load(candidates);
+		if (!propagator.propagate())
+			return encs; // These candidates have no solution.
+		for (int celli = 0; celli < Propagator.CELLS; celli++) {
+			// The mask shrinks as nogoods are learned, so read it per digit.
+			for (int digit = 1; digit <= DIGITS; digit++) {
+				int bit = 1 << (digit - 1);
+				if (0 == (propagator.mask(celli) & bit))
+					continue;
+				if (!trial(scratch, celli, digit))
+					continue;
+				// Learned nogood, remove it from the base and propagate the stronger base.
+				if (0 != (candidates.candidateMask(ROWCOL[celli / COLS][celli % COLS]) & bit))
+					encs.add(new int[]{digit, celli / COLS, celli % COLS});
+				if (!propagator.eliminate(celli, digit) || !propagator.propagate())
+					return encs; // The base has no solution after all.
+			}
+		}
+		return encs;
+	}
+
+	/**
+	 * Places the digit from the current base and propagates, then undoes to the base.
+	 * @return true when the placement leads to a contradiction
+	 */
+	protected boolean trial(Scratch scratch, int celli, int digit) {
+		Propagator propagator = scratch.propagator;
+		long hash = propagator.hash() ^ Zobrist.cell(celli, propagator.mask(celli), 0) ^ Zobrist.occupied(celli, digit);
+		if (null != table && Outcome.CONTRADICTION == table.probe(hash, null)) {
+			scratch.pruned++;
+			return true;
+		}
+		int mark = propagator.mark();
+		boolean contradiction = !(propagator.place(celli, digit) && propagator.propagate());
+		propagator.undo(mark);
+		if (contradiction && null != table)
+			table.put(hash, Outcome.CONTRADICTION, null);
+		return contradiction;
+	}
+
+	/** Trials of the last find on this thread that a stored nogood pruned. */
+	public int getPruned() {
+		return RuleArena.forThread().scratch(Scratch.class, Scratch::new).pruned;
+	}
+
+	@Override
+	public String encodingToString(int[] enc) {
+		RowCol rowCol = ROWCOL[enc[1]][enc[2]];
+		return format("removes digit %d at %s, placing it leads to a contradiction", enc[0], rowCol);
+	}
+
+	@Override
+	public String ruleName() {
+		return this.getClass().getSimpleName();
+	}
+}
@@ -3,9 +3,11 @@ package info.danbecker.ss.rules;
 import info.danbecker.ss.Board;
 import info.danbecker.ss.Candidates;
 import info.danbecker.ss.RowCol;
+import info.danbecker.ss.SolveContext;
 import info.danbecker.ss.Utils;
 import info.danbecker.ss.tree.DigitsData;
 import info.danbecker.ss.tree.TreeNode;
+import info.danbecker.ss.sink.EventSink;
 
 import java.util.*;
 
@@ -41,7 +43,7 @@ public class RemotePairs implements FindUpdateRule {
 	// - 89 first RowCol
 	// - A second color
 	// - BC second RowCOl
-	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs) {
+	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs, EventSink sink) {
 		int updates = 0;
 		if ( null == encs) return updates;
 		for ( int enci = 0; enci < encs.size(); enci++ ) {
@@ -68,13 +70,12 @@ public class RemotePairs implements FindUpdateRule {
 				}
 			}
 
-			String prev = candidates.getCompactStr( cLoc );
 			for ( int digi = 0; digi < 2; digi++) {
 				if (candidates.removeCandidate(cLoc, digits[digi])) {
 					updates++;
-					String cStr = candidates.getCompactStr(cLoc);
-					System.out.println(format("%s %s removed digit %d from %s, remaining candidates %s",
-							ruleName(), typeString, digits[digi], cLoc, cStr));
+					if ( sink.isText() )
+						sink.printf("%s %s removed digit %d from %s, remaining candidates %s%n",
+							ruleName(), typeString, digits[digi], cLoc, candidates.getCompactStr(cLoc));
 				}
 			}
 		}
@@ -94,18 +95,18 @@ public class RemotePairs implements FindUpdateRule {
 	public List<int[]> find(Board board, Candidates candidates) {
 		if (null == candidates)
 			return null;
+		return find( board, candidates, new SolveContext( candidates ));
+	}
+
+	@Override
+	public List<int[]> find(Board board, Candidates candidates, SolveContext context) {
+		if (null == candidates)
+			return null;
+		context = SolveContext.of( context, candidates );
 		List<int[]> locs = new ArrayList<>();
 
 		// Get sorted set of digit pairs
-		List<RowCol> allPairLocs = candidates.getGroupLocations( ALL_DIGITS, 2 );
-		allPairLocs.sort(RowCol.RowColComparator);
-		Set<List<Integer>> pairDigits = new HashSet<>();
-		for ( RowCol loc : allPairLocs ) {
-			// 	public List<Integer> getCandidatesList( RowCol rowCol ) {
-			pairDigits.add( candidates.getCandidatesList( loc ));
-		}
-		List<List<Integer>> sortedPairDigits = new ArrayList<>(pairDigits);
-		Collections.sort(sortedPairDigits, Candidates.CandidatesComparator);
+		List<List<Integer>> sortedPairDigits = context.pairDigits();
 		// System.out.println( "Pair digits=" + sortedPairDigits.toString());
 
 		for ( List<Integer> pair : sortedPairDigits) {
@@ -199,7 +200,7 @@ public class RemotePairs implements FindUpdateRule {
 							if ( !loc.equals(pData.rowCol)) {
 								int nextColor = (0 == pData.color) ? 1 : 0;
 								cData = new DigitsData(digits, loc, nextColor);
-								TreeNode<DigitsData> foundNode = root.findTreeNode( new DigitsData.RowColMatch(cData));
+								TreeNode<DigitsData> foundNode = root.findTreeNode( loc );
 								if (null == foundNode) {
 									// unitNode not in tree
 									// System.out.println( format("   Digit %d, parent %s, loc %s not in tree", digi, pData.rowCol, loc));
@@ -247,7 +248,9 @@ public class RemotePairs implements FindUpdateRule {
 	 */
 	public List<int[]> childSeesSameType1Wrap(Candidates candidates, TreeNode<DigitsData> root, DigitsData proposedChild ) {
 		List<int[]> seesSame = new LinkedList<>();
-		List<TreeNode<DigitsData>> sameUnitNodes = root.findTreeNodes(new DigitsData.AnyUnitMatch(proposedChild));
+		if ( !root.seesColor( proposedChild.rowCol, proposedChild.color ))
+			return seesSame;
+		List<TreeNode<DigitsData>> sameUnitNodes = root.findSeenTreeNodes( proposedChild.rowCol );
 		for ( int nodei = 0; nodei < sameUnitNodes.size(); nodei++) {
 			TreeNode<DigitsData> sameUnit = sameUnitNodes.get(nodei);
 			if ( proposedChild.color == sameUnit.data.color ) {
@@ -280,9 +283,9 @@ public class RemotePairs implements FindUpdateRule {
 			for (int loci = 0; loci < locs.size(); loci++) {
 				RowCol rowCol = locs.get(loci);
 				DigitsData pData = new DigitsData( digits, rowCol, -1);
-				if (null == tree.findTreeNode(new DigitsData.RowColMatch(pData))) {
+				if (!tree.contains(rowCol)) {
 					// RowCol is not in given tree
-					List<TreeNode<DigitsData>> sameUnitNodes = tree.findTreeNodes(new DigitsData.AnyUnitMatch(pData));
+					List<TreeNode<DigitsData>> sameUnitNodes = tree.findSeenTreeNodes(rowCol);
 					// Check is all nodes have same color.
 					boolean colorClashAnyUnit = false;
 					if (1 < sameUnitNodes.size()) {
@@ -2,10 +2,13 @@ package info.danbecker.ss.rules;
 
 import info.danbecker.ss.Board;
 import info.danbecker.ss.Candidates;
+import info.danbecker.ss.CellSet;
+import info.danbecker.ss.EncodingSet;
 import info.danbecker.ss.RowCol;
 import info.danbecker.ss.Utils;
 import info.danbecker.ss.tree.DigitData;
 import info.danbecker.ss.tree.TreeNode;
+import info.danbecker.ss.sink.EventSink;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -54,7 +57,7 @@ public class SimpleColors implements FindUpdateRule {
 	@Override
 	// Location int [] index map
 	// digit plus rowCol
-	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs) {
+	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs, EventSink sink) {
 		int updates = 0;
 		if ( null == encs) return updates;
 		for ( int enci = 0; enci < encs.size(); enci++ ) {
@@ -77,12 +80,11 @@ public class SimpleColors implements FindUpdateRule {
 				}
 			}
 
-			String prev = candidates.getCompactStr( cLoc );
 			if ( candidates.removeCandidate( cLoc, digit )) {
 				updates++;
-				String cStr = candidates.getCompactStr( cLoc );
-				System.out.printf( "%s %s removed digit %d from %s, remaining candidates %s\n",
-						this.ruleName(), typeString, digit, cLoc, cStr );
+				if ( sink.isText() )
+					sink.printf( "%s %s removed digit %d from %s, remaining candidates %s\n",
+						this.ruleName(), typeString, digit, cLoc, candidates.getCompactStr( cLoc ));
 			}
 		}
 		return updates;
@@ -117,7 +119,7 @@ public class SimpleColors implements FindUpdateRule {
 	public List<int[]> find(Board board, Candidates candidates, int digit ) {
 		List<int[]> matched = new LinkedList<>();
 		List<TreeNode<DigitData>> trees = new LinkedList<>();
-		List<RowCol> doNotSearch = new LinkedList<>();
+		CellSet doNotSearch = new CellSet();
 		int[][] unitCounts = candidates.candidateUnitCounts( digit );
 		for ( int rowi = 0; rowi < ROWS; rowi++ ) {
 			for ( int coli = 0; coli < COLS; coli++) {
@@ -132,7 +134,7 @@ public class SimpleColors implements FindUpdateRule {
 						int treeContains = -1;
 						for ( int treei = 0; treei < trees.size() && -1 == treeContains; treei++) {
 							TreeNode<DigitData> tree = trees.get( treei );
-							if ( null != tree.findTreeNode( new DigitData.RowColMatch(new DigitData(0,rowCol,0)) )) {
+							if ( tree.contains( rowCol )) {
 								treeContains = treei;
 							}
 						}
@@ -170,13 +172,10 @@ public class SimpleColors implements FindUpdateRule {
 	 * @param doNotSearch
 	 * @param encProblems
 	 */
-	public static void doNotSearch( List<RowCol> doNotSearch, List<int[]> encProblems ) {
+	public static void doNotSearch( CellSet doNotSearch, List<int[]> encProblems ) {
 		for ( int enci = 0; enci < encProblems.size(); enci++) {
 			int[] enc = encProblems.get( enci );
-			RowCol cLoc = ROWCOL[enc[4]][enc[5]];
-			if ( !doNotSearch.contains( cLoc )) {
-				doNotSearch.add( cLoc );
-			}
+			doNotSearch.add( ROWCOL[enc[4]][enc[5]] );
 		}
 	}
 
@@ -223,7 +222,7 @@ public class SimpleColors implements FindUpdateRule {
 							RowCol loc = unitLocs.get(loci);
 							int nextColor = (0 == pData.color) ? 1 : 0;
 							cData = new DigitData(digi, loc, nextColor);
-							TreeNode<DigitData> foundNode = root.findTreeNode(new DigitData.RowColMatch(cData));
+							TreeNode<DigitData> foundNode = root.findTreeNode( loc );
 							if (null == foundNode) {
 								// unitNode not in tree
 								// System.out.println( format("   Digit %d, parent %s, loc %s not in tree", digi, pData.rowCol, loc));
@@ -245,9 +244,9 @@ public class SimpleColors implements FindUpdateRule {
 							}
 						}
 					}
-				} else {
-					System.out.printf( "Rule %s, rowCol %s, digit %d, unit %s has child node with data %s\n",
-							ruleName(), pData.rowCol, digi, unit.name(), cData );
+				// } else {
+				// 	System.out.printf( "Rule %s, rowCol %s, digit %d, unit %s has child node with data %s\n",
+				// 		ruleName(), pData.rowCol, digi, unit.name(), cData );
 				}
 			} else {
 				// By implementation detail, should not have null children, only null child data.
@@ -269,13 +268,15 @@ public class SimpleColors implements FindUpdateRule {
 	 */
 	public static List<int[]> outsideSeesTwoDifferentType0Trap(Candidates candidates, TreeNode<DigitData> tree, int digit ) {
 		List<int[]> seesTwo = new LinkedList<>();
+		EncodingSet unique = new EncodingSet();
 		List<RowCol> locs = candidates.getGroupLocations(digit, ALL_COUNTS);
 		for ( int loci = 0; loci < locs.size(); loci++) {
 			RowCol rowCol = locs.get(loci);
-			DigitData cData = new DigitData(digit,rowCol,-1);
-			if ( null == tree.findTreeNode( new DigitData.RowColMatch(cData))) {
+			// Tree colors are 0 and 1. A location must see both colors to be a trap.
+			if ( !tree.contains( rowCol ) && tree.seesColor( rowCol, 0 ) && tree.seesColor( rowCol, 1 )) {
 				// RowCol is not in given tree
-				List<TreeNode<DigitData>> sameUnitNodes = tree.findTreeNodes(new DigitData.AnyUnitMatch(cData));
+				DigitData cData = new DigitData(digit,rowCol,-1);
+				List<TreeNode<DigitData>> sameUnitNodes = tree.findSeenTreeNodes( rowCol );
 				// Check is all nodes have same color.
 				boolean colorClashAnyUnit = false;
 				if (1 < sameUnitNodes.size() ) {
@@ -290,11 +291,9 @@ public class SimpleColors implements FindUpdateRule {
 							int[] enc = encode(digit, 0, tree.data.rowCol,cData.rowCol,
 									firstDigitData.color, firstDigitData.rowCol,
 									sameUnitNode.data.color, sameUnitNode.data.rowCol );
-							// Manually search for same int[] enc
-							if ( NOT_FOUND != Utils.findFirst( seesTwo, enc) )
-								System.out.printf( "SeesTwo contains digit %d at %s\n", digit, cData.rowCol);
-							else
-								seesTwo.add(enc);
+							unique.addUnique( seesTwo, enc );
+							// if ( 0 == unique.addUnique( seesTwo, enc ))
+							// 	System.out.printf( "SeesTwo contains digit %d at %s\n", digit, cData.rowCol);
 						}
 					}
 				}
@@ -314,7 +313,9 @@ public class SimpleColors implements FindUpdateRule {
 	 */
 	public static List<int[]> childSeesSameType1Wrap(Candidates candidates, TreeNode<DigitData> root, DigitData proposedChild ) {
 		List<int[]> seesSame = new LinkedList<>();
-		List<TreeNode<DigitData>> sameUnitNodes = root.findTreeNodes(new DigitData.AnyUnitMatch(proposedChild));
+		if ( !root.seesColor( proposedChild.rowCol, proposedChild.color ))
+			return seesSame;
+		List<TreeNode<DigitData>> sameUnitNodes = root.findSeenTreeNodes( proposedChild.rowCol );
 		for ( int nodei = 0; nodei < sameUnitNodes.size(); nodei++) {
 			TreeNode<DigitData> sameUnit = sameUnitNodes.get(nodei);
 			if ( proposedChild.color == sameUnit.data.color ) {
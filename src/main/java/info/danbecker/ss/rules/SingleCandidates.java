@@ -2,8 +2,12 @@ package info.danbecker.ss.rules;
 
 import info.danbecker.ss.Board;
 import info.danbecker.ss.Candidates;
+import info.danbecker.ss.Findings;
 import info.danbecker.ss.RowCol;
+import info.danbecker.ss.RuleArena;
+import info.danbecker.ss.SolveContext;
 import info.danbecker.ss.Utils;
+import info.danbecker.ss.sink.EventSink;
 
 import static info.danbecker.ss.Board.ROWCOL;
 import static java.lang.String.format;
@@ -23,52 +27,71 @@ import static info.danbecker.ss.Utils.COLS;
  * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
  */
 public class SingleCandidates implements FindUpdateRule {
+	private final int ruleId = Findings.ruleId(ruleName());
+
+	/** Encodings reused by each find with a context, so a solve loop allocates nothing. */
+	protected static class Scratch {
+		protected final List<int[]> encs = new ArrayList<>(ROWS * COLS);
+		protected final int[][] encPool = new int[ROWS * COLS][3];
+	}
+
 	@Override
-	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs) {
-		int updateCount = 0;
-		Map<Integer,List<RowCol>> updates = new HashMap<>();
-		for ( int enci = 0; enci < encs.size(); enci++ ) {
-			int[] enc = encs.get(enci);
-			int digit = enc[0];
-			RowCol loc = ROWCOL[enc[1]][enc[2]];
-			// Validation if available
-			if (null != solution) {
-				int solutionDigit = solution.get(loc);
-				if (solutionDigit != digit) {
-					System.out.println("Candidates=\n" + candidates.toStringBoxed());
-					throw new IllegalArgumentException(format("Rule %s would like to set digit %d at loc %s with solution digit %d",
-							ruleName(), digit, loc, solutionDigit));
-				}
-			}
-			board.set(loc, digit); // put a digit in the board
-			candidates.setOccupied(loc, digit); // places entry, removes candidates
-			updates.computeIfAbsent(digit, x -> new ArrayList<>()).add(loc);
-			updateCount++;
-		}
+	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs, EventSink sink) {
+		Findings findings = RuleArena.forThread().findings();
+		for ( int enci = 0; enci < encs.size(); enci++ )
+			addFindings(candidates, encs.get(enci), enci, findings);
+		int updateCount = findings.apply(board, solution, candidates);
 		// Check counts
-		int valueCount = updates.values()
-				.stream()
-				.mapToInt(List::size)
-				.sum();
+		int valueCount = encs.size();
 		if ( updateCount != valueCount )
 			throw new IllegalStateException( format("update count=%d, location count=%d", updateCount, valueCount));
 		// Pretty output
-		if ( 0 < valueCount ) {
-			System.out.printf( "Rule %s places: %s%n", ruleName(), Utils.digitMapToString( updates ) );
+		if ( 0 < valueCount && sink.isText() ) {
+			Map<Integer,List<RowCol>> updates = new HashMap<>();
+			for (int[] enc : encs)
+				updates.computeIfAbsent(enc[0], x -> new ArrayList<>()).add(ROWCOL[enc[1]][enc[2]]);
+			sink.printf( "Rule %s places: %s%n", ruleName(), Utils.digitMapToString( updates ) );
 		}
 		return updateCount;
 	}
 
+	@Override
+	public boolean addFindings(Candidates candidates, int[] enc, int ref, Findings findings) {
+		findings.place(ROWCOL[enc[1]][enc[2]], enc[0], ruleId, ref);
+		return true;
+	}
+
 	@Override
 	public List<int[]> find(Board board, Candidates candidates) {
 		if (null == candidates)
 			return null;
-		ArrayList<int[]> locations = new ArrayList<>();
+		return find(candidates, new ArrayList<>(), null);
+	}
+
+	/**
+	 * Finds as find(board, candidates), into the encodings of the context arena.
+	 * The list and its encodings are only valid until the next find with a context on this arena.
+	 */
+	@Override
+	public List<int[]> find(Board board, Candidates candidates, SolveContext context) {
+		if (null == candidates)
+			return null;
+		Scratch scratch = RuleArena.of(context).scratch(Scratch.class, Scratch::new);
+		scratch.encs.clear();
+		return find(candidates, scratch.encs, scratch.encPool);
+	}
+
+	/** Adds an encoding per single candidate, from the pool when given. */
+	protected static List<int[]> find(Candidates candidates, List<int[]> locations, int[][] pool) {
 		for (int rowi = 0; rowi < ROWS; rowi++) {
 			for (int coli = 0; coli < COLS; coli++) {
-				List<Integer> cDigits = candidates.getCandidatesList(ROWCOL[rowi][coli]);
-				if (1 == cDigits.size()) {
-					locations.add(new int[] { cDigits.get(0), rowi, coli });
+				int mask = candidates.candidateMask(ROWCOL[rowi][coli]);
+				if (1 == Integer.bitCount(mask)) {
+					int[] enc = null == pool ? new int[3] : pool[locations.size()];
+					enc[0] = Integer.numberOfTrailingZeros(mask) + 1;
+					enc[1] = rowi;
+					enc[2] = coli;
+					locations.add(enc);
 				}
 			}
 		}
@@ -3,18 +3,23 @@ package info.danbecker.ss.rules;
 import info.danbecker.ss.Board;
 import info.danbecker.ss.Candidates;
 import info.danbecker.ss.RowCol;
+import info.danbecker.ss.RuleArena;
+import info.danbecker.ss.SolveContext;
 import info.danbecker.ss.Utils;
+import info.danbecker.ss.sink.EventSink;
 
 import static info.danbecker.ss.Board.ROWCOL;
 import static java.lang.String.format;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import static info.danbecker.ss.Utils.Unit;
 import static info.danbecker.ss.Utils.UNITS;
+import static info.danbecker.ss.Utils.COLS;
 import static info.danbecker.ss.Utils.DIGITS;
 
 /**
@@ -23,10 +28,21 @@ import static info.danbecker.ss.Utils.DIGITS;
  * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
  */
 public class SinglePositions implements FindUpdateRule {
+	private static final Unit[] UNIT_VALUES = Unit.values();
+
+	/**
+	 * Encodings reused by each find with a context, at most one per digit and unit,
+	 * and the cells found so far as a bit per digit and cell.
+	 */
+	protected static class Scratch {
+		protected final List<int[]> encs = new ArrayList<>();
+		protected final int[][] encPool = new int[DIGITS * UNIT_VALUES.length * UNITS][3];
+		protected final long[] found = new long[DIGITS * 2];
+	}
+
 	@Override
-	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs) {
+	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs, EventSink sink) {
 		int updateCount = 0;
-		Map<Integer,List<RowCol>> updates = new HashMap<>();
 		for ( int enci = 0; enci < encs.size(); enci++ ) {
 			int[] enc = encs.get(enci);
 			int digit = enc[0];
@@ -35,7 +51,7 @@ public class SinglePositions implements FindUpdateRule {
 			if (null != solution) {
 				int solutionDigit = solution.get(loc);
 				if (solutionDigit != digit) {
-					System.out.println("Candidates=\n" + candidates.toStringBoxed());
+					sink.printf("Candidates=%n%s%n", candidates.toStringBoxed());
 					throw new IllegalArgumentException(format("Rule %s would like to set digit %d at loc %s with solution digit %d",
 							ruleName(), digit, loc, solutionDigit));
 				}
@@ -44,17 +60,14 @@ public class SinglePositions implements FindUpdateRule {
 			int prevCount = candidates.getAllCount();
 			candidates.setOccupied(loc, digit); // places entry, removes candidates
 			int currCount = candidates.getAllCount();
-			updates.computeIfAbsent(digit, x -> new ArrayList<>()).add(loc);
 			updateCount += prevCount - currCount;
 		}
-		// Check counts
-		int valueCount = updates.values()
-				.stream()
-				.mapToInt(List::size)
-				.sum();
 		// Pretty output
-		if ( 0 < updateCount ) {
-			System.out.printf( "Rule %s removes %d cands, places: %s%n", ruleName(), updateCount, Utils.digitMapToString( updates ) );
+		if ( 0 < updateCount && sink.isText() ) {
+			Map<Integer,List<RowCol>> updates = new HashMap<>();
+			for (int[] enc : encs)
+				updates.computeIfAbsent(enc[0], x -> new ArrayList<>()).add(ROWCOL[enc[1]][enc[2]]);
+			sink.printf( "Rule %s removes %d cands, places: %s%n", ruleName(), updateCount, Utils.digitMapToString( updates ) );
 		}
 		return updateCount;
 //
@@ -89,15 +102,55 @@ public class SinglePositions implements FindUpdateRule {
 	public List<int[]> find(Board board, Candidates candidates) {
 		if (null == candidates)
 			return null;
-		ArrayList<int[]> encs = new ArrayList<>();
+		return find(board, candidates, new ArrayList<>(), null, new long[DIGITS * 2]);
+	}
+
+	/**
+	 * Finds as find(board, candidates), into the encodings of the context arena.
+	 * The list and its encodings are only valid until the next find with a context on this arena.
+	 */
+	@Override
+	public List<int[]> find(Board board, Candidates candidates, SolveContext context) {
+		if (null == candidates)
+			return null;
+		Scratch scratch = RuleArena.of(context).scratch(Scratch.class, Scratch::new);
+		scratch.encs.clear();
+		Arrays.fill(scratch.found, 0L);
+		return find(board, candidates, scratch.encs, scratch.encPool, scratch.found);
+	}
+
+	/** Adds an encoding per digit with one location in a unit, once per location, from the pool when given. */
+	protected static List<int[]> find(Board board, Candidates candidates, List<int[]> encs, int[][] pool, long[] found) {
 		for (int digi = 1; digi <= DIGITS; digi++) {
 			if (!board.digitCompleted(digi)) {
-				for ( Unit unit : Unit.values() ) {
+				for ( Unit unit : UNIT_VALUES ) {
 					for ( int uniti = 0; uniti < UNITS; uniti++ ) {
-						List<RowCol> locs = candidates.getUnitDigitLocs( unit, uniti, digi );
-						if ( 1 == locs.size() ) {
+						RowCol loc = null;
+						int count = 0;
+						for ( int loci = 0; loci < UNITS && count < 2; loci++ ) {
+							RowCol rowCol = switch ( unit ) {
+								case ROW -> ROWCOL[uniti][loci];
+								case COL -> ROWCOL[loci][uniti];
+								case BOX -> Board.BOXR[uniti][loci];
+							};
+							if ( candidates.isCandidate( rowCol, digi )) {
+								loc = rowCol;
+								count++;
+							}
+						}
+						if ( 1 == count ) {
 							// Only one in this unit
-							Utils.addUnique( encs, new int[]{ digi, locs.get(0).row(), locs.get(0).col() } );
+							int celli = loc.row() * COLS + loc.col();
+							int foundi = (digi - 1) * 2 + (celli >>> 6);
+							long bit = 1L << (celli & 63);
+							if ( 0 == (found[foundi] & bit) ) {
+								found[foundi] |= bit;
+								int[] enc = null == pool ? new int[3] : pool[encs.size()];
+								enc[0] = digi;
+								enc[1] = loc.row();
+								enc[2] = loc.col();
+								encs.add(enc);
+							}
 						}
 					}
 				}
@@ -3,6 +3,7 @@ package info.danbecker.ss.rules;
 import info.danbecker.ss.Board;
 import info.danbecker.ss.Candidates;
 import info.danbecker.ss.RowCol;
+import info.danbecker.ss.sink.EventSink;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -22,7 +23,7 @@ import static java.lang.String.format;
  */
 public class Skyscraper implements FindUpdateRule {
 	@Override
-	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs) {
+	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs, EventSink sink) {
 		int updates = 0;
 		if ( null == encs) return updates;
 		if (encs.size() > 0) {
@@ -54,7 +55,8 @@ public class Skyscraper implements FindUpdateRule {
 					}
 				}
 			}
-			System.out.printf( "%s removed digit %d from %d locations %s%n",
+			if ( sink.isText() )
+				sink.printf( "%s removed digit %d from %d locations %s%n",
 					ruleName(), digit, updates,
 					RowCol.toString( rowCols ));
 		}
@@ -179,9 +181,9 @@ public class Skyscraper implements FindUpdateRule {
 							}
 						}
 						if ( 0 < removeMe.size() ) {
-							System.out.printf("%s found a digit %d %s base at %s and roof at %s. These locs see both: %s%n",
-								ruleName(), digit, unit,
-								RowCol.toString(base), RowCol.toString(roof), RowCol.toString( removeMe ));
+							// System.out.printf("%s found a digit %d %s base at %s and roof at %s. These locs see both: %s%n",
+								// ruleName(), digit, unit,
+								// RowCol.toString(base), RowCol.toString(roof), RowCol.toString( removeMe ));
 							locs.add( encodeLocation( digit, base, roof, removeMe ));
 						}
 					}
@@ -0,0 +1,177 @@
+package info.danbecker.ss.rules;
+
+import info.danbecker.ss.Board;
+import info.danbecker.ss.Candidates;
+import info.danbecker.ss.EncodingSet;
+import info.danbecker.ss.RowCol;
+import info.danbecker.ss.RuleArena;
+import info.danbecker.ss.SolveContext;
+import info.danbecker.ss.Utils.Unit;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static info.danbecker.ss.Board.ROWCOL;
+import static info.danbecker.ss.Utils.DIGITS;
+import static info.danbecker.ss.Utils.UNITS;
+import static info.danbecker.ss.Utils.bitIndexes;
+import static info.danbecker.ss.Utils.comboCount;
+import static info.danbecker.ss.Utils.comboMask;
+import static info.danbecker.ss.Utils.maskToCombo;
+import static info.danbecker.ss.Utils.spread;
+
+/**
+ * Subsets - the engine shared by NakedSubsets and HiddenSubsets.
+ * <p>
+ * A scan keeps two mask tables per unit:
+ * the digit mask of each cell, and the position mask of each digit.
+ * A naked subset is N cells whose digit masks union to N digits.
+ * A hidden subset is N digits whose position masks union to N cells.
+ * These are the same search on the two tables, so one enumeration
+ * serves both forms, with only the elimination test and encoding swapped.
+ * <p>
+ * Elements with fewer than two bits are singles and are skipped.
+ * Combinations come from the combination tables of Utils, spread over the eligible elements.
+ * Encodings are the one-based combo, rowCol ints of NakedSubsets and HiddenSubsets.
+ * <p>
+ * The rules take the Subsets of the SolveContext, scanned once per candidates version,
+ * so the six subset rules of an iteration share one scan.
+ * Without a context, the rules scan into scratch from the RuleArena of the thread.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class Subsets {
+	public static final int MIN_SIZE = 2;
+	public static final int MAX_SIZE = 4;
+
+	// Unit locations by [unit][uniti][posi]. Boxes are in row order.
+	public static final RowCol[][][] UNIT_LOCS = new RowCol[Unit.values().length][UNITS][];
+	static {
+		for (int uniti = 0; uniti < UNITS; uniti++) {
+			UNIT_LOCS[Unit.ROW.ordinal()][uniti] = ROWCOL[uniti];
+			UNIT_LOCS[Unit.COL.ordinal()][uniti] = new RowCol[UNITS];
+			for (int posi = 0; posi < UNITS; posi++)
+				UNIT_LOCS[Unit.COL.ordinal()][uniti][posi] = ROWCOL[posi][uniti];
+			UNIT_LOCS[Unit.BOX.ordinal()][uniti] = Board.BOXR[uniti];
+		}
+	}
+
+	// Digit mask of each cell by [unit][uniti][posi], bit per zero-based digit.
+	protected final int[][][] cellDigits = new int[Unit.values().length][UNITS][UNITS];
+	// Position mask of each digit by [unit][uniti][digi], bit per unit position.
+	protected final int[][][] digitPositions = new int[Unit.values().length][UNITS][DIGITS];
+	// Hidden subsets found so far, since boxes sometimes duplicate rows or cols.
+	protected final EncodingSet hiddenSeen = new EncodingSet();
+	// Unit positions or digits of the eligible elements of one search.
+	protected final int[] elements = new int[UNITS];
+
+	/** Returns the scanned Subsets of the context, or a scan into thread scratch when the context is not for these candidates. */
+	public static Subsets of(SolveContext context, Candidates candidates) {
+		if (null != context && context.candidates() == candidates)
+			return context.subsets();
+		Subsets subsets = RuleArena.forThread().scratch(Subsets.class, Subsets::new);
+		subsets.scan(candidates);
+		return subsets;
+	}
+
+	/** Rebuilds the mask tables from these candidates. */
+	public void scan(Candidates candidates) {
+		for (int unit = 0; unit < cellDigits.length; unit++) {
+			for (int uniti = 0; uniti < UNITS; uniti++) {
+				Arrays.fill(cellDigits[unit][uniti], 0);
+				Arrays.fill(digitPositions[unit][uniti], 0);
+			}
+		}
+		for (int rowi = 0; rowi < UNITS; rowi++) {
+			for (int coli = 0; coli < UNITS; coli++) {
+				RowCol loc = ROWCOL[rowi][coli];
+				int boxi = loc.box();
+				int boxPosi = (rowi % 3) * 3 + coli % 3;
+				int digits = 0;
+				for (int digi = 0; digi < DIGITS; digi++) {
+					if (candidates.isCandidate(loc, digi + 1)) {
+						digits |= 1 << digi;
+						digitPositions[Unit.ROW.ordinal()][rowi][digi] |= 1 << coli;
+						digitPositions[Unit.COL.ordinal()][coli][digi] |= 1 << rowi;
+						digitPositions[Unit.BOX.ordinal()][boxi][digi] |= 1 << boxPosi;
+					}
+				}
+				cellDigits[Unit.ROW.ordinal()][rowi][coli] = digits;
+				cellDigits[Unit.COL.ordinal()][coli][rowi] = digits;
+				cellDigits[Unit.BOX.ordinal()][boxi][boxPosi] = digits;
+			}
+		}
+	}
+
+	/** Adds the naked subsets of this size with eliminations, in each unit. Call scan first. */
+	public void naked(int size, List<int[]> encs) {
+		for (Unit unit : Unit.values())
+			for (int uniti = 0; uniti < UNITS; uniti++)
+				search(true, unit, uniti, size, encs);
+	}
+
+	/** Adds the hidden subsets of this size with eliminations, in each unit. Call scan first. */
+	public void hidden(int size, List<int[]> encs) {
+		hiddenSeen.clear();
+		for (int[] enc : encs)
+			hiddenSeen.add(enc);
+		for (Unit unit : Unit.values())
+			for (int uniti = 0; uniti < UNITS; uniti++)
+				search(false, unit, uniti, size, encs);
+	}
+
+	/**
+	 * Iterates combinations of the eligible elements of a unit,
+	 * cells when naked, digits when hidden.
+	 * Elements with fewer than two or more than size bits are not eligible.
+	 */
+	protected void search(boolean naked, Unit unit, int uniti, int size, List<int[]> encs) {
+		int[] masks = naked ? cellDigits[unit.ordinal()][uniti] : digitPositions[unit.ordinal()][uniti];
+		// The other table tells whether anything is removed.
+		int[] others = naked ? digitPositions[unit.ordinal()][uniti] : cellDigits[unit.ordinal()][uniti];
+		int eligible = 0;
+		for (int elemi = 0; elemi < UNITS; elemi++) {
+			int bits = Integer.bitCount(masks[elemi]);
+			if (2 <= bits && bits <= size)
+				eligible |= 1 << elemi;
+		}
+		int count = bitIndexes(eligible, elements);
+		for (int combi = 0, combos = comboCount(count, size); combi < combos; combi++) {
+			int chosen = spread(comboMask(size, combi), elements);
+			int union = 0;
+			for (int elems = chosen; 0 != elems; elems &= elems - 1)
+				union |= masks[Integer.numberOfTrailingZeros(elems)];
+			if (Integer.bitCount(union) != size)
+				continue;
+			for (int rest = union; 0 != rest; rest &= rest - 1) {
+				if (0 != (others[Integer.numberOfTrailingZeros(rest)] & ~chosen)) {
+					int[] enc = naked ? encode(unit, uniti, union, chosen) : encode(unit, uniti, chosen, union);
+					if (naked)
+						encs.add(enc);
+					else
+						hiddenSeen.addUnique(encs, enc);
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Encodes a digit mask and unit position mask as
+	 * the one-based combo followed by one-based rowCol ints.
+	 * For example digits {08} at [1,0],[8,0] is int[] {19,21,91}
+	 */
+	public static int[] encode(Unit unit, int uniti, int digits, int positions) {
+		int[] enc = new int[1 + Integer.bitCount(positions)];
+		enc[0] = maskToCombo(digits);
+		int loci = 1;
+		RowCol[] locs = UNIT_LOCS[unit.ordinal()][uniti];
+		for (int posi = 0; posi < UNITS; posi++) {
+			if (0 != (positions & (1 << posi))) {
+				RowCol loc = locs[posi];
+				enc[loci++] = (loc.row() + 1) * 10 + loc.col() + 1;
+			}
+		}
+		return enc;
+	}
+}
@@ -0,0 +1,218 @@
+package info.danbecker.ss.rules;
+
+import info.danbecker.ss.Board;
+import info.danbecker.ss.Candidates;
+import info.danbecker.ss.CellSet;
+import info.danbecker.ss.Findings;
+import info.danbecker.ss.RuleArena;
+import info.danbecker.ss.SolveContext;
+import info.danbecker.ss.sink.EventSink;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static info.danbecker.ss.Board.ROWCOL;
+import static info.danbecker.ss.Utils.COLS;
+import static info.danbecker.ss.Utils.DIGITS;
+import static info.danbecker.ss.Utils.ROWS;
+import static java.lang.String.format;
+
+/**
+ * Templates
+ * <p>
+ * From https://hodoku.sourceforge.net/en/tech_misc.php#template
+ * <p>
+ * The final locations of one digit are one cell per row, col, and box.
+ * There are 46,656 such patterns, or templates. A template survives for a digit
+ * when it covers every cell the digit occupies and only cells where the digit
+ * is occupied or a candidate.
+ * A candidate cell that no surviving template covers is removed,
+ * and a cell that every surviving template covers gets the digit.
+ * This one pass covers every single digit rule, such as fish, Skyscraper,
+ * TwoStringKite, and XChain, though it does not name the pattern.
+ * <p>
+ * The templates are computed once into a static table of two longs each,
+ * the lo and hi halves of a CellSet. Each digit keeps a bitset of its surviving
+ * templates. Candidates only shrink during a solve, so a find on the same
+ * Candidates object filters just the templates that survived the last find.
+ * Another Candidates object starts from every template.
+ * The survivors are scratch of the RuleArena of the find, so each thread filters its own.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class Templates implements FindUpdateRule {
+	public static final int TEMPLATE_COUNT = 46656;
+	/** Template cells as CellSet lo and hi longs. */
+	protected static final long[] TEMPLATE_LO = new long[TEMPLATE_COUNT];
+	protected static final long[] TEMPLATE_HI = new long[TEMPLATE_COUNT];
+	protected static final int WORDS = (TEMPLATE_COUNT + 63) / 64;
+	static {
+		int count = generate(0, 0, 0, 0L, 0L, 0);
+		if (TEMPLATE_COUNT != count)
+			throw new IllegalStateException(format("template count=%d", count));
+	}
+
+	// Encoding: action (PLACE or REMOVE), digit, row, col, surviving template count.
+	public static final int PLACE = 0;
+	public static final int REMOVE = 1;
+
+	private final int ruleId = Findings.ruleId(ruleName());
+
+	/** Surviving templates by zero-based digit, a bit per template, of the last Candidates object found. */
+	protected static class Scratch {
+		protected final long[][] survivors = new long[DIGITS][WORDS];
+		protected final int[] survivorCounts = new int[DIGITS];
+		protected Candidates lastCandidates;
+	}
+
+	/**
+	 * Adds the templates of rows from rowi on, given the cols used and the box cols used in this band.
+	 * @return the next template index
+	 */
+	private static int generate(int rowi, int usedCols, int usedBandBoxes, long lo, long hi, int templatei) {
+		if (ROWS == rowi) {
+			TEMPLATE_LO[templatei] = lo;
+			TEMPLATE_HI[templatei] = hi;
+			return templatei + 1;
+		}
+		if (0 == rowi % 3) usedBandBoxes = 0;
+		for (int coli = 0; coli < COLS; coli++) {
+			int boxBit = 1 << (coli / 3);
+			if (0 != (usedCols & (1 << coli)) || 0 != (usedBandBoxes & boxBit))
+				continue;
+			int celli = rowi * COLS + coli;
+			templatei = generate(rowi + 1, usedCols | (1 << coli), usedBandBoxes | boxBit,
+				celli < 64 ? lo | (1L << celli) : lo, celli < 64 ? hi : hi | (1L << (celli - 64)), templatei);
+		}
+		return templatei;
+	}
+
+	@Override
+	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs, EventSink sink) {
+		if (null == encs) return 0;
+		Findings findings = RuleArena.forThread().findings();
+		for (int enci = 0; enci < encs.size(); enci++) {
+			int[] enc = encs.get(enci);
+			addFindings(candidates, enc, enci, findings);
+			sink.encoding(this, enc);
+		}
+		return findings.apply(board, solution, candidates);
+	}
+
+	@Override
+	public boolean addFindings(Candidates candidates, int[] enc, int ref, Findings findings) {
+		if (PLACE == enc[0])
+			findings.place(ROWCOL[enc[2]][enc[3]], enc[1], ruleId, ref);
+		else
+			findings.remove(ROWCOL[enc[2]][enc[3]], enc[1], ruleId, ref);
+		return true;
+	}
+
+	@Override
+	public List<int[]> find(Board board, Candidates candidates) {
+		return find(board, candidates, null);
+	}
+
+	@Override
+	public List<int[]> find(Board board, Candidates candidates, SolveContext context) {
+		if (null == candidates)
+			return null;
+		Scratch scratch = RuleArena.of(context).scratch(Scratch.class, Scratch::new);
+		long[][] survivors = scratch.survivors;
+		if (candidates != scratch.lastCandidates) {
+			for (int digi = 0; digi < DIGITS; digi++) {
+				long[] words = survivors[digi];
+				Arrays.fill(words, -1L);
+				words[WORDS - 1] = -1L >>> (64 * WORDS - TEMPLATE_COUNT);
+			}
+			scratch.lastCandidates = candidates;
+		}
+		List<int[]> encs = new ArrayList<>();
+		for (int digit = 1; digit <= DIGITS; digit++) {
+			// Cells the digit may use, and cells it already occupies.
+			long allowedLo = 0, allowedHi = 0, occupiedLo = 0, occupiedHi = 0;
+			long candidateLo = 0, candidateHi = 0;
+			int bit = 1 << (digit - 1);
+			for (int celli = 0; celli < CellSet.CELLS; celli++) {
+				int occupied = candidates.getOccupied(CellSet.rowCol(celli));
+				boolean candidate = 0 != (candidates.candidateMask(CellSet.rowCol(celli)) & bit);
+				if (digit == occupied || candidate) {
+					long cellBit = 1L << (celli & 63);
+					if (celli < 64) allowedLo |= cellBit; else allowedHi |= cellBit;
+					if (digit == occupied) {
+						if (celli < 64) occupiedLo |= cellBit; else occupiedHi |= cellBit;
+					} else {
+						if (celli < 64) candidateLo |= cellBit; else candidateHi |= cellBit;
+					}
+				}
+			}
+			if (0 == (candidateLo | candidateHi))
+				continue;
+
+			// Filter the survivors, collecting the union and intersection of what remains.
+			long[] words = survivors[digit - 1];
+			long unionLo = 0, unionHi = 0, commonLo = -1L, commonHi = -1L;
+			int count = 0;
+			for (int wordi = 0; wordi < WORDS; wordi++) {
+				long word = words[wordi];
+				for (long bits = word; 0 != bits; bits &= bits - 1) {
+					int templatei = (wordi << 6) + Long.numberOfTrailingZeros(bits);
+					long lo = TEMPLATE_LO[templatei];
+					long hi = TEMPLATE_HI[templatei];
+					if (0 != (lo & ~allowedLo) || 0 != (hi & ~allowedHi)
+						|| 0 != (occupiedLo & ~lo) || 0 != (occupiedHi & ~hi)) {
+						word &= ~Long.lowestOneBit(bits);
+					} else {
+						unionLo |= lo;
+						unionHi |= hi;
+						commonLo &= lo;
+						commonHi &= hi;
+						count++;
+					}
+				}
+				words[wordi] = word;
+			}
+			scratch.survivorCounts[digit - 1] = count;
+			if (0 == count)
+				continue; // No placement of the digit fits these candidates.
+
+			for (int celli = 0; celli < CellSet.CELLS; celli++) {
+				long cellBit = 1L << (celli & 63);
+				boolean candidate = 0 != ((celli < 64 ? candidateLo : candidateHi) & cellBit);
+				if (!candidate) continue;
+				if (0 != ((celli < 64 ? commonLo : commonHi) & cellBit))
+					encs.add(new int[]{PLACE, digit, celli / COLS, celli % COLS, count});
+				else if (0 == ((celli < 64 ? unionLo : unionHi) & cellBit))
+					encs.add(new int[]{REMOVE, digit, celli / COLS, celli % COLS, count});
+			}
+		}
+		return encs;
+	}
+
+	/** Starts the next find on this thread from every template, for a Candidates object that was changed other than by removals. */
+	public void reset() {
+		reset(RuleArena.forThread());
+	}
+
+	/** Starts the next find with this arena from every template. */
+	public static void reset(RuleArena arena) {
+		arena.scratch(Scratch.class, Scratch::new).lastCandidates = null;
+	}
+
+	/** Surviving template count of the one-based digit after the last find on this thread. */
+	public int getSurvivorCount(int digit) {
+		return RuleArena.forThread().scratch(Scratch.class, Scratch::new).survivorCounts[digit - 1];
+	}
+
+	@Override
+	public String encodingToString(int[] enc) {
+		String action = PLACE == enc[0] ? "places" : "removes";
+		return format("%s digit %d at %s, %d templates remain", action, enc[1], ROWCOL[enc[2]][enc[3]], enc[4]);
+	}
+
+	@Override
+	public String ruleName() {
+		return this.getClass().getSimpleName();
+	}
+}
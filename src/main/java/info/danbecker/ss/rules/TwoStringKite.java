@@ -3,6 +3,7 @@ package info.danbecker.ss.rules;
 import info.danbecker.ss.Board;
 import info.danbecker.ss.Candidates;
 import info.danbecker.ss.RowCol;
+import info.danbecker.ss.sink.EventSink;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -25,7 +26,7 @@ import static java.lang.String.format;
  */
 public class TwoStringKite implements FindUpdateRule {
 	@Override
-	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs) {
+	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs, EventSink sink) {
 		int updates = 0;
 		if ( null == encs) return updates;
 		if (encs.size() > 0) {
@@ -57,9 +58,10 @@ public class TwoStringKite implements FindUpdateRule {
 					}
 				}
 			}
-			System.out.println( format( "%s removed digit %d from %d location %s",
+			if ( sink.isText() )
+				sink.printf( "%s removed digit %d from %d location %s%n",
 					ruleName(), digit, updates,
-					RowCol.toString( rowCols )));
+					RowCol.toString( rowCols ));
 		}
 		return updates;
 	}
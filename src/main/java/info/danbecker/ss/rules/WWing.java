@@ -2,18 +2,19 @@ package info.danbecker.ss.rules;
 
 import info.danbecker.ss.Board;
 import info.danbecker.ss.Candidates;
+import info.danbecker.ss.CellSet;
+import info.danbecker.ss.EncodingSet;
 import info.danbecker.ss.RowCol;
+import info.danbecker.ss.SolveContext;
 import info.danbecker.ss.Utils;
+import info.danbecker.ss.sink.EventSink;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 import static info.danbecker.ss.Board.ROWCOL;
-import static info.danbecker.ss.Candidates.ALL_COUNTS;
-import static info.danbecker.ss.Candidates.ALL_DIGITS;
 import static info.danbecker.ss.Utils.*;
 import static java.lang.String.format;
 
@@ -39,7 +40,7 @@ public class WWing implements FindUpdateRule {
 	// - 9A sl2 rowCol
 	// - B non sl digit
 	// - CD* rowCol sees eps
-	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs) {
+	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs, EventSink sink) {
 		int updates = 0;
 		if ( null == encs) return updates;
 		for ( int enci = 0; enci < encs.size(); enci++ ) {
@@ -57,12 +58,11 @@ public class WWing implements FindUpdateRule {
 					}
 				}
 
-				String prev = candidates.getCompactStr( loc );
 				if (candidates.removeCandidate(loc, nslDigit)) {
 					updates++;
-					String cStr = candidates.getCompactStr(loc);
-					System.out.printf("%s removed digit %d from %s, remaining candidates %s\n",
-							ruleName(), nslDigit, loc, cStr);
+					if (sink.isText())
+						sink.printf("%s removed digit %d from %s, remaining candidates %s\n",
+							ruleName(), nslDigit, loc, candidates.getCompactStr(loc));
 				}
 			}
 		}
@@ -86,30 +86,37 @@ public class WWing implements FindUpdateRule {
 	public List<int[]> find(Board board, Candidates candidates) {
 		if (null == candidates)
 			return null;
+		return find( board, candidates, new SolveContext( candidates ));
+	}
+
+	@Override
+	public List<int[]> find(Board board, Candidates candidates, SolveContext context) {
+		if (null == candidates)
+			return null;
+		context = SolveContext.of( context, candidates );
 		List<int[]> encs = new ArrayList<>();
+		EncodingSet unique = new EncodingSet();
 
-		// Get sorted set of digit pairs
-		List<RowCol> allPairLocs = candidates.getGroupLocations( ALL_DIGITS, 2 );
-
-		Map<List<Integer>, List<RowCol>> pairLocs = allPairLocs.stream()
-				.collect( Collectors.groupingBy(candidates::getCandidatesList, Collectors.toList()));
-
-		for ( List<Integer> pair : pairLocs.keySet()) {
-			// For each pair with 2 or more locations
-			if ( 1 < pairLocs.get( pair ).size()) {
-				// System.out.printf( "Pair %s, locs %s\n", pair, RowCol.toString(pairLocs.get(pair)));
-				// Look at each pair of endpoint
-				List<int[]> endPointCombos = Utils.comboGenerate( pairLocs.get( pair ).size(),2 );
-				for( int combi = 0; combi < endPointCombos.size(); combi++) {
-					int[] endPointCombo = endPointCombos.get( combi );
-					for ( int digiti = 0; digiti < pair.size(); digiti++) {
-						addUniques( encs, find(board, candidates, pair, pair.get(digiti),
-								pairLocs.get(pair).get(endPointCombo[0]), pairLocs.get(pair).get(endPointCombo[1]) ));
+		// Bivalue locations by digit pair, from the candidates mask index
+		CellSet pairCells = new CellSet();
+		for ( int digi = 0; digi < DIGITS; digi++ ) {
+			for ( int digj = digi + 1; digj < DIGITS; digj++ ) {
+				// For each pair with 2 or more locations
+				if ( 1 < candidates.maskLocations( (1 << digi) | (1 << digj), pairCells ).size()) {
+					List<Integer> pair = Arrays.asList( digi + 1, digj + 1 );
+					List<RowCol> pairLocs = pairCells.toList();
+					// System.out.printf( "Pair %s, locs %s\n", pair, RowCol.toString(pairLocs));
+					// Look at each pair of endpoints
+					for( int ep1i = 0; ep1i < pairLocs.size() - 1; ep1i++) {
+						for( int ep2i = ep1i + 1; ep2i < pairLocs.size(); ep2i++) {
+							for ( int digiti = 0; digiti < pair.size(); digiti++) {
+								unique.addUniques( encs, find(board, candidates, context, pair, pair.get(digiti),
+										pairLocs.get(ep1i), pairLocs.get(ep2i) ));
+							}
+						}
 					}
 				}
 			}
-			// int[] zeroBasedDigits = new int[]{ pair.get(0) - 1, pair.get(1) - 1};
-			// locs.addAll( find( board, candidates, zeroBasedDigits ));
 		}
 
 		return encs;
@@ -121,52 +128,51 @@ public class WWing implements FindUpdateRule {
 	 *  - eliminate candidates that see both endpoints
      */
 	public List<int[]> find(Board board, Candidates candidates, List<Integer> digits, int slDigit, RowCol ep1, RowCol ep2 ) {
+		return find( board, candidates, new SolveContext( candidates ), digits, slDigit, ep1, ep2 );
+	}
+
+	/** As find with endpoints, taking the strong links from the context. */
+	public List<int[]> find(Board board, Candidates candidates, SolveContext context, List<Integer> digits, int slDigit, RowCol ep1, RowCol ep2 ) {
 		List<int[]> encs = new ArrayList<>();
+		EncodingSet unique = new EncodingSet();
 		// System.out.printf( "   Pair %s, digit %d, endpoints %s,%s\n", digits, slDigit, ep1, ep2 );
 
 		// Find strong links
-		int[][] unitCounts = candidates.candidateUnitCounts(slDigit);
-		// First find all strong links and locations
-		for (Unit unit : Unit.values()) {
-			for (int uniti = 0; uniti < Utils.UNITS; uniti++) {
-				if (2 == unitCounts[unit.ordinal()][uniti]) {
-					List<RowCol> strongLink = candidates.candidateUnitGroupLocs(unit, uniti, slDigit, ALL_COUNTS);
-					// System.out.printf( "      Digit %d, %s %d strong link at %s\n", slDigit, unit, uniti, RowCol.toString( strongLink ) );
-					int nslDigit = digits.get(0) == slDigit ? digits.get(1) : digits.get(0);
-					// if one endpoint sees one end, and  the other endpoint sees the other end
-					// Note this is a one link hop from ep1 to ep1, there could be multiple link hops
-					RowCol sl1 = strongLink.get(0);
-					RowCol sl2 = strongLink.get(1);
-					if( !ep1.equals(sl1) && !ep2.equals(sl2) && !ep1.equals(sl2) && !ep2.equals(sl1)) {
-						List <RowCol> nslLocs = new ArrayList<>();
-
-						Unit unit1 = RowCol.firstUnitMatch(ep1, sl1);
-						Unit unit2 = RowCol.firstUnitMatch(ep2, sl2);
-						if (null != unit1 && null != unit2) {
-							// System.out.printf("         Digit %d, eps %s,%s %s,%s links to sls %s,%s.\n",
-							// 		slDigit, ep1, ep2, unit1, unit2, sl1, sl2 );
-							// Check for non strong links that see ep1/ep2
-							RowCol.addUniques( nslLocs, cellsSeeEndpoints( candidates, nslDigit, ep1, ep2, sl1, sl2 ) );
-						}
-						unit1 = RowCol.firstUnitMatch(ep1, sl2);
-						unit2 = RowCol.firstUnitMatch(ep2, sl1);
-						if (null != unit1 && null != unit2) {
-							// System.out.printf("         Digit %d, eps %s,%s %s,%s links to sls %s,%s.\n",
-							// 		slDigit, ep1, ep2, unit1, unit2, sl2, sl1 );
-							// Check for non strong links that see ep1/ep2
-							RowCol.addUniques( nslLocs, cellsSeeEndpoints( candidates, nslDigit, ep1, ep2, sl1, sl2 ) );
-						}
+		for (List<RowCol> strongLink : context.strongLinks(slDigit)) {
+			// System.out.printf( "      Digit %d strong link at %s\n", slDigit, RowCol.toString( strongLink ) );
+			int nslDigit = digits.get(0) == slDigit ? digits.get(1) : digits.get(0);
+			// if one endpoint sees one end, and  the other endpoint sees the other end
+			// Note this is a one link hop from ep1 to ep1, there could be multiple link hops
+			RowCol sl1 = strongLink.get(0);
+			RowCol sl2 = strongLink.get(1);
+			if( !ep1.equals(sl1) && !ep2.equals(sl2) && !ep1.equals(sl2) && !ep2.equals(sl1)) {
+				List <RowCol> nslLocs = new ArrayList<>();
 
-						// Add uniques to list
-						for ( RowCol nslLoc : nslLocs ) {
-							int [] enc = encode( Utils.listToArray(digits), ep1, ep2, slDigit, sl1, sl2,
-									nslDigit, nslLocs );
-							int added = addUnique( encs, enc );
-							// if ( 1 == added ) {
-							// 	  System.out.printf("   enc %s added.\n", encodingToString(enc) );
-							// }
-						}
-					}
+				Unit unit1 = RowCol.firstUnitMatch(ep1, sl1);
+				Unit unit2 = RowCol.firstUnitMatch(ep2, sl2);
+				if (null != unit1 && null != unit2) {
+					// System.out.printf("         Digit %d, eps %s,%s %s,%s links to sls %s,%s.\n",
+					// 		slDigit, ep1, ep2, unit1, unit2, sl1, sl2 );
+					// Check for non strong links that see ep1/ep2
+					RowCol.addUniques( nslLocs, cellsSeeEndpoints( candidates, nslDigit, ep1, ep2, sl1, sl2 ) );
+				}
+				unit1 = RowCol.firstUnitMatch(ep1, sl2);
+				unit2 = RowCol.firstUnitMatch(ep2, sl1);
+				if (null != unit1 && null != unit2) {
+					// System.out.printf("         Digit %d, eps %s,%s %s,%s links to sls %s,%s.\n",
+					// 		slDigit, ep1, ep2, unit1, unit2, sl2, sl1 );
+					// Check for non strong links that see ep1/ep2
+					RowCol.addUniques( nslLocs, cellsSeeEndpoints( candidates, nslDigit, ep1, ep2, sl1, sl2 ) );
+				}
+
+				// Add uniques to list
+				for ( RowCol nslLoc : nslLocs ) {
+					int [] enc = encode( Utils.listToArray(digits), ep1, ep2, slDigit, sl1, sl2,
+							nslDigit, nslLocs );
+					int added = unique.addUnique( encs, enc );
+					// if ( 1 == added ) {
+					// 	  System.out.printf("   enc %s added.\n", encodingToString(enc) );
+					// }
 				}
 			}
 		}
@@ -2,10 +2,14 @@ package info.danbecker.ss.rules;
 
 import info.danbecker.ss.Board;
 import info.danbecker.ss.Candidates;
+import info.danbecker.ss.CellKeySet;
+import info.danbecker.ss.CellSet;
+import info.danbecker.ss.EncodingSet;
 import info.danbecker.ss.RowCol;
+import info.danbecker.ss.RuleArena;
+import info.danbecker.ss.SolveContext;
 import info.danbecker.ss.Utils;
-import info.danbecker.ss.tree.DigitData;
-import info.danbecker.ss.tree.TreeNode;
+import info.danbecker.ss.sink.EventSink;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -13,10 +17,8 @@ import java.util.List;
 
 import static info.danbecker.ss.Board.NOT_FOUND;
 import static info.danbecker.ss.Board.ROWCOL;
-import static info.danbecker.ss.Candidates.ALL_COUNTS;
 import static info.danbecker.ss.Utils.DIGITS;
 import static info.danbecker.ss.Utils.Unit;
-import static info.danbecker.ss.Utils.addUniques;
 import static java.lang.String.format;
 
 /**
@@ -39,11 +41,51 @@ import static java.lang.String.format;
  * <p>
  * This is important because test case Digit6Bug shows if no alternation,
  * digit 6 in 0,8 will be excluded with chain 05=25=28-06=46=48.
+ * <p>
+ * The search keeps the chain on fixed size int stacks with a visited CellSet,
+ * so it does not copy lists or build trees per link.
+ * The stacks are scratch from the RuleArena of the find, sized for MAX_LINKS.
+ * It is exhaustive for chains of up to maxLinks strong links.
  * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
  */
 public class XChain implements FindUpdateRule {
+	/** Upper limit of strong links, one per unit. */
+	public static final int MAX_LINKS = Utils.UNITS * Unit.values().length;
+	public static final int DEFAULT_MAX_LINKS = 8;
+
+	protected final int maxLinks;
+
+	/** Search state, sized once and reused for each digit. */
+	protected static class Scratch {
+		protected final int[] linkA = new int[MAX_LINKS];
+		protected final int[] linkB = new int[MAX_LINKS];
+		protected int linkCount;
+		protected final int[] chainLink = new int[MAX_LINKS]; // strong link index at each depth
+		protected final int[] chainOrient = new int[MAX_LINKS]; // 0 is A=B, 1 is B=A
+		protected final int[] nextLink = new int[MAX_LINKS]; // next link and orientation to try at each depth
+		protected final CellSet digitCells = new CellSet();
+		protected final CellSet visited = new CellSet();
+		protected final CellSet seesBoth = new CellSet();
+		// Hashed duplicate tests for strong links and problem encodings of the current digit.
+		protected final CellKeySet linkKeys = new CellKeySet();
+		protected final EncodingSet problemSeen = new EncodingSet();
+	}
+
+	public XChain() {
+		this( DEFAULT_MAX_LINKS );
+	}
+
+	/**
+	 * @param maxLinks maximum number of strong links in a chain, 2 to MAX_LINKS
+	 */
+	public XChain( int maxLinks ) {
+		if ( maxLinks < 2 || maxLinks > MAX_LINKS )
+			throw new IllegalArgumentException( "maxLinks=" + maxLinks );
+		this.maxLinks = maxLinks;
+	}
+
 	@Override
-	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs) {
+	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs, EventSink sink) {
 		// SimpleColors sameUpdateProcess = new SimpleColors();
 		// return sameUpdateProcess.update( board, solution, candidates, encs );
 		int updates = 0;
@@ -85,13 +127,19 @@ public class XChain implements FindUpdateRule {
 	 */
 	@Override
 	public List<int[]> find(Board board, Candidates candidates) {
+		return find(board, candidates, null);
+	}
+
+	@Override
+	public List<int[]> find(Board board, Candidates candidates, SolveContext context) {
 		if (null == candidates)
 			return null;
 		List<int[]> locs = new ArrayList<>();
+		Scratch scratch = RuleArena.of(context).scratch(Scratch.class, Scratch::new);
 
 		for (int digi = 1; digi <= DIGITS; digi++) {
 			if ( !board.digitCompleted( digi )) {
-				locs.addAll( find( board, candidates, digi ) );
+				locs.addAll( find( candidates, digi, scratch ) );
 			}
 		}
 		return locs;
@@ -101,236 +149,200 @@ public class XChain implements FindUpdateRule {
 	 * Strategy.
 	 * -For each digit
 	 *    -enumerate strong link location pairs (units that have only two of that digit)
-	 *    -attempt to connect link ends with other seen locations
-	 *       -see if other candidate locations see endpoints
+	 *    -depth first, connect strong links with weak links (cells that see each other),
+	 *     never revisiting a chain cell, up to maxLinks strong links
+	 *    -see if other candidate locations see both chain endpoints
+	 * <p>
+	 * A chain and its reverse have the same endpoints and eliminations,
+	 * so each chain is grown once, out of both ends of its lowest index link,
+	 * and only higher index links are added to it.
 	 * <p>
 	 * Useful for testing
 	 * @return a list of all locations that can see two colors.
 	 */
 	public List<int[]> find(Board board, Candidates candidates, int digit ) {
+		return find( candidates, digit, RuleArena.forThread().scratch(Scratch.class, Scratch::new) );
+	}
+
+	protected List<int[]> find(Candidates candidates, int digit, Scratch scratch ) {
 		List<int[]> problemLocs = new LinkedList<>();
-		List<RowCol> digitLocs = candidates.digitLocs(digit);
+		scratch.problemSeen.clear();
+		scratch.linkKeys.clear();
+		scratch.digitCells.clear();
+		for (int celli = 0; celli < CellSet.CELLS; celli++) {
+			if (candidates.isCandidate(CellSet.rowCol(celli), digit))
+				scratch.digitCells.add(celli);
+		}
+		scratch.linkCount = 0;
 		int[][] unitCounts = candidates.candidateUnitCounts(digit);
-		List<List<RowCol>> strongLinks = new LinkedList<>();
 		// First find all strong links and locations
 		for (Unit unit : Unit.values()) {
 			for (int uniti = 0; uniti < Utils.UNITS; uniti++) {
-				if (1 == unitCounts[unit.ordinal()][uniti]) {
-					List<RowCol> single = candidates.candidateUnitGroupLocs(unit, uniti, digit, ALL_COUNTS);
-					System.out.printf("Warning, %s found single digit %d in %s %d, locs=%s%n",
-							ruleName(), digit, unit, uniti, RowCol.toString(single));
-				} else if (2 == unitCounts[unit.ordinal()][uniti]) {
-					List<RowCol> strongLink = candidates.candidateUnitGroupLocs(unit, uniti, digit, ALL_COUNTS);
-					// Avoid BOX links that equal a ROW or COL link. Include if different.
-					// Note that some strong links, might share end points.
-					if (NOT_FOUND == RowCol.indexOf(strongLinks, strongLink)) {
-						// System.out.println( format("Strong link digit %d in %s %d, locs=%s",
-						// 		digit, unit, uniti, RowCol.toString( strongLink )));
-						strongLinks.add(strongLink);
-					}
+				int count = unitCounts[unit.ordinal()][uniti];
+				// A count of 1 is a single, left to the singles rules.
+				// if (1 == count)
+				// 	System.out.printf("Warning, %s found single digit %d in %s %d%n",
+				// 		ruleName(), digit, unit, uniti);
+				if (2 == count) {
+					addStrongLink(scratch, candidates, digit, unit, uniti);
 				}
 			}
 		}
-		// System.out.printf("Digit %d locs %s, strong links %s%n",
-		// 		digit, RowCol.toString(digitLocs), RowCol.toString(strongLinks,"/") );
+		// System.out.printf("Digit %d locs %s, %d strong links%n", digit, digitCells, linkCount );
 
 		// Method
-		// for each strong link (A=B)
-		//    for each endpoint (A,B)
-		//       next strong link (C=D)
-		//          A=B-C=D?
-		//          A=B-D=C?
-		//          B=A-C=D?
-		//          B=A-D=C?
-		//             for each, check for exclusions
-        //             yes, add to problem list, end
-		//             no, recurse
-		List<int[]> foundLocs = buildXChain( candidates, digit,null, digitLocs, strongLinks );
-		addUniques( problemLocs, foundLocs );
-
-		return problemLocs;
-	}
-
-	public List<int[]> buildXChain(Candidates candidates, int digit, TreeNode<DigitData> pNode,
-	   List<RowCol> digitLocs, List<List<RowCol>> strongLinks ) {
-		List<int[]> problemLocs = new ArrayList<>();
-		if ( 0 == digitLocs.size() ) return problemLocs;
-		if ( 0 == strongLinks.size() ) return problemLocs;
-
-		// For each strong link recurse X-Chain
-		for (int linki = 0; linki < strongLinks.size(); linki++) {
-			List<RowCol> strongLink = strongLinks.get( linki );
-
-			// Remove link and locs from subset lists
-			RowCol A = strongLink.get( 0 );
-			RowCol B = strongLink.get( 1 );
-			List<RowCol> digitSubset = new LinkedList<>(digitLocs); // deep copy of digit locs, for modifications
-			digitSubset.remove( A );
-			digitSubset.remove( B );
-			List<List<RowCol>> strongLinksSubset = new LinkedList<>(strongLinks);
-			strongLinksSubset.remove(linki);
-
-			if ( null == pNode) {
-				// make permutations of new trees A=B, B=A
-				// A=B
-				// System.out.printf("%sL%d-l%d Digit %d strong link %d perm A: %s\n",
-				// 		Utils.indent(level), level, linki, digit, linki, RowCol.toString(Arrays.asList(A, B)));
-				createStrongLinkTree(candidates, digit, A, B, digitSubset, strongLinksSubset, problemLocs);
-
-				// B=A
-				// System.out.printf("%sL%d-l%d Digit %d strong link %d perm B: %s\n",
-				// 		Utils.indent(level), level, linki, digit, linki, RowCol.toString(Arrays.asList(B, A)));
-				createStrongLinkTree(candidates, digit, B, A, digitSubset, strongLinksSubset, problemLocs);
-			} else {
-				// for new links, attempt to see parent node with a weak link from each strong link endpoint
-				// A=B
-				// System.out.printf("%sL%d-l%d Digit %d strong link %d perm A: %s\n",
-				// 		Utils.indent(level), level, linki, digit, linki, RowCol.toString(Arrays.asList(A, B)));
-				addStrongLink(candidates, digit, pNode, A, B, digitSubset, strongLinksSubset, problemLocs );
-				// B=A
-				// System.out.printf("%sL%d-l%d Digit %d strong link %d perm B: %s\n",
-				// 		Utils.indent(level), level, linki, digit, linki, RowCol.toString(Arrays.asList(B, A)));
-				addStrongLink(candidates, digit, pNode, B, A, digitSubset, strongLinksSubset, problemLocs );
+		// for each strong link A=B, the lowest link of the chain
+		//    for each unvisited higher strong link C=D whose first end sees the right end B
+		//       A=B-C=D
+		//          check for exclusions
+		//          for each unvisited higher strong link F=E whose second end sees the left end A
+		//             F=E-A=B-C=D
+		//                check for exclusions
+		//                recurse left while under maxLinks
+		//          recurse right while under maxLinks
+		for (int firsti = 0; firsti < scratch.linkCount; firsti++) {
+			int right = push(scratch, 0, firsti, 0);
+			extendLeft(scratch, digit, right, problemLocs);
+			while (0 < right) {
+				int top = right - 1;
+				int next = right < maxLinks ? nextLink(scratch, scratch.nextLink[top], end(scratch, top), firsti) : NOT_FOUND;
+				if (NOT_FOUND == next) {
+					right = pop(scratch, right);
+					continue;
+				}
+				scratch.nextLink[top] = next + 1;
+				right = push(scratch, right, next >> 1, next & 1);
+				outsideSeesEndpoints(scratch, digit, 0, right - 1, problemLocs);
+				extendLeft(scratch, digit, right, problemLocs);
 			}
-		} // for each strongLink
+		}
 		return problemLocs;
 	}
 
 	/**
-	 * Start a tree with two strong link endpoints.
-	 * @param candidates
-	 * @param digit
-	 * @param a
-	 * @param b
-	 * @param digitSubset
-	 * @param strongLinksSubset
-	 * @param problemLocs problem encodings are added to this list
+	 * Depth first, add higher links before the start of the chain at depth 0, up to maxLinks strong links.
+	 * Left links are pushed on the stack above the right links, with their start on the outside.
+	 * Returns with the stack at the given right depth.
 	 */
-	public void createStrongLinkTree(Candidates candidates, int digit, RowCol a, RowCol b, List<RowCol> digitSubset, List<List<RowCol>> strongLinksSubset, List<int[]> problemLocs) {
-		// Add strongLink as a unit to tree
-		TreeNode<DigitData> rNode = new TreeNode<>(new DigitData(digit, a, 0), 3);
-		DigitData bData = new DigitData(digit, b, 1);
-		TreeNode<DigitData> bNode = rNode.setChild(bData, RowCol.firstUnitMatch(a, b).ordinal() ); // null not possible
-		// Recurse from bNode
-		List<int[]> moreProblems = buildXChain(candidates, digit, bNode,
-				digitSubset, strongLinksSubset);
-		addUniques(problemLocs, moreProblems );
+	protected void extendLeft(Scratch scratch, int digit, int right, List<int[]> problemLocs) {
+		int rootNext = 0;
+		int depth = right;
+		while (true) {
+			boolean atRoot = right == depth;
+			int leftEnd = start(scratch, atRoot ? 0 : depth - 1);
+			int next = depth < maxLinks ? nextLink(scratch, atRoot ? rootNext : scratch.nextLink[depth - 1],
+					leftEnd, scratch.chainLink[0]) : NOT_FOUND;
+			if (NOT_FOUND == next) {
+				if (atRoot)
+					return;
+				depth = pop(scratch, depth);
+				continue;
+			}
+			if (atRoot) rootNext = next + 1;
+			else scratch.nextLink[depth - 1] = next + 1;
+			// The end of a left link is the cell that sees the chain.
+			depth = push(scratch, depth, next >> 1, (next & 1) ^ 1);
+			outsideSeesEndpoints(scratch, digit, depth - 1, right - 1, problemLocs);
+		}
 	}
 
 	/**
-	 * Continue a tree with the endpoints if they can be weak-linked to pNode
-	 *
-	 * @param candidates
-	 * @param digit
-	 * @param pNode
-	 * @param a
-	 * @param b
-	 * @param digitSubset
-	 * @param strongLinksSubset
-	 * @param problemLocs problem encodings are added tp this list
+	 * Returns the next link and orientation from the given one, of a link above the lowest link,
+	 * with both cells off the chain and the first cell seeing the chain end. NOT_FOUND if none.
 	 */
-	public void addStrongLink(Candidates candidates, int digit, TreeNode<DigitData> pNode, RowCol a, RowCol b, List<RowCol> digitSubset, List<List<RowCol>> strongLinksSubset, List<int[]> problemLocs ) {
-		if ( null == pNode)
-			throw new NullPointerException( "pNode == null");
-		// int level = pNode.getLevel(); // needed for debug logging
-		TreeNode<DigitData> rNode = pNode.getRoot();
-		DigitData aData = new DigitData(digit, a, (pNode.data.color + 1 ) % 2);
-		DigitData bData = new DigitData(digit, b, (aData.color + 1 ) % 2);
-		// Only add if both nodes are outside tree
-		// No use in checking B for exclusions if it is already in the tree
-		if ((null == rNode.findTreeNode(new DigitData.RowColMatch(aData))) &&
-		    (null == rNode.findTreeNode(new DigitData.RowColMatch(bData)))) {
-			// link endpoints not in tree
-			// match first endpoint
-			Unit unitMatch = RowCol.firstUnitMatch( pNode.data.rowCol, a);
-			if ( null != unitMatch ) {
-				int unitCount = candidates.candidateUnitCount( unitMatch,
-						RowCol.firstUnitMatchIndex( pNode.data.rowCol, a), digit);
-				if ( 2 < unitCount ) {
-					// weak link connector to aNode
-					TreeNode<DigitData> aNode = pNode.setChild(aData, unitMatch.ordinal() ); // null not possible
-					TreeNode<DigitData> bNode = aNode.setChild(bData, RowCol.firstUnitMatch(a, b).ordinal() ); // null not possible
-
-					// Check for outside candidate exlusions and add
-					List<int[]> outsideSees = outsideSeesTwoDifferentEndpointsType0Trap(candidates, rNode, bNode, digitSubset);
-					int newProbs = addUniques(problemLocs, outsideSees );
-					// if ( 0 < newProbs ) {
-						// Verbosity
-						// rNode.printTree();
-						// System.out.printf("Digit %d, weak %s link from %s to %s, check %s to see %s and %s, %d new probs.\n",
-						// 		digit, unitMatch, pNode.data.rowCol, a, digitSubset, rNode, bNode, newProbs);
-					// }
+	protected int nextLink(Scratch scratch, int from, int chainEnd, int lowest) {
+		for (int next = Math.max(from, 2 * (lowest + 1)); next < 2 * scratch.linkCount; next++) {
+			int linki = next >> 1;
+			int a = (0 == (next & 1)) ? scratch.linkA[linki] : scratch.linkB[linki];
+			int b = (0 == (next & 1)) ? scratch.linkB[linki] : scratch.linkA[linki];
+			if (!scratch.visited.contains(a) && !scratch.visited.contains(b) && CellSet.sees(chainEnd, a))
+				return next;
+		}
+		return NOT_FOUND;
+	}
 
-					// recurse
-					List<int[]> moreProblems = buildXChain(candidates, digit, bNode, digitSubset, strongLinksSubset);
-					addUniques(problemLocs, moreProblems );
-				}
+	/** Record the two locations of this unit as a strong link, unless the link is already recorded. */
+	protected void addStrongLink(Scratch scratch, Candidates candidates, int digit, Unit unit, int uniti) {
+		int a = NOT_FOUND;
+		int b = NOT_FOUND;
+		for (int i = 0; i < Utils.UNITS; i++) {
+			RowCol loc = switch (unit) {
+				case ROW -> ROWCOL[uniti][i];
+				case COL -> ROWCOL[i][uniti];
+				case BOX -> Board.BOXR[uniti][i];
+			};
+			if (candidates.isCandidate(loc, digit)) {
+				int celli = CellSet.index(loc);
+				if (NOT_FOUND == a) a = celli;
+				else b = celli;
 			}
 		}
+		// Avoid BOX links that equal a ROW or COL link.
+		if (!scratch.linkKeys.add(a, b))
+			return;
+		scratch.linkA[scratch.linkCount] = a;
+		scratch.linkB[scratch.linkCount] = b;
+		scratch.linkCount++;
+	}
+
+	/** Add the strong link to the chain in the given orientation. Returns the new depth. */
+	protected int push(Scratch scratch, int depth, int linki, int orient) {
+		scratch.chainLink[depth] = linki;
+		scratch.chainOrient[depth] = orient;
+		scratch.nextLink[depth] = 0;
+		scratch.visited.add(scratch.linkA[linki]).add(scratch.linkB[linki]);
+		return depth + 1;
+	}
+
+	/** Remove the last strong link from the chain. Returns the new depth. */
+	protected int pop(Scratch scratch, int depth) {
+		int linki = scratch.chainLink[depth - 1];
+		scratch.visited.remove(scratch.linkA[linki]).remove(scratch.linkB[linki]);
+		return depth - 1;
+	}
+
+	/** Returns the first cell of the strong link at this depth. */
+	protected int start(Scratch scratch, int depthi) {
+		return 0 == scratch.chainOrient[depthi] ? scratch.linkA[scratch.chainLink[depthi]] : scratch.linkB[scratch.chainLink[depthi]];
+	}
+
+	/** Returns the last cell of the strong link at this depth. */
+	protected int end(Scratch scratch, int depthi) {
+		return 0 == scratch.chainOrient[depthi] ? scratch.linkB[scratch.chainLink[depthi]] : scratch.linkA[scratch.chainLink[depthi]];
 	}
 
 	/**
-	 * Check for non tree candidates that can see two color endpoints of this tree.
-	 * Color Trap (type 0): An uncolored cell (outside tree) that sees cells of opposite colors.
+	 * Check for non chain candidates that can see both endpoints of this chain.
+	 * Color Trap (type 0): An uncolored cell (outside chain) that sees cells of opposite colors.
+	 * The chain start is color 0 and the chain end is color 1.
 	 *
-	 * @param candidates
-	 * @param tree one end of tree
-	 * @param end another end of tree
-	 * @param remainingLocs location with this digit that is not in the tree
-	 * @return int [] of candidates to remove
+	 * The chain is reported from the end link with the lower index, so a chain and its reverse match.
+	 *
+	 * @param digit ones-based digit
+	 * @param leftDepth stack depth of the left end link, its start is a chain endpoint
+	 * @param rightDepth stack depth of the right end link, its end is a chain endpoint
+	 * @param problemLocs problem encodings are added to this list
 	 */
-	public static List<int[]> outsideSeesTwoDifferentEndpointsType0Trap(Candidates candidates, TreeNode<DigitData> tree, TreeNode<DigitData> end, List<RowCol> remainingLocs ) {
-		List<int[]> seesTwo = new LinkedList<>();
-		int digit = tree.data.digit;
-		if (tree.data.color == end.data.color) {
-			// System.out.printf( "   Digit %d tree begin/end same colors at %s and %s\n",
-			//		digit, tree.data, end.data );
-			return seesTwo;
+	protected void outsideSeesEndpoints(Scratch scratch, int digit, int leftDepth, int rightDepth, List<int[]> problemLocs) {
+		int first = start(scratch, leftDepth);
+		int last = end(scratch, rightDepth);
+		if (scratch.chainLink[rightDepth] < scratch.chainLink[leftDepth]) {
+			first = last;
+			last = start(scratch, leftDepth);
 		}
-		for ( int loci = 0; loci < remainingLocs.size(); loci++) {
-			RowCol rowCol = remainingLocs.get(loci);
-			DigitData cData = new DigitData(digit,rowCol,-1);
-			if ( null == tree.findTreeNode( new DigitData.RowColMatch(cData))) {
-				// remainingLoc RowCol is not in given tree
-                // Are both tree node and end node visible
-				List<TreeNode<DigitData>> sameUnitNodes = tree.findTreeNodes(new DigitData.AnyUnitMatch(cData));
-				if( sameUnitNodes.contains( tree ) && sameUnitNodes.contains( end )) {
-					// Is last link of tree strong or weak?
-					// May occur when we added strong loc C of C-D to AB and b---c is weak.
-					// May also occur on AB when one AB unit is strong and another AB unit is weak
-					TreeNode<DigitData> penultimate = end.getParent();
-					Unit penUnit = RowCol.firstUnitMatch( penultimate.data.rowCol, end.data.rowCol );
-					int penUnitCount = candidates.candidateUnitCount(penUnit,
-							RowCol.firstUnitMatchIndex(penultimate.data.rowCol, end.data.rowCol), digit);
-					if (2 == penUnitCount ) {
-						// Last link is strong
-						// Unit treeUnit = RowCol.firstUnitMatch( tree.data.rowCol, rowCol );
-						// Unit endUnit = RowCol.firstUnitMatch( end.data.rowCol, rowCol );
-						// tree.printTree();
-						// System.out.printf( "Color Trap digit %d at %s, can see %s %s and %s %s\n",
-						// 		digit, rowCol, treeUnit, tree, endUnit, end );
-						// Add enc data.
-						int[] enc = SimpleColors.encode(digit, 0,
-								tree.data.rowCol,
-								cData.rowCol,
-								tree.data.color, tree.data.rowCol,
-								end.data.color, end.data.rowCol );
-						// Manually search for same int[] enc
-						if ( NOT_FOUND == Utils.findFirst( seesTwo, enc) )
-							seesTwo.add(enc);
-					// } else {
-						// Last link is weak
-						//System.out.printf( "   Digit %d tree end at %s has weak %s link to %s\n",
-						// 		digit, end.data, penUnit, penultimate.data );
-					}
-				}
-			// } else {
-				// RowCol is in given tree. It should be "outside" the tree
-				// System.out.printf("Color Trap digit %d at %s should not be in tree starting at %s%n",
-				//		digit, rowCol, tree.data );
-			}
+		scratch.seesBoth.set(scratch.digitCells).removeAll(scratch.visited).retainSeenBy(first).retainSeenBy(last);
+		for (int celli = scratch.seesBoth.nextCell(0); celli >= 0; celli = scratch.seesBoth.nextCell(celli + 1)) {
+			// System.out.printf( "Color Trap digit %d at %s, can see %s and %s\n",
+			// 		digit, CellSet.rowCol(celli), CellSet.rowCol(first), CellSet.rowCol(last) );
+			RowCol firstLoc = CellSet.rowCol(first);
+			int[] enc = SimpleColors.encode(digit, 0, firstLoc, CellSet.rowCol(celli),
+					0, firstLoc, 1, CellSet.rowCol(last));
+			scratch.problemSeen.addUnique(problemLocs, enc);
 		}
-		return seesTwo;
+	}
+
+	public int getMaxLinks() {
+		return maxLinks;
 	}
 
 	// Encode tree as int[] taken from SimpleColors
@@ -2,18 +2,23 @@ package info.danbecker.ss.rules;
 
 import info.danbecker.ss.Board;
 import info.danbecker.ss.Candidates;
+import info.danbecker.ss.CellSet;
+import info.danbecker.ss.EncodingSet;
 import info.danbecker.ss.RowCol;
+import info.danbecker.ss.RuleArena;
+import info.danbecker.ss.SolveContext;
 import info.danbecker.ss.Utils;
 import info.danbecker.ss.tree.DigitsData;
 import info.danbecker.ss.tree.TreeNode;
+import info.danbecker.ss.sink.EventSink;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
+import static info.danbecker.ss.Board.NOT_FOUND;
 import static info.danbecker.ss.Board.ROWCOL;
 import static info.danbecker.ss.Candidates.*;
+import static info.danbecker.ss.Utils.DIGITS;
 import static info.danbecker.ss.Utils.Unit;
-import static info.danbecker.ss.Utils.addUniques;
 import static java.lang.String.format;
 
 /**
@@ -30,8 +35,65 @@ import static java.lang.String.format;
  * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
  */
 public class XYChain implements FindUpdateRule {
+	/**
+	 * TREE builds a pair tree from every bivalue start location and reports every chain found.
+	 * SHORTEST searches breadth first from every start location and end digit,
+	 * stops each search at the first (shortest) chain with eliminations,
+	 * and reports the shortest chain found for each elimination.
+	 */
+	public enum Mode { TREE, SHORTEST }
+	public static final int DEFAULT_NODE_BUDGET = 20000;
+
+	protected final Mode mode;
+	protected final int nodeBudget;
+
+	// A state is cell * DIGITS + (exit digit - 1), the digit that links to the next cell.
+	protected static final int STATES = CellSet.CELLS * DIGITS;
+
+	/** Breadth first search state of SHORTEST mode, sized once and reused from the RuleArena of the find. */
+	protected static class Scratch {
+		protected final int[] pairMask = new int[CellSet.CELLS]; // bit per ones-based digit, bivalue cells only
+		protected final CellSet[] pairCells = new CellSet[DIGITS + 1]; // bivalue cells by digit
+		protected final CellSet[] digitCells = new CellSet[DIGITS + 1]; // candidate cells by digit
+		// Chain nodes in breadth first order, the state of each and the node it was reached from.
+		// A node is one chain, so a state reached by several chains is followed along each of them.
+		protected int[] nodeStates = new int[STATES];
+		protected int[] nodeParents = new int[STATES];
+		protected final CellSet hops = new CellSet();
+		protected final CellSet path = new CellSet();
+		protected final CellSet seesBoth = new CellSet();
+
+		protected Scratch() {
+			for ( int digit = 0; digit <= DIGITS; digit++ ) {
+				pairCells[ digit ] = new CellSet();
+				digitCells[ digit ] = new CellSet();
+			}
+		}
+	}
+
+	public XYChain() {
+		this( Mode.TREE, DEFAULT_NODE_BUDGET );
+	}
+
+	public XYChain( Mode mode ) {
+		this( mode, DEFAULT_NODE_BUDGET );
+	}
+
+	/**
+	 * @param mode TREE or SHORTEST
+	 * @param nodeBudget SHORTEST mode stops searching after this many chain cells are expanded in one find
+	 */
+	public XYChain( Mode mode, int nodeBudget ) {
+		if ( null == mode )
+			throw new IllegalArgumentException( "mode=null" );
+		if ( nodeBudget < 1 )
+			throw new IllegalArgumentException( "nodeBudget=" + nodeBudget );
+		this.mode = mode;
+		this.nodeBudget = nodeBudget;
+	}
+
 	@Override
-	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs) {
+	public int update(Board board, Board solution, Candidates candidates, List<int[]> encs, EventSink sink) {
 		int updates = 0;
 		if ( null == encs) return updates;
 		for ( int enci = 0; enci < encs.size(); enci++ ) {
@@ -53,7 +115,7 @@ public class XYChain implements FindUpdateRule {
 				if ( null != solution ) {
 					int cellStatus = solution.get(sLoc);
 					if ( cellStatus == endDigit ) {
-						System.out.println( "Candidates=\n" + candidates.toStringBoxed() );
+						sink.printf( "Candidates=%n%s%n", candidates.toStringBoxed() );
 						throw new IllegalArgumentException( format("Rule %s would like to remove solution digit %d at loc %s.%nenc=%s%n",
 								ruleName(), cellStatus, sLoc, encodingToString( enc )));
 					}
@@ -62,9 +124,9 @@ public class XYChain implements FindUpdateRule {
 			    // String prev = candidates.getCandidatesStringCompact( sLoc );
 				if (candidates.removeCandidate(sLoc, endDigit)) {
 					updates++;
-					String cStr = candidates.getCompactStr(sLoc);
-					System.out.printf("%s removed digit %d from %s, remaining candidates %s%n",
-							ruleName(), endDigit, sLoc, cStr );
+					if ( sink.isText() )
+						sink.printf("%s removed digit %d from %s, remaining candidates %s%n",
+							ruleName(), endDigit, sLoc, candidates.getCompactStr(sLoc) );
 				}
 			}
 		}
@@ -86,13 +148,21 @@ public class XYChain implements FindUpdateRule {
 	public List<int[]> find(Board board, Candidates candidates) {
 		if (null == candidates)
 			return null;
-		List<int[]> encs = new ArrayList<>();
+		return find( board, candidates, new SolveContext( candidates ));
+	}
 
-		// Get sorted set of digit pairs
-		List<RowCol> allPairLocs = candidates.getGroupLocations( ALL_DIGITS, 2 );
+	@Override
+	public List<int[]> find(Board board, Candidates candidates, SolveContext context) {
+		if (null == candidates)
+			return null;
+		if (Mode.SHORTEST == mode)
+			return findShortest(candidates, RuleArena.of(context).scratch(Scratch.class, Scratch::new));
+		context = SolveContext.of( context, candidates );
+		List<int[]> encs = new ArrayList<>();
+		EncodingSet unique = new EncodingSet();
 
-		Map<List<Integer>, List<RowCol>> pairLocs = allPairLocs.stream()
-				.collect( Collectors.groupingBy(candidates::getCandidatesList, Collectors.toList()));
+		// Bivalue locations grouped by digit pair
+		Map<List<Integer>, List<RowCol>> pairLocs = context.pairLocs();
 		Map<Integer, List<RowCol>> digitLocs = digitLocs( pairLocs );
 
 		for ( List<Integer> pair : pairLocs.keySet()) {
@@ -108,7 +178,7 @@ public class XYChain implements FindUpdateRule {
 
 						DigitsData rData = new DigitsData(pair,startLoc,0 );
 						TreeNode<DigitsData> rNode = new TreeNode<>(rData, 3 );
-						addUniques( encs, buildPairTree(candidates, rNode, pDigit, eDigit ));
+						buildPairTree(candidates, rNode, pDigit, eDigit, encs, unique );
 					}
 				}
 			}
@@ -116,6 +186,170 @@ public class XYChain implements FindUpdateRule {
 		return encs;
 	}
 
+	/**
+	 * Strategy.
+	 * -For each bivalue start location and each of its digits as end digit,
+	 *    -breadth first, hop to bivalue cells that see the last cell and share its exit digit,
+	 *     never revisiting a cell of that chain. Other chains may pass the same cell.
+	 *    -stop at the first chain that exits with the end digit,
+	 *     and has outside end digit locations that see both ends.
+	 * -Stop all searches when the node budget is spent.
+	 * -Keep the shortest chain for each elimination.
+	 * @return a list of shortest chains, at least one per elimination found
+	 */
+	public List<int[]> findShortest(Board board, Candidates candidates) {
+		return findShortest(candidates, RuleArena.forThread().scratch(Scratch.class, Scratch::new));
+	}
+
+	protected List<int[]> findShortest(Candidates candidates, Scratch scratch) {
+		List<int[]> encs = new ArrayList<>();
+		scan( candidates, scratch );
+		int nodes = 0;
+		for ( int start = 0; start < CellSet.CELLS && nodes < nodeBudget; start++ ) {
+			for ( int endDigit = 1; 0 != scratch.pairMask[ start ] && endDigit <= DIGITS && nodes < nodeBudget; endDigit++ ) {
+				if ( 0 != ( scratch.pairMask[ start ] & (1 << endDigit)) && 1 < scratch.digitCells[ endDigit ].size() )
+					nodes += shortestChain( scratch, start, endDigit, nodeBudget - nodes, encs );
+			}
+		}
+		return shortestPerElimination( encs );
+	}
+
+	/** Sets the bivalue masks and the cell sets by digit of the scratch from these candidates. */
+	protected void scan( Candidates candidates, Scratch scratch ) {
+		for ( int digit = 1; digit <= DIGITS; digit++ ) {
+			scratch.pairCells[ digit ].clear();
+			scratch.digitCells[ digit ].clear();
+		}
+		for ( int celli = 0; celli < CellSet.CELLS; celli++ ) {
+			RowCol rowCol = CellSet.rowCol( celli );
+			int mask = 0;
+			for ( int digit = 1; digit <= DIGITS; digit++ ) {
+				if ( candidates.isCandidate( rowCol, digit )) {
+					scratch.digitCells[ digit ].add( celli );
+					mask |= 1 << digit;
+				}
+			}
+			scratch.pairMask[ celli ] = ( 2 == Integer.bitCount( mask )) ? mask : 0;
+			for ( int digit = 1; 0 != scratch.pairMask[ celli ] && digit <= DIGITS; digit++ ) {
+				if ( 0 != ( mask & (1 << digit)))
+					scratch.pairCells[ digit ].add( celli );
+			}
+		}
+	}
+
+	/**
+	 * Breadth first search from the start cell, which is not the end digit,
+	 * to the first cell which must then be the end digit.
+	 * @return number of chain cells expanded
+	 */
+	protected int shortestChain( Scratch scratch, int start, int endDigit, int budget, List<int[]> encs ) {
+		int head = 0;
+		int tail = addNode( scratch, 0, start * DIGITS + otherDigit( scratch, start, endDigit ) - 1, NOT_FOUND );
+		int expanded = 0;
+		while ( head < tail && expanded < budget ) {
+			int node = head++;
+			int state = scratch.nodeStates[ node ];
+			expanded++;
+			int cell = state / DIGITS;
+			int exitDigit = state % DIGITS + 1;
+			scratch.hops.set( scratch.pairCells[ exitDigit ] ).retainSeenBy( cell ).remove( cell );
+			for ( int hop = scratch.hops.nextCell( 0 ); hop >= 0; hop = scratch.hops.nextCell( hop + 1 )) {
+				if ( onPath( scratch, node, hop ))
+					continue;
+				int hopExit = otherDigit( scratch, hop, exitDigit );
+				int next = tail;
+				tail = addNode( scratch, tail, hop * DIGITS + hopExit - 1, node );
+				if ( hopExit == endDigit ) {
+					pathCells( scratch, next );
+					scratch.seesBoth.set( scratch.digitCells[ endDigit ] ).removeAll( scratch.path ).retainSeenBy( start ).retainSeenBy( hop );
+					if ( !scratch.seesBoth.isEmpty() ) {
+						int rDigit = otherDigit( scratch, start, endDigit );
+						encs.add( encode( Arrays.asList( Math.min( rDigit, endDigit ), Math.max( rDigit, endDigit )),
+								endDigit, statePath( scratch, next ), scratch.seesBoth.toList() ));
+						return expanded;
+					}
+				}
+			}
+		}
+		return expanded;
+	}
+
+	/** Returns the digit of this bivalue cell that is not the given digit. */
+	protected int otherDigit( Scratch scratch, int celli, int digit ) {
+		return Integer.numberOfTrailingZeros( scratch.pairMask[ celli ] & ~(1 << digit) );
+	}
+
+	/**
+	 * Adds a chain node at the tail, growing the node arrays when full.
+	 * @return the new tail
+	 */
+	protected int addNode( Scratch scratch, int tail, int state, int parent ) {
+		if ( tail == scratch.nodeStates.length ) {
+			scratch.nodeStates = Arrays.copyOf( scratch.nodeStates, 2 * tail );
+			scratch.nodeParents = Arrays.copyOf( scratch.nodeParents, 2 * tail );
+		}
+		scratch.nodeStates[ tail ] = state;
+		scratch.nodeParents[ tail ] = parent;
+		return tail + 1;
+	}
+
+	/** States whether the cell is on the chain that ends in this node. */
+	protected boolean onPath( Scratch scratch, int node, int celli ) {
+		for ( ; NOT_FOUND != node; node = scratch.nodeParents[ node ] ) {
+			if ( celli == scratch.nodeStates[ node ] / DIGITS )
+				return true;
+		}
+		return false;
+	}
+
+	/** Sets the scratch path to the cells of the chain that ends in this node. */
+	protected void pathCells( Scratch scratch, int node ) {
+		scratch.path.clear();
+		for ( ; NOT_FOUND != node; node = scratch.nodeParents[ node ] )
+			scratch.path.add( scratch.nodeStates[ node ] / DIGITS );
+	}
+
+	/** Returns the locations of the chain that ends in this node, from start to end. */
+	protected List<RowCol> statePath( Scratch scratch, int node ) {
+		List<RowCol> locs = new ArrayList<>();
+		for ( ; NOT_FOUND != node; node = scratch.nodeParents[ node ] )
+			locs.add( CellSet.rowCol( scratch.nodeStates[ node ] / DIGITS ));
+		Collections.reverse( locs );
+		return locs;
+	}
+
+	/**
+	 * Keeps the shortest chain for each elimination (digit, location).
+	 * Chains that only repeat eliminations of shorter chains are dropped.
+	 * Equal length chains keep search order.
+	 */
+	public static List<int[]> shortestPerElimination( List<int[]> encs ) {
+		List<int[]> sorted = new ArrayList<>( encs );
+		sorted.sort( Comparator.comparingInt( enc -> enc[ 3 ] ));
+		CellSet[] eliminated = new CellSet[ DIGITS + 1 ];
+		List<int[]> shortest = new ArrayList<>();
+		for ( int[] enc : sorted ) {
+			int endDigit = enc[ 2 ];
+			if ( null == eliminated[ endDigit ] )
+				eliminated[ endDigit ] = new CellSet();
+			boolean added = false;
+			for ( int i = 4 + enc[ 3 ] * 2; i < enc.length; i += 2 ) {
+				RowCol loc = ROWCOL[ enc[ i ]][ enc[ i + 1 ]];
+				if ( !eliminated[ endDigit ].contains( loc )) {
+					eliminated[ endDigit ].add( loc );
+					added = true;
+				}
+			}
+			if ( added )
+				shortest.add( enc );
+		}
+		return shortest;
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
 	/** Take map of pair locations and break into map of digit locations.
 	 * @param pairLocs a map containing digits to locations
 	 * @return a map containing digit to locations
@@ -146,6 +380,13 @@ public class XYChain implements FindUpdateRule {
      */
 	public List<int[]> buildPairTree(Candidates candidates, TreeNode<DigitsData> pNode, int pDigit, int eDigit  ) {
 		List<int[]> matched = new ArrayList<>();
+		buildPairTree( candidates, pNode, pDigit, eDigit, matched, new EncodingSet() );
+		return matched;
+	}
+
+	/** As buildPairTree, adding encodings not yet in unique to matched. */
+	protected void buildPairTree(Candidates candidates, TreeNode<DigitsData> pNode, int pDigit, int eDigit,
+			List<int[]> matched, EncodingSet unique ) {
 		DigitsData pData = pNode.data;
 		TreeNode<DigitsData> root = pNode.getRoot();
 
@@ -155,7 +396,7 @@ public class XYChain implements FindUpdateRule {
 			List<RowCol> hopLocs = candidates.candidateUnitGroupLocs( unit, pData.rowCol.unitIndex( unit ), pDigit, 2);
 			for ( int loci = 0; loci < hopLocs.size(); loci++ ) {
 				RowCol hopLoc = hopLocs.get( loci );
-				if ( null == root.findTreeNode( new DigitsData.RowColMatch( new DigitsData( null, hopLoc, -1 )))) {
+				if ( !root.contains( hopLoc )) {
 					// tree does not contain loc
 					List<Integer> cDigits = candidates.getCandidatesList( hopLoc );
 					// Ensure candidates contains parent digit or else how did we get here?
@@ -180,7 +421,7 @@ public class XYChain implements FindUpdateRule {
 							int smallerD = Math.min( rDigit, eDigit );
 							int largerD =Math.max( rDigit, eDigit );
 							List<RowCol> treePath = treePath( cNode );
-							Utils.addUnique( matched, encode( Arrays.asList( smallerD, largerD ), eDigit, treePath, outsideLocs ));
+							unique.addUnique( matched, encode( Arrays.asList( smallerD, largerD ), eDigit, treePath, outsideLocs ));
 						} else {
 							// Remove cNode from tree because it might be an outside node as the rest of the tree is built.
 							pNode.setChild( null, unit.ordinal());
@@ -190,13 +431,12 @@ public class XYChain implements FindUpdateRule {
 					} else {
 						// Else Recurse
 						int nextDigit = cDigits.get( 0 ) == pDigit ? cDigits.get( 1 ) : cDigits.get( 0 );
-						addUniques( matched, buildPairTree( candidates, cNode, nextDigit, eDigit ));
+						buildPairTree( candidates, cNode, nextDigit, eDigit, matched, unique );
 					}
 				// } else {	// tree contains loc
 				}
 			}
 		} // unit
-		return matched;
 	}
 
 	/**
@@ -222,7 +462,7 @@ public class XYChain implements FindUpdateRule {
 		List<RowCol> locs = new LinkedList<>();
 		List<RowCol> digitLocs = candidates.digitLocs( eDigit );
 		for ( RowCol digitLoc : digitLocs ) {
-			if ( null == rNode.findTreeNode( new DigitsData.RowColMatch( new DigitsData( null, digitLoc, -1 )))) {
+			if ( !rNode.contains( digitLoc )) {
 				// Location not in tree
 				if (!ep1.equals(digitLoc) && !ep2.equals(digitLoc)) {
 					// This loc is not an endpoint
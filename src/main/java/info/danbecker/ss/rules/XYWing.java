@@ -2,11 +2,11 @@ package info.danbecker.ss.rules;
 
 import info.danbecker.ss.Board;
 import info.danbecker.ss.Candidates;
+import info.danbecker.ss.CellSet;
 import info.danbecker.ss.RowCol;
+import info.danbecker.ss.sink.EventSink;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 
 import static info.danbecker.ss.Board.ROWCOL;
@@ -31,8 +31,13 @@ import static java.lang.String.format;
  * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
  */
 public class XYWing implements FindUpdateRule {
+	// Orthogonal search directions are row/col, row/box, col/box
+	protected static final Unit[][] SEARCHES = new Unit[][]{
+		new Unit[]{Unit.ROW, Unit.COL}, new Unit[]{Unit.ROW, Unit.BOX}, new Unit[]{Unit.COL, Unit.BOX},
+	};
+
 	@Override
-	public int update(Board board, Board solution, Candidates candidates, List<int[]> locations) {
+	public int update(Board board, Board solution, Candidates candidates, List<int[]> locations, EventSink sink) {
 		int updates = 0;
 		if ( null == locations) return updates;
 		if (locations.size() > 0) {
@@ -60,7 +65,7 @@ public class XYWing implements FindUpdateRule {
 					if ( null != solution ) {
 						int cellStatus = solution.get(loc);
 						if ( cellStatus == zDigit ) {
-							System.out.println( "Candidates=\n" + candidates.toStringBoxed() );
+							sink.printf( "Candidates=%n%s%n", candidates.toStringBoxed() );
 							throw new IllegalArgumentException( format("Rule %s would like to remove solution digit %d at loc %s.%nenc=%s%n",
 								ruleName(), zDigit, loc, encodingToString( enc )));
 						}
@@ -71,10 +76,11 @@ public class XYWing implements FindUpdateRule {
 					}
 				}
 			}
-			System.out.println( format( "%s removed digit %d from %d location%s %s",
+			if ( sink.isText() )
+				sink.printf( "%s removed digit %d from %d location%s %s%n",
 					ruleName(), zDigit, updates,
 					locs.length == 1 ? "" : "s", // pluralize location?
-					RowCol.toString( locs )));
+					RowCol.toString( locs ));
 		}
 		return updates;
 	}
@@ -84,69 +90,48 @@ public class XYWing implements FindUpdateRule {
 		if (null == candidates)
 			return null;
 		List<int[]> locs = new ArrayList<>();
-		List<RowCol> xyPairs = candidates.getGroupLocations( ALL_DIGITS, 2 );
-		for( int pairi = 0; pairi < xyPairs.size(); pairi++) {
-			RowCol xyLoc = xyPairs.get(pairi);
-			List<Integer> xyCandidates = candidates.getCandidatesList(xyLoc);
-			Collections.sort( xyCandidates );
-			if (2 != xyCandidates.size())
-				throw new IllegalArgumentException("xy location " + xyLoc + " should be size 2, but found %s " + xyCandidates);
-			int xDigit = xyCandidates.get(0);
-			int yDigit = xyCandidates.get(1);
-
-			// Orthogonal search directions are row/col, row/box, col/box
-			Unit[][] searches = new Unit[][]{
-					new Unit[]{Unit.ROW, Unit.COL}, new Unit[]{Unit.ROW, Unit.BOX}, new Unit[]{Unit.COL, Unit.BOX},
-			};
+		CellSet pivots = candidates.bivalueLocations( ALL_DIGITS, new CellSet() );
+		CellSet xzLocs = new CellSet();
+		CellSet yzLocs = new CellSet();
+		CellSet zLocs = new CellSet();
+		CellSet[] digitCells = digitCells( candidates );
+		for ( int xyi = pivots.nextCell( 0 ); xyi >= 0; xyi = pivots.nextCell( xyi + 1 )) {
+			RowCol xyLoc = CellSet.rowCol( xyi );
+			int xyMask = candidates.candidateMask( xyLoc );
+			int xDigit = Integer.numberOfTrailingZeros( xyMask ) + 1;
+			int yDigit = 32 - Integer.numberOfLeadingZeros( xyMask );
 
 			// Search for xz and yz pincers.
-			for (int searchi = 0; searchi < searches.length; searchi++) {
-				Unit firstUnit = searches[searchi][0];
-				int firstUniti = switch (firstUnit) {
-					case ROW -> xyLoc.row();
-					case COL -> xyLoc.col();
-					case BOX -> xyLoc.box();
-				};
-				List<RowCol> firstUnitFounds = candidates.candidateUnitGroupLocs(firstUnit, firstUniti, xDigit, 2);
-				for (int xfirstfoundi = 0; xfirstfoundi < firstUnitFounds.size(); xfirstfoundi++) {
-					RowCol xzLoc = firstUnitFounds.get(xfirstfoundi);
-					if (!xyLoc.equals(xzLoc)) {
-						int[] xz = candidates.getRemainingCandidates(xzLoc);
-						int zDigit = xz[0] == xDigit ? xz[1] : xz[0];
-						if (yDigit != zDigit) {
-							Unit secondUnit = searches[searchi][1];
-							int secondUniti = switch (secondUnit) {
-								case ROW -> xyLoc.row();
-								case COL -> xyLoc.col();
-								case BOX -> xyLoc.box();
-							};
-							// int[] yz = new int[]{yDigit, zDigit};
-							List<RowCol> secondUnitFounds = candidates.candidateUnitGroupLocs(secondUnit, secondUniti, zDigit, 2);
-							for (int ysecondfoundi = 0; ysecondfoundi < secondUnitFounds.size(); ysecondfoundi++) {
-								RowCol yzLoc = secondUnitFounds.get(ysecondfoundi);
-								if (!xyLoc.equals(yzLoc)) {
-									int[] yzFound = candidates.getRemainingCandidates(yzLoc);
-									if (2 == yzFound.length &&
-											((yzFound[0] == yDigit && yzFound[1] == zDigit) || (yzFound[1] == yDigit && yzFound[0] == zDigit)) ){
-										// Assure locs are not all in same row or col.
-										if  (!((xyLoc.row() == xzLoc.row() && xyLoc.row() == yzLoc.row()) ||
-											   (xyLoc.col() == xzLoc.col() && xyLoc.col() == yzLoc.col()))) {
-											List<RowCol> zLocs = findZLocs( candidates, zDigit, xyLoc, xzLoc, yzLoc );
-											if ( 0 < zLocs.size()) {
-												int[] xyz = new int[]{xDigit, yDigit, zDigit};
-												int[] enc = encodeLocation(xyz, xyLoc, xzLoc, yzLoc, zLocs);
-												System.out.println(format("%s found %s", ruleName(), encodingToString(enc)));
-												locs.add( enc );
-											}
-										}
-									} // candidates match
-								}  // found yz
-							} // xDigit != zDigit
-						} // second unit search
-					} // found xz
+			for (int searchi = 0; searchi < SEARCHES.length; searchi++) {
+				Unit firstUnit = SEARCHES[searchi][0];
+				Unit secondUnit = SEARCHES[searchi][1];
+				// Bivalue cells with x in the first unit of the pivot
+				candidates.bivalueLocations( xDigit, xzLocs ).retainUnit( firstUnit, xyLoc.unitIndex( firstUnit )).remove( xyi );
+				for ( int xzi = xzLocs.nextCell( 0 ); xzi >= 0; xzi = xzLocs.nextCell( xzi + 1 )) {
+					RowCol xzLoc = CellSet.rowCol( xzi );
+					int zMask = candidates.candidateMask( xzLoc ) & ~(1 << (xDigit - 1));
+					int zDigit = Integer.numberOfTrailingZeros( zMask ) + 1;
+					if (yDigit != zDigit) {
+						// Cells with exactly yz in the second unit of the pivot
+						candidates.maskLocations( (1 << (yDigit - 1)) | zMask, yzLocs ).retainUnit( secondUnit, xyLoc.unitIndex( secondUnit )).remove( xyi );
+						for ( int yzi = yzLocs.nextCell( 0 ); yzi >= 0; yzi = yzLocs.nextCell( yzi + 1 )) {
+							RowCol yzLoc = CellSet.rowCol( yzi );
+							// Assure locs are not all in same row or col.
+							if  (!((xyLoc.row() == xzLoc.row() && xyLoc.row() == yzLoc.row()) ||
+								   (xyLoc.col() == xzLoc.col() && xyLoc.col() == yzLoc.col()))) {
+								findZLocs( digitCells[ zDigit ], xyLoc, xzLoc, yzLoc, zLocs );
+								if ( !zLocs.isEmpty()) {
+									int[] xyz = new int[]{xDigit, yDigit, zDigit};
+									int[] enc = encodeLocation(xyz, xyLoc, xzLoc, yzLoc, zLocs.toList());
+									// System.out.println(format("%s found %s", ruleName(), encodingToString(enc)));
+									locs.add( enc );
+								}
+							}
+						} // found yz
+					} // yDigit != zDigit
 				} // xzLocs
 			} // unit searches
-		} // pairs
+		} // pivots
 		return locs;
 	}
 
@@ -154,15 +139,27 @@ public class XYWing implements FindUpdateRule {
 	 * @return list of Z locations that see xz and yz locations.
 	 */
 	public List<RowCol> findZLocs( Candidates candidates, int zDigit, RowCol xyLoc, RowCol xzLoc, RowCol yzLoc ) {
-		List<RowCol> rowCols = new LinkedList<>();
-		List<RowCol> candLocs = candidates.digitLocs(zDigit);
-		for (RowCol rowCol : candLocs) {
-			if ( !rowCol.equals(xyLoc) && !rowCol.equals(xzLoc) && !rowCol.equals(yzLoc)) {
-				if (0 < RowCol.getMatchingUnits(rowCol, xzLoc).size() && 0 < RowCol.getMatchingUnits(rowCol, yzLoc).size())
-					rowCols.add(rowCol);
-			}
+		return findZLocs( digitCells( candidates )[ zDigit ], xyLoc, xzLoc, yzLoc, new CellSet() ).toList();
+	}
+
+	/** Sets into the cells of zCells that see the pincers xz and yz, without the wing cells.
+	 * @return into
+	 */
+	protected CellSet findZLocs( CellSet zCells, RowCol xyLoc, RowCol xzLoc, RowCol yzLoc, CellSet into ) {
+		return into.set( zCells ).retainSeenBy( xzLoc ).retainSeenBy( yzLoc ).remove( xyLoc ).remove( xzLoc ).remove( yzLoc );
+	}
+
+	/** Returns the candidate cells of each one-based digit, in one pass over the cell masks. */
+	protected static CellSet[] digitCells( Candidates candidates ) {
+		CellSet[] digitCells = new CellSet[ DIGITS + 1 ];
+		for ( int digit = 1; digit <= DIGITS; digit++ )
+			digitCells[ digit ] = new CellSet();
+		for ( int celli = 0; celli < CellSet.CELLS; celli++ ) {
+			int mask = candidates.candidateMask( CellSet.rowCol( celli ));
+			for ( ; 0 != mask; mask &= mask - 1 )
+				digitCells[ Integer.numberOfTrailingZeros( mask ) + 1 ].add( celli );
 		}
-		return rowCols;
+		return digitCells;
 	}
 
 	/**
@@ -0,0 +1,141 @@
+package info.danbecker.ss.sink;
+
+import info.danbecker.ss.Findings;
+import info.danbecker.ss.rules.FindUpdateRule;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+
+/**
+ * BinarySink - writes the structured events as records, with no formatting.
+ * <p>
+ * Each record starts with a type byte.
+ * <ul>
+ * <li>RULE: rule id short, rule name UTF. Written the first time a rule id is used.
+ * <li>ENCODING: rule id short, length byte, the encoding ints.
+ * <li>STATUS: iteration int, rule index byte, entries byte, candidates short.
+ * </ul>
+ * Rule ids are the Findings rule ids, looked up once per rule instance. Free text is dropped.
+ * The stream is buffered and written out by flush.
+ * read turns a stream of records back into the lines a TextSink would write for them.
+ * <p>
+ * A sink belongs to one solve thread.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class BinarySink implements EventSink {
+	public static final byte RULE = 1;
+	public static final byte ENCODING = 2;
+	public static final byte STATUS = 3;
+
+	protected final DataOutputStream out;
+	protected final BitSet namedRules = new BitSet();
+	protected final Map<FindUpdateRule, Integer> ruleIds = new IdentityHashMap<>();
+
+	public BinarySink(OutputStream out) {
+		if (null == out) throw new IllegalArgumentException("out cannot be null");
+		this.out = new DataOutputStream(new BufferedOutputStream(out));
+	}
+
+	@Override
+	public void encoding(FindUpdateRule rule, int[] enc) {
+		Integer id = ruleIds.get(rule);
+		if (null == id) {
+			id = Findings.ruleId(rule.ruleName());
+			ruleIds.put(rule, id);
+		}
+		int ruleId = id;
+		try {
+			if (!namedRules.get(ruleId)) {
+				namedRules.set(ruleId);
+				out.writeByte(RULE);
+				out.writeShort(ruleId);
+				out.writeUTF(rule.ruleName());
+			}
+			out.writeByte(ENCODING);
+			out.writeShort(ruleId);
+			out.writeByte(enc.length);
+			for (int value : enc)
+				out.writeInt(value);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void status(int iteration, int rulei, int entries, int candidates) {
+		try {
+			out.writeByte(STATUS);
+			out.writeInt(iteration);
+			out.writeByte(rulei);
+			out.writeByte(entries);
+			out.writeShort(candidates);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void printf(String format, Object... args) {
+	}
+
+	@Override
+	public void flush() {
+		try {
+			out.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Reads records to the end of the stream and writes each to the text sink.
+	 * @param rules the rule for a rule name, to format its encodings, or null when unknown
+	 * @return records read
+	 */
+	public static int read(InputStream in, Function<String, FindUpdateRule> rules, EventSink text) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		Map<Integer, String> names = new HashMap<>();
+		int records = 0;
+		while (true) {
+			int type;
+			try {
+				type = data.readByte();
+			} catch (EOFException e) {
+				return records;
+			}
+			switch (type) {
+				case RULE -> names.put(data.readUnsignedShort(), data.readUTF());
+				case ENCODING -> {
+					String name = names.get(data.readUnsignedShort());
+					int[] enc = new int[data.readUnsignedByte()];
+					for (int enci = 0; enci < enc.length; enci++)
+						enc[enci] = data.readInt();
+					FindUpdateRule rule = null == name ? null : rules.apply(name);
+					if (null != rule)
+						text.encoding(rule, enc);
+					else
+						text.printf("%s enc=%s%n", name, Arrays.toString(enc));
+				}
+				case STATUS -> text.status(data.readInt(), data.readUnsignedByte(),
+					data.readUnsignedByte(), data.readUnsignedShort());
+				default -> throw new IOException(format("unknown record type %d after %d records", type, records));
+			}
+			records++;
+		}
+	}
+}
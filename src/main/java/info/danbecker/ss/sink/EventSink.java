@@ -0,0 +1,50 @@
+package info.danbecker.ss.sink;
+
+import info.danbecker.ss.rules.FindUpdateRule;
+
+/**
+ * EventSink - where a solve and its rule updates report what they do.
+ * <p>
+ * Events are passed as the values they describe, and a sink formats them
+ * only if it writes text. An applied encoding is passed with its rule,
+ * so encodingToString runs only in a text sink.
+ * Free text is a format and arguments, formatted only by a text sink.
+ * Callers check isText before building arguments that cost something themselves,
+ * such as a string of locations.
+ * <ul>
+ * <li>none drops every event, for quiet batch and service solves.
+ * <li>TextSink formats to an Appendable, such as System.out or a buffered writer.
+ * <li>BinarySink writes the encodings and status events as records, and drops free text.
+ * </ul>
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public interface EventSink {
+	/** True when this sink formats text, so callers may skip building arguments. */
+	default boolean isText() {
+		return false;
+	}
+
+	/** The rule update applied this encoding. */
+	void encoding(FindUpdateRule rule, int[] enc);
+
+	/** The solve loop is about to run a rule with these board entry and candidate counts. */
+	void status(int iteration, int rulei, int entries, int candidates);
+
+	/** Free text with String.format arguments. A line separator is not added. */
+	void printf(String format, Object... args);
+
+	/** Writes out anything buffered. */
+	default void flush() {
+	}
+
+	/** A sink that drops every event. */
+	static EventSink none() {
+		return NoOpSink.INSTANCE;
+	}
+
+	/** A text sink on System.out as it is when each event is written. */
+	static EventSink console() {
+		return TextSink.CONSOLE;
+	}
+}
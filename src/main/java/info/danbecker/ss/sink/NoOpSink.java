@@ -0,0 +1,27 @@
+package info.danbecker.ss.sink;
+
+import info.danbecker.ss.rules.FindUpdateRule;
+
+/**
+ * NoOpSink - drops every event, so a quiet solve pays for no formatting or output.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public final class NoOpSink implements EventSink {
+	public static final NoOpSink INSTANCE = new NoOpSink();
+
+	private NoOpSink() {
+	}
+
+	@Override
+	public void encoding(FindUpdateRule rule, int[] enc) {
+	}
+
+	@Override
+	public void status(int iteration, int rulei, int entries, int candidates) {
+	}
+
+	@Override
+	public void printf(String format, Object... args) {
+	}
+}
@@ -0,0 +1,75 @@
+package info.danbecker.ss.sink;
+
+import info.danbecker.ss.rules.FindUpdateRule;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static java.lang.String.format;
+
+/**
+ * TextSink - formats events as the lines the solver has always printed.
+ * <p>
+ * Output goes to the given Appendable, or to System.out as it is at each event
+ * when none is given. A BufferedWriter or StringBuilder makes a buffered sink,
+ * written out by flush. IOExceptions are rethrown as UncheckedIOException.
+ * <p>
+ * Events are appended one at a time without locking, so a sink
+ * with an unsynchronized Appendable belongs to one solve thread.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class TextSink implements EventSink {
+	static final TextSink CONSOLE = new TextSink(null);
+	protected static final String NEWLINE = System.lineSeparator();
+
+	protected final Appendable out;
+
+	/** @param out where text goes, or null for System.out */
+	public TextSink(Appendable out) {
+		this.out = out;
+	}
+
+	protected Appendable out() {
+		return null == out ? System.out : out;
+	}
+
+	@Override
+	public boolean isText() {
+		return true;
+	}
+
+	@Override
+	public void encoding(FindUpdateRule rule, int[] enc) {
+		append(rule.ruleName() + " " + rule.encodingToString(enc) + NEWLINE);
+	}
+
+	@Override
+	public void status(int iteration, int rulei, int entries, int candidates) {
+		append(format("i%d.%d Board entries=%d, candidates=%d%n", iteration, rulei, entries, candidates));
+	}
+
+	@Override
+	public void printf(String format, Object... args) {
+		append(format(format, args));
+	}
+
+	protected void append(String text) {
+		try {
+			out().append(text);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void flush() {
+		try {
+			if (out() instanceof Flushable flushable)
+				flushable.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -13,7 +13,7 @@ import java.util.List;
  * <p>
  * TODO - make immutable or record class
  */
-public class DigitData implements Comparable<DigitData>, Cloneable {
+public class DigitData implements Comparable<DigitData>, Cloneable, Locatable {
 	public int digit; // ones-based digit
 	public RowCol rowCol;
 	public int color; // -1 for no color, 0,1,... for other colors
@@ -24,6 +24,16 @@ public class DigitData implements Comparable<DigitData>, Cloneable {
 		this.color = color;		
 	}
 
+	@Override
+	public RowCol rowCol() {
+		return rowCol;
+	}
+
+	@Override
+	public int color() {
+		return color;
+	}
+
 	@Override
 	public Object clone() {
 		try {
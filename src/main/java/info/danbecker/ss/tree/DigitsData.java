@@ -16,7 +16,7 @@ import java.util.List;
  * <p>
  * TODO - make immutable or record class
  */
-public class DigitsData implements Comparable<DigitsData>, Cloneable {
+public class DigitsData implements Comparable<DigitsData>, Cloneable, Locatable {
     public List<Integer> digits; // ones based
 	public RowCol rowCol;
 	public int color; // -1 for no color, 0,1,... for other colors
@@ -27,6 +27,16 @@ public class DigitsData implements Comparable<DigitsData>, Cloneable {
 		this.color = color;
 	}
 
+	@Override
+	public RowCol rowCol() {
+		return rowCol;
+	}
+
+	@Override
+	public int color() {
+		return color;
+	}
+
 	@Override
 	public Object clone() {
 		return new DigitsData( new LinkedList<>(this.digits), this.rowCol, this.color);
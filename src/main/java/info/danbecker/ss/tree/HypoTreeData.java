@@ -68,10 +68,9 @@ public class HypoTreeData implements Comparable<HypoTreeData>, Cloneable {
 		if ( this.rowCol.col() < that.rowCol.col()) return -1;
 		if ( this.rowCol.col() > that.rowCol.col()) return 1;
 
-		// Comparing by size might actually cause similars to be equal
-		// Might want to fully compare items.
-		if ( this.candidates.getAllCount() < that.candidates.getAllCount()) return -1;
-		if ( this.candidates.getAllCount() > that.candidates.getAllCount()) return 1;
+		// Candidates states differ when their hashes differ, without a scan of the cells.
+		int stateCompare = Long.compare( this.candidates.stateHash(), that.candidates.stateHash());
+		if ( 0 != stateCompare ) return stateCompare;
 
 		if ( this.actions.size() < that.actions.size()) return -1;
 		if ( this.actions.size() > that.actions.size()) return 1;
@@ -0,0 +1,21 @@
+package info.danbecker.ss.tree;
+
+import info.danbecker.ss.RowCol;
+
+/**
+ * Locatable
+ * Tree data that lives at a board location and has an optional color.
+ * TreeNode keeps a root level TreeIndex of Locatable data
+ * so that cell, unit, and color lookups do not walk the tree.
+ * <p>
+ * The location and color are read when the node is added to the tree,
+ * so they should not change while the node is in the tree.
+ */
+public interface Locatable {
+	RowCol rowCol();
+
+	/** @return -1 for no color, 0,1,... for other colors */
+	default int color() {
+		return -1;
+	}
+}
@@ -0,0 +1,311 @@
+package info.danbecker.ss.tree;
+
+import info.danbecker.ss.Findings;
+
+import static java.lang.String.format;
+
+/**
+ * TranspositionTable - a bounded cache of hypothesis outcomes keyed by a state hash.
+ * <p>
+ * A hypothesis search reaches the same Candidates state through different
+ * orders of moves. Storing the outcome by Candidates.stateHash lets the search
+ * skip a state it has already propagated: a contradiction, a solution,
+ * or the eliminations propagation found.
+ * <p>
+ * The table is split into lock stripes chosen by the high hash bits, so threads
+ * searching different states rarely wait on each other. Each stripe is a linear
+ * probing table with a share of the memory cap, about half for its slot arrays
+ * and the rest for eliminations. When a stripe is full, a clock
+ * hand sweeps its slots, giving recently used entries a second chance and
+ * evicting the first entry that has not been used since the last sweep.
+ * <p>
+ * Keys are 64 bit hashes, and two different states with the same hash are
+ * treated as the same. With Zobrist keys this is vanishingly rare.
+ *
+ * @author <a href="mailto://dan@danbecker.info>Dan Becker</a>
+ */
+public class TranspositionTable {
+	/** What propagating a state showed. */
+	public enum Outcome { CONTRADICTION, SOLVED, PROPAGATED }
+
+	/** Default memory cap in bytes. */
+	public static final long DEFAULT_MAX_BYTES = 16L << 20;
+	/** Default number of lock stripes. */
+	public static final int DEFAULT_STRIPES = 16;
+
+	// Estimated bytes of a slot: key, outcome, flags, and the eliminations reference.
+	protected static final int SLOT_BYTES = 8 + 1 + 1 + 1 + 8;
+	// Smallest stripe, four slots plus room for their records.
+	protected static final int MIN_STRIPE_BYTES = 8 * SLOT_BYTES;
+	// Estimated bytes of an eliminations array beyond its records.
+	protected static final int ARRAY_BYTES = 16;
+	private static final Outcome[] OUTCOMES = Outcome.values();
+	private static final long[] NO_RECORDS = new long[0];
+
+	private final Stripe[] stripes;
+	private final int stripeShift;
+	private final long maxBytes;
+
+	public TranspositionTable() {
+		this(DEFAULT_MAX_BYTES, DEFAULT_STRIPES);
+	}
+
+	public TranspositionTable(long maxBytes) {
+		this(maxBytes, DEFAULT_STRIPES);
+	}
+
+	/**
+	 * @param maxBytes memory cap of the whole table, estimated from slot and record sizes
+	 * @param stripeCount number of locks, rounded up to a power of two
+	 */
+	public TranspositionTable(long maxBytes, int stripeCount) {
+		if (stripeCount < 1)
+			throw new IllegalArgumentException(format("stripe count %d must be positive", stripeCount));
+		int count = Integer.highestOneBit(stripeCount);
+		if (count < stripeCount) count <<= 1;
+		long stripeBytes = maxBytes / count;
+		if (stripeBytes < MIN_STRIPE_BYTES)
+			throw new IllegalArgumentException(format("max bytes %d too small for %d stripes", maxBytes, count));
+		this.maxBytes = maxBytes;
+		this.stripes = new Stripe[count];
+		for (int stripei = 0; stripei < count; stripei++)
+			stripes[stripei] = new Stripe(stripeBytes);
+		this.stripeShift = 64 - Integer.numberOfTrailingZeros(count);
+	}
+
+	/**
+	 * Looks up the state.
+	 * On a hit, the stored eliminations are added to into, when into is given.
+	 * @return the stored outcome, or null if the state is not in the table
+	 */
+	public Outcome probe(long hash, Findings into) {
+		return stripe(hash).probe(hash, into);
+	}
+
+	/** Returns whether the state is in the table, without marking it used. */
+	public boolean contains(long hash) {
+		return stripe(hash).contains(hash);
+	}
+
+	/**
+	 * Stores the outcome of the state, replacing any earlier one.
+	 * Eliminations may be null, and are copied.
+	 * Entries are evicted to stay under the memory cap.
+	 * @return false if the eliminations alone are larger than a stripe allows
+	 */
+	public boolean put(long hash, Outcome outcome, Findings eliminations) {
+		if (null == outcome) throw new IllegalArgumentException("outcome cannot be null");
+		long[] records = (null == eliminations || eliminations.isEmpty()) ? NO_RECORDS : eliminations.toArray();
+		return stripe(hash).put(hash, outcome, records);
+	}
+
+	public int size() {
+		int size = 0;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				size += stripe.size;
+			}
+		}
+		return size;
+	}
+
+	/** Estimated bytes held by the slot arrays and the stored eliminations. */
+	public long bytes() {
+		long bytes = 0;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				bytes += stripe.slotBytes + stripe.recordBytes;
+			}
+		}
+		return bytes;
+	}
+
+	public long maxBytes() {
+		return maxBytes;
+	}
+
+	public long hits() {
+		long hits = 0;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				hits += stripe.hits;
+			}
+		}
+		return hits;
+	}
+
+	public long misses() {
+		long misses = 0;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				misses += stripe.misses;
+			}
+		}
+		return misses;
+	}
+
+	public long evictions() {
+		long evictions = 0;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				evictions += stripe.evictions;
+			}
+		}
+		return evictions;
+	}
+
+	public void clear() {
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				stripe.clear();
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return format("TranspositionTable size=%d, bytes=%d/%d, hits=%d, misses=%d, evictions=%d",
+			size(), bytes(), maxBytes, hits(), misses(), evictions());
+	}
+
+	private Stripe stripe(long hash) {
+		return stripes[1 == stripes.length ? 0 : (int) (hash >>> stripeShift)];
+	}
+
+	/** One lock stripe. All access is synchronized on the stripe. */
+	private static final class Stripe {
+		private final long slotBytes;
+		private final long maxRecordBytes;
+		private final long[] keys;
+		private final byte[] outcomes;
+		private final long[][] eliminations;
+		private final boolean[] used;
+		private final boolean[] referenced;
+		private final int mask;
+		private final int maxSize;
+		private int size;
+		private long recordBytes;
+		private int hand;
+		private long hits;
+		private long misses;
+		private long evictions;
+
+		Stripe(long maxBytes) {
+			// Slot arrays take at most half the cap, slots are kept at most half full.
+			long slots = maxBytes / (2 * SLOT_BYTES);
+			int capacity = Integer.highestOneBit((int) Math.min(1 << 30, slots));
+			slotBytes = (long) capacity * SLOT_BYTES;
+			maxRecordBytes = maxBytes - slotBytes;
+			keys = new long[capacity];
+			outcomes = new byte[capacity];
+			eliminations = new long[capacity][];
+			used = new boolean[capacity];
+			referenced = new boolean[capacity];
+			mask = capacity - 1;
+			maxSize = capacity / 2;
+		}
+
+		synchronized Outcome probe(long hash, Findings into) {
+			int sloti = find(hash);
+			if (sloti < 0) {
+				misses++;
+				return null;
+			}
+			hits++;
+			referenced[sloti] = true;
+			if (null != into && 0 < eliminations[sloti].length)
+				into.addAll(eliminations[sloti]);
+			return OUTCOMES[outcomes[sloti]];
+		}
+
+		synchronized boolean contains(long hash) {
+			return 0 <= find(hash);
+		}
+
+		synchronized boolean put(long hash, Outcome outcome, long[] records) {
+			long entryBytes = recordBytes(records);
+			if (entryBytes > maxRecordBytes)
+				return false;
+			int sloti = find(hash);
+			if (0 <= sloti)
+				delete(sloti);
+			while (size + 1 > maxSize || recordBytes + entryBytes > maxRecordBytes)
+				evict();
+			sloti = home(hash);
+			while (used[sloti])
+				sloti = (sloti + 1) & mask;
+			keys[sloti] = hash;
+			outcomes[sloti] = (byte) outcome.ordinal();
+			eliminations[sloti] = records;
+			used[sloti] = true;
+			referenced[sloti] = false;
+			size++;
+			recordBytes += entryBytes;
+			return true;
+		}
+
+		void clear() {
+			for (int sloti = 0; sloti <= mask; sloti++) {
+				used[sloti] = false;
+				eliminations[sloti] = null;
+			}
+			size = 0;
+			recordBytes = 0;
+			hand = 0;
+		}
+
+		private int home(long hash) {
+			return (int) (hash ^ (hash >>> 29)) & mask;
+		}
+
+		private int find(long hash) {
+			for (int sloti = home(hash); used[sloti]; sloti = (sloti + 1) & mask) {
+				if (keys[sloti] == hash)
+					return sloti;
+			}
+			return -1;
+		}
+
+		/** Advances the clock hand to the first entry not used since the last pass, and evicts it. */
+		private void evict() {
+			while (true) {
+				int sloti = hand;
+				hand = (hand + 1) & mask;
+				if (used[sloti]) {
+					if (referenced[sloti]) {
+						referenced[sloti] = false;
+					} else {
+						delete(sloti);
+						evictions++;
+						return;
+					}
+				}
+			}
+		}
+
+		/** Removes the slot, shifting later entries of its probe run back so lookups still find them. */
+		private void delete(int sloti) {
+			recordBytes -= recordBytes(eliminations[sloti]);
+			size--;
+			int gap = sloti;
+			for (int nexti = (gap + 1) & mask; used[nexti]; nexti = (nexti + 1) & mask) {
+				int homei = home(keys[nexti]);
+				// Move the entry back when its home is not in the cyclic range (gap, nexti].
+				if (((nexti - homei) & mask) >= ((nexti - gap) & mask)) {
+					keys[gap] = keys[nexti];
+					outcomes[gap] = outcomes[nexti];
+					eliminations[gap] = eliminations[nexti];
+					referenced[gap] = referenced[nexti];
+					gap = nexti;
+				}
+			}
+			used[gap] = false;
+			eliminations[gap] = null;
+			referenced[gap] = false;
+		}
+
+		private static long recordBytes(long[] records) {
+			return 0 == records.length ? 0 : ARRAY_BYTES + 8L * records.length;
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package info.danbecker.ss.tree;
+
+import info.danbecker.ss.CellSet;
+import info.danbecker.ss.RowCol;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static info.danbecker.ss.CellSet.CELLS;
+
+/**
+ * TreeIndex
+ * A root level index of the Locatable nodes of a tree.
+ * <p>
+ * Keeps an 81 cell membership set, the node at each cell,
+ * and a cell set per color. Unit lookups are the membership set
+ * masked by the static unit masks of CellSet.
+ * TreeNode maintains the index in addChild and setChild,
+ * including removal of a subtree replaced by setChild.
+ * <p>
+ * Lists are returned in insertion order which is the tree preorder
+ * for trees built depth first (as the color and chain rules do).
+ * <p>
+ * A tree may hold the same location more than once.
+ * While that is the case the index reports itself as not exact
+ * and TreeNode falls back to tree traversal.
+ */
+public class TreeIndex<T> {
+	private final CellSet cells = new CellSet();
+	private final List<CellSet> colorCells = new ArrayList<>(); // index is color + 1
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private final TreeNode<T>[] nodes = (TreeNode<T>[]) new TreeNode[CELLS];
+	private final int[] order = new int[CELLS];
+	private final int[] counts = new int[CELLS];
+	private int duplicates = 0;
+	private int added = 0;
+
+	/** Builds the index from the given root and assigns it to every node. */
+	public static <T> TreeIndex<T> build(TreeNode<T> root) {
+		TreeIndex<T> index = new TreeIndex<>();
+		for (TreeNode<T> node : root) {
+			node.index = index;
+			index.add(node);
+		}
+		return index;
+	}
+
+	/** Registers the node if it has Locatable data. */
+	public void add(TreeNode<T> node) {
+		if (!(node.data instanceof Locatable loc))
+			return;
+		int celli = CellSet.index(loc.rowCol());
+		if (0 < counts[celli]++) {
+			duplicates++;
+			return;
+		}
+		cells.add(celli);
+		colorCells(loc.color()).add(celli);
+		nodes[celli] = node;
+		order[celli] = added++;
+	}
+
+	/** Unregisters the node if it has Locatable data. */
+	public void remove(TreeNode<T> node) {
+		if (!(node.data instanceof Locatable loc))
+			return;
+		int celli = CellSet.index(loc.rowCol());
+		if (0 == counts[celli])
+			return;
+		if (0 < --counts[celli]) {
+			duplicates--;
+			if (nodes[celli] == node) {
+				// Promote another node at this location.
+				TreeNode<T> other = findOther(node, loc.rowCol());
+				colorCells(loc.color()).remove(celli);
+				nodes[celli] = other;
+				order[celli] = added++;
+				if (null != other)
+					colorCells(((Locatable) other.data).color()).add(celli);
+			}
+			return;
+		}
+		cells.remove(celli);
+		colorCells(loc.color()).remove(celli);
+		nodes[celli] = null;
+	}
+
+	/** Unregisters the node and all its descendants, and detaches them from this index. */
+	public void removeSubtree(TreeNode<T> subRoot) {
+		for (TreeNode<T> node : subRoot)
+			node.index = null;
+		for (TreeNode<T> node : subRoot)
+			remove(node);
+	}
+
+	/** An exact index has one node per location. */
+	public boolean isExact() {
+		return 0 == duplicates;
+	}
+
+	public boolean contains(RowCol rowCol) {
+		return cells.contains(rowCol);
+	}
+
+	/** Returns the node at this location or null. */
+	public TreeNode<T> get(RowCol rowCol) {
+		return nodes[CellSet.index(rowCol)];
+	}
+
+	/** Returns the cells of the tree. Do not modify. */
+	public CellSet cells() {
+		return cells;
+	}
+
+	/** Returns the cells of the tree with this color. Do not modify. */
+	public CellSet cells(int color) {
+		return colorCells(color);
+	}
+
+	/** States whether a tree node of this color shares a unit with the given location. */
+	public boolean seesColor(RowCol rowCol, int color) {
+		return colorCells(color).intersectsSeenBy(rowCol);
+	}
+
+	/** Returns tree nodes that share a unit with the given location, in insertion order. */
+	public List<TreeNode<T>> seenNodes(RowCol rowCol) {
+		CellSet seen = new CellSet(cells).retainSeenBy(rowCol);
+		List<TreeNode<T>> list = new ArrayList<>(seen.size());
+		for (int celli = seen.nextCell(0); celli >= 0; celli = seen.nextCell(celli + 1))
+			list.add(nodes[celli]);
+		if (1 < list.size())
+			list.sort((n1, n2) -> Integer.compare(order[index(n1)], order[index(n2)]));
+		return list;
+	}
+
+	private static int index(TreeNode<?> node) {
+		return CellSet.index(((Locatable) node.data).rowCol());
+	}
+
+	private CellSet colorCells(int color) {
+		int colori = Math.max(0, color + 1);
+		while (colorCells.size() <= colori)
+			colorCells.add(new CellSet());
+		return colorCells.get(colori);
+	}
+
+	private TreeNode<T> findOther(TreeNode<T> removed, RowCol rowCol) {
+		TreeNode<T> root = removed.getRoot();
+		for (TreeNode<T> node : root) {
+			if (node != removed && node.index == this
+					&& node.data instanceof Locatable loc && rowCol.equals(loc.rowCol()))
+				return node;
+		}
+		return null;
+	}
+}
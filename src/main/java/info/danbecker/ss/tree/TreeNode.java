@@ -24,12 +24,19 @@ import static info.danbecker.ss.Candidates.NAKED;
  * <p>
  * Original implementation had an index on every node for search, but
  * this implementation removes that and has tree traversal.
+ * <p>
+ * Trees with Locatable data also keep one TreeIndex at the root,
+ * shared by all nodes, so that the RowCol lookups
+ * (findTreeNode(RowCol), findSeenTreeNodes, seesColor) are bit tests
+ * rather than tree walks. The index is built on first use and
+ * maintained by addChild and setChild.
  */
 public class TreeNode<T> implements Iterable<TreeNode<T>>, Cloneable {
 	public T data;
 	public int nAry;
 	public TreeNode<T> parent;
 	public List<TreeNode<T>> children; // used for general tree
+	protected TreeIndex<T> index; // shared by all nodes of a tree with Locatable data, null until first use
 	// Do not use TreeNode<T> as Java does not allow. See getIndex for typing.
 	// public Object [] nChildren; // used for nAry tee, length is nAry.
 
@@ -226,9 +233,7 @@ public class TreeNode<T> implements Iterable<TreeNode<T>>, Cloneable {
 		if ( nAry > 0 && 0 == children.size()) {
 			for ( int childi = 0; childi < nAry; childi++ ) {
 				TreeNode<T> childNode = new TreeNode<>(null, nAry);
-				childNode.parent = this;
-				children.add(childi, childNode);
-				// this.registerChildForSearch(childNode);
+				children.add(childi, attach(childNode));
 			}
 		}
 
@@ -257,9 +262,7 @@ public class TreeNode<T> implements Iterable<TreeNode<T>>, Cloneable {
 		if ( nAry > 0 && 0 == children.size()) {
 			for ( int childi = 0; childi < nAry; childi++ ) {
 				TreeNode<T> childNode = new TreeNode<>(null, nAry);
-				childNode.parent = this;
-				children.add(childi, childNode);
-				// this.registerChildForSearch(childNode);
+				children.add(childi, attach(childNode));
 			}
 		}
 
@@ -270,8 +273,7 @@ public class TreeNode<T> implements Iterable<TreeNode<T>>, Cloneable {
 	public TreeNode<T> addChild(T childData) {
 		if (nAry > 0) 
 			throw new IllegalArgumentException( "Use setChild for n-Ary tree");
-		TreeNode<T> childNode = new TreeNode<>(childData);
-		childNode.parent = this;
+		TreeNode<T> childNode = attach(new TreeNode<>(childData));
 		this.children.add(childNode);
 		return childNode;
 	}
@@ -286,18 +288,17 @@ public class TreeNode<T> implements Iterable<TreeNode<T>>, Cloneable {
 		if ( nAry > 0 && 0 == children.size()) {
 			for ( int childi = 0; childi < nAry; childi++ ) {
 				TreeNode<T> childNode = new TreeNode<>(null, nAry);
-				childNode.parent = this;
-				children.add(childi, childNode);
-				// this.registerChildForSearch(childNode);
+				children.add(childi, attach(childNode));
 			}
 		}
 		// Remove previous node from tree (set parent null)
 		TreeNode<T> prevChildNode = children.get( i );
+		if ( null != index )
+			index.removeSubtree( prevChildNode );
 		prevChildNode.parent = null;
 
 		// Add childNode to children
-		TreeNode<T> childNode = new TreeNode<>(childData, nAry);
-		childNode.parent = this;
+		TreeNode<T> childNode = attach(new TreeNode<>(childData, nAry));
 		if ( !children.contains(childNode) ) {
 			children.set(i, childNode);
 		}
@@ -350,6 +351,101 @@ public class TreeNode<T> implements Iterable<TreeNode<T>>, Cloneable {
 		return list;
 	}
 
+	/** Sets this node as parent of the child, and shares and updates the tree index. */
+	protected TreeNode<T> attach( TreeNode<T> childNode ) {
+		childNode.parent = this;
+		childNode.index = index;
+		if ( null != index )
+			index.add( childNode );
+		return childNode;
+	}
+
+	/** Returns the index for the tree of this node, building it on first use.
+	 * @return the tree index or null if the root data is not Locatable
+	 */
+	public TreeIndex<T> getIndex() {
+		if ( null != index )
+			return index;
+		TreeNode<T> root = getRoot();
+		if ( root.data instanceof Locatable )
+			index = TreeIndex.build( root );
+		return index;
+	}
+
+	/** Returns an exact index when this node is the root, else null for tree traversal. */
+	protected TreeIndex<T> rootIndex() {
+		if ( !isRoot() )
+			return null;
+		TreeIndex<T> rootIndex = getIndex();
+		return ( null != rootIndex && rootIndex.isExact() ) ? rootIndex : null;
+	}
+
+	/** This searches the given node and below,
+	 * and returns the FIRST node with Locatable data at this location.
+	 * Same result as findTreeNode(RowColMatch), but O(1) from the root.
+	 * @param rowCol location to find
+	 * @return matching node or null
+	 */
+	public TreeNode<T> findTreeNode(RowCol rowCol) {
+		TreeIndex<T> rootIndex = rootIndex();
+		if ( null != rootIndex )
+			return rootIndex.get( rowCol );
+
+		if ( data instanceof Locatable loc && rowCol.equals( loc.rowCol() ))
+			return this;
+		for ( int i = 0; i < children.size(); i++) {
+			TreeNode<T> child = children.get(i);
+			if ( null != child ) {
+				TreeNode<T> found = child.findTreeNode(rowCol);
+				if ( null != found)
+					return found;
+			}
+		}
+		return null;
+	}
+
+	/** States whether the given node and below has Locatable data at this location. */
+	public boolean contains(RowCol rowCol) {
+		return null != findTreeNode( rowCol );
+	}
+
+	/** This searches the given node and below,
+	 * and returns a list of ALL nodes that share a row, col, or box with this location.
+	 * Same result as findTreeNodes(AnyUnitMatch), but uses the root index from the root.
+	 * @param rowCol location that sees the nodes
+	 * @return list of nodes in preorder
+	 */
+	public List<TreeNode<T>> findSeenTreeNodes(RowCol rowCol) {
+		TreeIndex<T> rootIndex = rootIndex();
+		if ( null != rootIndex )
+			return rootIndex.seenNodes( rowCol );
+		List<TreeNode<T>> list = new LinkedList<>();
+		findSeenTreeNodes( rowCol, list );
+		return list;
+	}
+
+	protected void findSeenTreeNodes(RowCol rowCol, List<TreeNode<T>> list) {
+		if ( data instanceof Locatable loc && null != RowCol.firstUnitMatch( rowCol, loc.rowCol() ))
+			list.add( this );
+		for ( int childi = 0; childi < children.size(); childi++ ) {
+			TreeNode<T> child = this.getChild(childi);
+			if ( null != child && null != child.data )
+				child.findSeenTreeNodes( rowCol, list );
+		}
+	}
+
+	/** States whether a node of this color shares a row, col, or box with this location. */
+	public boolean seesColor(RowCol rowCol, int color) {
+		TreeIndex<T> rootIndex = rootIndex();
+		if ( null != rootIndex )
+			return rootIndex.seesColor( rowCol, color );
+		for ( TreeNode<T> node : findSeenTreeNodes( rowCol )) {
+			if ( ((Locatable) node.data).color() == color )
+				return true;
+		}
+		return false;
+	}
+
 	/**
 	 * Report a unique set of path ids from root to here
 	 * @return
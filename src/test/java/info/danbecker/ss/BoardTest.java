@@ -231,4 +231,31 @@ public class BoardTest {
 		assertFalse( complete.legal() );
 	}
 
+	@Test
+	public void testStateHash() throws ParseException {
+		Board board1 = new Board( BOARD1 );
+		Board board2 = new Board( BOARD2 );
+		assertEquals( board1.stateHash(), new Board( BOARD1 ).stateHash() );
+		assertEquals( board1, new Board( BOARD1 ));
+		assertEquals( board1.hashCode(), new Board( BOARD1 ).hashCode() );
+		assertNotEquals( board1.stateHash(), board2.stateHash() );
+		assertNotEquals( board1, board2 );
+
+		// Incremental updates match a fresh parse.
+		board2.set( ROWCOL[0][3], 1 );
+		assertEquals( board1.stateHash(), board2.stateHash() );
+		assertEquals( board1, board2 );
+		long hash = board1.stateHash();
+		board1.set( ROWCOL[0][0], 5 );
+		assertNotEquals( hash, board1.stateHash() );
+		board1.set( ROWCOL[0][0], 0 );
+		assertEquals( hash, board1.stateHash() );
+
+		// Rotations recompute the hash.
+		Board rotated = Board.rotateRight( Board.rotateRight( Board.rotateRight( Board.rotateRight( board1 ))));
+		assertEquals( hash, rotated.stateHash() );
+		assertEquals( board1, rotated );
+		assertEquals( Board.rotateLeft( board1 ).stateHash(), Board.rotateRight( Board.rotateRight( Board.rotateRight( board1 ))).stateHash() );
+	}
+
 }
\ No newline at end of file
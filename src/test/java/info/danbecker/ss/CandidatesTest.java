@@ -559,4 +559,71 @@ public class CandidatesTest {
 		assertEquals("{126}", cand.getCompactStr( ROWCOL[4][6]));
 		assertEquals("{267}", cand.getCompactStr( ROWCOL[7][1]));
 	}
+
+	@Test
+	public void testMaskIndex() throws ParseException {
+		Candidates cand = new Candidates( CANDSPACES );
+		assertEquals( 0b10010, cand.candidateMask( ROWCOL[0][1] )); // {25}
+		assertEquals( 0, cand.candidateMask( ROWCOL[0][0] )); // occupied
+		int mask46 = ( 1 << 3 ) | ( 1 << 5 );
+		assertEquals( Arrays.asList( ROWCOL[3][5], ROWCOL[4][5] ), cand.maskLocations( mask46 ).toList());
+		assertEquals( Arrays.asList( ROWCOL[1][6], ROWCOL[1][8], ROWCOL[6][7], ROWCOL[6][8] ),
+			cand.maskLocations( 0b1100001 ).toList());
+		assertEquals( Arrays.asList( ROWCOL[0][7], ROWCOL[3][5], ROWCOL[4][5], ROWCOL[6][2], ROWCOL[7][3] ),
+			cand.bivalueLocations( 4, new CellSet() ).toList());
+		assertEquals( cand.getGroupLocations( ALL_DIGITS, 2 ), cand.bivalueLocations( ALL_DIGITS, new CellSet() ).toList());
+		assertThrows( IllegalArgumentException.class, () -> cand.maskLocations( 0b1 ));
+		assertThrows( IllegalArgumentException.class, () -> cand.maskLocations( 0b1111 ));
+
+		// Index follows changes, copies are independent.
+		Candidates copy = new Candidates( cand );
+		cand.removeCandidate( ROWCOL[3][5], 6 );
+		assertEquals( Arrays.asList( ROWCOL[4][5] ), cand.maskLocations( mask46 ).toList());
+		assertEquals( 2, copy.maskLocations( mask46 ).size());
+		cand.setOccupied( ROWCOL[4][5], 4 );
+		assertTrue( cand.maskLocations( mask46 ).isEmpty());
+		assertEquals( 0, cand.candidateMask( ROWCOL[4][5] ));
+		cand.setCandidates( ROWCOL[0][0], new int[]{ 0, 0, 0, 4, 0, 6, 0, 0, 0 } );
+		assertEquals( Arrays.asList( ROWCOL[0][0] ), cand.maskLocations( mask46 ).toList());
+	}
+
+	@Test
+	public void testStateHash() throws ParseException {
+		Candidates cand = new Candidates( CANDSPACES );
+		Candidates copy = new Candidates( cand );
+		assertEquals( cand.stateHash(), copy.stateHash() );
+		assertEquals( cand, copy );
+		assertEquals( cand.hashCode(), copy.hashCode() );
+		assertEquals( cand.stateHash(), new Candidates( CANDSPACES ).stateHash() );
+
+		// Order of changes does not matter.
+		cand.removeCandidate( ROWCOL[1][6], 1 );
+		cand.removeCandidate( ROWCOL[1][6], 6 );
+		copy.removeCandidate( ROWCOL[1][6], 6 );
+		assertNotEquals( cand.stateHash(), copy.stateHash() );
+		assertNotEquals( cand, copy );
+		copy.removeCandidate( ROWCOL[1][6], 1 );
+		assertEquals( cand.stateHash(), copy.stateHash() );
+		assertEquals( cand, copy );
+
+		// Back to the start after an undo.
+		long hash = cand.stateHash();
+		cand.setOccupied( ROWCOL[1][6], 7 );
+		assertNotEquals( hash, cand.stateHash() );
+		cand.setUnoccupied( ROWCOL[1][6], 7 );
+		cand.addCandidate( ROWCOL[1][6], 7 );
+		assertEquals( hash, cand.stateHash() );
+
+		// Same hash as a state built from scratch.
+		Candidates built = new Candidates();
+		for ( int rowi = 0; rowi < Board.ROWS; rowi++ )
+			for ( int coli = 0; coli < Board.COLS; coli++ )
+				built.setCandidates( ROWCOL[rowi][coli], cand.getCandidates( ROWCOL[rowi][coli] ).clone() );
+		assertEquals( hash, built.stateHash() );
+		assertEquals( cand, built );
+
+		// Applying changes agrees with the target.
+		Candidates changed = Candidates.changes( new Candidates( CANDSPACES ), Candidates.changes( new Candidates( CANDSPACES ), cand ));
+		assertEquals( hash, changed.stateHash() );
+	}
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package info.danbecker.ss;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CellKeySetTest {
+	@BeforeEach
+	void setup() {
+	}
+
+	@Test
+	public void testBasics() {
+		CellKeySet keys = new CellKeySet();
+		assertTrue( keys.add( 0, 80 ));
+		assertFalse( keys.add( 80, 0 )); // a strong link is unordered
+		assertTrue( keys.contains( 0, 80 ));
+		assertFalse( keys.contains( 0, 79 ));
+
+		CellSet cells = new CellSet().add( 3 ).add( 63 ).add( 64 );
+		assertTrue( keys.add( cells ));
+		assertFalse( keys.add( new CellSet( cells )));
+		assertTrue( keys.add( new CellSet() )); // empty set is a key too
+		assertFalse( keys.add( 0L, 0L ));
+
+		for ( int celli = 0; celli < CellSet.CELLS; celli++ )
+			for ( int cellj = celli + 1; cellj < CellSet.CELLS; cellj++ )
+				keys.add( celli, cellj );
+		assertEquals( 81 * 80 / 2 + 2, keys.size() );
+		assertTrue( keys.contains( 40, 41 ));
+		keys.clear();
+		assertTrue( keys.isEmpty() );
+		assertFalse( keys.contains( 40, 41 ));
+	}
+}
@@ -0,0 +1,68 @@
+package info.danbecker.ss;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static info.danbecker.ss.Board.NOT_FOUND;
+import static info.danbecker.ss.Board.ROWCOL;
+import static info.danbecker.ss.Utils.Unit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CellSetTest {
+	@BeforeEach
+	void setup() {
+	}
+
+	@Test
+	public void testBasics() {
+		CellSet set = new CellSet();
+		assertTrue( set.isEmpty() );
+		assertEquals( NOT_FOUND, set.nextCell( 0 ));
+
+		set.add( ROWCOL[0][0] ).add( ROWCOL[7][0] ).add( ROWCOL[8][8] );
+		assertEquals( 3, set.size() );
+		assertTrue( set.contains( ROWCOL[7][0] )); // cell 63, last of low long
+		assertTrue( set.contains( 80 ));
+		assertFalse( set.contains( ROWCOL[4][4] ));
+		assertEquals( List.of( ROWCOL[0][0], ROWCOL[7][0], ROWCOL[8][8] ), set.toList() );
+		assertEquals( 63, set.nextCell( 1 ));
+		assertEquals( 80, set.nextCell( 64 ));
+
+		CellSet copy = new CellSet( set );
+		assertEquals( set, copy );
+		assertEquals( set.hashCode(), copy.hashCode() );
+		copy.remove( ROWCOL[8][8] );
+		assertNotEquals( set, copy );
+		assertTrue( set.intersects( copy ));
+		assertEquals( 1, new CellSet( set ).removeAll( copy ).size() );
+		assertEquals( 0, copy.clear().size() );
+	}
+
+	@Test
+	public void testUnits() {
+		for ( int celli = 0; celli < CellSet.CELLS; celli++ ) {
+			RowCol rowCol = CellSet.rowCol( celli );
+			assertEquals( celli, CellSet.index( rowCol ));
+			CellSet all = new CellSet();
+			for ( int i = 0; i < CellSet.CELLS; i++ ) all.add( i );
+			// 8 row + 8 col + 4 box + self
+			assertEquals( 21, all.retainSeenBy( rowCol ).size() );
+			for ( Unit unit : Unit.values() ) {
+				CellSet unitSet = new CellSet();
+				for ( int i = 0; i < CellSet.CELLS; i++ ) unitSet.add( i );
+				unitSet.retainUnit( unit, rowCol.unitIndex( unit ));
+				assertEquals( 9, unitSet.size() );
+				assertTrue( unitSet.contains( rowCol ));
+			}
+		}
+
+		CellSet set = new CellSet().add( ROWCOL[0][8] );
+		assertTrue( set.intersectsSeenBy( ROWCOL[8][8] ));
+		assertTrue( set.intersectsSeenBy( ROWCOL[2][6] ));
+		assertFalse( set.intersectsSeenBy( ROWCOL[8][0] ));
+		assertTrue( set.intersectsSeenBy( new CellSet( set ), ROWCOL[0][0] ));
+		assertFalse( set.intersectsSeenBy( new CellSet().add( ROWCOL[0][0] ), ROWCOL[0][4] ));
+	}
+}
@@ -0,0 +1,76 @@
+package info.danbecker.ss;
+
+import info.danbecker.ss.CorpusRegression.Puzzle;
+import info.danbecker.ss.CorpusRegression.Report;
+import info.danbecker.ss.rules.ForcingChainsTest;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static info.danbecker.ss.CorpusRegression.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CorpusRegressionTest {
+	@Test
+	public void testLoad( @TempDir Path dir ) throws Exception {
+		Path text = dir.resolve( "more.txt" );
+		Files.writeString( text, "# diabolical\n" + ForcingChainsTest.DIABOLICAL + "\n\n" );
+		List<Puzzle> puzzles = loadFile( text );
+		assertEquals( 1, puzzles.size() );
+		assertEquals( "more.txt:2", puzzles.get( 0 ).name() );
+		assertEquals( ForcingChainsTest.DIABOLICAL, puzzles.get( 0 ).text() );
+
+		puzzles = loadDirectory( Path.of( DEFAULT_CORPUS ));
+		assertTrue( puzzles.size() > 10 );
+		assertTrue( puzzles.stream().allMatch( puzzle -> puzzle.name().endsWith( ".json" )));
+	}
+
+	@Test
+	public void testMeasure() {
+		CorpusRegression regression = new CorpusRegression().warmups( 0 ).runs( 1 );
+		JSONObject json = regression.measure( List.of(
+			new Puzzle( "diabolical", ForcingChainsTest.DIABOLICAL, ForcingChainsTest.SOLUTION ),
+			new Puzzle( "bad", "x", "" )));
+		assertEquals( SOLVED, json.getJSONArray( "puzzles" ).getJSONObject( 0 ).getString( "status" ));
+		assertEquals( FAILED, json.getJSONArray( "puzzles" ).getJSONObject( 1 ).getString( "status" ));
+		assertTrue( json.getLong( "nanos" ) > 0 );
+		assertEquals( SudokuSolver.defaultRules().length, json.getJSONArray( "rules" ).length() );
+
+		Report report = regression.compare( json, json );
+		assertFalse( report.regressed(), report.toString() );
+		assertEquals( "PASSED", report.lines().get( report.lines().size() - 1 ));
+	}
+
+	@Test
+	public void testCompare() {
+		JSONObject baseline = new JSONObject( "{nanos:1000000, bytes:1000, rules:[{rule:A, invocations:5, nanos:1000000, bytes:1000}],"
+			+ "puzzles:[{name:p1, status:solved, nanos:500000, bytes:500}, {name:p2, status:stalled, nanos:500000, bytes:500}]}" );
+		CorpusRegression regression = new CorpusRegression().thresholds( 0.10, 0.10 );
+
+		JSONObject faster = new JSONObject( baseline.toString() ).put( "nanos", 900000 );
+		assertFalse( regression.compare( baseline, faster ).regressed() );
+
+		JSONObject slower = new JSONObject( baseline.toString() ).put( "nanos", 1200000 );
+		Report report = regression.compare( baseline, slower );
+		assertTrue( report.regressed() );
+		assertTrue( report.toString().contains( "REGRESSION corpus time is more than 10% over the baseline" ), report.toString() );
+		assertTrue( report.toString().contains( "1.0 -> 1.2 +20.0% *" ), report.toString() );
+
+		JSONObject bigger = new JSONObject( baseline.toString() ).put( "bytes", 1200 );
+		assertTrue( regression.compare( baseline, bigger ).toString().contains( "REGRESSION corpus allocation" ));
+
+		JSONObject stalled = new JSONObject( baseline.toString() );
+		stalled.getJSONArray( "puzzles" ).getJSONObject( 0 ).put( "status", STALLED );
+		report = regression.compare( baseline, stalled );
+		assertTrue( report.regressed() );
+		assertTrue( report.toString().contains( "solved -> stalled" ), report.toString() );
+
+		JSONObject unstalled = new JSONObject( baseline.toString() );
+		unstalled.getJSONArray( "puzzles" ).getJSONObject( 1 ).put( "status", SOLVED );
+		assertFalse( regression.compare( baseline, unstalled ).regressed() );
+	}
+}
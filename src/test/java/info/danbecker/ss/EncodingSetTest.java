@@ -0,0 +1,69 @@
+package info.danbecker.ss;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EncodingSetTest {
+	@BeforeEach
+	void setup() {
+	}
+
+	@Test
+	public void testBasics() {
+		EncodingSet set = new EncodingSet();
+		assertTrue( set.isEmpty() );
+		assertTrue( set.add( new int[]{ 1, 2, 3 } ));
+		assertFalse( set.add( new int[]{ 1, 2, 3 } )); // equal content, different array
+		assertTrue( set.add( new int[]{ 1, 2 } )); // length matters
+		assertTrue( set.add( new int[]{ 3, 2, 1 } )); // order matters
+		assertEquals( 3, set.size() );
+		assertTrue( set.contains( new int[]{ 3, 2, 1 } ));
+		assertFalse( set.contains( new int[]{ 1 } ));
+
+		// Grows past the initial table
+		for ( int i = 0; i < 1000; i++ )
+			assertTrue( set.add( new int[]{ i, i / 9, i % 9 } ));
+		assertEquals( 1003, set.size() );
+		for ( int i = 0; i < 1000; i++ )
+			assertTrue( set.contains( new int[]{ i, i / 9, i % 9 } ));
+
+		set.clear();
+		assertEquals( 0, set.size() );
+		assertFalse( set.contains( new int[]{ 1, 2, 3 } ));
+	}
+
+	@Test
+	public void testKeyIndexes() {
+		// Same elements as a digit and rowCol SubsetComparator
+		Utils.SubsetComparator comp = new Utils.SubsetComparator( Arrays.asList( 2, 3, 4 ));
+		assertArrayEquals( new int[]{ 2, 3, 4 }, comp.keyIndexes() );
+		EncodingSet set = new EncodingSet( comp );
+		assertTrue( set.add( new int[]{ 1, 0, 5, 3, 4 } ));
+		assertFalse( set.add( new int[]{ 1, 7, 5, 3, 4 } )); // different pathId
+		assertTrue( set.add( new int[]{ 1, 0, 6, 3, 4 } ));
+	}
+
+	@Test
+	public void testAddUniques() {
+		List<int[]> encs = new ArrayList<>();
+		encs.add( new int[]{ 1, 2 } );
+		EncodingSet set = new EncodingSet( encs );
+		assertEquals( 0, set.addUnique( encs, new int[]{ 1, 2 } ));
+		assertEquals( 1, set.addUnique( encs, new int[]{ 2, 1 } ));
+		assertEquals( 1, set.addUniques( encs, Arrays.asList( new int[]{ 2, 1 }, new int[]{ 3, 3 }, new int[]{ 3, 3 } )));
+		assertEquals( 3, encs.size() );
+
+		// Utils versions agree
+		assertEquals( 1, Utils.addUniques( encs, Arrays.asList( new int[]{ 1, 2 }, new int[]{ 4, 4 } )));
+		assertEquals( 4, encs.size() );
+		assertEquals( 0, Utils.addUniques( encs, Arrays.asList( new int[]{ 9, 2 } ),
+			new Utils.SubsetComparator( Arrays.asList( 1 ))));
+		assertEquals( 4, encs.size() );
+	}
+}
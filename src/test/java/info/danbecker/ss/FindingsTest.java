@@ -0,0 +1,100 @@
+package info.danbecker.ss;
+
+import info.danbecker.ss.Candidates.Action;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.text.ParseException;
+
+import static info.danbecker.ss.Board.ROWCOL;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FindingsTest {
+	@BeforeEach
+	void setup() {
+	}
+
+	@Test
+	public void testBasics() {
+		int ruleId = Findings.ruleId( "FindingsTest" );
+		assertEquals( ruleId, Findings.ruleId( "FindingsTest" ));
+		assertEquals( "FindingsTest", Findings.ruleName( ruleId ));
+
+		Findings findings = new Findings( 1 );
+		assertTrue( findings.isEmpty() );
+		findings.remove( ROWCOL[8][8], 9, ruleId, 7 );
+		findings.place( ROWCOL[0][1], 5, ruleId, Integer.MAX_VALUE );
+		findings.add( Action.REMOVE, CellSet.index( ROWCOL[4][4] ), 0b101, ruleId, 2 );
+		assertEquals( 3, findings.size() );
+
+		assertEquals( ROWCOL[8][8], findings.rowCol( 0 ));
+		assertEquals( 80, findings.cell( 0 ));
+		assertEquals( 1 << 8, findings.digits( 0 ));
+		assertEquals( Action.REMOVE, findings.action( 0 ));
+		assertEquals( ruleId, findings.ruleId( 0 ));
+		assertEquals( 7, findings.ref( 0 ));
+		assertEquals( Action.OCCUPY, findings.action( 1 ));
+		assertEquals( Integer.MAX_VALUE, findings.ref( 1 ));
+		assertEquals( 0b101, findings.digits( 2 ));
+
+		Findings more = new Findings().addAll( findings ).addAll( findings );
+		assertEquals( 6, more.size() );
+		assertEquals( findings.record( 2 ), more.record( 5 ));
+		assertEquals( 0, more.clear().size() );
+
+		assertThrows( IllegalArgumentException.class, () -> findings.add( Action.ADD, 0, 1, ruleId, 0 ));
+		assertThrows( IllegalArgumentException.class, () -> findings.add( Action.REMOVE, 81, 1, ruleId, 0 ));
+		assertThrows( IllegalArgumentException.class, () -> findings.add( Action.OCCUPY, 0, 0b11, ruleId, 0 ));
+	}
+
+	@Test
+	public void testCompact() {
+		int ruleId = Findings.ruleId( "FindingsTest" );
+		Findings findings = new Findings();
+		findings.remove( ROWCOL[4][4], 3, ruleId, 0 );
+		findings.remove( ROWCOL[0][0], 1, ruleId, 1 );
+		findings.remove( ROWCOL[4][4], 6, ruleId, 2 );
+		findings.place( ROWCOL[0][0], 2, ruleId, 3 );
+		findings.place( ROWCOL[0][0], 2, ruleId, 4 );
+
+		findings.compact();
+		assertEquals( 3, findings.size() );
+		// By cell, then action ordinal
+		assertEquals( Action.OCCUPY, findings.action( 0 ));
+		assertEquals( 3, findings.ref( 0 ));
+		assertEquals( Action.REMOVE, findings.action( 1 ));
+		assertEquals( 1, findings.digits( 1 ));
+		assertEquals( ROWCOL[4][4], findings.rowCol( 2 ));
+		assertEquals( 0b100100, findings.digits( 2 ));
+		assertEquals( 0, findings.ref( 2 ));
+	}
+
+	@Test
+	public void testApply() throws ParseException {
+		int ruleId = Findings.ruleId( "FindingsTest" );
+		Board board = new Board( TestUtils.EMPTY );
+		Candidates candidates = new Candidates( board );
+		Findings findings = new Findings();
+		findings.place( ROWCOL[0][0], 1, ruleId, 0 );
+		findings.add( Action.REMOVE, CellSet.index( ROWCOL[8][8] ), 0b111, ruleId, 1 );
+
+		assertEquals( 4, findings.apply( board, null, candidates ));
+		assertEquals( 1, board.get( ROWCOL[0][0] ));
+		assertFalse( candidates.isCandidate( ROWCOL[0][0], 2 ));
+		assertFalse( candidates.isCandidate( ROWCOL[8][8], 3 ));
+		assertTrue( candidates.isCandidate( ROWCOL[8][8], 4 ));
+		// Already applied
+		assertEquals( 1, findings.clear().remove( ROWCOL[8][8], 9, ruleId, 0 ).remove( ROWCOL[8][8], 3, ruleId, 0 )
+			.apply( board, null, candidates ));
+
+		// Validation happens before any change
+		Board solution = new Board( TestUtils.EMPTY );
+		solution.set( ROWCOL[4][4], 5 );
+		findings.clear().remove( ROWCOL[4][3], 5, ruleId, 0 ).remove( ROWCOL[4][4], 5, ruleId, 0 );
+		assertThrows( IllegalArgumentException.class, () -> findings.apply( board, solution, candidates ));
+		assertTrue( candidates.isCandidate( ROWCOL[4][3], 5 ));
+		findings.clear().place( ROWCOL[4][4], 6, ruleId, 0 );
+		assertThrows( IllegalArgumentException.class, () -> findings.apply( board, solution, candidates ));
+		assertEquals( 0, board.get( ROWCOL[4][4] ));
+	}
+}
@@ -0,0 +1,106 @@
+package info.danbecker.ss;
+
+import info.danbecker.ss.rules.LegalCandidates;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.text.ParseException;
+
+import static info.danbecker.ss.Board.ROWCOL;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PropagatorTest {
+	// Solvable by singles alone
+	public static String EASY =
+		"..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3..";
+	public static String EASY_SOLUTION =
+		"483921657967345821251876493548132976729564138136798245372689514814253769695417382";
+
+	@BeforeEach
+	void setup() {
+	}
+
+	@Test
+	public void testTables() {
+		assertArrayEquals( new int[]{ 0, 1, 2, 9, 10, 11, 18, 19, 20 }, Propagator.UNIT_CELLS[ 2 * 9 ] );
+		assertArrayEquals( new int[]{ 8, 17, 26, 35, 44, 53, 62, 71, 80 }, Propagator.UNIT_CELLS[ 9 + 8 ] );
+		for ( int celli = 0; celli < Propagator.CELLS; celli++ )
+			for ( int peer : Propagator.PEERS[ celli ] )
+				assertTrue( CellSet.sees( celli, peer ) && celli != peer );
+	}
+
+	@Test
+	public void testPropagateUndo() throws ParseException {
+		Board board = new Board( EASY );
+		Board solution = new Board( EASY_SOLUTION );
+		Candidates candidates = new Candidates( board );
+		(new LegalCandidates()).update( board, null, candidates, null );
+		Propagator propagator = new Propagator().load( candidates );
+		int mark = propagator.mark();
+
+		assertTrue( propagator.propagate() );
+		assertTrue( propagator.solved() );
+		for ( int celli = 0; celli < Propagator.CELLS; celli++ )
+			assertEquals( solution.get( ROWCOL[ celli / 9 ][ celli % 9 ] ), propagator.placed( celli ));
+		Findings changes = new Findings();
+		assertEquals( 81 - candidates.getAllOccupiedCount(), propagator.addChanges( changes, 0, 0 ));
+
+		// Undo restores the loaded state.
+		propagator.undo( mark );
+		assertFalse( propagator.solved() );
+		for ( int celli = 0; celli < Propagator.CELLS; celli++ ) {
+			assertEquals( propagator.baseMask( celli ), propagator.mask( celli ));
+			assertEquals( propagator.basePlaced( celli ), propagator.placed( celli ));
+		}
+
+		// A wrong digit ends in a contradiction, then undo clears it.
+		int celli = 0;
+		int wrong = Integer.numberOfTrailingZeros( propagator.mask( celli ) & ~( 1 << ( solution.get( ROWCOL[0][0] ) - 1 ))) + 1;
+		assertFalse( propagator.place( celli, wrong ) && propagator.propagate() );
+		assertTrue( propagator.contradiction() );
+		propagator.undo( mark );
+		assertFalse( propagator.contradiction() );
+		assertEquals( propagator.baseMask( celli ), propagator.mask( celli ));
+
+		// Copies are independent.
+		Propagator copy = new Propagator( propagator );
+		assertTrue( copy.place( celli, solution.get( ROWCOL[0][0] )));
+		assertEquals( 0, propagator.placed( celli ));
+		assertFalse( copy.place( 1, copy.placed( celli )));
+		assertTrue( copy.contradiction() );
+	}
+
+	@Test
+	public void testIntersectionsHash() throws ParseException {
+		Board board = new Board( EASY );
+		Candidates candidates = new Candidates( board );
+		(new LegalCandidates()).update( board, null, candidates, null );
+		Propagator propagator = new Propagator().load( candidates );
+		assertEquals( candidates.stateHash(), propagator.hash() );
+
+		// The hash follows each change and each undo, the same as Candidates.
+		int mark = propagator.mark();
+		RowCol rowCol = ROWCOL[0][0];
+		int digit = Integer.numberOfTrailingZeros( propagator.mask( 0 )) + 1;
+		propagator.eliminate( 0, digit );
+		candidates.removeCandidate( rowCol, digit );
+		assertEquals( candidates.stateHash(), propagator.hash() );
+		propagator.undo( mark );
+		candidates.addCandidate( rowCol, digit );
+		assertEquals( candidates.stateHash(), propagator.hash() );
+
+		// A box with digit 1 only in row 0 removes 1 from the rest of row 0.
+		Candidates empty = new Candidates( new Board( ".................................................................................") );
+		for ( int rowi = 1; rowi < 3; rowi++ )
+			for ( int coli = 0; coli < 3; coli++ )
+				empty.removeCandidate( ROWCOL[rowi][coli], 1 );
+		Propagator locked = new Propagator().load( empty );
+		assertTrue( locked.propagate() );
+		assertTrue( 0 != ( locked.mask( 5 ) & 1 ));
+		assertTrue( locked.setIntersections( true ).propagate() );
+		assertEquals( 0, locked.mask( 5 ) & 1 );
+		assertTrue( 0 != ( locked.mask( 1 ) & 1 ));
+		empty.removeCandidate( ROWCOL[0][5], 1 );
+		assertEquals( empty.candidateMask( ROWCOL[0][5] ), locked.mask( 5 ));
+	}
+}
@@ -0,0 +1,99 @@
+package info.danbecker.ss;
+
+import info.danbecker.ss.CorpusRegression.Puzzle;
+import info.danbecker.ss.rules.FindUpdateRule;
+import info.danbecker.ss.rules.ForcingChainsTest;
+import info.danbecker.ss.rules.Templates;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RuleArenaTest {
+	@Test
+	public void testScratch() throws Exception {
+		RuleArena arena = RuleArena.forThread();
+		assertSame( arena, RuleArena.forThread() );
+		assertSame( arena, RuleArena.of( null ));
+		RuleArena other = new RuleArena();
+		Candidates candidates = new Candidates( new Board( ForcingChainsTest.DIABOLICAL ));
+		assertSame( other, RuleArena.of( new SolveContext( candidates, other )));
+		assertSame( arena, new SolveContext( candidates ).arena() );
+
+		StringBuilder scratch = arena.scratch( StringBuilder.class, StringBuilder::new );
+		assertSame( scratch, arena.scratch( StringBuilder.class, StringBuilder::new ));
+		assertNotSame( scratch, other.scratch( StringBuilder.class, StringBuilder::new ));
+		Thread thread = new Thread( () -> assertNotSame( arena, RuleArena.forThread() ));
+		thread.start();
+		thread.join();
+
+		arena.findings().place( Board.ROWCOL[ 0 ][ 0 ], 1, 0, 0 );
+		assertEquals( 0, arena.findings().size() );
+		other.clear();
+		assertNotSame( scratch, other.scratch( StringBuilder.class, StringBuilder::new ));
+	}
+
+	@Test
+	public void testTemplatesPerThread() throws Exception {
+		Board board = new Board( ForcingChainsTest.DIABOLICAL );
+		Candidates candidates = new Candidates( board );
+		Templates rule = new Templates();
+		int count = rule.find( board, candidates ).size();
+		int survivors = rule.getSurvivorCount( 1 );
+		// Another thread filters from every template in its own arena.
+		List<Integer> counts = Collections.synchronizedList( new ArrayList<>() );
+		Thread thread = new Thread( () -> {
+			counts.add( rule.find( board, candidates ).size() );
+			counts.add( rule.getSurvivorCount( 1 ));
+		});
+		thread.start();
+		thread.join();
+		assertEquals( List.of( count, survivors ), counts );
+	}
+
+	@Test
+	public void testSharedRules() throws Exception {
+		List<Puzzle> puzzles = CorpusRegression.loadDirectory( Path.of( CorpusRegression.DEFAULT_CORPUS ));
+		SolveSession single = new SolveSession();
+		List<String> expected = new ArrayList<>();
+		for ( Puzzle puzzle : puzzles )
+			expected.add( solve( single, puzzle ));
+
+		// One rule set for all threads, each thread solves the corpus in its own order.
+		FindUpdateRule[] rules = SudokuSolver.defaultRules();
+		int threads = 4;
+		ExecutorService pool = Executors.newFixedThreadPool( threads );
+		try {
+			List<Future<List<String>>> results = new ArrayList<>();
+			for ( int threadi = 0; threadi < threads; threadi++ ) {
+				int offset = threadi;
+				results.add( pool.submit( () -> {
+					SolveSession session = new SolveSession( rules );
+					String[] boards = new String[ puzzles.size() ];
+					for ( int puzzlei = 0; puzzlei < puzzles.size(); puzzlei++ ) {
+						int index = ( puzzlei + offset * 3 ) % puzzles.size();
+						boards[ index ] = solve( session, puzzles.get( index ));
+					}
+					return List.of( boards );
+				}));
+			}
+			for ( Future<List<String>> result : results )
+				assertEquals( expected, result.get() );
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/** Returns the solve result and the board as the solve left it. */
+	protected static String solve( SolveSession session, Puzzle puzzle ) throws Exception {
+		boolean solved = session.reset( puzzle.text(), puzzle.solution() ).solve();
+		return puzzle.name() + " " + solved + " " + session.board().toSudokuString( "" );
+	}
+}
@@ -0,0 +1,89 @@
+package info.danbecker.ss;
+
+import info.danbecker.ss.rules.Subsets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static info.danbecker.ss.Board.ROWCOL;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SolveContextTest {
+	@BeforeEach
+	void setup() {
+	}
+
+	@Test
+	public void testVersion() throws ParseException {
+		Candidates candidates = new Candidates( new Board( TestUtils.EMPTY ));
+		int version = candidates.version();
+		assertFalse( candidates.addCandidate( ROWCOL[0][0], 1 )); // already there
+		assertEquals( version, candidates.version() );
+		assertTrue( candidates.removeCandidate( ROWCOL[0][0], 1 ));
+		assertNotEquals( version, version = candidates.version() );
+		assertFalse( candidates.removeCandidate( ROWCOL[0][0], 1 ));
+		assertEquals( version, candidates.version() );
+		candidates.setOccupied( ROWCOL[0][0], 2 );
+		assertNotEquals( version, version = candidates.version() );
+		candidates.setUnoccupied( ROWCOL[0][0], 2 );
+		assertNotEquals( version, candidates.version() );
+	}
+
+	@Test
+	public void testCaching() throws ParseException {
+		Candidates candidates = new Candidates( new Board( TestUtils.EMPTY ));
+		// Bivalue cells {12} at [0,0],[0,5] and {34} at [4,4]
+		candidates.setCandidates( ROWCOL[0][0], new int[]{ 1, 2, 0, 0, 0, 0, 0, 0, 0 } );
+		candidates.setCandidates( ROWCOL[0][5], new int[]{ 1, 2, 0, 0, 0, 0, 0, 0, 0 } );
+		candidates.setCandidates( ROWCOL[4][4], new int[]{ 0, 0, 3, 4, 0, 0, 0, 0, 0 } );
+		SolveContext context = new SolveContext( candidates );
+		assertSame( context, SolveContext.of( context, candidates ));
+		assertNotSame( context, SolveContext.of( context, new Candidates( candidates )));
+
+		List<RowCol> bivalues = context.bivalueLocs();
+		assertEquals( Arrays.asList( ROWCOL[0][0], ROWCOL[0][5], ROWCOL[4][4] ), bivalues );
+		assertSame( bivalues, context.bivalueLocs() );
+		assertThrows( UnsupportedOperationException.class, () -> context.bivalueLocs().clear() );
+		Map<List<Integer>, List<RowCol>> pairLocs = context.pairLocs();
+		assertEquals( Arrays.asList( ROWCOL[0][0], ROWCOL[0][5] ), pairLocs.get( Arrays.asList( 1, 2 )));
+		assertEquals( Arrays.asList( Arrays.asList( 1, 2 ), Arrays.asList( 3, 4 )), context.pairDigits() );
+
+		// Digit 3 occurs in every row 0 cell except [0,0],[0,5]. No strong links.
+		assertEquals( 0, context.strongLinks( 3 ).size() );
+		for ( int coli = 1; coli < 7; coli++ )
+			candidates.removeCandidate( ROWCOL[0][coli], 3 );
+		// Stale data is dropped after the change.
+		assertEquals( 1, context.strongLinks( 3 ).size() );
+		assertEquals( Arrays.asList( ROWCOL[0][7], ROWCOL[0][8] ), context.strongLinks( 3 ).get( 0 ));
+		assertNotSame( bivalues, context.bivalueLocs() );
+		assertEquals( 2, context.unitCounts( 3 )[ Utils.Unit.ROW.ordinal() ][ 0 ] );
+	}
+
+	@Test
+	public void testSubsets() throws ParseException {
+		Candidates candidates = new Candidates( new Board( TestUtils.EMPTY ));
+		// Naked pair {12} at [0,0],[0,1], in row 0 and box 0.
+		candidates.setCandidates( ROWCOL[0][0], new int[]{ 1, 2, 0, 0, 0, 0, 0, 0, 0 } );
+		candidates.setCandidates( ROWCOL[0][1], new int[]{ 1, 2, 0, 0, 0, 0, 0, 0, 0 } );
+		SolveContext context = new SolveContext( candidates );
+		Subsets subsets = context.subsets();
+		assertSame( subsets, Subsets.of( context, candidates ));
+		assertNotSame( subsets, Subsets.of( context, new Candidates( candidates )));
+		assertNotSame( subsets, Subsets.of( null, candidates ));
+		List<int[]> encs = new ArrayList<>();
+		context.subsets().naked( 2, encs );
+		assertEquals( 2, encs.size() );
+
+		// The same tables are rescanned after the change.
+		candidates.setCandidates( ROWCOL[0][1], new int[]{ 1, 2, 3, 0, 0, 0, 0, 0, 0 } );
+		assertSame( subsets, context.subsets() );
+		encs.clear();
+		context.subsets().naked( 2, encs );
+		assertEquals( 0, encs.size() );
+	}
+}
@@ -0,0 +1,114 @@
+package info.danbecker.ss;
+
+import info.danbecker.ss.rules.ForcingChainsTest;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.text.ParseException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SolveServerTest {
+	protected final HttpClient client = HttpClient.newHttpClient();
+	protected SolveServer server;
+
+	@AfterEach
+	public void stop() throws InterruptedException {
+		if (null != server)
+			server.stop(0);
+	}
+
+	protected SolveServer start(int workers, int queueLimit, long deadlineMillis) throws Exception {
+		server = new SolveServer(new InetSocketAddress("localhost", 0), workers, queueLimit, deadlineMillis).start();
+		return server;
+	}
+
+	protected HttpResponse<String> post(String body) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + SolveServer.SOLVE_PATH))
+			.POST(HttpRequest.BodyPublishers.ofString(body)).build();
+		return client.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+
+	@Test
+	public void testSolve() throws Exception {
+		start(2, 4, 10000);
+		HttpResponse<String> response = post(SolveSessionTest.SINGLES);
+		assertEquals(200, response.statusCode(), response.body());
+		assertEquals("application/json", response.headers().firstValue("Content-Type").orElse(null));
+		JSONObject json = new JSONObject(response.body());
+		assertTrue(json.getBoolean("solved"));
+		assertFalse(json.getBoolean("expired"));
+		assertEquals(SolveSessionTest.SINGLES_SOLUTION, json.getString("board"));
+		assertTrue(json.getJSONArray("rules").toList().contains("SingleCandidates"), response.body());
+		assertTrue(json.getLong("solveNanos") > 0);
+
+		JSONObject puzzle = new JSONObject()
+			.put("states", new String[] { ForcingChainsTest.DIABOLICAL })
+			.put("solution", ForcingChainsTest.SOLUTION);
+		json = new JSONObject(post(puzzle.toString()).body());
+		assertTrue(json.getBoolean("solved"), json.toString());
+		assertEquals(new Board(ForcingChainsTest.SOLUTION).toSudokuString(""), json.getString("board"));
+
+		HttpResponse<String> stats = client.send(HttpRequest.newBuilder(
+			URI.create("http://localhost:" + server.port() + SolveServer.STATS_PATH)).build(), HttpResponse.BodyHandlers.ofString());
+		assertEquals(2, new JSONObject(stats.body()).getInt("workers"));
+	}
+
+	@Test
+	public void testErrors() throws Exception {
+		start(1, 1, 10000);
+		assertEquals(400, post("x").statusCode());
+		assertEquals(400, post("{states:[]}").statusCode());
+		assertEquals(400, post(" ").statusCode());
+		assertEquals(422, post(new JSONObject().put("states", new String[] { SolveSessionTest.SINGLES })
+			.put("solution", ForcingChainsTest.SOLUTION).toString()).statusCode());
+		HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+			URI.create("http://localhost:" + server.port() + SolveServer.SOLVE_PATH)).build(), HttpResponse.BodyHandlers.ofString());
+		assertEquals(405, response.statusCode());
+		assertThrows(IllegalArgumentException.class, () -> new SolveServer(new InetSocketAddress(0), 0, 1, 1));
+		assertThrows(ParseException.class, () -> SolveServer.parsePuzzle(""));
+	}
+
+	@Test
+	public void testBackpressure() throws Exception {
+		start(1, 1, 50);
+		// Hold the only worker.
+		CountDownLatch release = new CountDownLatch(1);
+		server.pool.execute(() -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		// The next puzzle waits in the queue, and the one after it is rejected.
+		AtomicInteger queuedStatus = new AtomicInteger();
+		Thread queued = new Thread(() -> {
+			try {
+				queuedStatus.set(post(SolveSessionTest.SINGLES).statusCode());
+			} catch (Exception e) {
+				queuedStatus.set(-1);
+			}
+		});
+		queued.start();
+		while (server.pool.getQueue().isEmpty())
+			Thread.sleep(1);
+		HttpResponse<String> rejected = post(SolveSessionTest.SINGLES);
+		assertEquals(429, rejected.statusCode());
+		assertEquals("1", rejected.headers().firstValue("Retry-After").orElse(null));
+
+		// Past its deadline by the time the worker is free.
+		Thread.sleep(100);
+		release.countDown();
+		queued.join();
+		assertEquals(503, queuedStatus.get());
+	}
+}
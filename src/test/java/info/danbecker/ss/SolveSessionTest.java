@@ -0,0 +1,155 @@
+package info.danbecker.ss;
+
+import info.danbecker.ss.CorpusRegression.Puzzle;
+import info.danbecker.ss.metrics.MetricsRegistry;
+import info.danbecker.ss.rules.FindUpdateRule;
+import info.danbecker.ss.rules.ForcingChainsTest;
+import info.danbecker.ss.rules.LegalCandidates;
+import info.danbecker.ss.sink.EventSink;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SolveSessionTest {
+	// The medium puzzle with one more given, solved by the singles rules alone.
+	public static final String SINGLES =
+		"38.62..1.-...1..9.8-1.......3-.1...48..-.76...43.-..38...5.-6.......1-5.7..1...-.4..82.7.";
+	public static final String SINGLES_SOLUTION =
+		"384629715762153948159748623215394867876215439493876152628437591537961284941582376";
+
+	@Test
+	public void testLoad() throws ParseException {
+		Board board = new Board( SINGLES );
+		Board loaded = new Board( TestUtils.EMPTY );
+		loaded.load( SINGLES.replace( '-', '\n' ));
+		assertEquals( board.toSudokuString( "-" ), loaded.toSudokuString( "-" ));
+		assertEquals( board.stateHash(), loaded.stateHash() );
+		assertThrows( ParseException.class, () -> loaded.load( SINGLES.substring( 1 )));
+		assertThrows( ParseException.class, () -> loaded.load( SINGLES.replace( '3', 'x' )));
+		assertEquals( board.toSudokuString( "-" ), loaded.toSudokuString( "-" ));
+
+		Candidates candidates = new Candidates( new Board( ForcingChainsTest.DIABOLICAL ));
+		candidates.reset( board );
+		Candidates expected = new Candidates( board );
+		assertEquals( expected, candidates );
+		assertEquals( expected.stateHash(), candidates.stateHash() );
+	}
+
+	@Test
+	public void testCorpus() throws Exception {
+		SolveSession session = new SolveSession();
+		for ( Puzzle puzzle : CorpusRegression.loadDirectory( Path.of( CorpusRegression.DEFAULT_CORPUS ))) {
+			boolean solved = SudokuSolver.solve( puzzle.text(), puzzle.solution(), null, EventSink.none() );
+			assertEquals( solved, session.reset( puzzle.text(), puzzle.solution() ).solve(), puzzle.name() );
+			if ( solved && !puzzle.solution().isEmpty() )
+				assertEquals( new Board( puzzle.solution() ).toSudokuString( "" ), session.board().toSudokuString( "" ));
+		}
+		assertEquals( session.metrics().solves(), session.metrics().solved() );
+	}
+
+	@Test
+	public void testReuse() throws ParseException {
+		SolveSession session = new SolveSession();
+		assertThrows( IllegalStateException.class, session::solve );
+		assertTrue( session.reset( SINGLES, SINGLES_SOLUTION ).solve() );
+		int iterations = session.iterations();
+		assertTrue( session.reset( ForcingChainsTest.DIABOLICAL, ForcingChainsTest.SOLUTION ).solve() );
+		assertTrue( session.reset( SINGLES ).solve() );
+		assertEquals( iterations, session.iterations() );
+		assertEquals( 3, session.metrics().solves() );
+		assertThrows( IllegalStateException.class, session::solve );
+		assertThrows( ParseException.class, () -> session.reset( "x" ));
+		assertThrows( IllegalStateException.class, session::solve );
+	}
+
+	@Test
+	public void testDeadline() throws ParseException {
+		SolveSession session = new SolveSession();
+		assertFalse( session.reset( ForcingChainsTest.DIABOLICAL ).deadline( System.nanoTime() ).solve() );
+		assertTrue( session.expired() );
+		assertTrue( session.reset( ForcingChainsTest.DIABOLICAL ).solve() );
+		assertFalse( session.expired() );
+		List<String> used = session.rulesUsed();
+		assertEquals( "LegalCandidates", used.get( 0 ));
+		assertTrue( used.contains( "SingleCandidates" ), used.toString() );
+	}
+
+	@Test
+	public void testFailureTrace( @TempDir Path dir ) throws Exception {
+		String previous = System.setProperty( SolveTrace.DIR_PROPERTY, dir.toString() );
+		try {
+			// A failure in find or in update dumps the trace of the solve once.
+			for ( boolean inFind : new boolean[] { true, false } ) {
+				SolveSession session = new SolveSession( new FindUpdateRule[] { new LegalCandidates(), new FailingRule( inFind ) } );
+				session.reset( SINGLES, SINGLES_SOLUTION );
+				RuntimeException e = assertThrows( RuntimeException.class, session::solve );
+				assertEquals( inFind ? "find" : "update", e.getMessage() );
+				List<String> lines = SolveTrace.read( dir.resolve( "solve-" + session.solveId + SolveTrace.SUFFIX )).toLines();
+				// The ring of the thread also holds earlier solves.
+				lines = lines.subList( lines.indexOf( "Solve " + session.solveId + " start" ), lines.size() );
+				assertEquals( 1, lines.stream().filter( line -> line.startsWith( "Solve was not successful" )).count() );
+			}
+		} finally {
+			if ( null == previous ) System.clearProperty( SolveTrace.DIR_PROPERTY );
+			else System.setProperty( SolveTrace.DIR_PROPERTY, previous );
+		}
+	}
+
+	/** Fails every find, or every update of a finding. */
+	static class FailingRule implements FindUpdateRule {
+		final boolean inFind;
+
+		FailingRule( boolean inFind ) {
+			this.inFind = inFind;
+		}
+
+		@Override
+		public List<int[]> find( Board board, Candidates candidates ) {
+			if ( inFind ) throw new IllegalStateException( "find" );
+			return List.of( new int[] { 0 } );
+		}
+
+		@Override
+		public int update( Board board, Board solution, Candidates candidates, List<int[]> encs, EventSink sink ) {
+			throw new IllegalArgumentException( "update" );
+		}
+
+		@Override
+		public String encodingToString( int[] enc ) {
+			return "";
+		}
+
+		@Override
+		public String ruleName() {
+			return "FailingRule";
+		}
+	}
+
+	@Test
+	public void testNoAllocation() throws ParseException {
+		SolveSession session = new SolveSession();
+		for ( int solvei = 0; solvei < 1000; solvei++ )
+			assertTrue( session.reset( SINGLES, SINGLES_SOLUTION ).solve() );
+		int solves = 1000;
+		long startBytes = MetricsRegistry.allocatedBytes();
+		for ( int solvei = 0; solvei < solves; solvei++ )
+			session.reset( SINGLES, SINGLES_SOLUTION ).solve();
+		long bytes = MetricsRegistry.allocatedBytes() - startBytes;
+		assertEquals( 0, bytes / solves, "bytes per singles solve" );
+		assertEquals( 0, session.metrics().rule( "NakedSubsets2" ).invocations() );
+
+		// The same through SudokuSolver.solve, which reports nothing to EventSink.none().
+		for ( int solvei = 0; solvei < solves; solvei++ )
+			assertTrue( SudokuSolver.solve( SINGLES, SINGLES_SOLUTION, null, EventSink.none() ));
+		startBytes = MetricsRegistry.allocatedBytes();
+		for ( int solvei = 0; solvei < solves; solvei++ )
+			SudokuSolver.solve( SINGLES, SINGLES_SOLUTION, null, EventSink.none() );
+		bytes = MetricsRegistry.allocatedBytes() - startBytes;
+		assertEquals( 0, bytes / solves, "bytes per SudokuSolver singles solve" );
+	}
+}
@@ -0,0 +1,105 @@
+package info.danbecker.ss;
+
+import info.danbecker.ss.Candidates.Action;
+import info.danbecker.ss.rules.ForcingChainsTest;
+import info.danbecker.ss.sink.EventSink;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.List;
+
+import static info.danbecker.ss.Board.ROWCOL;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SolveTraceTest {
+	@Test
+	public void testRing() {
+		SolveTrace trace = new SolveTrace( 5 );
+		assertEquals( 8, trace.capacity() );
+		assertEquals( 0, trace.size() );
+		for ( int iteration = 0; iteration < 10; iteration++ )
+			trace.rule( 3, 2, iteration );
+		assertEquals( 10, trace.count() );
+		assertEquals( 8, trace.size() );
+		long[] records = trace.toArray();
+		assertEquals( 2, SolveTrace.ref( records[ 0 ] ));
+		assertEquals( 9, SolveTrace.ref( records[ 7 ] ));
+		assertEquals( SolveTrace.RULE, SolveTrace.type( records[ 7 ] ));
+		assertEquals( 3, SolveTrace.ruleId( records[ 7 ] ));
+		assertEquals( 2, SolveTrace.cell( records[ 7 ] ));
+		trace.clear();
+		assertEquals( 0, trace.size() );
+		assertThrows( IllegalArgumentException.class, () -> new SolveTrace( 0 ));
+	}
+
+	@Test
+	public void testCandidates() throws ParseException {
+		int ruleId = Findings.ruleId( "SolveTraceTest" );
+		Candidates candidates = new Candidates( new Board( TestUtils.EMPTY ));
+		SolveTrace trace = new SolveTrace( 16 );
+		candidates.setTrace( trace );
+		trace.start( 7 );
+		trace.rule( ruleId, 1, 4 );
+		candidates.removeCandidate( ROWCOL[2][3], 5 );
+		candidates.setOccupied( ROWCOL[8][8], 9 );
+		new Candidates( candidates ).removeCandidate( ROWCOL[0][0], 1 );
+		candidates.setTrace( null );
+		candidates.removeCandidate( ROWCOL[0][0], 1 );
+
+		long[] records = trace.toArray();
+		assertEquals( 4, records.length );
+		assertEquals( SolveTrace.START, SolveTrace.type( records[ 0 ] ));
+		assertEquals( 7, SolveTrace.ref( records[ 0 ] ));
+		long removed = records[ 2 ];
+		assertEquals( SolveTrace.STEP, SolveTrace.type( removed ));
+		assertEquals( Action.REMOVE, SolveTrace.action( removed ));
+		assertEquals( CellSet.index( ROWCOL[2][3] ), SolveTrace.cell( removed ));
+		assertEquals( 1 << 4, SolveTrace.digits( removed ));
+		assertEquals( ruleId, SolveTrace.ruleId( removed ));
+		assertEquals( 4, SolveTrace.ref( removed ));
+		long placed = records[ 3 ];
+		assertEquals( Action.OCCUPY, SolveTrace.action( placed ));
+		assertEquals( 80, SolveTrace.cell( placed ));
+		assertEquals( 1 << 8, SolveTrace.digits( placed ));
+	}
+
+	@Test
+	public void testDump() throws Exception {
+		int ruleId = Findings.ruleId( "SolveTraceTest" );
+		SolveTrace trace = new SolveTrace( 4 );
+		trace.start( 1 );
+		trace.rule( ruleId, 5, 2 );
+		trace.changed( 12, 0b1_1001_0010, 0b1_0000_0010, 0 );
+		trace.changed( 13, 0b0_0000_0100, 0, 3 );
+		trace.end( true, 3 );
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		trace.dump( bytes );
+		SolveTrace.Dump dump = SolveTrace.read( new ByteArrayInputStream( bytes.toByteArray() ));
+		assertEquals( 5, dump.count() );
+		assertEquals( 1, dump.dropped() );
+		assertEquals( "SolveTraceTest", dump.ruleNames().get( ruleId ));
+		assertEquals( List.of( "... 1 earlier records dropped",
+			"i2.5 Rule SolveTraceTest",
+			"SolveTraceTest removes digits {58} at [1,3]",
+			"SolveTraceTest places digit 3 at [1,4]",
+			"Solve was successful after 3 iterations" ), dump.toLines() );
+
+		assertThrows( java.io.IOException.class,
+			() -> SolveTrace.read( new ByteArrayInputStream( new byte[] { 1, 2, 3, 4 } )));
+	}
+
+	@Test
+	public void testSolve( @TempDir Path dir ) throws Exception {
+		assertTrue( SudokuSolver.solve( ForcingChainsTest.DIABOLICAL, ForcingChainsTest.SOLUTION, null, EventSink.none() ));
+		SolveTrace.Dump dump = SolveTrace.read( SolveTrace.forThread().dump( dir.resolve( "solve" + SolveTrace.SUFFIX )));
+		List<String> lines = dump.toLines();
+		assertEquals( "Solve was successful after", lines.get( lines.size() - 1 ).substring( 0, 26 ));
+		assertTrue( lines.stream().anyMatch( line -> line.contains( " places digit " )));
+		assertTrue( lines.stream().anyMatch( line -> line.startsWith( "i0.1 Rule " )));
+	}
+}
@@ -1,12 +1,22 @@
 package info.danbecker.ss;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import info.danbecker.ss.rules.FindUpdateRule;
 import org.json.JSONObject;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 public class SudokuSolverTest {
 	@BeforeEach
 	public void setup() {
@@ -27,4 +37,18 @@ public class SudokuSolverTest {
 		assertTrue( null != jsonObjectByName );
 		//System.out.println("jsonObjectByName=" + jsonObjectByName);
 	}
+
+	@Test
+	public void benchmarkRuleParams() throws Exception {
+		// The JMH sources build only in the jmh profile, so read the rule param list from the source.
+		String source = Files.readString( Path.of( "src/jmh/java/info/danbecker/ss/bench/RuleBenchmark.java" ));
+		Matcher param = Pattern.compile( "@Param\\(\\{([^}]*)}\\)\\s*public String rule;" ).matcher( source );
+		assertTrue( param.find(), "RuleBenchmark rule param" );
+		List<String> params = new ArrayList<>();
+		Matcher name = Pattern.compile( "\"([^\"]*)\"" ).matcher( param.group( 1 ));
+		while ( name.find() )
+			params.add( name.group( 1 ));
+		List<String> ruleNames = Arrays.stream( SudokuSolver.defaultRules() ).map( FindUpdateRule::ruleName ).toList();
+		assertEquals( ruleNames, params, "RuleBenchmark rule params should be the default rules" );
+	}
 }
\ No newline at end of file
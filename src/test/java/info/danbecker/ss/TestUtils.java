@@ -13,6 +13,9 @@ import static org.junit.jupiter.api.Assertions.*;
  * Utilities that can be shared by all unit tests.
  */
 public class TestUtils {
+	/** A board with no entries. */
+	public static final String EMPTY = ".........-.........-.........-.........-.........-.........-.........-.........-.........";
+
 	/**
 	 * Runs a given test case.
 	 *
@@ -18,13 +18,69 @@ public class UtilsTest {
 		
 	@Test
 	public void testCombos() {
-		for( int subsetSize = 3; subsetSize >= 1; subsetSize-- ) {
-			List<int[]> combinations = Utils.comboGenerate(DIGITS, subsetSize);
+		for( int r = Utils.MIN_COMBO; r <= Utils.MAX_COMBO; r++ ) {
 			// Combinatorics says C(n,r) = n! / r! * (n-r)!
-			int setSize = Utils.factorial( DIGITS ) / (Utils.factorial( subsetSize ) * Utils.factorial(DIGITS - subsetSize));
-			assertEquals( setSize, combinations.size());
-			// Note combos are 0 based
+			for ( int n = 0; n <= DIGITS; n++ ) {
+				int setSize = n < r ? 0 : Utils.factorial( n ) / (Utils.factorial( r ) * Utils.factorial( n - r ));
+				assertEquals( setSize, Utils.comboCount( n, r ));
+			}
+			// Same order as the subset iterator over all digits, so each prefix is the combos of the low digits.
+			int i = 0;
+			for ( int sub = Utils.firstSubset( 0x1FF, r ); 0 != sub; sub = Utils.nextSubset( 0x1FF, sub ), i++ ) {
+				assertEquals( sub, Utils.comboMask( r, i ));
+				assertEquals( Utils.maskToCombo( sub ), Utils.comboPacked( r, i ));
+			}
+			assertEquals( Utils.comboCount( DIGITS, r ), i );
+			for ( int n = r; n < DIGITS; n++ ) {
+				assertTrue( Utils.comboMask( r, Utils.comboCount( n, r ) - 1 ) < 1 << n );
+				assertTrue( Utils.comboMask( r, Utils.comboCount( n, r )) >= 1 << n );
+			}
 		}
+		// {0,4,5} follows the 10 triples of 5 digits and the 6 pairs of 4 digits with 5.
+		assertEquals( 0b110001, Utils.comboMask( 3, 16 ));
+		assertEquals( 156, Utils.comboPacked( 3, 16 ));
+		assertThrows( IllegalArgumentException.class, () -> Utils.comboMask( 9, 0 ));
+		assertThrows( IllegalArgumentException.class, () -> Utils.comboPacked( 0, 0 ));
+	}
+
+	@Test
+	public void testComboMasks() {
+		assertEquals( 156, Utils.maskToCombo( 0b110001 ));
+		assertEquals( 0b110001, Utils.comboToMask( 156 ));
+		int[] indexes = new int[ DIGITS ];
+		// Bits {1,4,6,8}
+		assertEquals( 4, Utils.bitIndexes( 0b101010010, indexes ));
+		assertArrayEquals( new int[] { 1, 4, 6, 8 }, Arrays.copyOf( indexes, 4 ));
+		assertEquals( 0b001010000, Utils.spread( 0b0110, indexes ));
+		// Spread pairs of 4 elements match the subset iterator of their mask.
+		int i = 0;
+		for ( int sub = Utils.firstSubset( 0b101010010, 2 ); 0 != sub; sub = Utils.nextSubset( 0b101010010, sub ), i++ )
+			assertEquals( sub, Utils.spread( Utils.comboMask( 2, i ), indexes ));
+		assertEquals( Utils.comboCount( 4, 2 ), i );
+	}
+
+	@Test
+	public void testSubsetIterator() {
+		// Pairs of {1,4,6,8}
+		int mask = 0b101010010;
+		List<Integer> pairs = new ArrayList<>();
+		for ( int sub = Utils.firstSubset( mask, 2 ); 0 != sub; sub = Utils.nextSubset( mask, sub ))
+			pairs.add( sub );
+		assertEquals( List.of( 0b000010010, 0b001000010, 0b001010000, 0b100000010, 0b100010000, 0b101000000 ), pairs );
+
+		// Counts match C(n,r) for every r of the mask bits.
+		for ( int r = 1; r <= 4; r++ ) {
+			int count = 0;
+			for ( int sub = Utils.firstSubset( mask, r ); 0 != sub; sub = Utils.nextSubset( mask, sub )) {
+				assertEquals( r, Integer.bitCount( sub ));
+				assertEquals( sub, sub & mask );
+				count++;
+			}
+			assertEquals( Utils.factorial( 4 ) / (Utils.factorial( r ) * Utils.factorial( 4 - r )), count );
+		}
+		assertEquals( 0, Utils.firstSubset( mask, 5 ));
+		assertEquals( 0, Utils.firstSubset( mask, 0 ));
+		assertEquals( 0, Utils.firstSubset( 0, 1 ));
 	}
 
 	@Test
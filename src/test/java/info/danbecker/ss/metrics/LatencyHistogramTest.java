@@ -0,0 +1,58 @@
+package info.danbecker.ss.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+	@Test
+	public void testBuckets() {
+		// Every value falls in a bucket whose upper bound is at least the value and within 1/16.
+		long[] values = { 0, 1, 15, 16, 17, 31, 32, 1000, 123_456_789L, Long.MAX_VALUE };
+		int previous = -1;
+		for ( long value : values ) {
+			int bucketi = LatencyHistogram.bucket( value );
+			assertTrue( bucketi >= 0 && bucketi < LatencyHistogram.BUCKETS );
+			assertTrue( bucketi >= previous );
+			previous = bucketi;
+			long upper = LatencyHistogram.bucketUpper( bucketi );
+			assertTrue( upper >= value );
+			assertTrue( upper - value <= value / LatencyHistogram.SUB_BUCKETS, "value=" + value );
+		}
+		assertEquals( LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucket( Long.MAX_VALUE ));
+	}
+
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals( 0, histogram.p50() );
+		for ( long nanos = 1; nanos <= 1000; nanos++ )
+			histogram.record( nanos * 1000 );
+		assertEquals( 1000, histogram.count() );
+		assertEquals( 1_000_000, histogram.max() );
+		assertEquals( 500_500_000L, histogram.total() );
+		assertEquals( 500_000, histogram.p50(), 500_000 / 16 );
+		assertEquals( 990_000, histogram.p99(), 990_000 / 16 );
+		assertEquals( histogram.max(), histogram.percentile( 1.0 ));
+		assertThrows( IllegalArgumentException.class, () -> histogram.percentile( 1.5 ));
+
+		LatencyHistogram other = new LatencyHistogram();
+		other.record( 5_000_000 );
+		histogram.merge( other );
+		assertEquals( 1001, histogram.count() );
+		assertEquals( 5_000_000, histogram.max() );
+		histogram.clear();
+		assertEquals( 0, histogram.count() );
+		assertEquals( 0, histogram.max() );
+		// Merge and clear keep to the buckets in use.
+		histogram.record( 3 );
+		other.clear();
+		other.record( 1 );
+		histogram.merge( other );
+		assertEquals( 1, histogram.percentile( 0.5 ));
+		assertEquals( 3, histogram.p99() );
+		histogram.clear();
+		histogram.record( 7 );
+		assertEquals( 7, histogram.percentile( 0.01 ));
+	}
+}
@@ -0,0 +1,84 @@
+package info.danbecker.ss.metrics;
+
+import info.danbecker.ss.SudokuSolver;
+import info.danbecker.ss.rules.ForcingChainsTest;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.text.ParseException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsRegistryTest {
+	@Test
+	public void testRecordMerge() {
+		MetricsRegistry registry = new MetricsRegistry();
+		RuleMetrics rule = registry.rule( "A" );
+		assertSame( rule, registry.rule( "A" ));
+		rule.record( 2000, 100, 0, 1000, 0, 0 );
+		rule.record( 4000, 300, 2, 3000, 50, 5 );
+		assertEquals( 2, rule.invocations() );
+		assertEquals( 1, rule.hits() );
+		assertEquals( 2, rule.findings() );
+		assertEquals( 5, rule.eliminations() );
+		assertEquals( 400, rule.findBytes() );
+		assertEquals( 50, rule.updateBytes() );
+		assertEquals( 225, rule.bytesPerCall() );
+		assertEquals( 10_000, rule.totalNanos() );
+		registry.solve( true );
+
+		MetricsRegistry batch = new MetricsRegistry();
+		batch.rule( "B" ).record( 10, -1, 1, 10, -1, 1 );
+		batch.merge( registry );
+		batch.merge( registry );
+		assertEquals( 2, batch.solves() );
+		assertEquals( 2, batch.solved() );
+		List<RuleMetrics> rules = batch.rules();
+		assertEquals( List.of( "B", "A" ), rules.stream().map( RuleMetrics::ruleName ).toList() );
+		assertEquals( 0, rules.get( 0 ).findBytes() );
+		assertEquals( 4, batch.rule( "A" ).invocations() );
+		assertEquals( 10, batch.rule( "A" ).eliminations() );
+		assertEquals( 4000, batch.rule( "A" ).findLatency().max() );
+	}
+
+	@Test
+	public void testExports() {
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.rule( "A" ).record( 2000, 100, 3, 1000, 0, 4 );
+		registry.solve( false );
+
+		JSONObject json = registry.toJSON();
+		assertEquals( 1, json.getLong( "solves" ));
+		assertEquals( 0, json.getLong( "solved" ));
+		JSONObject rule = json.getJSONArray( "rules" ).getJSONObject( 0 );
+		assertEquals( "A", rule.getString( "rule" ));
+		assertEquals( 4, rule.getLong( "eliminations" ));
+		assertEquals( 2000, rule.getJSONObject( "find" ).getLong( "maxNs" ));
+
+		String[] lines = registry.toCSV().split( "\n" );
+		assertEquals( 2, lines.length );
+		assertEquals( String.join( ",", MetricsRegistry.CSV_COLUMNS ), lines[ 0 ] );
+		String[] values = lines[ 1 ].split( "," );
+		assertEquals( MetricsRegistry.CSV_COLUMNS.length, values.length );
+		assertEquals( "A", values[ 0 ] );
+		assertEquals( "4", values[ 4 ] );
+	}
+
+	@Test
+	public void testSolveBatch() throws ParseException {
+		MetricsRegistry batch = new MetricsRegistry();
+		assertTrue( SudokuSolver.solve( ForcingChainsTest.DIABOLICAL, ForcingChainsTest.SOLUTION, batch ));
+		assertTrue( SudokuSolver.solve( ForcingChainsTest.DIABOLICAL, null, batch ));
+		assertEquals( 2, batch.solves() );
+		assertEquals( 2, batch.solved() );
+		assertEquals( SudokuSolver.defaultRules().length, batch.rules().size() );
+		RuleMetrics legal = batch.rule( "LegalCandidates" );
+		assertTrue( legal.invocations() > 0 );
+		assertEquals( legal.invocations(), legal.findLatency().count() );
+		long eliminations = batch.rules().stream().mapToLong( RuleMetrics::eliminations ).sum();
+		assertTrue( eliminations > 0 );
+		if ( MetricsRegistry.allocatedBytes() >= 0 )
+			assertTrue( legal.findBytes() + legal.updateBytes() > 0 );
+	}
+}
@@ -0,0 +1,61 @@
+package info.danbecker.ss.metrics;
+
+import info.danbecker.ss.SudokuSolver;
+import info.danbecker.ss.rules.ForcingChainsTest;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SolveEventTest {
+	@Test
+	public void testSolveEvents() throws Exception {
+		MetricsRegistry metrics = new MetricsRegistry();
+		Path path = Files.createTempFile( "SolveEventTest", ".jfr" );
+		try ( Recording recording = new Recording() ) {
+			recording.enable( SolveEvent.NAME );
+			recording.enable( SolveIterationEvent.NAME ).withThreshold( Duration.ZERO );
+			recording.enable( RuleFindEvent.NAME ).withThreshold( Duration.ZERO );
+			recording.enable( RuleUpdateEvent.NAME ).withThreshold( Duration.ZERO );
+			recording.start();
+			assertTrue( SudokuSolver.solve( ForcingChainsTest.DIABOLICAL, ForcingChainsTest.SOLUTION, metrics ));
+			recording.stop();
+			recording.dump( path );
+		}
+		List<RecordedEvent> events = RecordingFile.readAllEvents( path );
+		Files.delete( path );
+
+		List<RecordedEvent> solves = events.stream().filter( e -> SolveEvent.NAME.equals( e.getEventType().getName() )).toList();
+		assertEquals( 1, solves.size() );
+		RecordedEvent solve = solves.get( 0 );
+		assertTrue( solve.getBoolean( "solved" ));
+		assertEquals( 81, solve.getInt( "entries" ));
+		assertEquals( ForcingChainsTest.DIABOLICAL, solve.getString( "puzzle" ));
+		long solveId = solve.getLong( "solveId" );
+
+		long finds = 0, updates = 0, iterations = 0, eliminations = 0;
+		for ( RecordedEvent event : events ) {
+			String name = event.getEventType().getName();
+			if ( RuleFindEvent.NAME.equals( name ) || RuleUpdateEvent.NAME.equals( name ) || SolveIterationEvent.NAME.equals( name ))
+				assertEquals( solveId, event.getLong( "solveId" ));
+			if ( RuleFindEvent.NAME.equals( name )) finds++;
+			if ( RuleUpdateEvent.NAME.equals( name )) {
+				updates++;
+				eliminations += event.getInt( "eliminations" );
+			}
+			if ( SolveIterationEvent.NAME.equals( name )) iterations++;
+		}
+		long invocations = metrics.rules().stream().mapToLong( RuleMetrics::invocations ).sum();
+		assertEquals( invocations, finds );
+		assertEquals( invocations, updates );
+		assertEquals( metrics.rules().stream().mapToLong( RuleMetrics::eliminations ).sum(), eliminations );
+		assertEquals( solve.getInt( "iterations" ), iterations );
+	}
+}
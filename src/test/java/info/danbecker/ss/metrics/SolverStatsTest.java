@@ -0,0 +1,104 @@
+package info.danbecker.ss.metrics;
+
+import info.danbecker.ss.SudokuSolver;
+import info.danbecker.ss.rules.ForcingChainsTest;
+import info.danbecker.ss.sink.EventSink;
+import org.junit.jupiter.api.Test;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.text.ParseException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SolverStatsTest {
+	@Test
+	public void testCounts() throws Exception {
+		SolverStats stats = SolverStats.instance();
+		assertSame( stats, SolverStats.instance() );
+		long solved = stats.getSolved();
+		long failed = stats.getFailed();
+		assertTrue( SudokuSolver.solve( ForcingChainsTest.DIABOLICAL, ForcingChainsTest.SOLUTION, null, EventSink.none() ));
+		assertThrows( ParseException.class, () -> SudokuSolver.solve( "x", null, null, EventSink.none() ));
+		assertEquals( solved + 1, stats.getSolved() );
+		assertEquals( failed + 1, stats.getFailed() );
+		assertEquals( 0, stats.getInFlight() );
+		assertTrue( 0 < stats.getPuzzlesPerSecond() );
+		assertEquals( SudokuSolver.defaultRules().length, stats.getRuleNames().length );
+		assertTrue( stats.getRuleHitRates().get( "SingleCandidates" ) > 0 );
+		assertTrue( stats.getRuleMeanLatencyMicros().get( "LegalCandidates" ) > 0 );
+
+		stats.queued( 3 );
+		stats.queued( -1 );
+		assertEquals( 2, stats.getQueueDepth() );
+		stats.queued( -2 );
+	}
+
+	@Test
+	public void testStripes() throws Exception {
+		SolverStats stats = SolverStats.instance();
+		long invocations = stats.rules().rule( "LegalCandidates" ).invocations();
+		SudokuSolver.solve( ForcingChainsTest.DIABOLICAL, ForcingChainsTest.SOLUTION, null, EventSink.none() );
+		long oneSolve = stats.rules().rule( "LegalCandidates" ).invocations() - invocations;
+		assertTrue( 0 < oneSolve );
+		// Solves of other threads merge into other stripes, and reads sum them all.
+		Thread[] threads = new Thread[ 3 ];
+		for ( int threadi = 0; threadi < threads.length; threadi++ ) {
+			threads[ threadi ] = new Thread( () -> {
+				try {
+					SudokuSolver.solve( ForcingChainsTest.DIABOLICAL, ForcingChainsTest.SOLUTION, null, EventSink.none() );
+				} catch ( ParseException e ) {
+					throw new IllegalStateException( e );
+				}
+			});
+			threads[ threadi ].start();
+		}
+		for ( Thread thread : threads )
+			thread.join();
+		assertEquals( invocations + 4 * oneSolve, stats.rules().rule( "LegalCandidates" ).invocations() );
+	}
+
+	@Test
+	public void testRuleEnabled() throws Exception {
+		SolverStats stats = SolverStats.instance();
+		SudokuSolver.solve( ForcingChainsTest.DIABOLICAL, ForcingChainsTest.SOLUTION, null, EventSink.none() );
+		assertThrows( IllegalArgumentException.class, () -> stats.setRuleEnabled( "NoSuchRule", false ));
+		stats.setRuleEnabled( "Skyscraper", false );
+		try {
+			assertEquals( "[Skyscraper]", Arrays.toString( stats.getDisabledRules() ));
+			assertFalse( stats.ruleEnabled( "Skyscraper" ));
+			long invocations = stats.rules().rule( "Skyscraper" ).invocations();
+			SudokuSolver.solve( ForcingChainsTest.DIABOLICAL, ForcingChainsTest.SOLUTION, null, EventSink.none() );
+			assertEquals( invocations, stats.rules().rule( "Skyscraper" ).invocations() );
+		} finally {
+			stats.setRuleEnabled( "Skyscraper", true );
+		}
+		assertEquals( 0, stats.getDisabledRules().length );
+	}
+
+	@Test
+	public void testMBean() throws Exception {
+		SolverStats stats = SolverStats.instance();
+		SudokuSolver.solve( ForcingChainsTest.DIABOLICAL, ForcingChainsTest.SOLUTION, null, EventSink.none() );
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName( SolverStats.OBJECT_NAME );
+		assertTrue( server.isRegistered( name ));
+		assertEquals( stats.getSolved(), server.getAttribute( name, "Solved" ));
+		TabularData rates = (TabularData) server.getAttribute( name, "RuleHitRates" );
+		assertEquals( stats.getRuleHitRates().size(), rates.size() );
+
+		String level = stats.getLogLevel();
+		server.setAttribute( name, new Attribute( "LogLevel", "WARNING" ));
+		server.invoke( name, "setRuleEnabled", new Object[] { "Skyscraper", true },
+			new String[] { String.class.getName(), boolean.class.getName() });
+		assertEquals( "WARNING", stats.getLogLevel() );
+		assertSame( EventSink.none(), stats.sink( EventSink.console() ));
+		stats.setLogLevel( "FINE" );
+		assertSame( EventSink.console(), stats.sink( EventSink.console() ));
+		stats.setLogLevel( level );
+	}
+}
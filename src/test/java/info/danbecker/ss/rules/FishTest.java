@@ -0,0 +1,301 @@
+package info.danbecker.ss.rules;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+
+import static info.danbecker.ss.TestUtils.EMPTY;
+import static info.danbecker.ss.Board.ROWCOL;
+import static info.danbecker.ss.Utils.COLS;
+import static org.junit.jupiter.api.Assertions.*;
+
+import info.danbecker.ss.Board;
+import info.danbecker.ss.Candidates;
+
+import java.text.ParseException;
+import java.util.List;
+
+public class FishTest {
+	// https://www.sudokuoftheday.com/techniques/x-wings
+	// This puzzle appears to have additional candidates removed
+	public static String XWINGS =
+	"9...5173.-1.73982.5-5...76.91-81.72435.-2..165..7-.75983.12-.21537...-758649123-39.81257.";
+
+	// https://www.sudokuoftheday.com/dailypuzzles/2023-01-03/diabolical/solver
+	public static String XWINGS_20230103=
+	"18.2..6.3-924376851-..6.1..42-.6892351.-21....369-..9.6128.-.9268.135-851.32..6-6.3195.28";
+
+	public static String XWINGS_20230108_DIGIT7_ROWS26_COLS78 =
+	"75.8.....-8...7.2.5-..39.54..-..8547..6-..5.81...-1..39.5..-5824.93..-..1.5.824-.....8.59";
+
+	// https://www.thonky.com/sudoku/sword-fish
+	// Candidates match
+	public static String SWORDFISH_TH_D8ROWS037 = """
+.5..3.6.2
+642895317
+.37.2.8..
+.235.47..
+4.6...52.
+571962483
+214...9..
+76.1.9234
+3..24.17.
+""";
+
+	@BeforeEach
+	public void setup() {
+	}
+
+	@Test
+	public void testBasics() {
+		Exception e = assertThrows(IllegalArgumentException.class, () -> new Fish(1));
+		assertTrue(e.getMessage().contains("size 1"));
+		e = assertThrows(IllegalArgumentException.class, () -> new Fish(5, true));
+		assertTrue(e.getMessage().contains("size 5"));
+
+		assertEquals("Fish2", new Fish(2).ruleName());
+		assertEquals("Fish4", new Fish(4).ruleName());
+		assertEquals("FinnedFish3", new Fish(3, true).ruleName());
+		assertEquals("037", Fish.unitsToString(0b10001001));
+	}
+
+	@Test
+	public void testXWingRows() throws ParseException {
+		Board board = new Board(XWINGS);
+		assertTrue(board.legal());
+		Candidates candidates = new Candidates(board);
+		(new LegalCandidates()).update(board, null, candidates, null);
+
+		FindUpdateRule rule = new Fish(2);
+		List<int[]> encs = rule.find(board, candidates);
+		assertNotNull(encs);
+		assertEquals(2, encs.size());
+		// Digit 6 base rows 38 cover cols 28
+		int[] enc = encs.get(0);
+		assertEquals(6, enc[0]);
+		assertEquals(0, enc[1]);
+		assertEquals(2, enc[2]);
+		assertEquals("38", Fish.unitsToString(enc[3]));
+		assertEquals("28", Fish.unitsToString(enc[4]));
+		assertEquals(0, enc[6]);
+		// Digit 6 base cols 06 cover rows 56
+		enc = encs.get(1);
+		assertEquals(6, enc[0]);
+		assertEquals(1, enc[1]);
+		assertEquals("06", Fish.unitsToString(enc[3]));
+		assertEquals("56", Fish.unitsToString(enc[4]));
+		String encString = rule.encodingToString(enc);
+		assertTrue(encString.contains("digit 6"));
+		assertTrue(encString.contains("X-Wing"));
+		assertTrue(encString.contains("base cols 06"));
+
+		// Update test
+		int prevEntries = candidates.getAllOccupiedCount();
+		int prevCandidates = candidates.getAllCount();
+		int updates = rule.update(board, null, candidates, encs);
+		assertTrue(0 < updates);
+		assertEquals(prevEntries, candidates.getAllOccupiedCount());
+		assertEquals(prevCandidates, candidates.getAllCount() + updates);
+		assertEquals(0, rule.find(board, candidates).size());
+	}
+
+	@Test
+	public void testXWingCols() throws ParseException {
+		// Same as testXWingRows with rotated board
+		Board board = Board.rotateRight(new Board(XWINGS));
+		assertTrue(board.legal());
+		Candidates candidates = new Candidates(board);
+		(new LegalCandidates()).update(board, null, candidates, null);
+
+		FindUpdateRule rule = new Fish(2);
+		List<int[]> encs = rule.find(board, candidates);
+		assertEquals(2, encs.size());
+		// Digit 6 base rows 06 cover cols 23, digit 6 base cols 08 cover rows 28
+		assertEquals(0, encs.get(0)[1]);
+		assertEquals("06", Fish.unitsToString(encs.get(0)[3]));
+		assertEquals(1, encs.get(1)[1]);
+		assertEquals("28", Fish.unitsToString(encs.get(1)[4]));
+
+		int prevCandidates = candidates.getAllCount();
+		int updates = rule.update(board, null, candidates, encs);
+		assertEquals(prevCandidates, candidates.getAllCount() + updates);
+		assertEquals(0, rule.find(board, candidates).size());
+	}
+
+	@Test
+	public void test20230103() throws ParseException {
+		Board board = new Board(XWINGS_20230103);
+		assertTrue(board.legal());
+		Candidates candidates = new Candidates(board);
+		(new LegalCandidates()).update(board, null, candidates, null);
+
+		FindUpdateRule rule = new Fish(2);
+		List<int[]> encs = rule.find(board, candidates);
+		assertEquals(2, encs.size());
+		int prevEntries = candidates.getAllOccupiedCount();
+		int prevCandidates = candidates.getAllCount();
+		int updates = rule.update(board, null, candidates, encs);
+		assertEquals(prevEntries, candidates.getAllOccupiedCount());
+		assertEquals(prevCandidates, candidates.getAllCount() + updates);
+
+		// Same result rotated
+		board = Board.rotateLeft(new Board(XWINGS_20230103));
+		candidates = new Candidates(board);
+		(new LegalCandidates()).update(board, null, candidates, null);
+		encs = rule.find(board, candidates);
+		assertEquals(2, encs.size());
+		assertEquals(updates, rule.update(board, null, candidates, encs));
+	}
+
+	@Test
+	public void test20230108() throws ParseException {
+		Board board = new Board(XWINGS_20230108_DIGIT7_ROWS26_COLS78);
+		assertTrue(board.legal());
+		Candidates candidates = new Candidates(board);
+		(new LegalCandidates()).update(board, null, candidates, null);
+		// Need to update candidates to get it into the proper state
+		candidates.removeCandidates( ROWCOL[0][4], new int[]{1,6});
+		candidates.removeCandidates( ROWCOL[0][5], new int[]{6});
+		candidates.removeCandidates( ROWCOL[1][1], new int[]{9});
+		candidates.removeCandidates( ROWCOL[1][5], new int[]{6});
+		candidates.removeCandidates( ROWCOL[1][7], new int[]{1});
+		candidates.removeCandidates( ROWCOL[2][4], new int[]{2});
+		candidates.removeCandidates( ROWCOL[2][7], new int[]{1,6});
+		candidates.removeCandidates( ROWCOL[2][8], new int[]{1});
+		candidates.removeCandidates( ROWCOL[4][0], new int[]{2});
+		candidates.removeCandidates( ROWCOL[4][1], new int[]{2});
+		candidates.removeCandidates( ROWCOL[5][1], new int[]{2});
+		candidates.removeCandidates( ROWCOL[8][4], new int[]{1,6});
+
+		FindUpdateRule rule = new Fish(2);
+		List<int[]> encs = rule.find(board, candidates);
+		assertEquals(1, encs.size());
+		// Digit 7 base rows 26 cover cols 78
+		int[] enc = encs.get(0);
+		assertEquals(7, enc[0]);
+		assertEquals("26", Fish.unitsToString(enc[3]));
+		assertEquals("78", Fish.unitsToString(enc[4]));
+
+		int prevEntries = candidates.getAllOccupiedCount();
+		int prevCandidates = candidates.getAllCount();
+		int updates = rule.update(board, null, candidates, encs);
+		assertEquals(prevEntries, candidates.getAllOccupiedCount());
+		assertEquals(prevCandidates, candidates.getAllCount() + updates);
+	}
+
+	@Test
+	public void testSwordfish() throws ParseException {
+		Board board = new Board(SWORDFISH_TH_D8ROWS037);
+		assertTrue(board.legal());
+		Candidates candidates = new Candidates(board);
+		(new LegalCandidates()).update(board, null, candidates, null);
+
+		Fish rule = new Fish(3);
+		List<int[]> encs = rule.find(board, candidates);
+		// Digit 8 base rows 037, 3 extra candidates in cover cols.
+		// The complementary fish base cols 158 cover rows 468 has the same eliminations.
+		assertEquals(2, encs.size());
+		int[] enc = encs.get(0);
+		assertEquals(8, enc[0]);
+		assertEquals(0, enc[1]);
+		assertEquals(3, enc[2]);
+		assertEquals("037", Fish.unitsToString(enc[3]));
+		assertEquals(3, Fish.eliminations(enc).size());
+		assertTrue(rule.encodingToString(enc).contains("Swordfish"));
+
+		int prevEntries = candidates.getAllOccupiedCount();
+		int prevCandidates = candidates.getAllCount();
+		assertEquals(3, rule.update(board, null, candidates, encs));
+		assertEquals(prevEntries, candidates.getAllOccupiedCount());
+		assertEquals(prevCandidates, candidates.getAllCount() + 3);
+
+		// Rotated, base rows 037 become base cols 158
+		board = Board.rotateRight(new Board(SWORDFISH_TH_D8ROWS037));
+		candidates = new Candidates(board);
+		(new LegalCandidates()).update(board, null, candidates, null);
+		encs = rule.find(board, candidates);
+		assertEquals(2, encs.size());
+		assertEquals(8, encs.get(1)[0]);
+		assertEquals("158", Fish.unitsToString(encs.get(1)[3]));
+		assertEquals(1, encs.get(1)[1]);
+		assertEquals(3, rule.update(board, null, candidates, encs));
+	}
+
+	@Test
+	public void testJellyfish() throws ParseException {
+		// Digit 1 in rows 0,2,4,6 only in cols 0,3,5,7, no smaller fish.
+		Board board = new Board(EMPTY);
+		Candidates candidates = new Candidates(board);
+		keepRow(candidates, 1, 0, 0, 3);
+		keepRow(candidates, 1, 2, 3, 5);
+		keepRow(candidates, 1, 4, 5, 7);
+		keepRow(candidates, 1, 6, 0, 7);
+
+		assertEquals(0, new Fish(2).find(board, candidates).size());
+		assertEquals(0, new Fish(3).find(board, candidates).size());
+		Fish rule = new Fish(4);
+		List<int[]> encs = rule.find(board, candidates);
+		assertEquals(1, encs.size());
+		int[] enc = encs.get(0);
+		assertEquals("0246", Fish.unitsToString(enc[3]));
+		assertEquals("0357", Fish.unitsToString(enc[4]));
+		assertTrue(rule.encodingToString(enc).contains("Jellyfish"));
+		// Four cover cols in the five other rows.
+		assertEquals(20, rule.update(board, null, candidates, encs));
+	}
+
+	@Test
+	public void testFinned() throws ParseException {
+		// Digit 1 X-Wing on rows 1,4 cols 1,7 with a fin at [1,2].
+		Board board = new Board(EMPTY);
+		Candidates candidates = new Candidates(board);
+		keepRow(candidates, 1, 1, 1, 2, 7);
+		keepRow(candidates, 1, 4, 1, 7);
+
+		assertEquals(0, new Fish(2).find(board, candidates).size());
+		Fish rule = new Fish(2, true);
+		List<int[]> encs = rule.find(board, candidates);
+		assertEquals(1, encs.size());
+		int[] enc = encs.get(0);
+		assertEquals("14", Fish.unitsToString(enc[3]));
+		assertEquals("17", Fish.unitsToString(enc[4]));
+		assertEquals(0, enc[5]);
+		assertEquals(List.of(ROWCOL[1][2]), Fish.fins(enc));
+		// Only cover cells that see the fin.
+		assertEquals(List.of(ROWCOL[0][1], ROWCOL[2][1]), Fish.eliminations(enc));
+		assertTrue(rule.encodingToString(enc).contains("finned X-Wing"));
+		assertEquals(2, rule.update(board, null, candidates, encs));
+	}
+
+	@Test
+	public void testSashimi() throws ParseException {
+		// Digit 1 rows 1,4, where row 1 lacks col 1 and has a fin at [1,2].
+		Board board = new Board(EMPTY);
+		Candidates candidates = new Candidates(board);
+		keepRow(candidates, 1, 1, 2, 7);
+		keepRow(candidates, 1, 4, 1, 7);
+
+		Fish rule = new Fish(2, true);
+		List<int[]> encs = rule.find(board, candidates);
+		// Covers 17 with fin [1,2] and covers 27 with fin [4,1]
+		assertEquals(2, encs.size());
+		for (int[] enc : encs) {
+			assertEquals(1, enc[5]);
+			assertEquals(1, enc[6]);
+			assertTrue(rule.encodingToString(enc).contains("sashimi"));
+		}
+		assertEquals(List.of(ROWCOL[0][1], ROWCOL[2][1]), Fish.eliminations(encs.get(0)));
+		assertEquals(List.of(ROWCOL[3][2], ROWCOL[5][2]), Fish.eliminations(encs.get(1)));
+		assertEquals(4, rule.update(board, null, candidates, encs));
+	}
+
+	/** Removes the digit from the row except at the given cols. */
+	public static void keepRow(Candidates candidates, int digit, int rowi, int... cols) {
+		for (int coli = 0; coli < COLS; coli++) {
+			boolean keep = false;
+			for (int col : cols)
+				keep |= col == coli;
+			if (!keep)
+				candidates.removeCandidate(ROWCOL[rowi][coli], digit);
+		}
+	}
+}
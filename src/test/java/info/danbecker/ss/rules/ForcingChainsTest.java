@@ -0,0 +1,123 @@
+package info.danbecker.ss.rules;
+
+import info.danbecker.ss.Board;
+import info.danbecker.ss.Candidates;
+import info.danbecker.ss.tree.TranspositionTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.text.ParseException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import static info.danbecker.ss.Board.ROWCOL;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ForcingChainsTest {
+
+	@BeforeEach
+	public void setup() {
+	}
+
+	// 20221206-diabolical-15750, stated rules include "Forcing Chains"
+	public static String DIABOLICAL =
+		".....6...-..9.3....-7..9.26.1-6..52..4.-..2...8..-.5..61..9-5.12.7..4-....4.7..-...3.....";
+	public static String SOLUTION =
+		"315876492269134578784952631693528147142793856857461329531287964928645713476319285";
+
+	@Test
+	public void testCell() throws ParseException {
+		Board board = new Board(DIABOLICAL);
+		Board solution = new Board(SOLUTION);
+		Candidates candidates = new Candidates(board);
+		(new LegalCandidates()).update(board, null, candidates, null);
+
+		FindUpdateRule rule = new ForcingChains(ForcingChains.Mode.CELL, new TranspositionTable(1 << 20), Integer.MAX_VALUE);
+		List<int[]> encs = rule.find(board, candidates);
+		assertNotNull(encs);
+		assertTrue(0 < encs.size());
+		assertSolutionAgrees(solution, encs);
+
+		String encString = rule.encodingToString(encs.get(0));
+		assertTrue(encString.contains("forced by cell"));
+		int prevCount = candidates.getAllCount();
+		int updates = rule.update(board, solution, candidates, encs);
+		assertTrue(0 < updates);
+		assertTrue(candidates.getAllCount() < prevCount);
+	}
+
+	@Test
+	public void testUnitParallel() throws ParseException {
+		Board board = new Board(DIABOLICAL);
+		Board solution = new Board(SOLUTION);
+		Candidates candidates = new Candidates(board);
+		(new LegalCandidates()).update(board, null, candidates, null);
+
+		// Same findings sequential and parallel, and again from the table.
+		TranspositionTable table = new TranspositionTable(1 << 20);
+		List<int[]> sequential = new ForcingChains(ForcingChains.Mode.UNIT, null, Integer.MAX_VALUE).find(board, candidates);
+		List<int[]> parallel = new ForcingChains(ForcingChains.Mode.UNIT, table, 1).find(board, candidates);
+		assertTrue(0 < sequential.size());
+		assertEquals(sequential.size(), parallel.size());
+		for (int enci = 0; enci < sequential.size(); enci++)
+			assertArrayEquals(sequential.get(enci), parallel.get(enci));
+		assertSolutionAgrees(solution, parallel);
+		// A branch assumption repeats across row, col, and box choices.
+		assertTrue(0 < table.hits());
+
+		long hits = table.hits();
+		List<int[]> cached = new ForcingChains(ForcingChains.Mode.UNIT, table, Integer.MAX_VALUE).find(board, candidates);
+		assertEquals(sequential.size(), cached.size());
+		assertTrue(table.hits() > hits);
+		assertTrue(new ForcingChains(ForcingChains.Mode.UNIT).encodingToString(cached.get(0)).contains("forced by digit"));
+	}
+
+	@Test
+	public void testBusyExecutor() throws Exception {
+		Board board = new Board(DIABOLICAL);
+		Candidates candidates = new Candidates(board);
+		(new LegalCandidates()).update(board, null, candidates, null);
+		List<int[]> sequential = new ForcingChains(ForcingChains.Mode.UNIT, null, 1, null, 0).find(board, candidates);
+
+		// The only helper thread is held, so the finding thread follows every slice.
+		ExecutorService busy = Executors.newSingleThreadExecutor();
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			busy.execute(() -> {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			assertEncodings(sequential, new ForcingChains(ForcingChains.Mode.UNIT, null, 1, busy, 3).find(board, candidates));
+		} finally {
+			release.countDown();
+			busy.shutdown();
+		}
+		// Likewise with an executor that rejects all helpers.
+		assertEncodings(sequential, new ForcingChains(ForcingChains.Mode.UNIT, null, 1,
+			command -> { throw new RejectedExecutionException(); }, 3).find(board, candidates));
+		assertThrows(IllegalArgumentException.class, () -> new ForcingChains(ForcingChains.Mode.UNIT, null, 1, busy, -1));
+	}
+
+	protected static void assertEncodings(List<int[]> expected, List<int[]> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int enci = 0; enci < expected.size(); enci++)
+			assertArrayEquals(expected.get(enci), actual.get(enci));
+	}
+
+	/** Placements are the solution digit, removals are not. */
+	protected static void assertSolutionAgrees(Board solution, List<int[]> encs) {
+		for (int[] enc : encs) {
+			int solved = solution.get(ROWCOL[enc[2]][enc[3]]);
+			if (ForcingChains.PLACE == enc[0])
+				assertEquals(solved, enc[1]);
+			else
+				assertNotEquals(solved, enc[1]);
+		}
+	}
+}
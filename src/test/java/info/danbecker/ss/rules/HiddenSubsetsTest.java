@@ -5,6 +5,7 @@ import info.danbecker.ss.Utils;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 
+import static info.danbecker.ss.TestUtils.EMPTY;
 import static info.danbecker.ss.Board.ROWCOL;
 import static java.lang.String.format;
 
@@ -215,4 +216,26 @@ public class HiddenSubsetsTest {
 		 assertTrue( encStr.contains( "2 col" ));
 		 assertTrue( encStr.contains( "locs at [1,0],[8,0]" ));
 	 }
+
+	@Test
+	public void testHiddenQuad() throws ParseException {
+		assertThrows(IllegalArgumentException.class, () -> new HiddenSubsets(5));
+
+		// Col 4 digits 1234 only in rows 0,2,4,6.
+		Board board = new Board(EMPTY);
+		Candidates candidates = new Candidates(board);
+		for (int rowi : new int[]{1,3,5,7,8})
+			candidates.removeCandidates(ROWCOL[rowi][4], new int[]{1,2,3,4});
+
+		assertEquals(0, new HiddenSubsets(3).find(board, candidates).size());
+		FindUpdateRule rule = new HiddenSubsets(4);
+		List<int[]> encs = rule.find(board, candidates);
+		assertEquals(1, encs.size());
+		assertArrayEquals(new int[]{1234, 15, 35, 55, 75}, encs.get(0));
+		assertTrue(rule.encodingToString(encs.get(0)).contains("4 col locs"));
+
+		// Digits 56789 removed from the four cells.
+		assertEquals(20, rule.update(board, null, candidates, encs));
+		assertEquals(0, rule.find(board, candidates).size());
+	}
 }
\ No newline at end of file
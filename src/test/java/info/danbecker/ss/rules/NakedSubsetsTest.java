@@ -11,6 +11,7 @@ import java.text.ParseException;
 import java.util.Arrays;
 import java.util.List;
 
+import static info.danbecker.ss.TestUtils.EMPTY;
 import static info.danbecker.ss.Board.ROWCOL;
 import static info.danbecker.ss.Candidates.FULL_COMBI_MATCH;
 import static info.danbecker.ss.Candidates.NAKED;
@@ -135,4 +136,28 @@ public class NakedSubsetsTest {
 		assertTrue( encStr.contains( "2 row" ));
 		assertTrue( encStr.contains( "locs at [0,2],[0,8]" ));
 	}
+
+	@Test
+	public void testNakedQuad() throws ParseException {
+		assertThrows(IllegalArgumentException.class, () -> new NakedSubsets(5));
+
+		// Row 0 quad {12}{23}{34}{14}, each cell has only two of the four digits.
+		Board board = new Board(EMPTY);
+		Candidates candidates = new Candidates(board);
+		candidates.removeCandidates(ROWCOL[0][0], new int[]{3,4,5,6,7,8,9});
+		candidates.removeCandidates(ROWCOL[0][1], new int[]{1,4,5,6,7,8,9});
+		candidates.removeCandidates(ROWCOL[0][2], new int[]{1,2,5,6,7,8,9});
+		candidates.removeCandidates(ROWCOL[0][3], new int[]{2,3,5,6,7,8,9});
+
+		assertEquals(0, new NakedSubsets(3).find(board, candidates).size());
+		FindUpdateRule rule = new NakedSubsets(4);
+		List<int[]> encs = rule.find(board, candidates);
+		assertEquals(1, encs.size());
+		assertArrayEquals(new int[]{1234, 11, 12, 13, 14}, encs.get(0));
+		assertTrue(rule.encodingToString(encs.get(0)).contains("4 row locs"));
+
+		// Digits 1234 removed from the other 5 cells of row 0.
+		assertEquals(20, rule.update(board, null, candidates, encs));
+		assertEquals(0, rule.find(board, candidates).size());
+	}
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package info.danbecker.ss.rules;
+
+import info.danbecker.ss.Board;
+import info.danbecker.ss.Candidates;
+import info.danbecker.ss.tree.TranspositionTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.text.ParseException;
+import java.util.List;
+
+import static info.danbecker.ss.Board.ROWCOL;
+import static info.danbecker.ss.rules.ForcingChainsTest.DIABOLICAL;
+import static info.danbecker.ss.rules.ForcingChainsTest.SOLUTION;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NishioTest {
+
+	@BeforeEach
+	public void setup() {
+	}
+
+	@Test
+	public void testFindUpdate() throws ParseException {
+		Board board = new Board(DIABOLICAL);
+		Board solution = new Board(SOLUTION);
+		Candidates candidates = new Candidates(board);
+		(new LegalCandidates()).update(board, null, candidates, null);
+
+		TranspositionTable table = new TranspositionTable(1 << 20);
+		Nishio rule = new Nishio(table);
+		List<int[]> encs = rule.find(board, candidates);
+		assertNotNull(encs);
+		assertTrue(0 < encs.size());
+		assertEquals(0, rule.getPruned());
+		for (int[] enc : encs) {
+			assertEquals(3, enc.length);
+			assertNotEquals(solution.get(ROWCOL[enc[1]][enc[2]]), enc[0]);
+			assertTrue(candidates.isCandidate(ROWCOL[enc[1]][enc[2]], enc[0]));
+		}
+		assertTrue(rule.encodingToString(encs.get(0)).contains("contradiction"));
+
+		// Learned nogoods prune the same trials of a later find.
+		List<int[]> again = new Nishio(table).find(board, candidates);
+		assertEquals(encs.size(), again.size());
+		Nishio second = new Nishio(table);
+		second.find(board, candidates);
+		assertTrue(0 < second.getPruned());
+
+		int prevCount = candidates.getAllCount();
+		assertEquals(encs.size(), rule.update(board, solution, candidates, encs));
+		assertEquals(prevCount - encs.size(), candidates.getAllCount());
+	}
+
+	@Test
+	public void testSolvedBoard() throws ParseException {
+		Board board = new Board(SOLUTION);
+		Candidates candidates = new Candidates(board);
+		assertEquals(0, new Nishio(null).find(board, candidates).size());
+	}
+}
@@ -0,0 +1,76 @@
+package info.danbecker.ss.rules;
+
+import info.danbecker.ss.Board;
+import info.danbecker.ss.Candidates;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.text.ParseException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static info.danbecker.ss.Board.ROWCOL;
+import static info.danbecker.ss.rules.ForcingChainsTest.DIABOLICAL;
+import static info.danbecker.ss.rules.ForcingChainsTest.SOLUTION;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TemplatesTest {
+
+	@BeforeEach
+	public void setup() {
+	}
+
+	@Test
+	public void testTable() {
+		Set<List<Long>> unique = new HashSet<>();
+		for (int templatei = 0; templatei < Templates.TEMPLATE_COUNT; templatei++) {
+			long lo = Templates.TEMPLATE_LO[templatei];
+			long hi = Templates.TEMPLATE_HI[templatei];
+			assertEquals(9, Long.bitCount(lo) + Long.bitCount(hi));
+			unique.add(List.of(lo, hi));
+		}
+		assertEquals(Templates.TEMPLATE_COUNT, unique.size());
+		// First template is the diagonal of box starts, [0,0],[1,3],[2,6],...
+		assertEquals(1L | (1L << 12) | (1L << 24), Templates.TEMPLATE_LO[0] & ((1L << 27) - 1));
+	}
+
+	@Test
+	public void testFindUpdate() throws ParseException {
+		Board board = new Board(DIABOLICAL);
+		Board solution = new Board(SOLUTION);
+		Candidates candidates = new Candidates(board);
+		(new LegalCandidates()).update(board, null, candidates, null);
+
+		Templates rule = new Templates();
+		List<int[]> encs = rule.find(board, candidates);
+		assertNotNull(encs);
+		assertTrue(0 < encs.size());
+		for (int[] enc : encs) {
+			int solved = solution.get(ROWCOL[enc[2]][enc[3]]);
+			if (Templates.PLACE == enc[0])
+				assertEquals(solved, enc[1]);
+			else
+				assertNotEquals(solved, enc[1]);
+		}
+		for (int digit = 1; digit <= 9; digit++)
+			assertTrue(0 < rule.getSurvivorCount(digit));
+		assertTrue(rule.encodingToString(encs.get(0)).contains("templates remain"));
+
+		// Survivors only shrink, and nothing is left to find after the update.
+		int[] counts = new int[10];
+		for (int digit = 1; digit <= 9; digit++)
+			counts[digit] = rule.getSurvivorCount(digit);
+		assertTrue(0 < rule.update(board, solution, candidates, encs));
+		rule.find(board, candidates);
+		for (int digit = 1; digit <= 9; digit++)
+			assertTrue(rule.getSurvivorCount(digit) <= counts[digit]);
+
+		// A solved board leaves one template per digit.
+		Board solved = new Board(SOLUTION);
+		Candidates solvedCandidates = new Candidates(solved);
+		rule.find(solved, solvedCandidates);
+		rule.reset();
+		assertEquals(0, rule.find(solved, solvedCandidates).size());
+	}
+}
@@ -51,16 +51,16 @@ public class XChainTest {
 		// Test find with one digit
 		XChain rule = new XChain();
 		int testDigit = 7;
-		// Note that different trees have different coloring
-		// and can lead to the same rowCol candidate flagged as a problem.
+		// Note that different chains can lead to the same rowCol candidate flagged as a problem.
+		// The reverse chain is not reported.
 		List<int[]> encs = rule.find( board, candidates, testDigit );
 		assertNotNull(encs);
-		assertEquals(2, encs.size());
+		assertEquals(1, encs.size());
 
 		// Test find with all digits
 		encs = rule.find( board, candidates );
 		assertNotNull(encs);
-		assertEquals(2, encs.size());
+		assertEquals(1, encs.size());
 
 		// Test update
 		int prevEntries = candidates.getAllOccupiedCount();
@@ -136,12 +136,12 @@ public class XChainTest {
 		int testDigit = 3;
 		List<int[]> encs = rule.find(board, candidates, testDigit );
 		assertNotNull(encs);
-		assertEquals(8, encs.size());
+		assertEquals(4, encs.size());
 
 		// Test find with all digits
 		encs = rule.find(board, candidates );
 		assertNotNull(encs);
-		assertEquals(8, encs.size());
+		assertEquals(4, encs.size());
 
 		// Test update
 		int prevEntries = candidates.getAllOccupiedCount();
@@ -152,6 +152,26 @@ public class XChainTest {
 		assertEquals(prevCandidates, candidates.getAllCount() + updates);
 	}
 
+	@Test
+	public void testMaxLinks() throws ParseException {
+		Board board = new Board(XCHAIN_2);
+		Candidates candidates = new Candidates(board);
+		(new LegalCandidates()).update(board, null, candidates, null);
+
+		assertThrows( IllegalArgumentException.class, () -> new XChain( 1 ));
+		assertThrows( IllegalArgumentException.class, () -> new XChain( XChain.MAX_LINKS + 1 ));
+		assertEquals( XChain.DEFAULT_MAX_LINKS, new XChain().getMaxLinks() );
+
+		// Longer bounds find a superset of shorter bounds.
+		int prevSize = 0;
+		for ( int maxLinks = 2; maxLinks <= XChain.MAX_LINKS; maxLinks++ ) {
+			List<int[]> encs = new XChain( maxLinks ).find( board, candidates, 3 );
+			assertTrue( prevSize <= encs.size() );
+			prevSize = encs.size();
+		}
+		assertEquals( 4, prevSize );
+	}
+
 	@Test
 	public void testEncode()  {
 		// Encode tree as int []
@@ -2,11 +2,13 @@ package info.danbecker.ss.rules;
 
 import info.danbecker.ss.Board;
 import info.danbecker.ss.Candidates;
+import info.danbecker.ss.CellSet;
 import info.danbecker.ss.RowCol;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -170,6 +172,81 @@ public class XYChainTest {
 		assertEquals(prevCandidates, candidates.getAllCount() + updates);
 	}
 
+	@Test
+	public void testShortest() throws ParseException {
+		String[][] puzzles = {
+				{ XYCHAIN_1, XYCHAIN_1_SOLUTION },
+				{ XYCHAIN_2, XYCHAIN_2_SOLUTION },
+				{ XYCHAIN_3, XYCHAIN_3_SOLUTION } };
+		// Same updates as the tree search, with fewer chains.
+		int[] expectedEncs = { 5, 2, 3 };
+		int[] expectedUpdates = { 11, 8, 4 };
+		for ( int puzzlei = 0; puzzlei < puzzles.length; puzzlei++ ) {
+			Board board = new Board(puzzles[puzzlei][0]);
+			Candidates candidates = new Candidates(board);
+			(new LegalCandidates()).update(board, null, candidates, null);
+
+			List<int[]> treeEncs = new XYChain().find(board, candidates);
+			XYChain rule = new XYChain( XYChain.Mode.SHORTEST );
+			List<int[]> encs = rule.find(board, candidates);
+			assertEquals( expectedEncs[puzzlei], encs.size() );
+
+			// Shortest chain per elimination is no longer than any tree chain with that elimination.
+			for ( int[] treeEnc : treeEncs ) {
+				for ( int i = 4 + treeEnc[3] * 2; i < treeEnc.length; i += 2 ) {
+					int shortest = shortestLength( encs, treeEnc[2], treeEnc[i], treeEnc[i+1] );
+					if ( 0 < shortest )
+						assertTrue( shortest <= treeEnc[3] );
+				}
+			}
+
+			int updates = rule.update(board, new Board(puzzles[puzzlei][1]), candidates, encs);
+			assertEquals( expectedUpdates[puzzlei], updates );
+		}
+
+		// Node budget stops the search.
+		Board board = new Board(XYCHAIN_1);
+		Candidates candidates = new Candidates(board);
+		(new LegalCandidates()).update(board, null, candidates, null);
+		assertEquals( 0, new XYChain( XYChain.Mode.SHORTEST, 1 ).find(board, candidates).size());
+		assertThrows( IllegalArgumentException.class, () -> new XYChain( XYChain.Mode.SHORTEST, 0 ));
+	}
+
+	@Test
+	public void testShortestRevisit() {
+		// From start (4,0){12} with end digit 1, the chain (4,0),(0,0),(0,4),(0,8) reaches (0,8) leaving 3
+		// and cannot go on. The chain (4,0),(4,5),(4,8),(0,8) reaches (0,8) leaving 3 later in the search,
+		// and goes on to (0,0),(1,1), which eliminates 1 at (1,0).
+		Candidates candidates = new Candidates();
+		int[][] cells = { {4,0,1,2}, {0,0,2,3}, {0,4,3,4}, {0,8,4,3}, {4,5,2,5}, {4,8,5,4}, {1,1,2,1}, {1,0,1,7,8} };
+		for ( int[] cell : cells ) {
+			for ( int i = 2; i < cell.length; i++ )
+				candidates.addCandidate( ROWCOL[cell[0]][cell[1]], cell[i] );
+		}
+
+		XYChain rule = new XYChain( XYChain.Mode.SHORTEST );
+		XYChain.Scratch scratch = new XYChain.Scratch();
+		rule.scan( candidates, scratch );
+		List<int[]> encs = new ArrayList<>();
+		rule.shortestChain( scratch, CellSet.index( ROWCOL[4][0] ), 1, 1000, encs );
+		assertEquals( 1, encs.size() );
+		assertEquals( 1, encs.get( 0 )[2] );
+		assertEquals( 6, shortestLength( encs, 1, 1, 0 ));
+	}
+
+	/** Returns shortest chain length that eliminates the digit at this location, 0 if none. */
+	public static int shortestLength( List<int[]> encs, int digit, int row, int col ) {
+		int shortest = 0;
+		for ( int[] enc : encs ) {
+			if ( digit != enc[2] ) continue;
+			for ( int i = 4 + enc[3] * 2; i < enc.length; i += 2 ) {
+				if ( row == enc[i] && col == enc[i+1] && ( 0 == shortest || enc[3] < shortest ))
+					shortest = enc[3];
+			}
+		}
+		return shortest;
+	}
+
 	@Test
 	public void testEncode()  {
 		// Encode tree as int []
@@ -0,0 +1,109 @@
+package info.danbecker.ss.sink;
+
+import info.danbecker.ss.Board;
+import info.danbecker.ss.Candidates;
+import info.danbecker.ss.SudokuSolver;
+import info.danbecker.ss.rules.FindUpdateRule;
+import info.danbecker.ss.rules.ForcingChainsTest;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventSinkTest {
+	/** A rule that counts how often its encodings are formatted. */
+	static class CountingRule implements FindUpdateRule {
+		int formatted;
+
+		@Override
+		public int update( Board board, Board solution, Candidates candidates, List<int[]> encs, EventSink sink ) {
+			for ( int[] enc : encs )
+				sink.encoding( this, enc );
+			return encs.size();
+		}
+
+		@Override
+		public List<int[]> find( Board board, Candidates candidates ) {
+			return List.of( new int[]{ 1, 2, 3 }, new int[]{ 4, 5 } );
+		}
+
+		@Override
+		public String encodingToString( int[] enc ) {
+			formatted++;
+			return Arrays.toString( enc );
+		}
+
+		@Override
+		public String ruleName() {
+			return "CountingRule";
+		}
+	}
+
+	@Test
+	public void testLazyFormatting() {
+		CountingRule rule = new CountingRule();
+		List<int[]> encs = rule.find( null, null );
+
+		assertFalse( EventSink.none().isText() );
+		assertEquals( 2, rule.update( null, null, null, encs, EventSink.none() ));
+		assertEquals( 0, rule.formatted );
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		BinarySink binary = new BinarySink( bytes );
+		rule.update( null, null, null, encs, binary );
+		binary.printf( "dropped %s%n", "text" );
+		binary.flush();
+		assertEquals( 0, rule.formatted );
+		assertTrue( bytes.size() > 0 );
+
+		StringBuilder text = new StringBuilder();
+		TextSink sink = new TextSink( text );
+		assertTrue( sink.isText() );
+		rule.update( null, null, null, encs, sink );
+		assertEquals( 2, rule.formatted );
+		String nl = System.lineSeparator();
+		assertEquals( "CountingRule [1, 2, 3]" + nl + "CountingRule [4, 5]" + nl, text.toString() );
+	}
+
+	@Test
+	public void testBinaryRead() throws IOException {
+		CountingRule rule = new CountingRule();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		BinarySink binary = new BinarySink( bytes );
+		StringBuilder expected = new StringBuilder();
+		TextSink text = new TextSink( expected );
+		for ( EventSink sink : new EventSink[]{ binary, text } ) {
+			sink.status( 3, 7, 40, 215 );
+			rule.update( null, null, null, rule.find( null, null ), sink );
+			sink.status( 4, 0, 41, 200 );
+		}
+		binary.flush();
+
+		StringBuilder actual = new StringBuilder();
+		int records = BinarySink.read( new ByteArrayInputStream( bytes.toByteArray() ),
+			name -> rule.ruleName().equals( name ) ? rule : null, new TextSink( actual ));
+		assertEquals( 5, records ); // two status, one rule name, two encodings
+		assertEquals( expected.toString(), actual.toString() );
+
+		// Unknown rules print the encoding values.
+		actual.setLength( 0 );
+		BinarySink.read( new ByteArrayInputStream( bytes.toByteArray() ), name -> null, new TextSink( actual ));
+		assertTrue( actual.toString().contains( "CountingRule enc=[4, 5]" ));
+	}
+
+	@Test
+	public void testSolveSinks() throws ParseException {
+		StringBuilder text = new StringBuilder();
+		assertTrue( SudokuSolver.solve( ForcingChainsTest.DIABOLICAL, ForcingChainsTest.SOLUTION, null, new TextSink( text )));
+		assertTrue( text.toString().contains( "i0.0 Board entries=" ));
+		assertTrue( text.toString().contains( "Solving was successful" ));
+
+		assertTrue( SudokuSolver.solve( ForcingChainsTest.DIABOLICAL, ForcingChainsTest.SOLUTION, null, EventSink.none() ));
+	}
+}
@@ -0,0 +1,122 @@
+package info.danbecker.ss.tree;
+
+import info.danbecker.ss.Candidates;
+import info.danbecker.ss.Board;
+import info.danbecker.ss.Findings;
+import info.danbecker.ss.tree.TranspositionTable.Outcome;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static info.danbecker.ss.TestUtils.EMPTY;
+import static info.danbecker.ss.Board.ROWCOL;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TranspositionTableTest {
+	@BeforeEach
+	void setup() {
+	}
+
+	@Test
+	public void testBasics() throws ParseException {
+		int ruleId = Findings.ruleId( "TranspositionTableTest" );
+		TranspositionTable table = new TranspositionTable();
+		Candidates candidates = new Candidates( new Board( EMPTY ));
+		long hash = candidates.stateHash();
+		assertNull( table.probe( hash, null ));
+		assertEquals( 1, table.misses() );
+
+		Findings eliminations = new Findings();
+		eliminations.remove( ROWCOL[0][0], 5, ruleId, 0 ).remove( ROWCOL[8][8], 1, ruleId, 1 );
+		assertTrue( table.put( hash, Outcome.PROPAGATED, eliminations ));
+		eliminations.clear(); // stored copy is not affected
+
+		Findings into = new Findings();
+		assertEquals( Outcome.PROPAGATED, table.probe( hash, into ));
+		assertEquals( 2, into.size() );
+		assertEquals( ROWCOL[8][8], into.rowCol( 1 ));
+		assertEquals( 1, table.hits() );
+
+		// Another order of moves reaches the same state.
+		Candidates other = new Candidates( candidates );
+		candidates.removeCandidate( ROWCOL[0][0], 5 );
+		candidates.removeCandidate( ROWCOL[0][0], 6 );
+		other.removeCandidate( ROWCOL[0][0], 6 );
+		other.removeCandidate( ROWCOL[0][0], 5 );
+		assertTrue( table.put( candidates.stateHash(), Outcome.CONTRADICTION, null ));
+		assertEquals( Outcome.CONTRADICTION, table.probe( other.stateHash(), into ));
+		assertEquals( 2, into.size() );
+
+		// Replace
+		assertTrue( table.put( hash, Outcome.SOLVED, null ));
+		assertEquals( 2, table.size() );
+		assertEquals( Outcome.SOLVED, table.probe( hash, null ));
+
+		table.clear();
+		assertEquals( 0, table.size() );
+		assertFalse( table.contains( hash ));
+		assertThrows( IllegalArgumentException.class, () -> table.put( 0L, null, null ));
+		assertThrows( IllegalArgumentException.class, () -> new TranspositionTable( 100, 16 ));
+	}
+
+	@Test
+	public void testEviction() {
+		int ruleId = Findings.ruleId( "TranspositionTableTest" );
+		long maxBytes = 4096;
+		TranspositionTable table = new TranspositionTable( maxBytes, 1 );
+		SplittableRandom random = new SplittableRandom( 1 );
+		List<Long> hashes = new ArrayList<>();
+		Findings eliminations = new Findings();
+		for ( int i = 0; i < 1000; i++ ) {
+			long hash = random.nextLong();
+			hashes.add( hash );
+			eliminations.clear().remove( ROWCOL[i % 9][0], 1 + i % 9, ruleId, i );
+			assertTrue( table.put( hash, Outcome.PROPAGATED, eliminations ));
+			// Keep the first entry in use, so the clock passes it over.
+			assertEquals( Outcome.PROPAGATED, table.probe( hashes.get( 0 ), null ));
+			assertTrue( table.bytes() <= maxBytes );
+		}
+		assertTrue( 0 < table.evictions() );
+		assertTrue( table.size() < hashes.size() );
+		assertTrue( table.contains( hashes.get( 0 )));
+		assertTrue( table.contains( hashes.get( hashes.size() - 1 )));
+
+		// Every entry left can still be found after the deletes.
+		int found = 0;
+		for ( long hash : hashes )
+			if ( table.contains( hash )) found++;
+		assertEquals( table.size(), found );
+
+		// Too big for the cap.
+		eliminations.clear();
+		for ( int i = 0; i < 1000; i++ )
+			eliminations.remove( ROWCOL[0][0], 1, ruleId, i );
+		assertFalse( table.put( 0L, Outcome.PROPAGATED, eliminations ));
+	}
+
+	@Test
+	public void testThreads() throws InterruptedException {
+		TranspositionTable table = new TranspositionTable( 1 << 20, 4 );
+		Thread[] threads = new Thread[ 4 ];
+		for ( int threadi = 0; threadi < threads.length; threadi++ ) {
+			long seed = threadi;
+			threads[ threadi ] = new Thread( () -> {
+				SplittableRandom random = new SplittableRandom( seed );
+				for ( int i = 0; i < 10000; i++ ) {
+					long hash = random.nextLong();
+					table.put( hash, Outcome.CONTRADICTION, null );
+					table.probe( hash, null );
+				}
+			});
+			threads[ threadi ].start();
+		}
+		for ( Thread thread : threads )
+			thread.join();
+		assertEquals( 40000, table.hits() + table.misses() );
+		assertTrue( table.bytes() <= table.maxBytes() );
+	}
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import java.util.List;
 
 import static info.danbecker.ss.Board.ROWCOL;
+import static info.danbecker.ss.Utils.Unit;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class TreeNodeTest {
@@ -286,6 +287,53 @@ public class TreeNodeTest {
 		assertEquals( f12, f20.getParent());
 	}
 
+	@Test
+	public void testIndex() {
+		TreeNode<DigitData> root = new TreeNode<>(new DigitData( 3, ROWCOL[0][0], 0), 3);
+		TreeNode<DigitData> n01 = root.setChild( new DigitData( 3, ROWCOL[0][4], 1 ), Unit.ROW.ordinal() );
+		TreeNode<DigitData> n02 = n01.setChild( new DigitData( 3, ROWCOL[5][4], 0 ), Unit.COL.ordinal() );
+		TreeNode<DigitData> n10 = root.setChild( new DigitData( 3, ROWCOL[6][0], 1 ), Unit.COL.ordinal() );
+
+		assertNotNull( root.getIndex() );
+		assertSame( n02, root.findTreeNode( ROWCOL[5][4] ));
+		assertSame( root.findTreeNode( new DigitData.RowColMatch( n02.data )), root.findTreeNode( ROWCOL[5][4] ));
+		assertNull( root.findTreeNode( ROWCOL[8][8] ));
+		assertTrue( root.contains( ROWCOL[6][0] ));
+
+		// Same nodes, same order as tree traversal
+		DigitData outside = new DigitData( 3, ROWCOL[5][0], -1 );
+		List<TreeNode<DigitData>> seen = root.findSeenTreeNodes( outside.rowCol );
+		assertEquals( root.findTreeNodes( new DigitData.AnyUnitMatch( outside )), seen );
+		assertEquals( List.of( root, n02, n10 ), seen );
+		assertTrue( root.seesColor( outside.rowCol, 0 ));
+		assertTrue( root.seesColor( outside.rowCol, 1 ));
+		assertFalse( root.seesColor( ROWCOL[8][8], 0 ));
+
+		// Index follows setChild replacement of a subtree.
+		TreeNode<DigitData> n03 = root.setChild( new DigitData( 3, ROWCOL[0][7], 1 ), Unit.ROW.ordinal() );
+		assertFalse( root.contains( ROWCOL[0][4] ));
+		assertFalse( root.contains( ROWCOL[5][4] ));
+		assertSame( n03, root.findTreeNode( ROWCOL[0][7] ));
+		assertNull( n01.getParent() );
+		root.setChild( null, Unit.COL.ordinal() );
+		assertFalse( root.contains( ROWCOL[6][0] ));
+		assertEquals( root.findTreeNodes( new DigitData.AnyUnitMatch( outside )), root.findSeenTreeNodes( outside.rowCol ));
+		assertFalse( root.seesColor( outside.rowCol, 1 ));
+
+		// Duplicate locations fall back to traversal.
+		TreeNode<DigitData> dup = n03.setChild( new DigitData( 3, ROWCOL[0][0], 0 ), Unit.ROW.ordinal() );
+		assertFalse( root.getIndex().isExact() );
+		assertSame( root, root.findTreeNode( ROWCOL[0][0] ));
+		assertEquals( 3, root.findSeenTreeNodes( ROWCOL[0][1] ).size() );
+		n03.setChild( null, Unit.ROW.ordinal() );
+		assertTrue( root.getIndex().isExact() );
+		assertSame( root, root.findTreeNode( ROWCOL[0][0] ));
+		assertNull( dup.getParent() );
+
+		// Data without location has no index.
+		assertNull( getNaryTree().getIndex() );
+	}
+
 	/** Finds all nodes in the tree, even if they contain null data. */
 	public static class MatchAll implements Comparable<String> {
 		@Override